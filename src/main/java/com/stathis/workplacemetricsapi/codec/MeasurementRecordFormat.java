@@ -0,0 +1,55 @@
+package com.stathis.workplacemetricsapi.codec;
+
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.TRUNCATED_MEASUREMENT_RECORD;
+
+// fixed layout binary readings for gateways: a body is a plain sequence of 32 byte big-endian records of
+// epoch millis (int64), value (float64), metric id (int64) and department id (int64), no header and no separators.
+// There is no room for an idempotency key, measurements.idempotency.natural-key covers retries of these readings
+public final class MeasurementRecordFormat {
+
+    public static final String CONTENT_TYPE = "application/x-measurement-records";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(CONTENT_TYPE);
+    public static final int RECORD_SIZE = 32;
+
+    private MeasurementRecordFormat() {
+    }
+
+    // fills record with the next one, false once the body ended on a record boundary
+    public static boolean readRecord(InputStream inputStream, byte[] record) throws IOException {
+        int read = inputStream.readNBytes(record, 0, RECORD_SIZE);
+        if (read == 0) {
+            return false;
+        }
+        if (read < RECORD_SIZE) {
+            throw new InvalidRequestException(TRUNCATED_MEASUREMENT_RECORD);
+        }
+        return true;
+    }
+
+    public static MeasurementDTO decode(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        return MeasurementDTO.builder()
+                .measurementTimestamp(Instant.ofEpochMilli(buffer.getLong()).atZone(ZoneId.systemDefault()))
+                .value(buffer.getDouble())
+                .metricId(buffer.getLong())
+                .departmentId(buffer.getLong())
+                .build();
+    }
+
+    public static void encode(MeasurementDTO measurementDTO, ByteBuffer buffer) {
+        buffer.putLong(measurementDTO.getMeasurementTimestamp().toInstant().toEpochMilli())
+                .putDouble(measurementDTO.getValue())
+                .putLong(measurementDTO.getMetricId())
+                .putLong(measurementDTO.getDepartmentId());
+    }
+}
@@ -0,0 +1,101 @@
+package com.stathis.workplacemetricsapi.codec;
+
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat.RECORD_SIZE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.SINGLE_MEASUREMENT_RECORD;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.MAX_BATCH_SIZE;
+
+// reads MeasurementDTO and List<MeasurementDTO> request bodies sent as measurement records, responses stay JSON.
+// No endpoint returns measurement DTOs, so the converter never offers to write and MVC never calls write
+public class MeasurementRecordHttpMessageConverter implements GenericHttpMessageConverter<Object> {
+
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES = Collections.singletonList(MeasurementRecordFormat.MEDIA_TYPE);
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return canRead(clazz, null, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return (type == MeasurementDTO.class || isMeasurementList(type))
+                && (mediaType == null || MeasurementRecordFormat.MEDIA_TYPE.includes(mediaType));
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return readSingle(inputMessage.getBody());
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return isMeasurementList(type) ? readList(inputMessage.getBody()) : readSingle(inputMessage.getBody());
+    }
+
+    @Override
+    public void write(Object object, MediaType contentType, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException(MeasurementRecordFormat.MEDIA_TYPE + " is only read");
+    }
+
+    @Override
+    public void write(Object object, Type type, MediaType contentType, HttpOutputMessage outputMessage) {
+        write(object, contentType, outputMessage);
+    }
+
+    private static MeasurementDTO readSingle(InputStream inputStream) throws IOException {
+        byte[] record = new byte[RECORD_SIZE];
+        if (!MeasurementRecordFormat.readRecord(inputStream, record) || inputStream.read() != -1) {
+            throw new InvalidRequestException(SINGLE_MEASUREMENT_RECORD);
+        }
+        return MeasurementRecordFormat.decode(record);
+    }
+
+    // one record past the limit is enough for saveMeasurements to turn the batch down, the rest is not read
+    private static List<MeasurementDTO> readList(InputStream inputStream) throws IOException {
+        List<MeasurementDTO> measurementDTOs = new ArrayList<>();
+        byte[] record = new byte[RECORD_SIZE];
+        while (measurementDTOs.size() <= MAX_BATCH_SIZE && MeasurementRecordFormat.readRecord(inputStream, record)) {
+            measurementDTOs.add(MeasurementRecordFormat.decode(record));
+        }
+        return measurementDTOs;
+    }
+
+    private static boolean isMeasurementList(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        return parameterizedType.getRawType() == List.class
+                && parameterizedType.getActualTypeArguments()[0] == MeasurementDTO.class;
+    }
+}
@@ -0,0 +1,15 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.aggregation.cache")
+public class AggregationCacheProperties {
+
+    private long maximumSize = 10_000;
+    private Duration closedWindowTtl = Duration.ofHours(24);
+    private Duration openWindowTtl = Duration.ofMinutes(1);
+}
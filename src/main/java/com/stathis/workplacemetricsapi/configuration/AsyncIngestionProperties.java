@@ -0,0 +1,20 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.ingestion.async")
+public class AsyncIngestionProperties {
+
+    private boolean enabled = false;
+    private int queueCapacity = 10_000;
+    private int writerThreads = 2;
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(200);
+    private int flushAttempts = 5;
+    private Duration retryBackoff = Duration.ofMillis(100);
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,35 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@EnableCaching
+@Configuration
+@EnableConfigurationProperties({CacheProperties.class, AggregationCacheProperties.class,
+        MeasurementHotWindowProperties.class, ReplicaDataSourceProperties.class})
+public class CacheConfiguration {
+
+    public static final String DEPARTMENTS_CACHE = "departments";
+    public static final String METRICS_CACHE = "metrics";
+    public static final String AGGREGATIONS_CACHE = "aggregations";
+
+    // evictions inside a transaction wait for its commit, otherwise a read in between (or one served by a lagging
+    // replica) caches the old row again until it expires
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        if (cacheProperties.getCaffeine().getSpec() != null) {
+            caffeineCacheManager.setCacheSpecification(cacheProperties.getCaffeine().getSpec());
+        }
+        if (!cacheProperties.getCacheNames().isEmpty()) {
+            caffeineCacheManager.setCacheNames(cacheProperties.getCacheNames());
+        }
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
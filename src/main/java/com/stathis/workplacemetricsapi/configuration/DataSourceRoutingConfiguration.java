@@ -0,0 +1,56 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import com.stathis.workplacemetricsapi.datasource.ReplicaHeartbeat;
+import com.stathis.workplacemetricsapi.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// without a replica the auto-configured spring.datasource pool is used for everything
+@Configuration
+@ConditionalOnProperty(prefix = "measurements.replica", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class DataSourceRoutingConfiguration {
+
+    public static final String PRIMARY_POOL = "primary";
+    public static final String REPLICA_POOL = "replica";
+
+    // Flyway, JPA and JdbcTemplate all use this one, outside of read only transactions it is the primary
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                               ReplicaDataSourceProperties properties,
+                                               Environment environment,
+                                               MeterRegistry meterRegistry) {
+        HikariDataSource primaryDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primaryDataSource));
+        primaryDataSource.setPoolName(PRIMARY_POOL);
+        primaryDataSource.setMetricRegistry(meterRegistry);
+
+        HikariDataSource replicaDataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        replicaDataSource.setPoolName(REPLICA_POOL);
+        replicaDataSource.setReadOnly(true);
+        replicaDataSource.setMetricRegistry(meterRegistry);
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, properties.getMaxLag());
+    }
+
+    @Bean
+    public ReplicaHeartbeat replicaHeartbeat(ReplicaRoutingDataSource replicaRoutingDataSource, MeterRegistry meterRegistry) {
+        return new ReplicaHeartbeat(replicaRoutingDataSource, meterRegistry);
+    }
+}
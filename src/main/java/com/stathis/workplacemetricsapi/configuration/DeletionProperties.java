@@ -0,0 +1,14 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.deletion")
+public class DeletionProperties {
+
+    private int chunkSize = 5_000;
+    private Duration jobRetention = Duration.ofHours(24);
+}
@@ -0,0 +1,31 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import com.stathis.workplacemetricsapi.imports.H2MeasurementBulkLoader;
+import com.stathis.workplacemetricsapi.imports.MeasurementBulkLoader;
+import com.stathis.workplacemetricsapi.imports.MySqlMeasurementBulkLoader;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableConfigurationProperties({AsyncIngestionProperties.class, MeasurementStreamProperties.class, DeletionProperties.class,
+        MeasurementImportProperties.class, MeasurementIdempotencyProperties.class, MeasurementLineProtocolProperties.class,
+        MeasurementStreamIngestionProperties.class})
+public class IngestionConfiguration {
+
+    private static final String H2 = "H2";
+
+    // MySQL and MariaDB take LOAD DATA LOCAL INFILE, the in-memory database of the tests reads the file with CSVREAD
+    @Bean
+    public MeasurementBulkLoader measurementBulkLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (H2.equalsIgnoreCase(productName)) {
+            return new H2MeasurementBulkLoader(jdbcTemplate);
+        }
+        return new MySqlMeasurementBulkLoader(jdbcTemplate, transactionManager);
+    }
+}
@@ -0,0 +1,16 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.hot-window")
+public class MeasurementHotWindowProperties {
+
+    private boolean enabled = true;
+    // whole days are kept, the window starts at midnight this long ago
+    private Duration window = Duration.ofDays(7);
+    private String evictionCron = "0 0 * * * *";
+}
@@ -0,0 +1,15 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.idempotency")
+public class MeasurementIdempotencyProperties {
+
+    // keys the filter is sized for, past that the share of needless lookups grows but nothing is missed
+    private int expectedKeys = 1_000_000;
+    private double falsePositiveRate = 0.01;
+    // readings sent without a key are keyed by metric, department and timestamp
+    private boolean naturalKey = false;
+}
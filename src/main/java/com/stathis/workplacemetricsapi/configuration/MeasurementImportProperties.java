@@ -0,0 +1,17 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.import")
+public class MeasurementImportProperties {
+
+    // uploads, the staging files handed to the bulk loader and the rejected rows of every job are kept here
+    private String directory = "./data/imports";
+    // staged rows moved into measurements per transaction, a multiple of the measurement id allocation size
+    private int chunkSize = 10_000;
+    private Duration jobRetention = Duration.ofHours(24);
+}
@@ -0,0 +1,24 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.line-protocol")
+public class MeasurementLineProtocolProperties {
+
+    private boolean enabled = false;
+    private String bindAddress = "0.0.0.0";
+    // 0 picks a free port, the tests use that
+    private int port = 8094;
+    private int maxConnections = 1_000;
+    private int maxLineLength = 256;
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(200);
+    // a connection is not read while this many of its batches wait to be saved, TCP then slows the sender down
+    private int maxPendingBatches = 2;
+    private int writerThreads = 2;
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,13 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.partitioning")
+public class MeasurementPartitionProperties {
+
+    private boolean enabled = true;
+    private String cron = "0 30 0 * * *";
+    private int monthsAhead = 3;
+}
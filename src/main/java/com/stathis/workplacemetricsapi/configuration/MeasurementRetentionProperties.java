@@ -0,0 +1,17 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.retention")
+public class MeasurementRetentionProperties {
+
+    private boolean enabled = true;
+    private String cron = "0 0 1 * * *";
+    // raw readings of whole weeks older than this are removed once their rollups are complete
+    private Duration rawAge = Duration.ofDays(30);
+    private int chunkSize = 5_000;
+}
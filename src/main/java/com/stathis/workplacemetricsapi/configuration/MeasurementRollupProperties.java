@@ -0,0 +1,15 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.rollups")
+public class MeasurementRollupProperties {
+
+    // rebuilds the weeks after the compaction boundary whose oldest readings have no rollups, e.g. readings saved
+    // before rollups were introduced. Cheap once every week is covered, two index lookups per week
+    private boolean backfillOnStartup = true;
+    // hourly sketches of new readings are merged into the database this often, percentiles lag by as much
+    private String sketchFlushCron = "* * * * * *";
+}
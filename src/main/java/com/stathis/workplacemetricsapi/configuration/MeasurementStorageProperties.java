@@ -0,0 +1,19 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.storage")
+public class MeasurementStorageProperties {
+
+    public enum Backend {
+        JPA,
+        CHUNK_FILE
+    }
+
+    // the database stays the system of record, CHUNK_FILE additionally keeps compressed per series files for range reads
+    private Backend backend = Backend.JPA;
+    private String directory = "./data/series";
+    private int maxPointsPerChunk = 65_536;
+}
@@ -0,0 +1,12 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.ingestion.stream")
+public class MeasurementStreamIngestionProperties {
+
+    // longer lines of a newline delimited body are rejected without being buffered
+    private int maxLineLength = 4_096;
+}
@@ -0,0 +1,21 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.stream")
+public class MeasurementStreamProperties {
+
+    public enum OverflowPolicy {
+        DROP,
+        DISCONNECT
+    }
+
+    private int bufferSize = 256;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private int senderThreads = 4;
+    private Duration timeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,19 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "measurements.replica")
+public class ReplicaDataSourceProperties {
+
+    // read only transactions go to the replica while it is reachable and no further behind than max-lag
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private Duration maxLag = Duration.ofSeconds(5);
+    private String heartbeatCron = "* * * * * *";
+}
@@ -0,0 +1,12 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@EnableScheduling
+@Configuration
+@EnableConfigurationProperties({MeasurementPartitionProperties.class, MeasurementRetentionProperties.class,
+        MeasurementRollupProperties.class})
+public class SchedulingConfiguration {
+}
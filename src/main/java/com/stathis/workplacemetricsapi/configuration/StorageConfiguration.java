@@ -0,0 +1,27 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.storage.ChunkFileMeasurementPointStore;
+import com.stathis.workplacemetricsapi.storage.JpaMeasurementPointStore;
+import com.stathis.workplacemetricsapi.storage.MeasurementPointStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+@Configuration
+@EnableConfigurationProperties(MeasurementStorageProperties.class)
+public class StorageConfiguration {
+
+    @Bean
+    public MeasurementPointStore measurementPointStore(MeasurementRepository measurementRepository,
+                                                       MeasurementStorageProperties properties) {
+        JpaMeasurementPointStore jpaStore = new JpaMeasurementPointStore(measurementRepository);
+        if (properties.getBackend() == MeasurementStorageProperties.Backend.JPA) {
+            return jpaStore;
+        }
+        return new ChunkFileMeasurementPointStore(jpaStore, measurementRepository,
+                Paths.get(properties.getDirectory()), properties.getMaxPointsPerChunk());
+    }
+}
@@ -0,0 +1,18 @@
+package com.stathis.workplacemetricsapi.configuration;
+
+import com.stathis.workplacemetricsapi.codec.MeasurementRecordHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebMvcConfiguration implements WebMvcConfigurer {
+
+    // picked by Content-Type on the ingest endpoints, JSON stays the default
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MeasurementRecordHttpMessageConverter());
+    }
+}
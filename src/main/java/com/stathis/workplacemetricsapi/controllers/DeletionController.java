@@ -0,0 +1,24 @@
+package com.stathis.workplacemetricsapi.controllers;
+
+import com.stathis.workplacemetricsapi.model.DeletionJob;
+import com.stathis.workplacemetricsapi.services.ResourceDeletionService;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(DeletionController.BASE_URL)
+@AllArgsConstructor
+public class DeletionController {
+
+    public static final String BASE_URL = "/api/deletions";
+
+    private final ResourceDeletionService resourceDeletionService;
+
+    @GetMapping("/{jobId}")
+    public DeletionJob getDeletionJob(@PathVariable("jobId") String jobId) {
+        return resourceDeletionService.getDeletionJob(jobId);
+    }
+}
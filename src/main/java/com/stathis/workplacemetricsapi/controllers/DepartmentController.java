@@ -1,11 +1,14 @@
 package com.stathis.workplacemetricsapi.controllers;
 
 import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.model.DeletionJob;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import com.stathis.workplacemetricsapi.services.DepartmentService;
+import com.stathis.workplacemetricsapi.services.ResourceDeletionService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,6 +20,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping(DepartmentController.BASE_URL)
 @AllArgsConstructor
@@ -25,6 +30,7 @@ public class DepartmentController {
     public static final String BASE_URL = "/api/departments";
 
     private final DepartmentService departmentService;
+    private final ResourceDeletionService resourceDeletionService;
 
     @GetMapping
     public ResponseEntityWrapper<Department> getAllDepartments(@RequestParam(name = "page", defaultValue = "0") Integer page,
@@ -49,7 +55,10 @@ public class DepartmentController {
     }
 
     @DeleteMapping("/{id}")
-    public void deleteDepartment(@PathVariable("id") Long id) {
-        departmentService.deleteDepartmentById(id);
+    public ResponseEntity<DeletionJob> deleteDepartment(@PathVariable("id") Long id) {
+        DeletionJob deletionJob = resourceDeletionService.deleteDepartment(id);
+        return ResponseEntity.accepted()
+                .location(URI.create(DeletionController.BASE_URL + "/" + deletionJob.getJobId()))
+                .body(deletionJob);
     }
 }
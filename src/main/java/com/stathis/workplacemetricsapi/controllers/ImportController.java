@@ -0,0 +1,48 @@
+package com.stathis.workplacemetricsapi.controllers;
+
+import com.stathis.workplacemetricsapi.model.ImportJob;
+import com.stathis.workplacemetricsapi.services.MeasurementImportService;
+import lombok.AllArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@RequestMapping(ImportController.BASE_URL)
+@AllArgsConstructor
+public class ImportController {
+
+    public static final String BASE_URL = "/api/imports";
+    public static final String CSV_CONTENT_TYPE = "text/csv";
+    public static final String REJECTED_ROWS_PATH = "/rejected-rows";
+
+    private final MeasurementImportService measurementImportService;
+
+    // rows of timestamp, value, metric type and department name, the body is read raw so files of any size fit
+    @PostMapping(consumes = CSV_CONTENT_TYPE)
+    public ResponseEntity<ImportJob> submitImport(InputStream inputStream) throws IOException {
+        ImportJob importJob = measurementImportService.submitImport(inputStream);
+        return ResponseEntity.accepted()
+                .location(URI.create(BASE_URL + "/" + importJob.getJobId()))
+                .body(importJob);
+    }
+
+    @GetMapping("/{jobId}")
+    public ImportJob getImportJob(@PathVariable("jobId") String jobId) {
+        return measurementImportService.getImportJob(jobId);
+    }
+
+    @GetMapping(value = "/{jobId}" + REJECTED_ROWS_PATH, produces = CSV_CONTENT_TYPE)
+    public Resource getRejectedRows(@PathVariable("jobId") String jobId) {
+        return new FileSystemResource(measurementImportService.getRejectedRowsFile(jobId));
+    }
+}
@@ -1,24 +1,50 @@
 package com.stathis.workplacemetricsapi.controllers;
 
+import com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat;
 import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
 import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.ExportFormat;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
 import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementSeries;
+import com.stathis.workplacemetricsapi.model.MeasurementStreamResult;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
+import com.stathis.workplacemetricsapi.services.LatestMeasurementStore;
+import com.stathis.workplacemetricsapi.services.MeasurementExportService;
+import com.stathis.workplacemetricsapi.services.MeasurementSeriesService;
+import com.stathis.workplacemetricsapi.services.MeasurementStreamHub;
+import com.stathis.workplacemetricsapi.services.MeasurementStreamIngestionService;
 import com.stathis.workplacemetricsapi.services.MeasurementService;
+import com.stathis.workplacemetricsapi.services.MeasurementWriteBehindService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.UNSUPPORTED_CONTENT_ENCODING;
 
 @RestController
 @RequestMapping(MeasurementController.BASE_URL)
@@ -26,31 +52,141 @@ import java.time.LocalDate;
 public class MeasurementController {
 
     public static final String BASE_URL = "/api/measurements";
+    public static final int DEFAULT_CURSOR_LIMIT = 10;
+    public static final String EXPORT_FILE_NAME = "measurements.";
+    public static final String FLAT_VIEW = "flat";
+    public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    public static final String GZIP_ENCODING = "gzip";
+    public static final String IDENTITY_ENCODING = "identity";
 
     private final MeasurementService measurementService;
+    private final MeasurementWriteBehindService measurementWriteBehindService;
+    private final MeasurementExportService measurementExportService;
+    private final MeasurementSeriesService measurementSeriesService;
+    private final LatestMeasurementStore latestMeasurementStore;
+    private final MeasurementStreamHub measurementStreamHub;
+    private final MeasurementStreamIngestionService measurementStreamIngestionService;
 
     @GetMapping
-    public ResponseEntityWrapper<Measurement> getAllMeasurements(@RequestParam(name = "page", defaultValue = "0") Integer page,
-                                                                 @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public ResponseEntityWrapper<?> getAllMeasurements(@RequestParam(name = "page", defaultValue = "0") Integer page,
+                                                       @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                       @RequestParam(name = "count", defaultValue = "true") Boolean count,
+                                                       @RequestParam(name = "after", required = false) String after,
+                                                       @RequestParam(name = "limit", required = false) Integer limit,
+                                                       @RequestParam(name = "view", required = false) String view) {
+        boolean flat = FLAT_VIEW.equalsIgnoreCase(view);
+        if (after != null || limit != null) {
+            int cursorLimit = limit != null ? limit : DEFAULT_CURSOR_LIMIT;
+            return flat
+                    ? measurementService.getMeasurementRecordsAfter(after, cursorLimit)
+                    : measurementService.getMeasurementsAfter(after, cursorLimit);
+        }
+        if (flat) {
+            return measurementService.getMeasurementRecords(PageRequest.of(page, size));
+        }
+        if (!count) {
+            return measurementService.getMeasurementSlice(PageRequest.of(page, size));
+        }
         return measurementService.getAllMeasurements(PageRequest.of(page, size));
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMeasurements(@RequestParam("metricId") Long metricId,
+                                                                    @RequestParam("departmentId") Long departmentId,
+                                                                    @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime fromDateTime,
+                                                                    @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime toDateTime,
+                                                                    @RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+        measurementExportService.validateExport(metricId, departmentId, fromDateTime, toDateTime);
+
+        StreamingResponseBody body = outputStream -> measurementExportService.exportMeasurements(metricId,
+                departmentId,
+                fromDateTime,
+                toDateTime,
+                exportFormat,
+                outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(EXPORT_FILE_NAME + exportFormat.getValue())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @GetMapping("/latest")
+    public MeasurementRecord getLatestMeasurement(@RequestParam("metricId") Long metricId,
+                                                  @RequestParam("departmentId") Long departmentId) {
+        return latestMeasurementStore.getLatestMeasurement(metricId, departmentId);
+    }
+
+    @GetMapping("/latest/all")
+    public List<MeasurementRecord> getAllLatestMeasurements() {
+        return latestMeasurementStore.getAllLatestMeasurements();
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMeasurements(@RequestParam(name = "metricId", required = false) Long metricId,
+                                         @RequestParam(name = "departmentId", required = false) Long departmentId) {
+        return measurementStreamHub.subscribe(metricId, departmentId);
+    }
+
     @GetMapping("/{id}")
     public Measurement getMeasurementById(@PathVariable("id") Long id) {
         return measurementService.getMeasurementById(id);
     }
 
+    // the single and batch saves take measurement records as well, see MeasurementRecordFormat
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public Measurement saveMeasurement(@RequestBody MeasurementDTO measurementDTO) {
-        return measurementService.saveMeasurement(measurementDTO);
+    public ResponseEntity<Measurement> saveMeasurement(@RequestBody MeasurementDTO measurementDTO) {
+        if (measurementWriteBehindService.isEnabled()) {
+            measurementWriteBehindService.enqueue(measurementDTO);
+            return ResponseEntity.accepted().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(measurementService.saveMeasurement(measurementDTO));
+    }
+
+    @PostMapping("/batch")
+    public MeasurementBatchResult saveMeasurements(@RequestBody List<MeasurementDTO> measurementDTOs) {
+        return measurementService.saveMeasurements(measurementDTOs);
+    }
+
+    // one MeasurementDTO per line, read while the body is still arriving
+    @PostMapping(value = "/stream", consumes = NDJSON_CONTENT_TYPE)
+    public MeasurementStreamResult saveMeasurementStream(@RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                         InputStream inputStream) throws IOException {
+        return measurementStreamIngestionService.saveMeasurementStream(inputStream, isGzip(contentEncoding));
+    }
+
+    @PostMapping(value = "/stream", consumes = MeasurementRecordFormat.CONTENT_TYPE)
+    public MeasurementStreamResult saveMeasurementRecordStream(@RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                               InputStream inputStream) throws IOException {
+        return measurementStreamIngestionService.saveMeasurementRecordStream(inputStream, isGzip(contentEncoding));
     }
 
     @GetMapping("/daily")
-    public ResponseEntityWrapper<Measurement> getDailyMeasurementsByMetricAndDepartment(@RequestParam(name = "page", defaultValue = "0") Integer page,
-                                                                                        @RequestParam(name = "size", defaultValue = "10") Integer size,
-                                                                                        @RequestParam(name = "metricId", required = false) Long metricId,
-                                                                                        @RequestParam(name = "departmentId", required = false) Long departmentId) {
+    public ResponseEntityWrapper<?> getDailyMeasurementsByMetricAndDepartment(@RequestParam(name = "page", defaultValue = "0") Integer page,
+                                                                              @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                              @RequestParam(name = "metricId", required = false) Long metricId,
+                                                                              @RequestParam(name = "departmentId", required = false) Long departmentId,
+                                                                              @RequestParam(name = "count", defaultValue = "true") Boolean count,
+                                                                              @RequestParam(name = "after", required = false) String after,
+                                                                              @RequestParam(name = "limit", required = false) Integer limit,
+                                                                              @RequestParam(name = "view", required = false) String view) {
+        boolean flat = FLAT_VIEW.equalsIgnoreCase(view);
+        if (after != null || limit != null) {
+            int cursorLimit = limit != null ? limit : DEFAULT_CURSOR_LIMIT;
+            return flat
+                    ? measurementService.getDailyMeasurementRecordsByMetricAndDepartmentAfter(after, cursorLimit, metricId, departmentId)
+                    : measurementService.getDailyMeasurementsByMetricAndDepartmentAfter(after, cursorLimit, metricId, departmentId);
+        }
+        if (flat) {
+            return measurementService.getDailyMeasurementRecordsByMetricAndDepartment(PageRequest.of(page, size), metricId, departmentId);
+        }
+        if (!count) {
+            return measurementService.getDailyMeasurementSliceByMetricAndDepartment(PageRequest.of(page, size), metricId, departmentId);
+        }
         return measurementService.getDailyMeasurementsByMetricAndDepartment(PageRequest.of(page, size), metricId, departmentId);
     }
 
@@ -67,4 +203,29 @@ public class MeasurementController {
                                                        @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate requestedDate) {
         return measurementService.getWeeklyAggregatedResults(metricId, departmentId, requestedDate);
     }
+
+    @GetMapping("/aggregated/matrix")
+    public AggregatedMatrix getAggregatedMatrix(@RequestParam(name = "metricIds", defaultValue = "all") String metricIds,
+                                                @RequestParam(name = "departmentIds", defaultValue = "all") String departmentIds,
+                                                @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate requestedDate,
+                                                @RequestParam(name = "window", defaultValue = "daily") String window) {
+        return measurementService.getAggregatedMatrix(metricIds, departmentIds, requestedDate, window);
+    }
+
+    @GetMapping("/series")
+    public MeasurementSeries getSeries(@RequestParam("metricId") Long metricId,
+                                       @RequestParam("departmentId") Long departmentId,
+                                       @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime fromDateTime,
+                                       @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime toDateTime,
+                                       @RequestParam("interval") String interval) {
+        return measurementSeriesService.getSeries(metricId, departmentId, fromDateTime, toDateTime, interval);
+    }
+
+    private static boolean isGzip(String contentEncoding) {
+        if (contentEncoding != null && !GZIP_ENCODING.equalsIgnoreCase(contentEncoding)
+                && !IDENTITY_ENCODING.equalsIgnoreCase(contentEncoding)) {
+            throw new InvalidRequestException(UNSUPPORTED_CONTENT_ENCODING + contentEncoding);
+        }
+        return GZIP_ENCODING.equalsIgnoreCase(contentEncoding);
+    }
 }
@@ -1,11 +1,14 @@
 package com.stathis.workplacemetricsapi.controllers;
 
 import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.model.DeletionJob;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import com.stathis.workplacemetricsapi.services.MetricService;
+import com.stathis.workplacemetricsapi.services.ResourceDeletionService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,6 +20,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping(MetricController.BASE_URL)
 @AllArgsConstructor
@@ -25,6 +30,7 @@ public class MetricController {
     public static final String BASE_URL = "/api/metrics";
 
     private final MetricService metricService;
+    private final ResourceDeletionService resourceDeletionService;
 
     @GetMapping
     public ResponseEntityWrapper<Metric> getAllMetrics(@RequestParam(name = "page", defaultValue = "0") Integer page,
@@ -49,7 +55,10 @@ public class MetricController {
     }
 
     @DeleteMapping("/{id}")
-    public void deleteMetric(@PathVariable("id") Long id) {
-        metricService.deleteMetricById(id);
+    public ResponseEntity<DeletionJob> deleteMetric(@PathVariable("id") Long id) {
+        DeletionJob deletionJob = resourceDeletionService.deleteMetric(id);
+        return ResponseEntity.accepted()
+                .location(URI.create(DeletionController.BASE_URL + "/" + deletionJob.getJobId()))
+                .body(deletionJob);
     }
 }
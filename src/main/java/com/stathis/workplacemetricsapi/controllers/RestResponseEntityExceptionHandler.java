@@ -1,9 +1,12 @@
 package com.stathis.workplacemetricsapi.controllers;
 
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.exception.ResourceConflictException;
 import com.stathis.workplacemetricsapi.exception.ResourceConstraintViolationException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotUpdatedException;
+import com.stathis.workplacemetricsapi.exception.ServiceOverloadedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +18,8 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @ControllerAdvice
 public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
+    public static final String RETRY_AFTER_SECONDS = "1";
+
     @ExceptionHandler({ResourceNotFoundException.class,
             ResourceNotDeletedException.class,
             ResourceNotUpdatedException.class})
@@ -22,8 +27,21 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
         return new ResponseEntity<>(exception.getMessage(), new HttpHeaders(), HttpStatus.NOT_FOUND);
     }
 
-    @ExceptionHandler(ResourceConstraintViolationException.class)
+    @ExceptionHandler({ResourceConstraintViolationException.class,
+            InvalidRequestException.class})
     public ResponseEntity<Object> handleBadRequest(Exception exception, WebRequest request) {
         return new ResponseEntity<>(exception.getMessage(), new HttpHeaders(), HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(ResourceConflictException.class)
+    public ResponseEntity<Object> handleConflict(Exception exception, WebRequest request) {
+        return new ResponseEntity<>(exception.getMessage(), new HttpHeaders(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleServiceUnavailable(Exception exception, WebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return new ResponseEntity<>(exception.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
@@ -0,0 +1,28 @@
+package com.stathis.workplacemetricsapi.controllers;
+
+import com.stathis.workplacemetricsapi.model.RollupRebuildResult;
+import com.stathis.workplacemetricsapi.services.MeasurementRollupService;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping(RollupController.BASE_URL)
+@AllArgsConstructor
+public class RollupController {
+
+    public static final String BASE_URL = "/api/rollups";
+
+    private final MeasurementRollupService measurementRollupService;
+
+    @PostMapping("/rebuild")
+    public RollupRebuildResult rebuildRollups(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                                              @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        return measurementRollupService.rebuildRollups(fromDate, toDate);
+    }
+}
@@ -0,0 +1,55 @@
+package com.stathis.workplacemetricsapi.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+// the primary stamps the heartbeat row and the replica is asked for its copy, the difference is the replication lag
+@Slf4j
+public class ReplicaHeartbeat {
+
+    public static final String LAG_METRIC = "datasource.replica.lag";
+    public static final String UPDATE_HEARTBEAT = "UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1";
+    public static final String SELECT_HEARTBEAT = "SELECT beat_at FROM replica_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaHeartbeat(ReplicaRoutingDataSource routingDataSource, MeterRegistry meterRegistry) {
+        this.primaryJdbcTemplate = new JdbcTemplate(routingDataSource.getPrimaryDataSource());
+        this.replicaJdbcTemplate = new JdbcTemplate(routingDataSource.getReplicaDataSource());
+        this.routingDataSource = routingDataSource;
+
+        Gauge.builder(LAG_METRIC, routingDataSource, ReplicaHeartbeat::lagSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${measurements.replica.heartbeat-cron:* * * * * *}")
+    public void beat() {
+        long now = System.currentTimeMillis();
+        try {
+            primaryJdbcTemplate.update(UPDATE_HEARTBEAT, now);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to write the replica heartbeat: {}", ex.getMessage());
+        }
+
+        try {
+            Long beatAt = replicaJdbcTemplate.queryForObject(SELECT_HEARTBEAT, Long.class);
+            routingDataSource.replicaLagMeasured(Duration.ofMillis(Math.max(0, now - beatAt)));
+        } catch (DataAccessException ex) {
+            routingDataSource.replicaFailed(ex);
+        }
+    }
+
+    private static double lagSeconds(ReplicaRoutingDataSource routingDataSource) {
+        Duration lag = routingDataSource.getReplicaLag();
+        return lag == null ? Double.NaN : lag.toMillis() / 1_000.0;
+    }
+}
@@ -0,0 +1,132 @@
+package com.stathis.workplacemetricsapi.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// connections are only taken from a pool on their first statement, the read only flag of a transaction is not known before it has begun.
+// it is the only DataSource bean, pools registered as beans of their own would form a cycle with the datasource initializer
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final DataSource primaryDataSource;
+    private final DataSource replicaDataSource;
+    private final Duration maxLag;
+
+    // null until the first heartbeat has been read back from the replica, and again after a replica failure
+    private volatile Duration replicaLag;
+
+    public ReplicaRoutingDataSource(DataSource primaryDataSource, DataSource replicaDataSource, Duration maxLag) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicaDataSource = replicaDataSource;
+        this.maxLag = maxLag;
+
+        Router router = new Router();
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(Route.PRIMARY, primaryDataSource);
+        targetDataSources.put(Route.REPLICA, replicaDataSource);
+        router.setTargetDataSources(targetDataSources);
+        router.setDefaultTargetDataSource(primaryDataSource);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    public DataSource getPrimaryDataSource() {
+        return primaryDataSource;
+    }
+
+    public DataSource getReplicaDataSource() {
+        return replicaDataSource;
+    }
+
+    public Route currentRoute() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && isReplicaUsable()
+                ? Route.REPLICA
+                : Route.PRIMARY;
+    }
+
+    public boolean isReplicaUsable() {
+        Duration lag = replicaLag;
+        return lag != null && lag.compareTo(maxLag) <= 0;
+    }
+
+    public Duration getReplicaLag() {
+        return replicaLag;
+    }
+
+    public void replicaLagMeasured(Duration lag) {
+        if (lag.compareTo(maxLag) > 0 && isReplicaUsable()) {
+            log.warn("Replica is {} behind the primary, reads go to the primary until it catches up", lag);
+        }
+        replicaLag = lag;
+    }
+
+    // reads stay on the primary until the next heartbeat makes it back from the replica
+    public void replicaFailed(Exception ex) {
+        if (replicaLag != null) {
+            log.warn("Replica is unavailable, reads go to the primary: {}", ex.getMessage());
+        }
+        replicaLag = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : new DataSource[]{primaryDataSource, replicaDataSource}) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+
+    private final class Router extends AbstractRoutingDataSource {
+
+        @Override
+        protected Route determineCurrentLookupKey() {
+            return currentRoute();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            DataSource target = determineTargetDataSource();
+            if (target == primaryDataSource) {
+                return target.getConnection();
+            }
+            try {
+                return target.getConnection();
+            } catch (SQLException ex) {
+                replicaFailed(ex);
+                return primaryDataSource.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            DataSource target = determineTargetDataSource();
+            if (target == primaryDataSource) {
+                return target.getConnection(username, password);
+            }
+            try {
+                return target.getConnection(username, password);
+            } catch (SQLException ex) {
+                replicaFailed(ex);
+                return primaryDataSource.getConnection(username, password);
+            }
+        }
+    }
+}
@@ -1,29 +1,75 @@
 package com.stathis.workplacemetricsapi.domain;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.io.Serializable;
 import java.time.ZonedDateTime;
 
 @Data
-@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = {"metric", "department"})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
+@NamedEntityGraph(name = Measurement.WITH_REFERENCES,
+        attributeNodes = {@NamedAttributeNode("metric"), @NamedAttributeNode("department")})
+// range partitioned by month on measurement_timestamp (see db/migration), every unique key has to include that column
 @Table(name = "measurements",
-        indexes = @Index(columnList = "measurement_timestamp, metric_id, department_id"))
-public class Measurement extends CreationBaseEntity {
+        uniqueConstraints = @UniqueConstraint(name = Measurement.IDEMPOTENCY_KEY,
+                columnNames = {"idempotency_key", "measurement_timestamp"}),
+        indexes = {
+                @Index(columnList = "measurement_timestamp, metric_id, department_id"),
+                @Index(name = "idx_measurements_seek", columnList = "measurement_timestamp, id"),
+                @Index(name = "idx_measurements_metric_department_seek", columnList = "metric_id, department_id, measurement_timestamp, id")
+        })
+public class Measurement implements Serializable {
 
     public static final Double VALUE_20 = 20.0;
+    public static final String ID_GENERATOR = "measurement_id_generator";
+    public static final String ID_SEQUENCE = "measurements_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String WITH_REFERENCES = "Measurement.withReferences";
+    public static final String IDEMPOTENCY_KEY = "uk_measurements_idempotency_key";
+    public static final int IDEMPOTENCY_KEY_LENGTH = 64;
+
+    // IDENTITY keys (BaseEntity) force Hibernate to insert row by row, a pooled sequence (a table on MySQL) keeps JDBC
+    // batching enabled. Hibernate cannot override an inherited id, so measurements map their own id and creation time
+    @Id
+    @GeneratedValue(generator = ID_GENERATOR)
+    @GenericGenerator(name = ID_GENERATOR,
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = ID_SEQUENCE),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_ALLOCATION_SIZE),
+                    @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+            })
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+
+    @CreationTimestamp
+    @Column(name = "created", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private ZonedDateTime createdTimestamp;
 
     @Column(name = "value", nullable = false)
     private Double value;
@@ -31,9 +77,12 @@ public class Measurement extends CreationBaseEntity {
     @Column(name = "measurement_timestamp", nullable = false)
     private ZonedDateTime measurementTimestamp;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Metric metric;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Department department;
+
+    @Column(name = "idempotency_key", length = IDEMPOTENCY_KEY_LENGTH)
+    private String idempotencyKey;
 }
@@ -0,0 +1,44 @@
+package com.stathis.workplacemetricsapi.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+
+import static com.stathis.workplacemetricsapi.domain.Measurement.IDEMPOTENCY_KEY_LENGTH;
+
+// measurements is partitioned, so none of its unique keys can cover the idempotency key alone. This small table holds
+// one row per key for the reading saved with it and is written in the same transaction as the reading
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "measurement_idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = MeasurementIdempotencyKey.IDEMPOTENCY_KEY,
+                columnNames = "idempotency_key"),
+        indexes = @Index(name = "idx_measurement_idempotency_keys_timestamp", columnList = "measurement_timestamp"))
+public class MeasurementIdempotencyKey implements Serializable {
+
+    public static final String IDEMPOTENCY_KEY = "uk_measurement_idempotency_keys_key";
+
+    @Id
+    @Column(name = "measurement_id")
+    private Long measurementId;
+
+    @Column(name = "idempotency_key", nullable = false, length = IDEMPOTENCY_KEY_LENGTH)
+    private String idempotencyKey;
+
+    // retention drops whole partitions of measurements, the keys of those readings are deleted by this timestamp
+    @Column(name = "measurement_timestamp", nullable = false)
+    private ZonedDateTime measurementTimestamp;
+}
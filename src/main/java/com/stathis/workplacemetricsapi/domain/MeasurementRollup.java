@@ -0,0 +1,59 @@
+package com.stathis.workplacemetricsapi.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.ZonedDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "measurement_rollups",
+        uniqueConstraints = @UniqueConstraint(name = MeasurementRollup.BUCKET_KEY,
+                columnNames = {"metric_id", "department_id", "granularity", "bucket_start"}),
+        indexes = {
+                @Index(name = "idx_measurement_rollups_department", columnList = "department_id"),
+                @Index(name = "idx_measurement_rollups_bucket_start", columnList = "bucket_start, granularity")
+        })
+public class MeasurementRollup extends BaseEntity {
+
+    public static final String BUCKET_KEY = "uk_measurement_rollups_bucket";
+
+    @Column(name = "metric_id", nullable = false)
+    private Long metricId;
+
+    @Column(name = "department_id", nullable = false)
+    private Long departmentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 8)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private ZonedDateTime bucketStart;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "value_sum", nullable = false)
+    private Double valueSum;
+
+    @Column(name = "min_value", nullable = false)
+    private Double minValue;
+
+    @Column(name = "max_value", nullable = false)
+    private Double maxValue;
+}
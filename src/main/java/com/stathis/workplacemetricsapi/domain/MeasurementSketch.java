@@ -0,0 +1,51 @@
+package com.stathis.workplacemetricsapi.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.ZonedDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true, exclude = "digest")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "measurement_sketches",
+        uniqueConstraints = @UniqueConstraint(name = MeasurementSketch.BUCKET_KEY,
+                columnNames = {"metric_id", "department_id", "bucket_start"}),
+        indexes = {
+                @Index(name = "idx_measurement_sketches_department", columnList = "department_id"),
+                @Index(name = "idx_measurement_sketches_bucket_start", columnList = "bucket_start")
+        })
+public class MeasurementSketch extends BaseEntity {
+
+    public static final String BUCKET_KEY = "uk_measurement_sketches_bucket";
+
+    @Column(name = "metric_id", nullable = false)
+    private Long metricId;
+
+    @Column(name = "department_id", nullable = false)
+    private Long departmentId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private ZonedDateTime bucketStart;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Lob
+    @Column(name = "digest")
+    private byte[] digest;
+}
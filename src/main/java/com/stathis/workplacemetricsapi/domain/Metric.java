@@ -7,7 +7,6 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
-import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
@@ -34,6 +33,6 @@ public class Metric extends UpdateBaseEntity {
     private String measurementUnit;
 
     @JsonIgnore
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, mappedBy = "metric")
+    @OneToMany(mappedBy = "metric")
     private Set<Measurement> measurements = new HashSet<>();
 }
@@ -0,0 +1,47 @@
+package com.stathis.workplacemetricsapi.domain;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.WeekFields;
+
+public enum RollupGranularity {
+
+    HOUR {
+        @Override
+        public ZonedDateTime bucketStart(ZonedDateTime timestamp) {
+            return timestamp.withZoneSameInstant(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS);
+        }
+
+        @Override
+        public ZonedDateTime nextBucketStart(ZonedDateTime bucketStart) {
+            return bucketStart.plusHours(1);
+        }
+    },
+    DAY {
+        @Override
+        public ZonedDateTime bucketStart(ZonedDateTime timestamp) {
+            return timestamp.withZoneSameInstant(ZoneId.systemDefault()).truncatedTo(ChronoUnit.DAYS);
+        }
+
+        @Override
+        public ZonedDateTime nextBucketStart(ZonedDateTime bucketStart) {
+            return bucketStart.plusDays(1);
+        }
+    },
+    WEEK {
+        @Override
+        public ZonedDateTime bucketStart(ZonedDateTime timestamp) {
+            return DAY.bucketStart(timestamp).with(WeekFields.ISO.getFirstDayOfWeek());
+        }
+
+        @Override
+        public ZonedDateTime nextBucketStart(ZonedDateTime bucketStart) {
+            return bucketStart.plusWeeks(1);
+        }
+    };
+
+    public abstract ZonedDateTime bucketStart(ZonedDateTime timestamp);
+
+    public abstract ZonedDateTime nextBucketStart(ZonedDateTime bucketStart);
+}
@@ -0,0 +1,23 @@
+package com.stathis.workplacemetricsapi.exception;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public static final String BATCH_SIZE_EXCEEDED = "Batch size exceeds the maximum of ";
+    public static final String INVALID_CURSOR = "The supplied cursor is not valid.";
+    public static final String INVALID_LIMIT = "limit must be between 1 and ";
+    public static final String UNSUPPORTED_EXPORT_FORMAT = "Unsupported export format: ";
+    public static final String INVALID_INTERVAL = "interval must be a positive number followed by m, h or d, e.g. 5m, 1h or 1d";
+    public static final String TOO_MANY_BUCKETS = "The requested range and interval exceed the maximum number of buckets: ";
+    public static final String INVALID_ID_LIST = "Expected \"all\" or a comma separated list of ids but got: ";
+    public static final String UNSUPPORTED_WINDOW = "window must be daily or weekly but got: ";
+    public static final String INVALID_DATE_RANGE = "The start of the requested range must not be after its end.";
+    public static final String COMPACTED_RANGE = "Only hourly rollups are kept for readings before ";
+    public static final String UNSUPPORTED_CONTENT_ENCODING = "Content-Encoding must be gzip or identity but got: ";
+    public static final String INVALID_GZIP_BODY = "The request body is not valid gzip, lines before the damage were saved: ";
+    public static final String TRUNCATED_MEASUREMENT_RECORD = "The request body ends inside a measurement record, records are 32 bytes long.";
+    public static final String SINGLE_MEASUREMENT_RECORD = "Expected exactly one measurement record in the request body.";
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.stathis.workplacemetricsapi.exception;
+
+public class ResourceConflictException extends RuntimeException {
+
+    public static final String IDEMPOTENCY_KEY_IN_FLIGHT = "A measurement with the same idempotency key is being saved, retry the request.";
+
+    public ResourceConflictException(String message) {
+        super(message);
+    }
+}
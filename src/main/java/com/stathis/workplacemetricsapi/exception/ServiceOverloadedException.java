@@ -0,0 +1,11 @@
+package com.stathis.workplacemetricsapi.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+
+    public static final String INGESTION_QUEUE_FULL = "Measurement ingestion queue is full, retry later.";
+    public static final String INGESTION_SHUTTING_DOWN = "Measurement ingestion is shutting down, retry later.";
+
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
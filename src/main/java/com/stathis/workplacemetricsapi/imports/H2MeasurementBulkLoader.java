@@ -0,0 +1,46 @@
+package com.stathis.workplacemetricsapi.imports;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static com.stathis.workplacemetricsapi.domain.Measurement.ID_ALLOCATION_SIZE;
+
+// CSVREAD names the columns exactly as listed, in upper case so the unquoted names in the SELECT find them
+public class H2MeasurementBulkLoader implements MeasurementBulkLoader {
+
+    static final String LOAD_STAGING_FILE = "INSERT INTO measurement_import_staging (job_id, " + STAGING_COLUMNS + ") " +
+            "SELECT ?, CAST(row_no AS BIGINT), CAST(metric_id AS BIGINT), CAST(department_id AS BIGINT), " +
+            "CAST(measurement_timestamp AS TIMESTAMP), CAST(value AS DOUBLE) " +
+            "FROM CSVREAD('%s', 'ROW_NO,METRIC_ID,DEPARTMENT_ID,MEASUREMENT_TIMESTAMP,VALUE', 'charset=UTF-8')";
+    static final String SELECT_NEXT_IDS = "SELECT NEXT VALUE FOR measurements_seq FROM SYSTEM_RANGE(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public H2MeasurementBulkLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // table functions are opened while the statement is prepared, the file name cannot be a parameter
+    @Override
+    public long loadStagingFile(String jobId, Path stagingFile) {
+        String path = stagingFile.toAbsolutePath().normalize().toString().replace("'", "''");
+        return jdbcTemplate.update(String.format(LOAD_STAGING_FILE, path), jobId);
+    }
+
+    // the sequence hands out one block of ids per value, the blocks only line up when no other writer took one in between
+    @Override
+    public long reserveMeasurementIds(int count) {
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        while (true) {
+            List<Long> blockStarts = jdbcTemplate.queryForList(SELECT_NEXT_IDS, Long.class, blocks);
+            long firstId = Collections.min(blockStarts);
+            long lastId = Collections.max(blockStarts);
+            if (lastId - firstId == (long) (blocks - 1) * ID_ALLOCATION_SIZE) {
+                return firstId;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.stathis.workplacemetricsapi.imports;
+
+import java.nio.file.Path;
+
+// the database specific part of a historical import. Staging files hold one accepted row per line as
+// row_no,metric_id,department_id,measurement_timestamp,value with the timestamp as yyyy-MM-dd HH:mm:ss in the JVM zone
+public interface MeasurementBulkLoader {
+
+    String STAGING_COLUMNS = "row_no, metric_id, department_id, measurement_timestamp, value";
+
+    // rows loaded into measurement_import_staging for the job
+    long loadStagingFile(String jobId, Path stagingFile);
+
+    // the first of count consecutive measurement ids that the id generator will not hand out
+    long reserveMeasurementIds(int count);
+}
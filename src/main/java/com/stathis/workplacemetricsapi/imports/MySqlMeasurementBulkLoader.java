@@ -0,0 +1,49 @@
+package com.stathis.workplacemetricsapi.imports;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+import static com.stathis.workplacemetricsapi.domain.Measurement.ID_ALLOCATION_SIZE;
+
+// the server parses the file in one statement, the connection needs allowLoadLocalInfileInPath (or allowLoadLocalInfile)
+// and the server local_infile enabled
+public class MySqlMeasurementBulkLoader implements MeasurementBulkLoader {
+
+    static final String LOAD_STAGING_FILE = "LOAD DATA LOCAL INFILE '%s' INTO TABLE measurement_import_staging " +
+            "CHARACTER SET utf8mb4 FIELDS TERMINATED BY ',' LINES TERMINATED BY '\\n' " +
+            "(" + STAGING_COLUMNS + ") SET job_id = '%s'";
+    static final String SELECT_NEXT_ID = "SELECT next_val FROM measurements_seq FOR UPDATE";
+    static final String UPDATE_NEXT_ID = "UPDATE measurements_seq SET next_val = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MySqlMeasurementBulkLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // LOAD DATA takes no parameters, the job id is a UUID and the path comes from the configuration
+    @Override
+    public long loadStagingFile(String jobId, Path stagingFile) {
+        String path = stagingFile.toAbsolutePath().normalize().toString()
+                .replace("\\", "\\\\")
+                .replace("'", "\\'");
+        return jdbcTemplate.update(String.format(LOAD_STAGING_FILE, path, jobId));
+    }
+
+    // the same table Hibernate takes its pooled-lo blocks from, whole blocks are taken so the row stays on a block
+    // boundary. The row lock is held only for this short transaction, never while the rows are inserted
+    @Override
+    public long reserveMeasurementIds(int count) {
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        return transactionTemplate.execute(status -> {
+            Long firstId = jdbcTemplate.queryForObject(SELECT_NEXT_ID, Long.class);
+            jdbcTemplate.update(UPDATE_NEXT_ID, firstId + (long) blocks * ID_ALLOCATION_SIZE);
+            return firstId;
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.stathis.workplacemetricsapi.lineprotocol;
+
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// the state of one sensor connection, everything but pendingBatches is only touched by the selector thread
+class LineProtocolConnection {
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final ByteBuffer readBuffer;
+    final AtomicInteger pendingBatches = new AtomicInteger();
+
+    List<MeasurementDTO> batch;
+    long batchStartedNanos;
+    // the rest of a line that grew past the limit is skipped up to its newline
+    boolean skippingLine;
+
+    LineProtocolConnection(SocketChannel channel, SelectionKey key, int maxLineLength, int batchSize) {
+        this.channel = channel;
+        this.key = key;
+        this.readBuffer = ByteBuffer.allocate(Math.max(READ_BUFFER_SIZE, maxLineLength * 2));
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    void add(MeasurementDTO measurementDTO) {
+        if (batch.isEmpty()) {
+            batchStartedNanos = System.nanoTime();
+        }
+        batch.add(measurementDTO);
+    }
+
+    List<MeasurementDTO> takeBatch(int batchSize) {
+        List<MeasurementDTO> taken = batch;
+        batch = new ArrayList<>(batchSize);
+        return taken;
+    }
+}
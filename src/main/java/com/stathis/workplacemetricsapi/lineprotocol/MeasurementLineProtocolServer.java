@@ -0,0 +1,369 @@
+package com.stathis.workplacemetricsapi.lineprotocol;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementLineProtocolProperties;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.services.MeasurementService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// plain TCP feed for sensors that send a reading a second: one "metric_id department_id epoch_ms value" line per
+// reading, no response. A single selector thread reads every connection and cuts the lines into batches, writer
+// threads hand them to saveMeasurements. Connections past the limit are closed on accept, and a connection with
+// too many batches waiting is not read until one is saved, so its sender is slowed down by TCP flow control.
+@Slf4j
+@Component
+public class MeasurementLineProtocolServer implements SmartLifecycle {
+
+    public static final String READINGS_METRIC = "measurements.line.protocol.readings";
+    public static final String CONNECTIONS_METRIC = "measurements.line.protocol.connections";
+    public static final String REFUSED_METRIC = "measurements.line.protocol.connections.refused";
+    public static final String PAUSED_METRIC = "measurements.line.protocol.paused";
+    public static final String FLUSH_METRIC = "measurements.line.protocol.flush";
+    public static final String OUTCOME_TAG = "outcome";
+    public static final String ACCEPTED = "accepted";
+    public static final String REJECTED = "rejected";
+    public static final String MALFORMED = "malformed";
+    public static final String FAILED = "failed";
+
+    // same phase as the write-behind queue, the listener stops once the web server is done
+    private static final int PHASE = Integer.MAX_VALUE - 2048;
+    private static final String SELECTOR_THREAD_NAME = "measurement-line-protocol";
+    private static final String WRITER_THREAD_NAME = "measurement-line-writer-";
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile("[ \t]+");
+    private static final int FIELDS = 4;
+
+    private final MeasurementService measurementService;
+    private final MeasurementLineProtocolProperties properties;
+
+    private final Set<LineProtocolConnection> connections = ConcurrentHashMap.newKeySet();
+    // connections with a batch saved since, the selector thread decides whether to read them again
+    private final Queue<LineProtocolConnection> savedConnections = new ConcurrentLinkedQueue<>();
+
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter malformedCounter;
+    private final Counter failedCounter;
+    private final Counter refusedCounter;
+    private final Counter pausedCounter;
+    private final Timer flushTimer;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService writers;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    public MeasurementLineProtocolServer(MeasurementService measurementService,
+                                         MeasurementLineProtocolProperties properties,
+                                         MeterRegistry meterRegistry) {
+        this.measurementService = measurementService;
+        this.properties = properties;
+
+        this.acceptedCounter = Counter.builder(READINGS_METRIC).tag(OUTCOME_TAG, ACCEPTED).register(meterRegistry);
+        this.rejectedCounter = Counter.builder(READINGS_METRIC).tag(OUTCOME_TAG, REJECTED).register(meterRegistry);
+        this.malformedCounter = Counter.builder(READINGS_METRIC).tag(OUTCOME_TAG, MALFORMED).register(meterRegistry);
+        this.failedCounter = Counter.builder(READINGS_METRIC).tag(OUTCOME_TAG, FAILED).register(meterRegistry);
+        this.refusedCounter = Counter.builder(REFUSED_METRIC).register(meterRegistry);
+        this.pausedCounter = Counter.builder(PAUSED_METRIC).register(meterRegistry);
+        this.flushTimer = Timer.builder(FLUSH_METRIC).register(meterRegistry);
+        Gauge.builder(CONNECTIONS_METRIC, connections, Set::size).register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(properties.getBindAddress(), properties.getPort()));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not listen for line protocol readings on port " + properties.getPort(), ex);
+        }
+
+        AtomicInteger writerNumber = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(properties.getWriterThreads(),
+                runnable -> new Thread(runnable, WRITER_THREAD_NAME + writerNumber.getAndIncrement()));
+        running = true;
+        selectorThread = new Thread(this::select, SELECTOR_THREAD_NAME);
+        selectorThread.start();
+        log.info("Listening for line protocol readings on port {}", getLocalPort());
+    }
+
+    // the batches read so far are saved, lines still in the read buffers are lost
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        try {
+            selectorThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            writers.shutdown();
+            if (!writers.awaitTermination(Math.max(1, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                log.warn("Line protocol batches were still being saved at shutdown");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(selector);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    // null when the line does not have the four fields or one of them is not a number
+    static MeasurementDTO parseLine(String line) {
+        String[] fields = FIELD_SEPARATOR.split(line.trim());
+        if (fields.length != FIELDS) {
+            return null;
+        }
+        try {
+            return MeasurementDTO.builder()
+                    .metricId(Long.parseLong(fields[0]))
+                    .departmentId(Long.parseLong(fields[1]))
+                    .measurementTimestamp(Instant.ofEpochMilli(Long.parseLong(fields[2])).atZone(ZoneId.systemDefault()))
+                    .value(Double.parseDouble(fields[3]))
+                    .build();
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void select() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        long selectTimeoutMillis = Math.max(1, properties.getFlushInterval().toMillis() / 2);
+        try {
+            while (running) {
+                selector.select(selectTimeoutMillis);
+                resumeSavedConnections();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read((LineProtocolConnection) key.attachment());
+                    }
+                }
+
+                long now = System.nanoTime();
+                for (LineProtocolConnection connection : connections) {
+                    if (!connection.batch.isEmpty() && now - connection.batchStartedNanos >= flushIntervalNanos) {
+                        dispatch(connection);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            log.error("The line protocol listener failed", ex);
+        } finally {
+            closeQuietly(serverChannel);
+            for (LineProtocolConnection connection : connections) {
+                close(connection);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            if (connections.size() >= properties.getMaxConnections()) {
+                refusedCounter.increment();
+                closeQuietly(channel);
+                continue;
+            }
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            LineProtocolConnection connection = new LineProtocolConnection(channel, key,
+                    properties.getMaxLineLength(), properties.getBatchSize());
+            key.attach(connection);
+            connections.add(connection);
+        }
+    }
+
+    private void read(LineProtocolConnection connection) {
+        int read;
+        try {
+            read = connection.channel.read(connection.readBuffer);
+        } catch (IOException ex) {
+            log.debug("Line protocol connection failed", ex);
+            close(connection);
+            return;
+        }
+
+        // the last line does not need a newline when the sender closes the connection after it
+        splitLines(connection, read == -1);
+        if (read == -1) {
+            close(connection);
+        } else if (connection.pendingBatches.get() >= properties.getMaxPendingBatches()) {
+            connection.key.interestOps(0);
+            pausedCounter.increment();
+        }
+    }
+
+    private void splitLines(LineProtocolConnection connection, boolean endOfStream) {
+        ByteBuffer buffer = connection.readBuffer;
+        buffer.flip();
+        byte[] bytes = buffer.array();
+        int lineStart = buffer.position();
+        for (int index = lineStart; index < buffer.limit(); index++) {
+            if (bytes[index] == '\n') {
+                if (connection.skippingLine) {
+                    connection.skippingLine = false;
+                } else {
+                    acceptLine(connection, bytes, lineStart, index);
+                }
+                lineStart = index + 1;
+            }
+        }
+
+        if (endOfStream && !connection.skippingLine && lineStart < buffer.limit()) {
+            acceptLine(connection, bytes, lineStart, buffer.limit());
+            lineStart = buffer.limit();
+        }
+        if (!connection.skippingLine && buffer.limit() - lineStart > properties.getMaxLineLength()) {
+            malformedCounter.increment();
+            connection.skippingLine = true;
+        }
+        buffer.position(connection.skippingLine ? buffer.limit() : lineStart);
+        buffer.compact();
+    }
+
+    private void acceptLine(LineProtocolConnection connection, byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        if (to - from > properties.getMaxLineLength()) {
+            malformedCounter.increment();
+            return;
+        }
+        String line = new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+        if (line.isBlank()) {
+            return;
+        }
+
+        MeasurementDTO measurementDTO = parseLine(line);
+        if (measurementDTO == null) {
+            malformedCounter.increment();
+            log.debug("Malformed line protocol reading: {}", line);
+            return;
+        }
+        connection.add(measurementDTO);
+        if (connection.batch.size() >= properties.getBatchSize()) {
+            dispatch(connection);
+        }
+    }
+
+    private void dispatch(LineProtocolConnection connection) {
+        List<MeasurementDTO> batch = connection.takeBatch(properties.getBatchSize());
+        connection.pendingBatches.incrementAndGet();
+        writers.execute(() -> {
+            try {
+                save(batch);
+            } finally {
+                connection.pendingBatches.decrementAndGet();
+                savedConnections.add(connection);
+                selector.wakeup();
+            }
+        });
+    }
+
+    private void resumeSavedConnections() {
+        LineProtocolConnection connection;
+        while ((connection = savedConnections.poll()) != null) {
+            if (connection.key.isValid() && connection.key.interestOps() == 0
+                    && connection.pendingBatches.get() < properties.getMaxPendingBatches()) {
+                connection.key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void save(List<MeasurementDTO> batch) {
+        try {
+            MeasurementBatchResult batchResult = flushTimer.recordCallable(() -> measurementService.saveMeasurements(batch));
+            acceptedCounter.increment(batchResult.getAcceptedItems());
+            if (batchResult.getRejectedItems() > 0) {
+                rejectedCounter.increment(batchResult.getRejectedItems());
+                log.warn("{} line protocol readings were rejected", batchResult.getRejectedItems());
+            }
+        } catch (Exception ex) {
+            failedCounter.increment(batch.size());
+            log.error("Failed to save {} line protocol readings", batch.size(), ex);
+        }
+    }
+
+    // whatever was read of the connection is still saved
+    private void close(LineProtocolConnection connection) {
+        if (!connection.batch.isEmpty()) {
+            dispatch(connection);
+        }
+        connections.remove(connection);
+        connection.key.cancel();
+        closeQuietly(connection.channel);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (Exception ex) {
+            log.debug("Failed to close {}", closeable, ex);
+        }
+    }
+}
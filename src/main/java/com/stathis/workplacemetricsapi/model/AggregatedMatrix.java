@@ -0,0 +1,22 @@
+package com.stathis.workplacemetricsapi.model;
+
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AggregatedMatrix {
+
+    private RollupGranularity granularity;
+    private ZonedDateTime fromDateTime;
+    private ZonedDateTime toDateTime;
+    private List<AggregatedMatrixCell> cells;
+}
@@ -0,0 +1,24 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AggregatedMatrixCell {
+
+    private Long metricId;
+    private Long departmentId;
+    private Long sampleCount;
+    private Double averageValue;
+    private Double minValue;
+    private Double maxValue;
+    private Double p50;
+    private Double p90;
+    private Double p95;
+    private Double p99;
+}
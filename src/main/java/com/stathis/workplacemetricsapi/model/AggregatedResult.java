@@ -14,4 +14,14 @@ public class AggregatedResult {
     private Double averageValue;
     private Double minValue;
     private Double maxValue;
+    private Double p50;
+    private Double p90;
+    private Double p95;
+    private Double p99;
+
+    public AggregatedResult(Double averageValue, Double minValue, Double maxValue) {
+        this.averageValue = averageValue;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+    }
 }
@@ -0,0 +1,27 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+// progress fields are written by the deletion thread and read by status requests
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeletionJob {
+
+    private String jobId;
+    private DeletionTarget target;
+    private Long resourceId;
+    private volatile DeletionStatus status;
+    private volatile long measurementsDeleted;
+    private volatile long rollupsDeleted;
+    private volatile long sketchesDeleted;
+    private ZonedDateTime submittedAt;
+    private volatile ZonedDateTime finishedAt;
+    private volatile String error;
+}
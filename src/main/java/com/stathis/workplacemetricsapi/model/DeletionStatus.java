@@ -0,0 +1,8 @@
+package com.stathis.workplacemetricsapi.model;
+
+public enum DeletionStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.stathis.workplacemetricsapi.model;
+
+public enum DeletionTarget {
+    DEPARTMENT,
+    METRIC
+}
@@ -0,0 +1,27 @@
+package com.stathis.workplacemetricsapi.model;
+
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.UNSUPPORTED_EXPORT_FORMAT;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv");
+
+    private final String value;
+    private final String contentType;
+
+    public static ExportFormat fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRequestException(UNSUPPORTED_EXPORT_FORMAT + value));
+    }
+}
@@ -0,0 +1,31 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+// progress fields are written by the import thread and read by status requests
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJob {
+
+    private String jobId;
+    private volatile ImportStatus status;
+    private volatile long rowsRead;
+    private volatile long rowsRejected;
+    private volatile long rowsStaged;
+    private volatile long rowsImported;
+    // imported rows per second since the job started
+    private volatile double rowsPerSecond;
+    private volatile ZonedDateTime oldestTimestamp;
+    private volatile ZonedDateTime newestTimestamp;
+    private ZonedDateTime submittedAt;
+    private volatile ZonedDateTime startedAt;
+    private volatile ZonedDateTime finishedAt;
+    private volatile String error;
+}
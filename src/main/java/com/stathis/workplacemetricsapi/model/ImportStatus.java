@@ -0,0 +1,10 @@
+package com.stathis.workplacemetricsapi.model;
+
+public enum ImportStatus {
+    PENDING,
+    VALIDATING,
+    LOADING,
+    INSERTING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,27 @@
+package com.stathis.workplacemetricsapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MeasurementBatchItemResult {
+
+    public enum Status {
+        CREATED,
+        // the idempotency key was saved before, id is the one of the original reading
+        DUPLICATE,
+        REJECTED
+    }
+
+    private Integer index;
+    private Status status;
+    private Long id;
+    private String message;
+}
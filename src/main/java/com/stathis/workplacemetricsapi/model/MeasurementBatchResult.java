@@ -0,0 +1,19 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MeasurementBatchResult {
+
+    private Integer acceptedItems;
+    private Integer rejectedItems;
+    private List<MeasurementBatchItemResult> items;
+}
@@ -0,0 +1,57 @@
+package com.stathis.workplacemetricsapi.model;
+
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_CURSOR;
+
+@Data
+@AllArgsConstructor
+public class MeasurementCursor {
+
+    private static final String SEPARATOR = ",";
+
+    private ZonedDateTime measurementTimestamp;
+    private Long id;
+
+    public static MeasurementCursor of(Measurement measurement) {
+        return new MeasurementCursor(measurement.getMeasurementTimestamp(), measurement.getId());
+    }
+
+    public static MeasurementCursor of(MeasurementRecord measurementRecord) {
+        return new MeasurementCursor(measurementRecord.getMeasurementTimestamp(), measurementRecord.getId());
+    }
+
+    public static MeasurementCursor decode(String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestException(INVALID_CURSOR);
+        }
+        if (parts.length != 2) {
+            throw new InvalidRequestException(INVALID_CURSOR);
+        }
+
+        try {
+            return new MeasurementCursor(ZonedDateTime.ofInstant(Instant.parse(parts[0]), ZoneId.systemDefault()),
+                    Long.valueOf(parts[1]));
+        } catch (DateTimeException | NumberFormatException ex) {
+            throw new InvalidRequestException(INVALID_CURSOR);
+        }
+    }
+
+    public String encode() {
+        String raw = measurementTimestamp.toInstant() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -22,4 +22,8 @@ public class MeasurementDTO {
 
     @JsonProperty("department_id")
     private Long departmentId;
+
+    // optional, a retry with the key of a saved reading returns that reading instead of saving it again
+    @JsonProperty("idempotency_key")
+    private String idempotencyKey;
 }
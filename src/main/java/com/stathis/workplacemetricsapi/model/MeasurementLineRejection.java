@@ -0,0 +1,16 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MeasurementLineRejection {
+
+    private Long line;
+    private String message;
+}
@@ -0,0 +1,35 @@
+package com.stathis.workplacemetricsapi.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MeasurementRecord {
+
+    private Long id;
+    private Double value;
+    private ZonedDateTime measurementTimestamp;
+
+    @JsonProperty("metric_id")
+    private Long metricId;
+
+    @JsonProperty("department_id")
+    private Long departmentId;
+
+    public static MeasurementRecord of(Measurement measurement) {
+        return new MeasurementRecord(measurement.getId(),
+                measurement.getValue(),
+                measurement.getMeasurementTimestamp(),
+                measurement.getMetric().getId(),
+                measurement.getDepartment().getId());
+    }
+}
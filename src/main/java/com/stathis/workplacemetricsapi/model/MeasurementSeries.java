@@ -0,0 +1,23 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MeasurementSeries {
+
+    private Long metricId;
+    private Long departmentId;
+    private ZonedDateTime fromDateTime;
+    private ZonedDateTime toDateTime;
+    private String interval;
+    private List<SeriesBucket> buckets;
+}
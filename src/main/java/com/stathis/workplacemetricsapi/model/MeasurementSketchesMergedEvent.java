@@ -0,0 +1,14 @@
+package com.stathis.workplacemetricsapi.model;
+
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MeasurementSketchesMergedEvent {
+
+    private List<MeasurementSketch> sketches;
+}
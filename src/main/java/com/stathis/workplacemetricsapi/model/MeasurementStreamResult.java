@@ -0,0 +1,20 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MeasurementStreamResult {
+
+    private Long acceptedItems;
+    private Long rejectedItems;
+    // only the first rejections are listed, the counts cover the whole body
+    private List<MeasurementLineRejection> rejections;
+}
@@ -0,0 +1,16 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MeasurementsDeletedEvent {
+
+    private DeletionTarget target;
+    private Long resourceId;
+
+    public boolean matches(Long metricId, Long departmentId) {
+        return target == DeletionTarget.METRIC ? resourceId.equals(metricId) : resourceId.equals(departmentId);
+    }
+}
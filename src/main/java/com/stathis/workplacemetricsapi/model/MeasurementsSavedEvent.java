@@ -0,0 +1,14 @@
+package com.stathis.workplacemetricsapi.model;
+
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MeasurementsSavedEvent {
+
+    private List<Measurement> measurements;
+}
@@ -1,20 +1,34 @@
 package com.stathis.workplacemetricsapi.model;
 
-import com.stathis.workplacemetricsapi.domain.BaseEntity;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ResponseEntityWrapper<T extends BaseEntity> {
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResponseEntityWrapper<T> {
 
     private List<T> entityList;
     private Integer currentPage;
     private Long totalItems;
     private Integer totalPages;
+    private String nextCursor;
 
+    public ResponseEntityWrapper(List<T> entityList, Integer currentPage, Long totalItems, Integer totalPages) {
+        this(entityList, currentPage, totalItems, totalPages, null);
+    }
+
+    public static <T> ResponseEntityWrapper<T> ofSlice(Slice<T> slice) {
+        return new ResponseEntityWrapper<>(slice.getContent(), slice.getNumber(), null, null, null);
+    }
+
+    public static <T> ResponseEntityWrapper<T> ofCursor(List<T> entityList, String nextCursor) {
+        return new ResponseEntityWrapper<>(entityList, null, null, null, nextCursor);
+    }
 }
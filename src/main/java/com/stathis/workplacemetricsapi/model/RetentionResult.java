@@ -0,0 +1,20 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RetentionResult {
+
+    private ZonedDateTime compactedBefore;
+    private Long weeksCompacted;
+    private Integer partitionsDropped;
+    private Long measurementsDeleted;
+}
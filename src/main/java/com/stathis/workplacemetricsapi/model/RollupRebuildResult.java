@@ -0,0 +1,20 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RollupRebuildResult {
+
+    private ZonedDateTime fromDateTime;
+    private ZonedDateTime toDateTime;
+    private Long measurementsScanned;
+    private Long rollupsWritten;
+}
@@ -0,0 +1,21 @@
+package com.stathis.workplacemetricsapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeriesBucket {
+
+    private ZonedDateTime bucketStart;
+    private Long sampleCount;
+    private Double averageValue;
+    private Double minValue;
+    private Double maxValue;
+}
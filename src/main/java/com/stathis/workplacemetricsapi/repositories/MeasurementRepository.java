@@ -4,22 +4,181 @@ import com.stathis.workplacemetricsapi.domain.Department;
 import com.stathis.workplacemetricsapi.domain.Measurement;
 import com.stathis.workplacemetricsapi.domain.Metric;
 import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface MeasurementRepository extends JpaRepository<Measurement, Long> {
 
+    int STREAM_FETCH_SIZE = 1000;
+    String SELECT_MEASUREMENT_RECORDS = "SELECT new com.stathis.workplacemetricsapi.model.MeasurementRecord(" +
+            "mea.id, mea.value, mea.measurementTimestamp, mea.metric.id, mea.department.id) " +
+            "FROM Measurement as mea ";
+
+    @Override
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    Page<Measurement> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    Optional<Measurement> findById(Long id);
+
+
+    @EntityGraph(Measurement.WITH_REFERENCES)
     Page<Measurement> findMeasurementsByMetricAndDepartmentAndMeasurementTimestampBetween(Pageable pageable,
                                                                                           Metric metric,
                                                                                           Department department,
                                                                                           ZonedDateTime fromDateTime,
                                                                                           ZonedDateTime toDateTime);
 
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    Slice<Measurement> findMeasurementsBy(Pageable pageable);
+
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    Slice<Measurement> findMeasurementSliceByMetricAndDepartmentAndMeasurementTimestampBetween(Pageable pageable,
+                                                                                               Metric metric,
+                                                                                               Department department,
+                                                                                               ZonedDateTime fromDateTime,
+                                                                                               ZonedDateTime toDateTime);
+
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    Slice<Measurement> findMeasurementsByOrderByMeasurementTimestampAscIdAsc(Pageable pageable);
+
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    @Query("SELECT mea FROM Measurement as mea " +
+            "WHERE mea.measurementTimestamp >= :afterTimestamp " +
+            "AND (mea.measurementTimestamp > :afterTimestamp OR mea.id > :afterId) " +
+            "ORDER BY mea.measurementTimestamp, mea.id")
+    Slice<Measurement> findMeasurementsAfter(Pageable pageable,
+                                             @Param("afterTimestamp") ZonedDateTime afterTimestamp,
+                                             @Param("afterId") Long afterId);
+
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    @Query("SELECT mea FROM Measurement as mea " +
+            "WHERE mea.metric = :metric " +
+            "AND mea.department = :department " +
+            "AND mea.measurementTimestamp <= :toDateTime " +
+            "AND mea.measurementTimestamp >= :afterTimestamp " +
+            "AND (mea.measurementTimestamp > :afterTimestamp OR mea.id > :afterId) " +
+            "ORDER BY mea.measurementTimestamp, mea.id")
+    Slice<Measurement> findMeasurementsByMetricAndDepartmentAfter(Pageable pageable,
+                                                                  @Param("metric") Metric metric,
+                                                                  @Param("department") Department department,
+                                                                  @Param("afterTimestamp") ZonedDateTime afterTimestamp,
+                                                                  @Param("afterId") Long afterId,
+                                                                  @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Query(SELECT_MEASUREMENT_RECORDS)
+    Slice<MeasurementRecord> findMeasurementRecordsBy(Pageable pageable);
+
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "WHERE mea.metric.id = :metricId " +
+            "AND mea.department.id = :departmentId " +
+            "AND mea.measurementTimestamp BETWEEN :fromDateTime AND :toDateTime")
+    Slice<MeasurementRecord> findMeasurementRecordsByMetricAndDepartmentBetween(Pageable pageable,
+                                                                                @Param("metricId") Long metricId,
+                                                                                @Param("departmentId") Long departmentId,
+                                                                                @Param("fromDateTime") ZonedDateTime fromDateTime,
+                                                                                @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "WHERE mea.measurementTimestamp >= :afterTimestamp " +
+            "AND (mea.measurementTimestamp > :afterTimestamp OR mea.id > :afterId) " +
+            "ORDER BY mea.measurementTimestamp, mea.id")
+    Slice<MeasurementRecord> findMeasurementRecordsAfter(Pageable pageable,
+                                                         @Param("afterTimestamp") ZonedDateTime afterTimestamp,
+                                                         @Param("afterId") Long afterId);
+
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "ORDER BY mea.measurementTimestamp, mea.id")
+    Slice<MeasurementRecord> findFirstMeasurementRecords(Pageable pageable);
+
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "WHERE mea.metric.id = :metricId " +
+            "AND mea.department.id = :departmentId " +
+            "AND mea.measurementTimestamp <= :toDateTime " +
+            "AND mea.measurementTimestamp >= :afterTimestamp " +
+            "AND (mea.measurementTimestamp > :afterTimestamp OR mea.id > :afterId) " +
+            "ORDER BY mea.measurementTimestamp, mea.id")
+    Slice<MeasurementRecord> findMeasurementRecordsByMetricAndDepartmentAfter(Pageable pageable,
+                                                                              @Param("metricId") Long metricId,
+                                                                              @Param("departmentId") Long departmentId,
+                                                                              @Param("afterTimestamp") ZonedDateTime afterTimestamp,
+                                                                              @Param("afterId") Long afterId,
+                                                                              @Param("toDateTime") ZonedDateTime toDateTime);
+
+    // newest reading of every metric and department pair, ties on the timestamp return more than one row
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "WHERE mea.measurementTimestamp = (" +
+            "SELECT MAX(latest.measurementTimestamp) FROM Measurement AS latest " +
+            "WHERE latest.metric = mea.metric AND latest.department = mea.department)")
+    List<MeasurementRecord> findLatestMeasurementRecords();
+
+    // bounded deletes keep every transaction and its undo log small, callers repeat until fewer rows come back
+    @Modifying
+    @Query(value = "DELETE FROM measurements WHERE department_id = :departmentId LIMIT :chunkSize", nativeQuery = true)
+    int deleteMeasurementChunkByDepartment(@Param("departmentId") Long departmentId, @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurements WHERE metric_id = :metricId LIMIT :chunkSize", nativeQuery = true)
+    int deleteMeasurementChunkByMetric(@Param("metricId") Long metricId, @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurements WHERE measurement_timestamp < :boundary LIMIT :chunkSize", nativeQuery = true)
+    int deleteMeasurementChunkBefore(@Param("boundary") ZonedDateTime boundary, @Param("chunkSize") int chunkSize);
+
+    // the keys of the readings go first, the subqueries need the readings to find them
+    @Modifying
+    @Query(value = "DELETE FROM measurement_idempotency_keys WHERE measurement_id IN " +
+            "(SELECT id FROM measurements WHERE department_id = :departmentId) LIMIT :chunkSize", nativeQuery = true)
+    int deleteIdempotencyKeyChunkByDepartment(@Param("departmentId") Long departmentId, @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurement_idempotency_keys WHERE measurement_id IN " +
+            "(SELECT id FROM measurements WHERE metric_id = :metricId) LIMIT :chunkSize", nativeQuery = true)
+    int deleteIdempotencyKeyChunkByMetric(@Param("metricId") Long metricId, @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurement_idempotency_keys WHERE measurement_timestamp < :boundary LIMIT :chunkSize", nativeQuery = true)
+    int deleteIdempotencyKeyChunkBefore(@Param("boundary") ZonedDateTime boundary, @Param("chunkSize") int chunkSize);
+
+    @Query("SELECT MIN(mea.measurementTimestamp) FROM Measurement as mea")
+    Optional<ZonedDateTime> findOldestMeasurementTimestamp();
+
+    @Query("SELECT MIN(mea.measurementTimestamp) FROM Measurement as mea " +
+            "WHERE mea.measurementTimestamp >= :fromDateTime " +
+            "AND mea.measurementTimestamp < :toDateTime")
+    Optional<ZonedDateTime> findOldestMeasurementTimestampBetween(@Param("fromDateTime") ZonedDateTime fromDateTime,
+                                                                  @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Query("SELECT MAX(mea.measurementTimestamp) FROM Measurement as mea")
+    Optional<ZonedDateTime> findNewestMeasurementTimestamp();
+
+    @Query("SELECT MAX(mea.id) FROM Measurement as mea")
+    Optional<Long> findMaxMeasurementId();
+
+    @Query("SELECT COUNT(mea) FROM Measurement as mea " +
+            "WHERE mea.measurementTimestamp >= :fromDateTime " +
+            "AND mea.measurementTimestamp < :toDateTime")
+    long countMeasurementsBetween(@Param("fromDateTime") ZonedDateTime fromDateTime,
+                                  @Param("toDateTime") ZonedDateTime toDateTime);
+
     @Query("SELECT new com.stathis.workplacemetricsapi.model.AggregatedResult(AVG(mea.value), MIN(mea.value), MAX(mea.value)) " +
             "FROM Measurement as mea " +
             "WHERE mea.metric.id = :metricId " +
@@ -30,4 +189,58 @@ public interface MeasurementRepository extends JpaRepository<Measurement, Long>
                                           @Param("departmentId") Long departmentId,
                                           @Param("fromDateTime") ZonedDateTime fromDateTime,
                                           @Param("toDateTime") ZonedDateTime toDateTime);
+
+    // bucket index, sample count, average, min and max per interval counted from fromDateTime
+    @Query(value = "SELECT FLOOR(TIMESTAMPDIFF(SECOND, :fromDateTime, mea.measurement_timestamp) / :intervalSeconds) AS bucket, " +
+            "COUNT(*), AVG(mea.value), MIN(mea.value), MAX(mea.value) " +
+            "FROM measurements AS mea " +
+            "WHERE mea.metric_id = :metricId " +
+            "AND mea.department_id = :departmentId " +
+            "AND mea.measurement_timestamp >= :fromDateTime " +
+            "AND mea.measurement_timestamp < :toDateTime " +
+            "GROUP BY bucket " +
+            "ORDER BY bucket",
+            nativeQuery = true)
+    List<Object[]> getSeriesBuckets(@Param("metricId") Long metricId,
+                                    @Param("departmentId") Long departmentId,
+                                    @Param("fromDateTime") ZonedDateTime fromDateTime,
+                                    @Param("toDateTime") ZonedDateTime toDateTime,
+                                    @Param("intervalSeconds") Long intervalSeconds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + MeasurementRepository.STREAM_FETCH_SIZE))
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "WHERE mea.measurementTimestamp >= :fromDateTime " +
+            "AND mea.measurementTimestamp < :toDateTime")
+    Stream<MeasurementRecord> streamMeasurementRecords(@Param("fromDateTime") ZonedDateTime fromDateTime,
+                                                       @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + MeasurementRepository.STREAM_FETCH_SIZE))
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "WHERE mea.measurementTimestamp >= :fromDateTime " +
+            "ORDER BY mea.measurementTimestamp, mea.id")
+    Stream<MeasurementRecord> streamMeasurementRecordsSince(@Param("fromDateTime") ZonedDateTime fromDateTime);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + MeasurementRepository.STREAM_FETCH_SIZE))
+    @Query(SELECT_MEASUREMENT_RECORDS +
+            "WHERE mea.metric.id = :metricId " +
+            "AND mea.department.id = :departmentId " +
+            "AND mea.measurementTimestamp >= :fromDateTime " +
+            "AND mea.measurementTimestamp < :toDateTime " +
+            "ORDER BY mea.measurementTimestamp, mea.id")
+    Stream<MeasurementRecord> streamMeasurementRecords(@Param("metricId") Long metricId,
+                                                       @Param("departmentId") Long departmentId,
+                                                       @Param("fromDateTime") ZonedDateTime fromDateTime,
+                                                       @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @EntityGraph(Measurement.WITH_REFERENCES)
+    Optional<Measurement> findFirstByIdempotencyKeyOrderByIdAsc(String idempotencyKey);
+
+    @Query("SELECT mea FROM Measurement as mea " +
+            "WHERE mea.idempotencyKey IN :idempotencyKeys " +
+            "ORDER BY mea.id")
+    List<Measurement> findByIdempotencyKeys(@Param("idempotencyKeys") Collection<String> idempotencyKeys);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + MeasurementRepository.STREAM_FETCH_SIZE))
+    @Query("SELECT mea.idempotencyKey FROM Measurement as mea WHERE mea.idempotencyKey IS NOT NULL")
+    Stream<String> streamIdempotencyKeys();
 }
@@ -0,0 +1,96 @@
+package com.stathis.workplacemetricsapi.repositories;
+
+import com.stathis.workplacemetricsapi.domain.MeasurementRollup;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface MeasurementRollupRepository extends JpaRepository<MeasurementRollup, Long> {
+
+    Optional<MeasurementRollup> findByMetricIdAndDepartmentIdAndGranularityAndBucketStart(Long metricId,
+                                                                                        Long departmentId,
+                                                                                        RollupGranularity granularity,
+                                                                                        ZonedDateTime bucketStart);
+
+    @Query("SELECT rol FROM MeasurementRollup AS rol " +
+            "WHERE rol.metricId = :metricId " +
+            "AND rol.departmentId = :departmentId " +
+            "AND rol.granularity = :granularity " +
+            "AND rol.bucketStart >= :fromDateTime " +
+            "AND rol.bucketStart < :toDateTime " +
+            "ORDER BY rol.bucketStart")
+    List<MeasurementRollup> findRollupsBetween(@Param("metricId") Long metricId,
+                                               @Param("departmentId") Long departmentId,
+                                               @Param("granularity") RollupGranularity granularity,
+                                               @Param("fromDateTime") ZonedDateTime fromDateTime,
+                                               @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Query("SELECT rol FROM MeasurementRollup AS rol " +
+            "WHERE rol.granularity = :granularity " +
+            "AND rol.bucketStart = :bucketStart " +
+            "AND (:allMetrics = TRUE OR rol.metricId IN :metricIds) " +
+            "AND (:allDepartments = TRUE OR rol.departmentId IN :departmentIds) " +
+            "ORDER BY rol.metricId, rol.departmentId")
+    List<MeasurementRollup> findRollupMatrix(@Param("granularity") RollupGranularity granularity,
+                                             @Param("bucketStart") ZonedDateTime bucketStart,
+                                             @Param("allMetrics") boolean allMetrics,
+                                             @Param("metricIds") Collection<Long> metricIds,
+                                             @Param("allDepartments") boolean allDepartments,
+                                             @Param("departmentIds") Collection<Long> departmentIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO measurement_rollups " +
+            "(metric_id, department_id, granularity, bucket_start, sample_count, value_sum, min_value, max_value) " +
+            "VALUES (:metricId, :departmentId, :granularity, :bucketStart, :sampleCount, :valueSum, :minValue, :maxValue) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "sample_count = sample_count + VALUES(sample_count), " +
+            "value_sum = value_sum + VALUES(value_sum), " +
+            "min_value = LEAST(min_value, VALUES(min_value)), " +
+            "max_value = GREATEST(max_value, VALUES(max_value))",
+            nativeQuery = true)
+    void upsertRollup(@Param("metricId") Long metricId,
+                      @Param("departmentId") Long departmentId,
+                      @Param("granularity") String granularity,
+                      @Param("bucketStart") ZonedDateTime bucketStart,
+                      @Param("sampleCount") Long sampleCount,
+                      @Param("valueSum") Double valueSum,
+                      @Param("minValue") Double minValue,
+                      @Param("maxValue") Double maxValue);
+
+    // readings counted into the rollups of one bucket across every metric and department
+    @Query("SELECT COALESCE(SUM(rol.sampleCount), 0) FROM MeasurementRollup AS rol " +
+            "WHERE rol.granularity = :granularity " +
+            "AND rol.bucketStart = :bucketStart")
+    long sumSampleCounts(@Param("granularity") RollupGranularity granularity,
+                         @Param("bucketStart") ZonedDateTime bucketStart);
+
+    @Query("SELECT MIN(rol.bucketStart) FROM MeasurementRollup AS rol " +
+            "WHERE rol.granularity = :granularity " +
+            "AND rol.bucketStart >= :fromDateTime " +
+            "AND rol.bucketStart < :toDateTime")
+    Optional<ZonedDateTime> findOldestBucketStartBetween(@Param("granularity") RollupGranularity granularity,
+                                                         @Param("fromDateTime") ZonedDateTime fromDateTime,
+                                                         @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Modifying
+    @Query("DELETE FROM MeasurementRollup AS rol " +
+            "WHERE rol.bucketStart >= :fromDateTime " +
+            "AND rol.bucketStart < :toDateTime")
+    int deleteRollupsBetween(@Param("fromDateTime") ZonedDateTime fromDateTime,
+                             @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurement_rollups WHERE department_id = :departmentId LIMIT :chunkSize", nativeQuery = true)
+    int deleteRollupChunkByDepartment(@Param("departmentId") Long departmentId, @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurement_rollups WHERE metric_id = :metricId LIMIT :chunkSize", nativeQuery = true)
+    int deleteRollupChunkByMetric(@Param("metricId") Long metricId, @Param("chunkSize") int chunkSize);
+}
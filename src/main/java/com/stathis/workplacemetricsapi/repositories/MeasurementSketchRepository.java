@@ -0,0 +1,69 @@
+package com.stathis.workplacemetricsapi.repositories;
+
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface MeasurementSketchRepository extends JpaRepository<MeasurementSketch, Long> {
+
+    // creates an empty sketch row if it is missing, so that concurrent writers can lock and merge into it
+    @Modifying
+    @Query(value = "INSERT INTO measurement_sketches (metric_id, department_id, bucket_start, sample_count) " +
+            "VALUES (:metricId, :departmentId, :bucketStart, 0) " +
+            "ON DUPLICATE KEY UPDATE sample_count = sample_count",
+            nativeQuery = true)
+    void insertIfAbsent(@Param("metricId") Long metricId,
+                        @Param("departmentId") Long departmentId,
+                        @Param("bucketStart") ZonedDateTime bucketStart);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MeasurementSketch> findForUpdateByMetricIdAndDepartmentIdAndBucketStart(Long metricId,
+                                                                                    Long departmentId,
+                                                                                    ZonedDateTime bucketStart);
+
+    @Query("SELECT ske FROM MeasurementSketch AS ske " +
+            "WHERE ske.metricId = :metricId " +
+            "AND ske.departmentId = :departmentId " +
+            "AND ske.bucketStart >= :fromDateTime " +
+            "AND ske.bucketStart < :toDateTime")
+    List<MeasurementSketch> findSketchesBetween(@Param("metricId") Long metricId,
+                                                @Param("departmentId") Long departmentId,
+                                                @Param("fromDateTime") ZonedDateTime fromDateTime,
+                                                @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Query("SELECT ske FROM MeasurementSketch AS ske " +
+            "WHERE ske.bucketStart >= :fromDateTime " +
+            "AND ske.bucketStart < :toDateTime " +
+            "AND (:allMetrics = TRUE OR ske.metricId IN :metricIds) " +
+            "AND (:allDepartments = TRUE OR ske.departmentId IN :departmentIds)")
+    List<MeasurementSketch> findSketchMatrix(@Param("fromDateTime") ZonedDateTime fromDateTime,
+                                             @Param("toDateTime") ZonedDateTime toDateTime,
+                                             @Param("allMetrics") boolean allMetrics,
+                                             @Param("metricIds") Collection<Long> metricIds,
+                                             @Param("allDepartments") boolean allDepartments,
+                                             @Param("departmentIds") Collection<Long> departmentIds);
+
+    @Modifying
+    @Query("DELETE FROM MeasurementSketch AS ske " +
+            "WHERE ske.bucketStart >= :fromDateTime " +
+            "AND ske.bucketStart < :toDateTime")
+    int deleteSketchesBetween(@Param("fromDateTime") ZonedDateTime fromDateTime,
+                              @Param("toDateTime") ZonedDateTime toDateTime);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurement_sketches WHERE department_id = :departmentId LIMIT :chunkSize", nativeQuery = true)
+    int deleteSketchChunkByDepartment(@Param("departmentId") Long departmentId, @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "DELETE FROM measurement_sketches WHERE metric_id = :metricId LIMIT :chunkSize", nativeQuery = true)
+    int deleteSketchChunkByMetric(@Param("metricId") Long metricId, @Param("chunkSize") int chunkSize);
+}
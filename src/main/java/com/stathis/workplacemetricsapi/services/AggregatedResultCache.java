@@ -0,0 +1,190 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.stathis.workplacemetricsapi.configuration.AggregationCacheProperties;
+import com.stathis.workplacemetricsapi.configuration.ReplicaDataSourceProperties;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementSketchesMergedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.model.RollupRebuildResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.stathis.workplacemetricsapi.configuration.CacheConfiguration.AGGREGATIONS_CACHE;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.COALESCED;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.EXECUTED;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.OUTCOME_TAG;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.QUERIES_METRIC;
+
+@Service
+public class AggregatedResultCache {
+
+    private static final RollupGranularity[] CACHED_GRANULARITIES = {RollupGranularity.DAY, RollupGranularity.WEEK};
+
+    private final MeasurementRollupService measurementRollupService;
+    private final MeasurementHotWindow measurementHotWindow;
+    private final AggregationCacheProperties properties;
+    private final Duration replicaMaxLag;
+
+    private final Cache<WindowKey, AggregatedResult> cache;
+    private final Cache<WindowKey, Boolean> recentlyInvalidated;
+    private volatile Instant lastBulkInvalidation = Instant.MIN;
+
+    private final Counter executedCounter;
+    private final Counter coalescedCounter;
+
+    public AggregatedResultCache(MeasurementRollupService measurementRollupService,
+                                 MeasurementHotWindow measurementHotWindow,
+                                 AggregationCacheProperties properties,
+                                 ReplicaDataSourceProperties replicaProperties,
+                                 MeterRegistry meterRegistry) {
+        this.measurementRollupService = measurementRollupService;
+        this.measurementHotWindow = measurementHotWindow;
+        this.properties = properties;
+        this.replicaMaxLag = replicaProperties.isEnabled() ? replicaProperties.getMaxLag() : Duration.ZERO;
+        this.recentlyInvalidated = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(replicaMaxLag)
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new WindowExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, AGGREGATIONS_CACHE);
+        this.executedCounter = Counter.builder(QUERIES_METRIC).tag(OUTCOME_TAG, EXECUTED).register(meterRegistry);
+        this.coalescedCounter = Counter.builder(QUERIES_METRIC).tag(OUTCOME_TAG, COALESCED).register(meterRegistry);
+    }
+
+    public AggregatedResult getAggregatedResult(Long metricId,
+                                                Long departmentId,
+                                                RollupGranularity granularity,
+                                                ZonedDateTime bucketStart) {
+        WindowKey windowKey = WindowKey.of(metricId, departmentId, granularity, bucketStart);
+        // asMap() looks without counting towards the cache stats. Concurrent misses of one window wait on the load
+        // of the first, only that one queries and the others count as coalesced
+        boolean cached = cache.asMap().containsKey(windowKey);
+        boolean[] loaded = new boolean[1];
+        AggregatedResult aggregatedResult = cache.get(windowKey, key -> {
+            loaded[0] = true;
+            executedCounter.increment();
+            return measurementHotWindow.getAggregatedResult(metricId, departmentId, granularity, bucketStart)
+                    .orElseGet(() -> measurementRollupService.getAggregatedResult(metricId, departmentId, granularity, bucketStart));
+        });
+        if (!cached && !loaded[0]) {
+            coalescedCounter.increment();
+        }
+        return aggregatedResult;
+    }
+
+    // runs once the rollups are committed; a load racing with the write is removed here after it completes
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMeasurementsSaved(MeasurementsSavedEvent event) {
+        Set<WindowKey> touchedWindows = new HashSet<>();
+        for (Measurement measurement : event.getMeasurements()) {
+            addWindows(touchedWindows, measurement.getMetric().getId(), measurement.getDepartment().getId(),
+                    measurement.getMeasurementTimestamp());
+        }
+        invalidate(touchedWindows);
+    }
+
+    // the percentiles of a window change once the sketches of its new readings are merged, after the rollups
+    @EventListener
+    public void onSketchesMerged(MeasurementSketchesMergedEvent event) {
+        Set<WindowKey> touchedWindows = new HashSet<>();
+        for (MeasurementSketch sketch : event.getSketches()) {
+            addWindows(touchedWindows, sketch.getMetricId(), sketch.getDepartmentId(), sketch.getBucketStart());
+        }
+        invalidate(touchedWindows);
+    }
+
+    @EventListener
+    public void onRollupsRebuilt(RollupRebuildResult rebuildResult) {
+        Instant rebuiltFrom = rebuildResult.getFromDateTime().toInstant();
+        Instant rebuiltTo = rebuildResult.getToDateTime().toInstant();
+        lastBulkInvalidation = Instant.now();
+        cache.asMap().keySet().removeIf(key -> key.getWindowStart().isBefore(rebuiltTo) && key.getWindowEnd().isAfter(rebuiltFrom));
+    }
+
+    @EventListener
+    public void onMeasurementsDeleted(MeasurementsDeletedEvent event) {
+        lastBulkInvalidation = Instant.now();
+        cache.asMap().keySet().removeIf(key -> event.matches(key.getMetricId(), key.getDepartmentId()));
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class WindowKey {
+
+        private final Long metricId;
+        private final Long departmentId;
+        private final Instant windowStart;
+        private final Instant windowEnd;
+
+        private static WindowKey of(Long metricId, Long departmentId, RollupGranularity granularity, ZonedDateTime bucketStart) {
+            return new WindowKey(metricId, departmentId, bucketStart.toInstant(),
+                    granularity.nextBucketStart(bucketStart).toInstant());
+        }
+    }
+
+    private static void addWindows(Set<WindowKey> windows, Long metricId, Long departmentId, ZonedDateTime timestamp) {
+        for (RollupGranularity granularity : CACHED_GRANULARITIES) {
+            windows.add(WindowKey.of(metricId, departmentId, granularity, granularity.bucketStart(timestamp)));
+        }
+    }
+
+    private void invalidate(Set<WindowKey> windows) {
+        windows.forEach(key -> recentlyInvalidated.put(key, Boolean.TRUE));
+        cache.invalidateAll(windows);
+    }
+
+    // a load this soon after an invalidation may have read a replica that has not caught up yet
+    private boolean isRecentlyInvalidated(WindowKey key, Instant now) {
+        return recentlyInvalidated.getIfPresent(key) != null
+                || lastBulkInvalidation.plus(replicaMaxLag).isAfter(now);
+    }
+
+    // closed windows only change through late writes, which invalidate them, so they can stay for long
+    private class WindowExpiry implements Expiry<WindowKey, AggregatedResult> {
+
+        @Override
+        public long expireAfterCreate(WindowKey key, AggregatedResult value, long currentTime) {
+            Instant now = Instant.now();
+            return key.getWindowEnd().isAfter(now) || isRecentlyInvalidated(key, now)
+                    ? properties.getOpenWindowTtl().toNanos()
+                    : properties.getClosedWindowTtl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(WindowKey key, AggregatedResult value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(WindowKey key, AggregatedResult value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
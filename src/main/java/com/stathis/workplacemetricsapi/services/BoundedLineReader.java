@@ -0,0 +1,81 @@
+package com.stathis.workplacemetricsapi.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// reads lines like BufferedReader, but never holds more than maxLineLength characters of one. The rest of a longer
+// line is skipped and it comes back empty with isTooLong() set, so a body without newlines cannot fill the heap
+class BoundedLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8_192;
+
+    private final Reader reader;
+    private final int maxLineLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean tooLong;
+
+    BoundedLineReader(Reader reader, int maxLineLength) {
+        this.reader = reader;
+        this.maxLineLength = maxLineLength;
+    }
+
+    // null at the end of the input, a line is ended by \n, \r\n or the end of the input
+    String readLine() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        boolean empty = true;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return empty ? null : finish();
+                }
+            }
+            empty = false;
+
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            if (!tooLong) {
+                if (line.length() + position - start > maxLineLength + 1) {
+                    tooLong = true;
+                    line.setLength(0);
+                } else {
+                    line.append(buffer, start, position - start);
+                }
+            }
+            if (position < limit) {
+                position++;
+                return finish();
+            }
+        }
+    }
+
+    boolean isTooLong() {
+        return tooLong;
+    }
+
+    private String finish() {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(--length);
+        }
+        if (length > maxLineLength) {
+            tooLong = true;
+            line.setLength(0);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
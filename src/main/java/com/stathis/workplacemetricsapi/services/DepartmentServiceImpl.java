@@ -7,11 +7,15 @@ import com.stathis.workplacemetricsapi.exception.ResourceNotUpdatedException;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import static com.stathis.workplacemetricsapi.configuration.CacheConfiguration.DEPARTMENTS_CACHE;
 import static com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException.RESOURCE_COULD_NOT_BE_DELETED;
 import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
 import static com.stathis.workplacemetricsapi.exception.ResourceNotUpdatedException.RESOURCE_COULD_NOT_BE_UPDATED;
@@ -23,6 +27,7 @@ public class DepartmentServiceImpl implements DepartmentService {
     private final DepartmentRepository departmentRepository;
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntityWrapper<Department> getAllDepartments(Pageable pageable) {
         Page<Department> departmentPage = departmentRepository.findAll(pageable);
         return new ResponseEntityWrapper<>(departmentPage.getContent(),
@@ -32,6 +37,7 @@ public class DepartmentServiceImpl implements DepartmentService {
     }
 
     @Override
+    @Cacheable(cacheNames = DEPARTMENTS_CACHE, key = "#id")
     public Department getDepartmentById(Long id) {
         return departmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + id));
@@ -42,7 +48,10 @@ public class DepartmentServiceImpl implements DepartmentService {
         return departmentRepository.save(department);
     }
 
+    // read and written in one transaction, so the lookup is not routed to a lagging replica
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = DEPARTMENTS_CACHE, key = "#id")
     public Department updateDepartment(Long id, Department department) {
         Department savedDepartment;
         try {
@@ -55,6 +64,7 @@ public class DepartmentServiceImpl implements DepartmentService {
     }
 
     @Override
+    @CacheEvict(cacheNames = DEPARTMENTS_CACHE, key = "#id")
     public void deleteDepartmentById(Long id) {
         try {
             departmentRepository.deleteById(id);
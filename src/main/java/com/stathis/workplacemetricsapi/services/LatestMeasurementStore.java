@@ -0,0 +1,92 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.NO_MEASUREMENT_RECORDS_FOUND;
+
+@Slf4j
+@Service
+public class LatestMeasurementStore {
+
+    private static final Comparator<MeasurementRecord> RECENCY = Comparator
+            .comparing((MeasurementRecord record) -> record.getMeasurementTimestamp().toInstant())
+            .thenComparing(MeasurementRecord::getId);
+
+    private static final Comparator<MeasurementRecord> SERIES_ORDER = Comparator
+            .comparing(MeasurementRecord::getMetricId)
+            .thenComparing(MeasurementRecord::getDepartmentId);
+
+    private final MeasurementRepository measurementRepository;
+
+    private final ConcurrentMap<SeriesKey, MeasurementRecord> latestRecords = new ConcurrentHashMap<>();
+
+    public LatestMeasurementStore(MeasurementRepository measurementRepository) {
+        this.measurementRepository = measurementRepository;
+    }
+
+    public MeasurementRecord getLatestMeasurement(Long metricId, Long departmentId) {
+        MeasurementRecord latestRecord = latestRecords.get(new SeriesKey(metricId, departmentId));
+        if (latestRecord == null) {
+            throw new ResourceNotFoundException(NO_MEASUREMENT_RECORDS_FOUND);
+        }
+        return latestRecord;
+    }
+
+    public List<MeasurementRecord> getAllLatestMeasurements() {
+        return latestRecords.values().stream()
+                .sorted(SERIES_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<MeasurementRecord> records = measurementRepository.findLatestMeasurementRecords();
+        records.forEach(this::offer);
+        log.info("Loaded the latest reading of {} series", latestRecords.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMeasurementsSaved(MeasurementsSavedEvent event) {
+        for (Measurement measurement : event.getMeasurements()) {
+            offer(MeasurementRecord.of(measurement));
+        }
+    }
+
+    @EventListener
+    public void onMeasurementsDeleted(MeasurementsDeletedEvent event) {
+        latestRecords.values().removeIf(record -> event.matches(record.getMetricId(), record.getDepartmentId()));
+    }
+
+    // only a newer reading replaces the current one, whatever order concurrent writers commit in
+    private void offer(MeasurementRecord record) {
+        latestRecords.merge(new SeriesKey(record.getMetricId(), record.getDepartmentId()), record,
+                (current, candidate) -> RECENCY.compare(candidate, current) > 0 ? candidate : current);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SeriesKey {
+
+        private final Long metricId;
+        private final Long departmentId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.model.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+
+public interface MeasurementExportService {
+
+    void validateExport(Long metricId, Long departmentId, ZonedDateTime fromDateTime, ZonedDateTime toDateTime);
+
+    long exportMeasurements(Long metricId,
+                            Long departmentId,
+                            ZonedDateTime fromDateTime,
+                            ZonedDateTime toDateTime,
+                            ExportFormat format,
+                            OutputStream outputStream) throws IOException;
+}
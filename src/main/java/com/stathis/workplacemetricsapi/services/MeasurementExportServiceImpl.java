@@ -0,0 +1,99 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.ExportFormat;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_DATE_RANGE;
+
+@Service
+@AllArgsConstructor
+public class MeasurementExportServiceImpl implements MeasurementExportService {
+
+    public static final String CSV_HEADER = "id,value,measurement_timestamp,metric_id,department_id";
+    public static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final MeasurementRepository measurementRepository;
+
+    private final DepartmentService departmentService;
+    private final MetricService metricService;
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void validateExport(Long metricId, Long departmentId, ZonedDateTime fromDateTime, ZonedDateTime toDateTime) {
+        if (!fromDateTime.isBefore(toDateTime)) {
+            throw new InvalidRequestException(INVALID_DATE_RANGE);
+        }
+        metricService.getMetricById(metricId);
+        departmentService.getDepartmentById(departmentId);
+    }
+
+    // rows are read as projections, so nothing is attached to the persistence context while streaming
+    @Override
+    @Transactional(readOnly = true)
+    public long exportMeasurements(Long metricId,
+                                   Long departmentId,
+                                   ZonedDateTime fromDateTime,
+                                   ZonedDateTime toDateTime,
+                                   ExportFormat format,
+                                   OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        ObjectWriter recordWriter = objectMapper.writerFor(MeasurementRecord.class);
+
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        try (Stream<MeasurementRecord> records =
+                     measurementRepository.streamMeasurementRecords(metricId, departmentId, fromDateTime, toDateTime)) {
+            Iterator<MeasurementRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                MeasurementRecord record = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, record);
+                } else {
+                    writer.write(recordWriter.writeValueAsString(record));
+                }
+                writer.write('\n');
+
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvRow(Writer writer, MeasurementRecord record) throws IOException {
+        writer.write(String.valueOf(record.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getValue()));
+        writer.write(',');
+        writer.write(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(record.getMeasurementTimestamp()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getMetricId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getDepartmentId()));
+    }
+}
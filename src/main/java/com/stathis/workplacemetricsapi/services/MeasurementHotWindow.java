@@ -0,0 +1,438 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementHotWindowProperties;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.tdunning.math.stats.TDigest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+// the readings of the last days per series (metric, department) as sorted primitive columns, 24 bytes a reading
+// instead of a Measurement with its boxed value and ZonedDateTime. Timestamps are epoch seconds, the resolution of
+// the measurement_timestamp column. Reads return empty until the warm up finished and whenever they start before the
+// window, the caller then asks the database.
+@Slf4j
+@Service
+public class MeasurementHotWindow {
+
+    public static final String POINTS_METRIC = "measurements.hot.window.points";
+    public static final String BYTES_METRIC = "measurements.hot.window.bytes";
+
+    private final MeasurementRepository measurementRepository;
+    private final MeasurementHotWindowProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<SeriesKey, SeriesColumns> series = new ConcurrentHashMap<>();
+
+    // readings older than this are dropped, the window covers everything after it once warm
+    private volatile long windowStart;
+    private volatile boolean warm;
+
+    public MeasurementHotWindow(MeasurementRepository measurementRepository,
+                                MeasurementHotWindowProperties properties,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.measurementRepository = measurementRepository;
+        this.properties = properties;
+        // not read only, so the warm-up reads the primary, readings a lagging replica has not seen yet would never be loaded
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowStart = windowStartAt(ZonedDateTime.now()).toEpochSecond();
+
+        Gauge.builder(POINTS_METRIC, this, MeasurementHotWindow::getPointCount).register(meterRegistry);
+        Gauge.builder(BYTES_METRIC, this, MeasurementHotWindow::getRetainedBytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    // inclusive on both ends like the BETWEEN query it replaces, ordered by timestamp and id
+    public Optional<Slice<MeasurementRecord>> findRecordsBetween(Pageable pageable,
+                                                                 Long metricId,
+                                                                 Long departmentId,
+                                                                 ZonedDateTime fromDateTime,
+                                                                 ZonedDateTime toDateTime) {
+        if (pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            return Optional.empty();
+        }
+        SeriesColumns columns = series.get(new SeriesKey(metricId, departmentId));
+        if (columns == null) {
+            return covers(fromDateTime) ? Optional.of(new SliceImpl<>(Collections.emptyList(), pageable, false)) : Optional.empty();
+        }
+        synchronized (columns) {
+            if (!covers(fromDateTime)) {
+                return Optional.empty();
+            }
+            int from = columns.lowerBound(ceilSeconds(fromDateTime), Long.MIN_VALUE);
+            int to = columns.lowerBound(toDateTime.toEpochSecond() + 1, Long.MIN_VALUE);
+            long offset = from + pageable.getOffset();
+            int pageEnd = (int) Math.min(to, offset + pageable.getPageSize());
+            return Optional.of(columns.toSlice(metricId, departmentId, (int) Math.min(offset, to), pageEnd, pageEnd < to, pageable));
+        }
+    }
+
+    // the readings after the cursor up to toDateTime, the first page of the seek queries it replaces
+    public Optional<Slice<MeasurementRecord>> findRecordsAfter(Pageable pageable,
+                                                               Long metricId,
+                                                               Long departmentId,
+                                                               ZonedDateTime afterTimestamp,
+                                                               Long afterId,
+                                                               ZonedDateTime toDateTime) {
+        SeriesColumns columns = series.get(new SeriesKey(metricId, departmentId));
+        if (columns == null) {
+            return covers(afterTimestamp) ? Optional.of(new SliceImpl<>(Collections.emptyList(), pageable, false)) : Optional.empty();
+        }
+        synchronized (columns) {
+            if (!covers(afterTimestamp)) {
+                return Optional.empty();
+            }
+            int from = afterTimestamp.getNano() > 0
+                    ? columns.lowerBound(afterTimestamp.toEpochSecond() + 1, Long.MIN_VALUE)
+                    : columns.upperBound(afterTimestamp.toEpochSecond(), afterId);
+            int to = columns.lowerBound(toDateTime.toEpochSecond() + 1, Long.MIN_VALUE);
+            int pageEnd = (int) Math.min(to, (long) from + pageable.getPageSize());
+            return Optional.of(columns.toSlice(metricId, departmentId, Math.min(from, to), pageEnd, pageEnd < to, pageable));
+        }
+    }
+
+    // the same figures as the rollups and sketches give for a window. Only the totals and the values of hours without a
+    // kept digest are taken under the series lock, so saves to the series are not held up while the percentiles are
+    // merged. The digest of a whole hour is kept until a reading lands in it, a miss after a save rebuilds one hour
+    public Optional<AggregatedResult> getAggregatedResult(Long metricId,
+                                                          Long departmentId,
+                                                          RollupGranularity granularity,
+                                                          ZonedDateTime bucketStart) {
+        SeriesColumns columns = series.get(new SeriesKey(metricId, departmentId));
+        if (columns == null) {
+            return covers(bucketStart) ? Optional.of(new AggregatedResult()) : Optional.empty();
+        }
+        WindowSnapshot snapshot;
+        synchronized (columns) {
+            if (!covers(bucketStart)) {
+                return Optional.empty();
+            }
+            snapshot = columns.snapshot(bucketStart.toEpochSecond(), granularity.nextBucketStart(bucketStart).toEpochSecond());
+        }
+        if (snapshot == null) {
+            return Optional.of(new AggregatedResult());
+        }
+
+        TDigest digest = QuantileSketches.newDigest();
+        for (HourChunk chunk : snapshot.chunks) {
+            if (chunk.digest != null) {
+                digest.add(QuantileSketches.fromBytes(chunk.digest));
+                continue;
+            }
+            TDigest hourDigest = QuantileSketches.newDigest();
+            for (double value : chunk.values) {
+                hourDigest.add(value);
+            }
+            if (chunk.wholeHour) {
+                byte[] hourBytes = QuantileSketches.toBytes(hourDigest);
+                synchronized (columns) {
+                    if (chunk.hourStart >= windowStart) {
+                        columns.keepDigest(chunk.hourStart, chunk.values.length, hourBytes);
+                    }
+                }
+            }
+            digest.add(hourDigest);
+        }
+        return Optional.of(AggregatedResult.builder()
+                .averageValue(snapshot.sum / snapshot.count)
+                .minValue(snapshot.min)
+                .maxValue(snapshot.max)
+                .p50(digest.quantile(0.50))
+                .p90(digest.quantile(0.90))
+                .p95(digest.quantile(0.95))
+                .p99(digest.quantile(0.99))
+                .build());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ZonedDateTime from = ZonedDateTime.ofInstant(Instant.ofEpochSecond(windowStart), ZoneId.systemDefault());
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<MeasurementRecord> records = measurementRepository.streamMeasurementRecordsSince(from)) {
+                records.forEach(this::offer);
+            }
+        });
+        warm = true;
+        log.info("Loaded {} readings of {} series since {} into the hot window, {} bytes",
+                getPointCount(), series.size(), from, getRetainedBytes());
+    }
+
+    // ahead of the aggregation cache, which reloads from here once it has dropped the touched windows
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMeasurementsSaved(MeasurementsSavedEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (Measurement measurement : event.getMeasurements()) {
+            offer(MeasurementRecord.of(measurement));
+        }
+    }
+
+    @EventListener
+    public void onMeasurementsDeleted(MeasurementsDeletedEvent event) {
+        series.keySet().removeIf(key -> event.matches(key.metricId, key.departmentId));
+    }
+
+    @Scheduled(cron = "${measurements.hot-window.eviction-cron:0 0 * * * *}")
+    public void evictExpired() {
+        evictExpired(ZonedDateTime.now());
+    }
+
+    void evictExpired(ZonedDateTime now) {
+        long newWindowStart = windowStartAt(now).toEpochSecond();
+        if (newWindowStart <= windowStart) {
+            return;
+        }
+        windowStart = newWindowStart;
+        // emptied series stay registered, a writer may be about to append to them
+        for (SeriesColumns columns : series.values()) {
+            synchronized (columns) {
+                columns.evictBefore(newWindowStart);
+            }
+        }
+    }
+
+    public long getPointCount() {
+        return series.values().stream().mapToLong(SeriesColumns::size).sum();
+    }
+
+    // the three columns at their current capacity, array headers and the map aside
+    public long getRetainedBytes() {
+        return series.values().stream().mapToLong(SeriesColumns::retainedBytes).sum();
+    }
+
+    boolean covers(ZonedDateTime fromDateTime) {
+        return warm && properties.isEnabled() && fromDateTime.toEpochSecond() >= windowStart;
+    }
+
+    private void offer(MeasurementRecord record) {
+        long timestamp = record.getMeasurementTimestamp().toEpochSecond();
+        if (timestamp < windowStart) {
+            return;
+        }
+        SeriesColumns columns = series.computeIfAbsent(new SeriesKey(record.getMetricId(), record.getDepartmentId()),
+                key -> new SeriesColumns());
+        synchronized (columns) {
+            columns.insert(timestamp, record.getId(), record.getValue());
+        }
+    }
+
+    private ZonedDateTime windowStartAt(ZonedDateTime now) {
+        return now.minus(properties.getWindow()).with(LocalTime.MIN);
+    }
+
+    private static long ceilSeconds(ZonedDateTime dateTime) {
+        return dateTime.getNano() > 0 ? dateTime.toEpochSecond() + 1 : dateTime.toEpochSecond();
+    }
+
+    // one series sorted by (timestamp, id). Readings nearly always arrive in order and are appended, late ones are
+    // shifted into place and a reading seen twice (warm up racing a save) is kept once
+    private static final class SeriesColumns {
+
+        private static final int INITIAL_CAPACITY = 64;
+        private static final int BYTES_PER_POINT = Long.BYTES + Long.BYTES + Double.BYTES;
+        private static final long HOUR_SECONDS = 3_600;
+
+        private long[] timestamps = new long[INITIAL_CAPACITY];
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int size;
+        // serialized digests of whole epoch hours by their first second, dropped when the hour changes
+        private final Map<Long, byte[]> hourDigests = new HashMap<>();
+
+        private void insert(long timestamp, long id, double value) {
+            int index = size;
+            if (size > 0 && compare(size - 1, timestamp, id) >= 0) {
+                index = lowerBound(timestamp, id);
+                if (index < size && timestamps[index] == timestamp && ids[index] == id) {
+                    return;
+                }
+            }
+            if (size == timestamps.length) {
+                resize(size * 2);
+            }
+            System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            timestamps[index] = timestamp;
+            ids[index] = id;
+            values[index] = value;
+            size++;
+            hourDigests.remove(hourOf(timestamp));
+        }
+
+        private void evictBefore(long timestamp) {
+            hourDigests.keySet().removeIf(hourStart -> hourStart < timestamp);
+            int evicted = lowerBound(timestamp, Long.MIN_VALUE);
+            if (evicted == 0) {
+                return;
+            }
+            size -= evicted;
+            System.arraycopy(timestamps, evicted, timestamps, 0, size);
+            System.arraycopy(ids, evicted, ids, 0, size);
+            System.arraycopy(values, evicted, values, 0, size);
+            if (size < timestamps.length / 4 && timestamps.length > INITIAL_CAPACITY) {
+                resize(Math.max(INITIAL_CAPACITY, size * 2));
+            }
+        }
+
+        // first index not before (timestamp, id)
+        private int lowerBound(long timestamp, long id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(middle, timestamp, id) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // first index after (timestamp, id)
+        private int upperBound(long timestamp, long id) {
+            return id == Long.MAX_VALUE ? lowerBound(timestamp + 1, Long.MIN_VALUE) : lowerBound(timestamp, id + 1);
+        }
+
+        private Slice<MeasurementRecord> toSlice(Long metricId, Long departmentId, int from, int to, boolean hasNext,
+                                                 Pageable pageable) {
+            List<MeasurementRecord> records = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                records.add(new MeasurementRecord(ids[i], values[i],
+                        ZonedDateTime.ofInstant(Instant.ofEpochSecond(timestamps[i]), ZoneId.systemDefault()),
+                        metricId, departmentId));
+            }
+            return new SliceImpl<>(records, pageable, hasNext);
+        }
+
+        // null for an empty window. Hours cut by the window edges are copied, their digests would not fit the window
+        private WindowSnapshot snapshot(long fromSecond, long toSecond) {
+            int from = lowerBound(fromSecond, Long.MIN_VALUE);
+            int to = lowerBound(toSecond, Long.MIN_VALUE);
+            if (from == to) {
+                return null;
+            }
+            double sum = 0;
+            double min = values[from];
+            double max = values[from];
+            for (int i = from; i < to; i++) {
+                sum += values[i];
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+
+            List<HourChunk> chunks = new ArrayList<>();
+            for (int start = from; start < to; ) {
+                long hourStart = hourOf(timestamps[start]);
+                int end = Math.min(to, lowerBound(hourStart + HOUR_SECONDS, Long.MIN_VALUE));
+                boolean wholeHour = hourStart >= fromSecond && hourStart + HOUR_SECONDS <= toSecond;
+                byte[] digest = wholeHour ? hourDigests.get(hourStart) : null;
+                chunks.add(digest != null
+                        ? new HourChunk(hourStart, null, digest, true)
+                        : new HourChunk(hourStart, Arrays.copyOfRange(values, start, end), null, wholeHour));
+                start = end;
+            }
+            return new WindowSnapshot(to - from, sum, min, max, chunks);
+        }
+
+        // only if no reading landed in the hour since its values were copied, readings are never removed from it
+        private void keepDigest(long hourStart, int count, byte[] digest) {
+            if (lowerBound(hourStart + HOUR_SECONDS, Long.MIN_VALUE) - lowerBound(hourStart, Long.MIN_VALUE) == count) {
+                hourDigests.put(hourStart, digest);
+            }
+        }
+
+        private static long hourOf(long timestamp) {
+            return Math.floorDiv(timestamp, HOUR_SECONDS) * HOUR_SECONDS;
+        }
+
+        private int compare(int index, long timestamp, long id) {
+            int byTimestamp = Long.compare(timestamps[index], timestamp);
+            return byTimestamp != 0 ? byTimestamp : Long.compare(ids[index], id);
+        }
+
+        private void resize(int capacity) {
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized long retainedBytes() {
+            return (long) timestamps.length * BYTES_PER_POINT;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class WindowSnapshot {
+
+        private final int count;
+        private final double sum;
+        private final double min;
+        private final double max;
+        private final List<HourChunk> chunks;
+    }
+
+    // either the kept digest of the hour or a copy of its values in the window
+    @RequiredArgsConstructor
+    private static class HourChunk {
+
+        private final long hourStart;
+        private final double[] values;
+        private final byte[] digest;
+        private final boolean wholeHour;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SeriesKey {
+
+        private final Long metricId;
+        private final Long departmentId;
+    }
+}
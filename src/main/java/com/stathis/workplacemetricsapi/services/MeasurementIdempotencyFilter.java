@@ -0,0 +1,175 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementIdempotencyProperties;
+import com.stathis.workplacemetricsapi.model.RetentionResult;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+// a Bloom filter over every idempotency key in the measurements table. A key it has not seen is certainly new and
+// is saved without looking for the original, any other answer costs a lookup. Keys are added before they are written,
+// a rolled back save only leaves a needless lookup behind. Until the warm up finished every key is looked up.
+@Slf4j
+@Service
+public class MeasurementIdempotencyFilter {
+
+    public static final String CHECKS_METRIC = "measurements.idempotency.checks";
+    public static final String OUTCOME_TAG = "outcome";
+    public static final String NEW = "new";
+    public static final String LOOKED_UP = "looked_up";
+
+    private final MeasurementRepository measurementRepository;
+    private final MeasurementIdempotencyProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter newCounter;
+    private final Counter lookedUpCounter;
+
+    private volatile KeyBits keyBits;
+    // filled next to keyBits while a rebuild streams the table, so keys written meanwhile are not lost
+    private volatile KeyBits rebuiltKeyBits;
+    private volatile boolean warm;
+
+    public MeasurementIdempotencyFilter(MeasurementRepository measurementRepository,
+                                        MeasurementIdempotencyProperties properties,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry) {
+        this.measurementRepository = measurementRepository;
+        this.properties = properties;
+        // the primary has every committed key, a lagging replica does not
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyBits = newKeyBits();
+
+        this.newCounter = Counter.builder(CHECKS_METRIC).tag(OUTCOME_TAG, NEW).register(meterRegistry);
+        this.lookedUpCounter = Counter.builder(CHECKS_METRIC).tag(OUTCOME_TAG, LOOKED_UP).register(meterRegistry);
+    }
+
+    public boolean mightContain(String key) {
+        if (warm && !keyBits.mightContain(key)) {
+            newCounter.increment();
+            return false;
+        }
+        lookedUpCounter.increment();
+        return true;
+    }
+
+    public void put(String key) {
+        keyBits.put(key);
+        KeyBits rebuilding = rebuiltKeyBits;
+        if (rebuilding != null) {
+            rebuilding.put(key);
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+        warm = true;
+        log.info("Idempotency filter warmed up");
+    }
+
+    // keys of the dropped readings would only cause needless lookups, the filter starts over without them
+    @EventListener
+    public void onRetentionApplied(RetentionResult retentionResult) {
+        if (warm && retentionResult.getMeasurementsDeleted() + retentionResult.getPartitionsDropped() > 0) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        KeyBits rebuilding = newKeyBits();
+        rebuiltKeyBits = rebuilding;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> keys = measurementRepository.streamIdempotencyKeys()) {
+                    keys.forEach(rebuilding::put);
+                }
+            });
+            keyBits = rebuilding;
+        } finally {
+            rebuiltKeyBits = null;
+        }
+    }
+
+    private KeyBits newKeyBits() {
+        return new KeyBits(properties.getExpectedKeys(), properties.getFalsePositiveRate());
+    }
+
+    // lock free bit array probed at hashCount positions derived from two 64 bit hashes of the key
+    static final class KeyBits {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        KeyBits(int expectedKeys, double falsePositiveRate) {
+            double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            long bits = Math.max(Long.SIZE, (long) Math.ceil(Math.max(1, expectedKeys) * bitsPerKey));
+            this.words = new AtomicLongArray(Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE));
+            this.bitCount = (long) words.length() * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            long first = mix(hash);
+            long second = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(first + i * second, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(String key) {
+            long hash = hash(key);
+            long first = mix(hash);
+            long second = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(first + i * second, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+            }
+        }
+
+        // FNV-1a over the UTF-8 bytes, String.hashCode has too few bits for millions of keys
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        // the finalizer of MurmurHash3
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb93fe1a85ec3L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.model.ImportJob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface MeasurementImportService {
+
+    ImportJob submitImport(InputStream csvInputStream) throws IOException;
+
+    ImportJob getImportJob(String jobId);
+
+    Path getRejectedRowsFile(String jobId);
+}
@@ -0,0 +1,410 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stathis.workplacemetricsapi.configuration.MeasurementImportProperties;
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.imports.MeasurementBulkLoader;
+import com.stathis.workplacemetricsapi.model.ImportJob;
+import com.stathis.workplacemetricsapi.model.ImportStatus;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
+
+@Slf4j
+@Service
+public class MeasurementImportServiceImpl implements MeasurementImportService, DisposableBean {
+
+    public static final String HEADER_FIRST_COLUMN = "timestamp";
+    public static final String REJECTED_ROWS_HEADER = "line,reason,row";
+    public static final String MALFORMED_ROW = "Expected timestamp, value, metric type and department name";
+    public static final String INVALID_TIMESTAMP = "Invalid timestamp: ";
+    public static final String INVALID_VALUE = "Invalid value: ";
+    public static final String UNKNOWN_METRIC_TYPE = "Unknown metric type: ";
+    public static final String UNKNOWN_DEPARTMENT = "Unknown department: ";
+    public static final String AMBIGUOUS_DEPARTMENT = "More than one department is named ";
+
+    static final String INSERT_STAGED_MEASUREMENTS = "INSERT INTO measurements " +
+            "(id, created, measurement_timestamp, value, metric_id, department_id) " +
+            "SELECT ? + row_no, ?, measurement_timestamp, value, metric_id, department_id " +
+            "FROM measurement_import_staging WHERE job_id = ? AND row_no >= ? AND row_no < ?";
+    static final String SELECT_STAGED_MEASUREMENTS = "SELECT row_no, metric_id, department_id, measurement_timestamp, value " +
+            "FROM measurement_import_staging WHERE job_id = ? AND row_no >= ? AND row_no < ? ORDER BY row_no";
+    static final String DELETE_STAGED_MEASUREMENTS = "DELETE FROM measurement_import_staging " +
+            "WHERE job_id = ? AND row_no >= ? AND row_no < ?";
+    static final String DELETE_STAGED_JOB = "DELETE FROM measurement_import_staging WHERE job_id = ?";
+
+    private static final String IMPORT_THREAD_NAME = "measurement-import";
+    private static final String UPLOAD_SUFFIX = ".csv";
+    private static final String STAGING_SUFFIX = "-staging.csv";
+    private static final String REJECTED_ROWS_SUFFIX = "-rejected.csv";
+    private static final int COLUMN_COUNT = 4;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    // the resolution of the measurement_timestamp column
+    private static final DateTimeFormatter STAGING_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final DepartmentRepository departmentRepository;
+    private final MetricRepository metricRepository;
+    private final MeasurementBulkLoader bulkLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeasurementImportProperties properties;
+    private final Path directory;
+
+    private final Cache<String, ImportJob> jobs;
+    // one import at a time, a second one would only compete for the same tables and the id sequence
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread worker = new Thread(runnable, IMPORT_THREAD_NAME);
+        worker.setDaemon(true);
+        return worker;
+    });
+
+    public MeasurementImportServiceImpl(DepartmentRepository departmentRepository,
+                                        MetricRepository metricRepository,
+                                        MeasurementBulkLoader bulkLoader,
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        ApplicationEventPublisher eventPublisher,
+                                        MeasurementImportProperties properties) {
+        this.departmentRepository = departmentRepository;
+        this.metricRepository = metricRepository;
+        this.bulkLoader = bulkLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.directory = Paths.get(properties.getDirectory());
+        // the rejected rows of a job stay downloadable for as long as the job itself
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getJobRetention())
+                .<String, ImportJob>removalListener((jobId, importJob, cause) -> deleteQuietly(rejectedRowsFile(jobId)))
+                .build();
+    }
+
+    // the upload is copied to disk before the request returns, the job reads it from there
+    @Override
+    public ImportJob submitImport(InputStream csvInputStream) throws IOException {
+        Files.createDirectories(directory);
+        String jobId = UUID.randomUUID().toString();
+        Path uploadFile = directory.resolve(jobId + UPLOAD_SUFFIX);
+        try {
+            Files.copy(csvInputStream, uploadFile);
+        } catch (IOException ex) {
+            deleteQuietly(uploadFile);
+            throw ex;
+        }
+
+        ImportJob importJob = ImportJob.builder()
+                .jobId(jobId)
+                .status(ImportStatus.PENDING)
+                .submittedAt(ZonedDateTime.now())
+                .build();
+        jobs.put(jobId, importJob);
+        executor.execute(() -> run(importJob, uploadFile));
+        return importJob;
+    }
+
+    @Override
+    public ImportJob getImportJob(String jobId) {
+        ImportJob importJob = jobs.getIfPresent(jobId);
+        if (importJob == null) {
+            throw new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + jobId);
+        }
+        return importJob;
+    }
+
+    @Override
+    public Path getRejectedRowsFile(String jobId) {
+        getImportJob(jobId);
+        Path rejectedRowsFile = rejectedRowsFile(jobId);
+        if (!Files.exists(rejectedRowsFile)) {
+            throw new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + jobId);
+        }
+        return rejectedRowsFile;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void run(ImportJob importJob, Path uploadFile) {
+        String jobId = importJob.getJobId();
+        Path stagingFile = directory.resolve(jobId + STAGING_SUFFIX);
+        long startedNanos = System.nanoTime();
+        importJob.setStartedAt(ZonedDateTime.now());
+        try {
+            importJob.setStatus(ImportStatus.VALIDATING);
+            ReferenceData referenceData = new ReferenceData(departmentRepository.findAll(), metricRepository.findAll());
+            long rowCount = validate(importJob, referenceData, uploadFile, stagingFile);
+
+            importJob.setStatus(ImportStatus.LOADING);
+            importJob.setRowsStaged(bulkLoader.loadStagingFile(jobId, stagingFile));
+            deleteQuietly(stagingFile);
+
+            importJob.setStatus(ImportStatus.INSERTING);
+            int chunkSize = properties.getChunkSize();
+            for (long chunkStart = 0; chunkStart < rowCount; chunkStart += chunkSize) {
+                long chunkEnd = Math.min(chunkStart + chunkSize, rowCount);
+                importJob.setRowsImported(importJob.getRowsImported() + insertChunk(jobId, referenceData, chunkStart, chunkEnd));
+                importJob.setRowsPerSecond(importJob.getRowsImported() * 1e9 / (System.nanoTime() - startedNanos));
+            }
+
+            finish(importJob, ImportStatus.COMPLETED);
+            log.info("Imported {} measurements at {} rows/s, rejected {} rows", importJob.getRowsImported(),
+                    Math.round(importJob.getRowsPerSecond()), importJob.getRowsRejected());
+        } catch (IOException | RuntimeException ex) {
+            importJob.setError(ex.getMessage());
+            finish(importJob, ImportStatus.FAILED);
+            log.error("Failed to import {}", uploadFile, ex);
+            try {
+                jdbcTemplate.update(DELETE_STAGED_JOB, jobId);
+            } catch (DataAccessException cleanupEx) {
+                log.warn("Failed to remove the staged rows of import {}", jobId, cleanupEx);
+            }
+        } finally {
+            deleteQuietly(uploadFile);
+            deleteQuietly(stagingFile);
+        }
+    }
+
+    // names are resolved against the departments and metrics read once at the start, accepted rows are written to the
+    // staging file numbered from 0 and every other row goes to the rejected rows file with its line number and reason
+    private long validate(ImportJob importJob, ReferenceData referenceData, Path uploadFile, Path stagingFile) throws IOException {
+        long rowCount = 0;
+        long lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(uploadFile, StandardCharsets.UTF_8);
+             BufferedWriter stagingWriter = Files.newBufferedWriter(stagingFile, StandardCharsets.UTF_8);
+             BufferedWriter rejectedWriter = Files.newBufferedWriter(rejectedRowsFile(importJob.getJobId()), StandardCharsets.UTF_8)) {
+            rejectedWriter.write(REJECTED_ROWS_HEADER);
+            rejectedWriter.write('\n');
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> columns = splitCsvRow(line);
+                if (lineNumber == 1 && columns.get(0).trim().equalsIgnoreCase(HEADER_FIRST_COLUMN)) {
+                    continue;
+                }
+                importJob.setRowsRead(importJob.getRowsRead() + 1);
+
+                String rejection = stageRow(importJob, referenceData, columns, rowCount, stagingWriter);
+                if (rejection == null) {
+                    rowCount++;
+                } else {
+                    importJob.setRowsRejected(importJob.getRowsRejected() + 1);
+                    rejectedWriter.write(lineNumber + "," + quoteCsv(rejection) + "," + quoteCsv(line));
+                    rejectedWriter.write('\n');
+                }
+            }
+        }
+        return rowCount;
+    }
+
+    // the reason the row was rejected, or null once it is in the staging file
+    private static String stageRow(ImportJob importJob,
+                                   ReferenceData referenceData,
+                                   List<String> columns,
+                                   long rowNumber,
+                                   BufferedWriter stagingWriter) throws IOException {
+        if (columns.size() != COLUMN_COUNT) {
+            return MALFORMED_ROW;
+        }
+
+        ZonedDateTime timestamp;
+        try {
+            timestamp = parseTimestamp(columns.get(0).trim());
+        } catch (DateTimeParseException ex) {
+            return INVALID_TIMESTAMP + columns.get(0);
+        }
+
+        double value;
+        try {
+            value = Double.parseDouble(columns.get(1).trim());
+        } catch (NumberFormatException ex) {
+            return INVALID_VALUE + columns.get(1);
+        }
+        if (!Double.isFinite(value)) {
+            return INVALID_VALUE + columns.get(1);
+        }
+
+        Metric metric = referenceData.metricsByType.get(columns.get(2).trim());
+        if (metric == null) {
+            return UNKNOWN_METRIC_TYPE + columns.get(2);
+        }
+
+        String departmentName = columns.get(3).trim();
+        if (!referenceData.departmentsByName.containsKey(departmentName)) {
+            return UNKNOWN_DEPARTMENT + columns.get(3);
+        }
+        Department department = referenceData.departmentsByName.get(departmentName);
+        if (department == null) {
+            return AMBIGUOUS_DEPARTMENT + columns.get(3);
+        }
+
+        stagingWriter.write(rowNumber + "," + metric.getId() + "," + department.getId() + ","
+                + STAGING_TIMESTAMP.format(timestamp) + "," + value);
+        stagingWriter.write('\n');
+
+        if (importJob.getOldestTimestamp() == null || timestamp.isBefore(importJob.getOldestTimestamp())) {
+            importJob.setOldestTimestamp(timestamp);
+        }
+        if (importJob.getNewestTimestamp() == null || timestamp.isAfter(importJob.getNewestTimestamp())) {
+            importJob.setNewestTimestamp(timestamp);
+        }
+        return null;
+    }
+
+    // ids come from a block reserved up front, so the rows go in with a single INSERT ... SELECT. They are published
+    // the way saveMeasurements publishes them, the rollups are updated in this transaction and everything else after it
+    private int insertChunk(String jobId, ReferenceData referenceData, long chunkStart, long chunkEnd) {
+        long firstId = bulkLoader.reserveMeasurementIds((int) (chunkEnd - chunkStart));
+        long idOffset = firstId - chunkStart;
+        Timestamp created = Timestamp.valueOf(LocalDateTime.now());
+        return transactionTemplate.execute(status -> {
+            int inserted = jdbcTemplate.update(INSERT_STAGED_MEASUREMENTS, idOffset, created, jobId, chunkStart, chunkEnd);
+            List<Measurement> measurements = jdbcTemplate.query(SELECT_STAGED_MEASUREMENTS, (resultSet, rowNum) -> {
+                Measurement measurement = Measurement.builder()
+                        .value(resultSet.getDouble("value"))
+                        .measurementTimestamp(resultSet.getTimestamp("measurement_timestamp").toLocalDateTime()
+                                .atZone(ZoneId.systemDefault()))
+                        .metric(referenceData.metricsById.get(resultSet.getLong("metric_id")))
+                        .department(referenceData.departmentsById.get(resultSet.getLong("department_id")))
+                        .build();
+                measurement.setId(idOffset + resultSet.getLong("row_no"));
+                measurement.setCreatedTimestamp(created.toLocalDateTime().atZone(ZoneId.systemDefault()));
+                return measurement;
+            }, jobId, chunkStart, chunkEnd);
+            jdbcTemplate.update(DELETE_STAGED_MEASUREMENTS, jobId, chunkStart, chunkEnd);
+
+            if (!measurements.isEmpty()) {
+                eventPublisher.publishEvent(new MeasurementsSavedEvent(measurements));
+            }
+            return inserted;
+        });
+    }
+
+    // ISO-8601 with an offset or zone, or a local date-time taken as the server's zone like the stored timestamps
+    static ZonedDateTime parseTimestamp(String text) {
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text, ZonedDateTime::from, LocalDateTime::from);
+        ZonedDateTime timestamp = parsed instanceof ZonedDateTime
+                ? ((ZonedDateTime) parsed).withZoneSameInstant(ZoneId.systemDefault())
+                : ((LocalDateTime) parsed).atZone(ZoneId.systemDefault());
+        return timestamp.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    // RFC 4180 fields, department names may contain commas and quotes
+    static List<String> splitCsvRow(String line) {
+        List<String> columns = new ArrayList<>(COLUMN_COUNT);
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int index = 0; index < line.length(); index++) {
+            char character = line.charAt(index);
+            if (quoted) {
+                if (character != '"') {
+                    column.append(character);
+                } else if (index + 1 < line.length() && line.charAt(index + 1) == '"') {
+                    column.append('"');
+                    index++;
+                } else {
+                    quoted = false;
+                }
+            } else if (character == '"') {
+                quoted = true;
+            } else if (character == ',') {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(character);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    private static String quoteCsv(String text) {
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static void finish(ImportJob importJob, ImportStatus status) {
+        importJob.setFinishedAt(ZonedDateTime.now());
+        importJob.setStatus(status);
+    }
+
+    private Path rejectedRowsFile(String jobId) {
+        return directory.resolve(jobId + REJECTED_ROWS_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Failed to delete {}", file, ex);
+        }
+    }
+
+    // department names are not unique, a name shared by several departments maps to null and its rows are rejected
+    private static class ReferenceData {
+
+        private final Map<String, Department> departmentsByName = new HashMap<>();
+        private final Map<Long, Department> departmentsById = new HashMap<>();
+        private final Map<String, Metric> metricsByType = new HashMap<>();
+        private final Map<Long, Metric> metricsById = new HashMap<>();
+
+        private ReferenceData(List<Department> departments, List<Metric> metrics) {
+            for (Department department : departments) {
+                departmentsById.put(department.getId(), department);
+                String name = department.getName().trim();
+                departmentsByName.put(name, departmentsByName.containsKey(name) ? null : department);
+            }
+            for (Metric metric : metrics) {
+                metricsById.put(metric.getId(), metric);
+                metricsByType.put(metric.getType().trim(), metric);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementPartitionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class MeasurementPartitionService {
+
+    public static final String FUTURE_PARTITION = "p_future";
+
+    static final String SELECT_PARTITIONS = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION " +
+            "FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'measurements' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+    static final String REORGANIZE_FUTURE_PARTITION = "ALTER TABLE measurements REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (%s, " +
+            "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))";
+    static final String DROP_PARTITIONS = "ALTER TABLE measurements DROP PARTITION %s";
+
+    private static final String MYSQL = "MySQL";
+    private static final String MARIADB = "MariaDB";
+    private static final String MAXVALUE = "MAXVALUE";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeasurementPartitionProperties properties;
+
+    private volatile Boolean partitioningSupported;
+
+    public MeasurementPartitionService(JdbcTemplate jdbcTemplate, MeasurementPartitionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    // upcoming partitions must exist before the first reading of a month arrives, so they are checked on startup as well
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${measurements.partitioning.cron:0 30 0 * * *}")
+    public synchronized void maintainPartitions() {
+        if (!properties.isEnabled() || !isPartitioningSupported()) {
+            return;
+        }
+        try {
+            maintainPartitions(LocalDateTime.now());
+        } catch (DataAccessException ex) {
+            log.error("Failed to maintain the measurement partitions", ex);
+        }
+    }
+
+    // whole partitions below the boundary are freed at once instead of deleting their rows one by one
+    public synchronized int dropPartitionsBefore(LocalDateTime boundary) {
+        if (!properties.isEnabled() || !isPartitioningSupported()) {
+            return 0;
+        }
+        List<Partition> partitions = findMonthlyPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        List<String> expired = partitions.stream()
+                .filter(partition -> partition.upperBound != null && !partition.upperBound.isAfter(boundary))
+                .map(partition -> partition.name)
+                .collect(Collectors.toList());
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.execute(String.format(DROP_PARTITIONS, String.join(", ", expired)));
+        log.info("Dropped the measurement partitions {} below {}", expired, boundary);
+        return expired.size();
+    }
+
+    void maintainPartitions(LocalDateTime now) {
+        List<Partition> partitions = findMonthlyPartitions();
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        // p_future only ever receives readings from beyond the horizon, splitting it is a metadata change while it is empty
+        LocalDateTime futureStart = partitions.get(partitions.size() - 2).upperBound;
+        LocalDateTime horizon = now.toLocalDate().withDayOfMonth(1).plusMonths(properties.getMonthsAhead() + 1L).atStartOfDay();
+        if (!futureStart.isBefore(horizon)) {
+            return;
+        }
+
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate month = futureStart.toLocalDate().withDayOfMonth(1); month.atStartOfDay().isBefore(horizon); month = month.plusMonths(1)) {
+            definitions.add(String.format("PARTITION %s VALUES LESS THAN ('%s')",
+                    PARTITION_NAME.format(month), PARTITION_BOUND.format(month.plusMonths(1).atStartOfDay())));
+        }
+        jdbcTemplate.execute(String.format(REORGANIZE_FUTURE_PARTITION, String.join(", ", definitions)));
+        log.info("Added {} monthly measurement partitions up to {}", definitions.size(), horizon);
+    }
+
+    // empty unless the table has the layout created by the migrations, ranges followed by p_future
+    private List<Partition> findMonthlyPartitions() {
+        List<Partition> partitions = jdbcTemplate.queryForList(SELECT_PARTITIONS).stream()
+                .map(Partition::of)
+                .collect(Collectors.toList());
+        if (partitions.size() < 2 || !FUTURE_PARTITION.equals(partitions.get(partitions.size() - 1).name)) {
+            log.warn("The measurements table is not partitioned by month, skipping partition maintenance");
+            return Collections.emptyList();
+        }
+        return partitions;
+    }
+
+    private boolean isPartitioningSupported() {
+        if (partitioningSupported == null) {
+            String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            partitioningSupported = MYSQL.equalsIgnoreCase(productName) || MARIADB.equalsIgnoreCase(productName);
+        }
+        return partitioningSupported;
+    }
+
+    private static class Partition {
+
+        private final String name;
+        // exclusive upper bound, null for the MAXVALUE partition
+        private final LocalDateTime upperBound;
+
+        private Partition(String name, LocalDateTime upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+
+        private static Partition of(Map<String, Object> row) {
+            String description = String.valueOf(row.get("PARTITION_DESCRIPTION")).replace("'", "");
+            if (MAXVALUE.equalsIgnoreCase(description)) {
+                return new Partition((String) row.get("PARTITION_NAME"), null);
+            }
+            LocalDateTime upperBound = description.length() == 10
+                    ? LocalDate.parse(description).atStartOfDay()
+                    : LocalDateTime.parse(description, PARTITION_BOUND);
+            return new Partition((String) row.get("PARTITION_NAME"), upperBound);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.model.RetentionResult;
+
+public interface MeasurementRetentionService {
+
+    RetentionResult applyRetention();
+}
@@ -0,0 +1,116 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementRetentionProperties;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.RetentionResult;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+@Slf4j
+@Service
+public class MeasurementRetentionServiceImpl implements MeasurementRetentionService {
+
+    private final MeasurementRepository measurementRepository;
+    private final MeasurementRollupRepository measurementRollupRepository;
+    private final MeasurementRollupService measurementRollupService;
+    private final MeasurementPartitionService measurementPartitionService;
+    private final MeasurementRetentionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MeasurementRetentionServiceImpl(MeasurementRepository measurementRepository,
+                                           MeasurementRollupRepository measurementRollupRepository,
+                                           MeasurementRollupService measurementRollupService,
+                                           MeasurementPartitionService measurementPartitionService,
+                                           MeasurementRetentionProperties properties,
+                                           PlatformTransactionManager transactionManager,
+                                           ApplicationEventPublisher eventPublisher) {
+        this.measurementRepository = measurementRepository;
+        this.measurementRollupRepository = measurementRollupRepository;
+        this.measurementRollupService = measurementRollupService;
+        this.measurementPartitionService = measurementPartitionService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(cron = "${measurements.retention.cron:0 0 1 * * *}")
+    public void scheduledRetention() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            applyRetention();
+        } catch (RuntimeException ex) {
+            log.error("Failed to apply the measurement retention", ex);
+        }
+    }
+
+    @Override
+    public synchronized RetentionResult applyRetention() {
+        ZonedDateTime boundary = measurementRollupService.getCompactionBoundary();
+        if (boundary == null) {
+            return RetentionResult.builder().weeksCompacted(0L).partitionsDropped(0).measurementsDeleted(0L).build();
+        }
+
+        long weeksCompacted = 0;
+        Optional<ZonedDateTime> oldestTimestamp = measurementRepository.findOldestMeasurementTimestamp();
+        if (oldestTimestamp.isPresent()) {
+            for (ZonedDateTime weekStart = RollupGranularity.WEEK.bucketStart(oldestTimestamp.get());
+                 weekStart.isBefore(boundary);
+                 weekStart = RollupGranularity.WEEK.nextBucketStart(weekStart)) {
+                if (compactWeek(weekStart)) {
+                    weeksCompacted++;
+                }
+            }
+        }
+
+        int partitionsDropped = measurementPartitionService.dropPartitionsBefore(boundary.toLocalDateTime());
+
+        // readings left below the boundary are removed in small transactions so that writers never wait long on row locks
+        long measurementsDeleted = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    measurementRepository.deleteMeasurementChunkBefore(boundary, properties.getChunkSize()));
+            measurementsDeleted += deleted;
+        } while (deleted == properties.getChunkSize());
+        // dropped partitions take their readings without a delete, their idempotency keys go by timestamp
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    measurementRepository.deleteIdempotencyKeyChunkBefore(boundary, properties.getChunkSize()));
+        } while (deleted == properties.getChunkSize());
+
+        log.info("Compacted {} weeks, dropped {} partitions and deleted {} measurements before {}",
+                weeksCompacted, partitionsDropped, measurementsDeleted, boundary);
+        RetentionResult retentionResult = RetentionResult.builder()
+                .compactedBefore(boundary)
+                .weeksCompacted(weeksCompacted)
+                .partitionsDropped(partitionsDropped)
+                .measurementsDeleted(measurementsDeleted)
+                .build();
+        eventPublisher.publishEvent(retentionResult);
+        return retentionResult;
+    }
+
+    // rollups are written together with every reading, only weeks older than the rollups lack them.
+    // a week with fewer raw readings than rolled up ones is already being deleted and must not be rebuilt
+    private boolean compactWeek(ZonedDateTime weekStart) {
+        ZonedDateTime weekEnd = RollupGranularity.WEEK.nextBucketStart(weekStart);
+        long rawCount = measurementRepository.countMeasurementsBetween(weekStart, weekEnd);
+        if (rawCount == 0 || rawCount <= measurementRollupRepository.sumSampleCounts(RollupGranularity.WEEK, weekStart)) {
+            return false;
+        }
+        measurementRollupService.rebuildRollups(weekStart, weekEnd);
+        return true;
+    }
+}
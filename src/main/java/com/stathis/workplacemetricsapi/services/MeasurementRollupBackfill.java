@@ -0,0 +1,84 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementRollupProperties;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+// aggregates are read from the rollups only, which are written together with every reading. Readings saved before
+// the rollups existed have none, so weeks whose oldest reading is older than their oldest hourly rollup are rebuilt
+// once on startup. Weeks before the compaction boundary are left to the retention, it rebuilds them before compacting
+@Slf4j
+@Service
+public class MeasurementRollupBackfill {
+
+    private final MeasurementRepository measurementRepository;
+    private final MeasurementRollupRepository measurementRollupRepository;
+    private final MeasurementRollupService measurementRollupService;
+    private final MeasurementRollupProperties properties;
+
+    public MeasurementRollupBackfill(MeasurementRepository measurementRepository,
+                                     MeasurementRollupRepository measurementRollupRepository,
+                                     MeasurementRollupService measurementRollupService,
+                                     MeasurementRollupProperties properties) {
+        this.measurementRepository = measurementRepository;
+        this.measurementRollupRepository = measurementRollupRepository;
+        this.measurementRollupService = measurementRollupService;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.isBackfillOnStartup()) {
+            return;
+        }
+        try {
+            backfill(ZonedDateTime.now());
+        } catch (DataAccessException ex) {
+            log.error("Failed to backfill the measurement rollups", ex);
+        }
+    }
+
+    int backfill(ZonedDateTime now) {
+        Optional<ZonedDateTime> oldestTimestamp = measurementRepository.findOldestMeasurementTimestamp();
+        if (oldestTimestamp.isEmpty()) {
+            return 0;
+        }
+        ZonedDateTime weekStart = RollupGranularity.WEEK.bucketStart(oldestTimestamp.get());
+        ZonedDateTime compactionBoundary = measurementRollupService.getCompactionBoundary();
+        if (compactionBoundary != null && weekStart.isBefore(compactionBoundary)) {
+            weekStart = compactionBoundary;
+        }
+
+        int weeksRebuilt = 0;
+        for (; !weekStart.isAfter(now); weekStart = RollupGranularity.WEEK.nextBucketStart(weekStart)) {
+            ZonedDateTime weekEnd = RollupGranularity.WEEK.nextBucketStart(weekStart);
+            if (lacksRollups(weekStart, weekEnd)) {
+                measurementRollupService.rebuildRollups(weekStart, weekEnd);
+                weeksRebuilt++;
+            }
+        }
+        if (weeksRebuilt > 0) {
+            log.info("Backfilled the rollups of {} weeks", weeksRebuilt);
+        }
+        return weeksRebuilt;
+    }
+
+    private boolean lacksRollups(ZonedDateTime weekStart, ZonedDateTime weekEnd) {
+        Optional<ZonedDateTime> oldestReading = measurementRepository.findOldestMeasurementTimestampBetween(weekStart, weekEnd);
+        if (oldestReading.isEmpty()) {
+            return false;
+        }
+        Optional<ZonedDateTime> oldestRollup = measurementRollupRepository
+                .findOldestBucketStartBetween(RollupGranularity.HOUR, weekStart, weekEnd);
+        return oldestRollup.isEmpty() || RollupGranularity.HOUR.bucketStart(oldestReading.get()).isBefore(oldestRollup.get());
+    }
+}
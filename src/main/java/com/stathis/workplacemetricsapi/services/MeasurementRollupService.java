@@ -0,0 +1,32 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.RollupRebuildResult;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+
+public interface MeasurementRollupService {
+
+    void applyMeasurements(Collection<Measurement> measurements);
+
+    AggregatedResult getAggregatedResult(Long metricId,
+                                         Long departmentId,
+                                         RollupGranularity granularity,
+                                         ZonedDateTime bucketStart);
+
+    AggregatedMatrix getAggregatedMatrix(Collection<Long> metricIds,
+                                         Collection<Long> departmentIds,
+                                         RollupGranularity granularity,
+                                         ZonedDateTime bucketStart);
+
+    RollupRebuildResult rebuildRollups(LocalDate fromDate, LocalDate toDate);
+
+    RollupRebuildResult rebuildRollups(ZonedDateTime fromDateTime, ZonedDateTime toDateTime);
+
+    ZonedDateTime getCompactionBoundary();
+}
@@ -0,0 +1,326 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementRetentionProperties;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrixCell;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.model.RollupRebuildResult;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementSketchRepository;
+import com.tdunning.math.stats.TDigest;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.COMPACTED_RANGE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_DATE_RANGE;
+
+@Slf4j
+@Service
+public class MeasurementRollupServiceImpl implements MeasurementRollupService {
+
+    // IN () is not valid SQL, the placeholder keeps the query well-formed when every id is selected
+    private static final List<Long> NO_IDS = Collections.singletonList(-1L);
+
+    private final MeasurementRepository measurementRepository;
+    private final MeasurementRollupRepository measurementRollupRepository;
+    private final MeasurementSketchRepository measurementSketchRepository;
+    private final MeasurementSketchBuffer measurementSketchBuffer;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeasurementRetentionProperties retentionProperties;
+
+    public MeasurementRollupServiceImpl(MeasurementRepository measurementRepository,
+                                        MeasurementRollupRepository measurementRollupRepository,
+                                        MeasurementSketchRepository measurementSketchRepository,
+                                        MeasurementSketchBuffer measurementSketchBuffer,
+                                        PlatformTransactionManager transactionManager,
+                                        ApplicationEventPublisher eventPublisher,
+                                        MeasurementRetentionProperties retentionProperties) {
+        this.measurementRepository = measurementRepository;
+        this.measurementRollupRepository = measurementRollupRepository;
+        this.measurementSketchRepository = measurementSketchRepository;
+        this.measurementSketchBuffer = measurementSketchBuffer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.retentionProperties = retentionProperties;
+    }
+
+    @EventListener
+    public void onMeasurementsSaved(MeasurementsSavedEvent event) {
+        applyMeasurements(event.getMeasurements());
+    }
+
+    // only the rollups are written with the readings, MeasurementSketchBuffer merges their sketches after the commit
+    @Override
+    @Transactional
+    public void applyMeasurements(Collection<Measurement> measurements) {
+        Map<BucketKey, Accumulator> buckets = new TreeMap<>();
+        for (Measurement measurement : measurements) {
+            accumulate(buckets, measurement.getMetric().getId(), measurement.getDepartment().getId(),
+                    measurement.getMeasurementTimestamp(), measurement.getValue(), false);
+        }
+        writeBuckets(buckets);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AggregatedResult getAggregatedResult(Long metricId,
+                                                Long departmentId,
+                                                RollupGranularity granularity,
+                                                ZonedDateTime bucketStart) {
+        AggregatedResult aggregatedResult = measurementRollupRepository
+                .findByMetricIdAndDepartmentIdAndGranularityAndBucketStart(metricId, departmentId, granularity, bucketStart)
+                .map(rollup -> new AggregatedResult(rollup.getValueSum() / rollup.getSampleCount(),
+                        rollup.getMinValue(),
+                        rollup.getMaxValue()))
+                .orElseGet(AggregatedResult::new);
+        if (aggregatedResult.getAverageValue() == null) {
+            return aggregatedResult;
+        }
+
+        List<byte[]> sketches = measurementSketchRepository
+                .findSketchesBetween(metricId, departmentId, bucketStart, granularity.nextBucketStart(bucketStart))
+                .stream()
+                .map(MeasurementSketch::getDigest)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (!sketches.isEmpty()) {
+            TDigest digest = QuantileSketches.merge(sketches);
+            aggregatedResult.setP50(digest.quantile(0.50));
+            aggregatedResult.setP90(digest.quantile(0.90));
+            aggregatedResult.setP95(digest.quantile(0.95));
+            aggregatedResult.setP99(digest.quantile(0.99));
+        }
+        return aggregatedResult;
+    }
+
+    // a null id collection selects every metric or department, matching rows come back from a single query and the
+    // hourly sketches of every cell from a second one
+    @Override
+    @Transactional(readOnly = true)
+    public AggregatedMatrix getAggregatedMatrix(Collection<Long> metricIds,
+                                                Collection<Long> departmentIds,
+                                                RollupGranularity granularity,
+                                                ZonedDateTime bucketStart) {
+        Map<List<Long>, List<byte[]>> sketchesByCell = measurementSketchRepository.findSketchMatrix(bucketStart,
+                granularity.nextBucketStart(bucketStart),
+                metricIds == null,
+                metricIds == null ? NO_IDS : metricIds,
+                departmentIds == null,
+                departmentIds == null ? NO_IDS : departmentIds)
+                .stream()
+                .filter(sketch -> sketch.getDigest() != null)
+                .collect(Collectors.groupingBy(sketch -> Arrays.asList(sketch.getMetricId(), sketch.getDepartmentId()),
+                        Collectors.mapping(MeasurementSketch::getDigest, Collectors.toList())));
+
+        List<AggregatedMatrixCell> cells = measurementRollupRepository.findRollupMatrix(granularity,
+                bucketStart,
+                metricIds == null,
+                metricIds == null ? NO_IDS : metricIds,
+                departmentIds == null,
+                departmentIds == null ? NO_IDS : departmentIds)
+                .stream()
+                .map(rollup -> {
+                    AggregatedMatrixCell cell = AggregatedMatrixCell.builder()
+                            .metricId(rollup.getMetricId())
+                            .departmentId(rollup.getDepartmentId())
+                            .sampleCount(rollup.getSampleCount())
+                            .averageValue(rollup.getValueSum() / rollup.getSampleCount())
+                            .minValue(rollup.getMinValue())
+                            .maxValue(rollup.getMaxValue())
+                            .build();
+                    List<byte[]> sketches = sketchesByCell.get(Arrays.asList(rollup.getMetricId(), rollup.getDepartmentId()));
+                    if (sketches != null) {
+                        TDigest digest = QuantileSketches.merge(sketches);
+                        cell.setP50(digest.quantile(0.50));
+                        cell.setP90(digest.quantile(0.90));
+                        cell.setP95(digest.quantile(0.95));
+                        cell.setP99(digest.quantile(0.99));
+                    }
+                    return cell;
+                })
+                .collect(Collectors.toList());
+
+        return AggregatedMatrix.builder()
+                .granularity(granularity)
+                .fromDateTime(bucketStart)
+                .toDateTime(granularity.nextBucketStart(bucketStart))
+                .cells(cells)
+                .build();
+    }
+
+    @Override
+    public RollupRebuildResult rebuildRollups(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate.isAfter(toDate)) {
+            throw new InvalidRequestException(INVALID_DATE_RANGE);
+        }
+
+        ZonedDateTime fromDateTime = RollupGranularity.WEEK.bucketStart(ZonedDateTime.of(fromDate, LocalTime.MIN, ZoneId.systemDefault()));
+        ZonedDateTime toDateTime = RollupGranularity.WEEK.nextBucketStart(
+                RollupGranularity.WEEK.bucketStart(ZonedDateTime.of(toDate, LocalTime.MIN, ZoneId.systemDefault())));
+
+        // the raw readings of compacted weeks are gone, rebuilding them would replace their rollups with nothing
+        ZonedDateTime compactionBoundary = getCompactionBoundary();
+        if (compactionBoundary != null && fromDateTime.isBefore(compactionBoundary)) {
+            throw new InvalidRequestException(COMPACTED_RANGE + compactionBoundary.toLocalDate());
+        }
+        return rebuildRollups(fromDateTime, toDateTime);
+    }
+
+    // both ends are expected on week boundaries
+    @Override
+    public RollupRebuildResult rebuildRollups(ZonedDateTime fromDateTime, ZonedDateTime toDateTime) {
+        long measurementsScanned = 0;
+        long rollupsWritten = 0;
+        for (ZonedDateTime weekStart = fromDateTime; weekStart.isBefore(toDateTime); weekStart = weekStart.plusWeeks(1)) {
+            long[] weekTotals = rebuildWeek(weekStart, RollupGranularity.WEEK.nextBucketStart(weekStart));
+            measurementsScanned += weekTotals[0];
+            rollupsWritten += weekTotals[1];
+        }
+        log.info("Rebuilt {} rollups from {} measurements between {} and {}",
+                rollupsWritten, measurementsScanned, fromDateTime, toDateTime);
+
+        RollupRebuildResult rebuildResult = RollupRebuildResult.builder()
+                .fromDateTime(fromDateTime)
+                .toDateTime(toDateTime)
+                .measurementsScanned(measurementsScanned)
+                .rollupsWritten(rollupsWritten)
+                .build();
+        eventPublisher.publishEvent(rebuildResult);
+
+        return rebuildResult;
+    }
+
+    // every week that starts before the boundary is complete in the rollups and may have lost its raw readings
+    @Override
+    public ZonedDateTime getCompactionBoundary() {
+        if (!retentionProperties.isEnabled()) {
+            return null;
+        }
+        return RollupGranularity.WEEK.bucketStart(ZonedDateTime.now().minus(retentionProperties.getRawAge()));
+    }
+
+    private long[] rebuildWeek(ZonedDateTime weekStart, ZonedDateTime weekEnd) {
+        return transactionTemplate.execute(status -> {
+            measurementSketchBuffer.discardBetween(weekStart, weekEnd);
+            measurementRollupRepository.deleteRollupsBetween(weekStart, weekEnd);
+            measurementSketchRepository.deleteSketchesBetween(weekStart, weekEnd);
+
+            Map<BucketKey, Accumulator> buckets = new TreeMap<>();
+            long scanned = 0;
+            try (Stream<MeasurementRecord> records = measurementRepository.streamMeasurementRecords(weekStart, weekEnd)) {
+                for (MeasurementRecord record : (Iterable<MeasurementRecord>) records::iterator) {
+                    accumulate(buckets, record.getMetricId(), record.getDepartmentId(),
+                            record.getMeasurementTimestamp(), record.getValue(), true);
+                    scanned++;
+                }
+            }
+            writeBuckets(buckets);
+            return new long[]{scanned, buckets.size()};
+        });
+    }
+
+    private static void accumulate(Map<BucketKey, Accumulator> buckets,
+                                   Long metricId,
+                                   Long departmentId,
+                                   ZonedDateTime timestamp,
+                                   Double value,
+                                   boolean withSketches) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            BucketKey key = new BucketKey(metricId, departmentId, granularity, granularity.bucketStart(timestamp));
+            buckets.computeIfAbsent(key, k -> new Accumulator(withSketches && k.getGranularity() == RollupGranularity.HOUR)).add(value);
+        }
+    }
+
+    // keys are written in a stable order so that concurrent writers lock rollup rows in the same sequence
+    private void writeBuckets(Map<BucketKey, Accumulator> buckets) {
+        buckets.forEach((key, accumulator) -> measurementRollupRepository.upsertRollup(key.getMetricId(),
+                key.getDepartmentId(),
+                key.getGranularity().name(),
+                key.getBucketStart(),
+                accumulator.count,
+                accumulator.sum,
+                accumulator.min,
+                accumulator.max));
+        buckets.forEach((key, accumulator) -> {
+            if (accumulator.digest != null) {
+                measurementSketchBuffer.mergeSketch(key.getMetricId(), key.getDepartmentId(), key.getBucketStart(),
+                        accumulator.digest, accumulator.count);
+            }
+        });
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class BucketKey implements Comparable<BucketKey> {
+
+        private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::getMetricId)
+                .thenComparing(BucketKey::getDepartmentId)
+                .thenComparing(BucketKey::getGranularity)
+                .thenComparing(key -> key.getBucketStart().toInstant());
+
+        private final Long metricId;
+        private final Long departmentId;
+        private final RollupGranularity granularity;
+        private final ZonedDateTime bucketStart;
+
+        @Override
+        public int compareTo(BucketKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static class Accumulator {
+
+        private final TDigest digest;
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Accumulator(boolean withSketch) {
+            this.digest = withSketch ? QuantileSketches.newDigest() : null;
+        }
+
+        private void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            if (digest != null) {
+                digest.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.model.MeasurementSeries;
+
+import java.time.ZonedDateTime;
+
+public interface MeasurementSeriesService {
+
+    MeasurementSeries getSeries(Long metricId,
+                                Long departmentId,
+                                ZonedDateTime fromDateTime,
+                                ZonedDateTime toDateTime,
+                                String interval);
+}
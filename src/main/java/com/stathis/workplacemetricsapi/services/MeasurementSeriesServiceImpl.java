@@ -0,0 +1,160 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.MeasurementRollup;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.MeasurementSeries;
+import com.stathis.workplacemetricsapi.model.SeriesBucket;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import com.stathis.workplacemetricsapi.storage.MeasurementPointStore;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.COMPACTED_RANGE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_DATE_RANGE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_INTERVAL;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.TOO_MANY_BUCKETS;
+
+@Service
+public class MeasurementSeriesServiceImpl implements MeasurementSeriesService {
+
+    public static final int MAX_SERIES_BUCKETS = 2_000;
+
+    private static final Pattern INTERVAL_PATTERN = Pattern.compile("(\\d{1,6})([mhd])");
+    private static final Duration ROLLUP_STEP = Duration.ofHours(1);
+
+    private final MeasurementPointStore measurementPointStore;
+    private final MeasurementRollupRepository measurementRollupRepository;
+
+    private final DepartmentService departmentService;
+    private final MetricService metricService;
+
+    private final SingleFlight singleFlight;
+
+    private final MeasurementRollupService measurementRollupService;
+
+    // only the leader of a coalesced query holds a connection, waiting followers must not take one from the pool
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public MeasurementSeriesServiceImpl(MeasurementPointStore measurementPointStore,
+                                        MeasurementRollupRepository measurementRollupRepository,
+                                        DepartmentService departmentService,
+                                        MetricService metricService,
+                                        SingleFlight singleFlight,
+                                        MeasurementRollupService measurementRollupService,
+                                        PlatformTransactionManager transactionManager) {
+        this.measurementPointStore = measurementPointStore;
+        this.measurementRollupRepository = measurementRollupRepository;
+        this.departmentService = departmentService;
+        this.metricService = metricService;
+        this.singleFlight = singleFlight;
+        this.measurementRollupService = measurementRollupService;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public MeasurementSeries getSeries(Long metricId,
+                                       Long departmentId,
+                                       ZonedDateTime fromDateTime,
+                                       ZonedDateTime toDateTime,
+                                       String interval) {
+        Duration bucketLength = parseInterval(interval);
+        if (!fromDateTime.isBefore(toDateTime)) {
+            throw new InvalidRequestException(INVALID_DATE_RANGE);
+        }
+        long rangeSeconds = Duration.between(fromDateTime, toDateTime).getSeconds();
+        long bucketSeconds = bucketLength.getSeconds();
+        if ((rangeSeconds + bucketSeconds - 1) / bucketSeconds > MAX_SERIES_BUCKETS) {
+            throw new InvalidRequestException(TOO_MANY_BUCKETS + MAX_SERIES_BUCKETS);
+        }
+        metricService.getMetricById(metricId);
+        departmentService.getDepartmentById(departmentId);
+
+        ZonedDateTime from = fromDateTime.withZoneSameInstant(ZoneId.systemDefault());
+        ZonedDateTime to = toDateTime.withZoneSameInstant(ZoneId.systemDefault());
+
+        // compacted weeks only have hourly rollups left, finer buckets cannot be answered there without changing the result
+        boolean useRollups = canUseRollups(bucketLength, from, to);
+        ZonedDateTime compactionBoundary = measurementRollupService.getCompactionBoundary();
+        if (!useRollups && compactionBoundary != null && from.isBefore(compactionBoundary)) {
+            throw new InvalidRequestException(COMPACTED_RANGE + compactionBoundary.toLocalDate());
+        }
+
+        List<SeriesBucket> buckets = singleFlight.execute(Arrays.asList(MeasurementSeries.class, metricId, departmentId, from, to, bucketSeconds),
+                () -> readOnlyTransactionTemplate.execute(status -> useRollups
+                        ? bucketsFromRollups(metricId, departmentId, from, to, bucketSeconds)
+                        : measurementPointStore.getSeriesBuckets(metricId, departmentId, from, to, bucketSeconds)));
+
+        return MeasurementSeries.builder()
+                .metricId(metricId)
+                .departmentId(departmentId)
+                .fromDateTime(from)
+                .toDateTime(to)
+                .interval(interval)
+                .buckets(buckets)
+                .build();
+    }
+
+    // hourly rollups cover a bucket exactly when the bucket is whole hours and the range starts and ends on an hour
+    private static boolean canUseRollups(Duration bucketLength, ZonedDateTime from, ZonedDateTime to) {
+        return bucketLength.getSeconds() % ROLLUP_STEP.getSeconds() == 0
+                && RollupGranularity.HOUR.bucketStart(from).isEqual(from)
+                && RollupGranularity.HOUR.bucketStart(to).isEqual(to);
+    }
+
+    private List<SeriesBucket> bucketsFromRollups(Long metricId,
+                                                  Long departmentId,
+                                                  ZonedDateTime from,
+                                                  ZonedDateTime to,
+                                                  long bucketSeconds) {
+        Map<Long, SeriesBucket> buckets = new TreeMap<>();
+        Map<Long, Double> sums = new TreeMap<>();
+
+        for (MeasurementRollup rollup : measurementRollupRepository.findRollupsBetween(metricId, departmentId,
+                RollupGranularity.HOUR, from, to)) {
+            long index = Duration.between(from, rollup.getBucketStart()).getSeconds() / bucketSeconds;
+            SeriesBucket bucket = buckets.computeIfAbsent(index, i -> SeriesBucket.builder()
+                    .bucketStart(from.plusSeconds(i * bucketSeconds))
+                    .sampleCount(0L)
+                    .minValue(rollup.getMinValue())
+                    .maxValue(rollup.getMaxValue())
+                    .build());
+            bucket.setSampleCount(bucket.getSampleCount() + rollup.getSampleCount());
+            bucket.setMinValue(Math.min(bucket.getMinValue(), rollup.getMinValue()));
+            bucket.setMaxValue(Math.max(bucket.getMaxValue(), rollup.getMaxValue()));
+            sums.merge(index, rollup.getValueSum(), Double::sum);
+        }
+
+        buckets.forEach((index, bucket) -> bucket.setAverageValue(sums.get(index) / bucket.getSampleCount()));
+        return new ArrayList<>(buckets.values());
+    }
+
+    private static Duration parseInterval(String interval) {
+        Matcher matcher = INTERVAL_PATTERN.matcher(interval == null ? "" : interval);
+        if (!matcher.matches() || Long.parseLong(matcher.group(1)) == 0) {
+            throw new InvalidRequestException(INVALID_INTERVAL);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            default:
+                return Duration.ofDays(amount);
+        }
+    }
+}
@@ -1,26 +1,62 @@
 package com.stathis.workplacemetricsapi.services;
 
 import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
 import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
 import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public interface MeasurementService {
 
     ResponseEntityWrapper<Measurement> getAllMeasurements(Pageable pageable);
 
+    ResponseEntityWrapper<Measurement> getMeasurementSlice(Pageable pageable);
+
+    ResponseEntityWrapper<Measurement> getMeasurementsAfter(String cursor, int limit);
+
+    ResponseEntityWrapper<MeasurementRecord> getMeasurementRecords(Pageable pageable);
+
+    ResponseEntityWrapper<MeasurementRecord> getMeasurementRecordsAfter(String cursor, int limit);
+
     Measurement getMeasurementById(Long id);
 
     Measurement saveMeasurement(MeasurementDTO measurementDTO);
 
+    void validateMeasurement(MeasurementDTO measurementDTO);
+
+    MeasurementBatchResult saveMeasurements(List<MeasurementDTO> measurementDTOs);
+
     ResponseEntityWrapper<Measurement> getDailyMeasurementsByMetricAndDepartment(Pageable pageable,
                                                                                  Long metricId,
                                                                                  Long departmentId);
 
+    ResponseEntityWrapper<Measurement> getDailyMeasurementSliceByMetricAndDepartment(Pageable pageable,
+                                                                                     Long metricId,
+                                                                                     Long departmentId);
+
+    ResponseEntityWrapper<Measurement> getDailyMeasurementsByMetricAndDepartmentAfter(String cursor,
+                                                                                      int limit,
+                                                                                      Long metricId,
+                                                                                      Long departmentId);
+
+    ResponseEntityWrapper<MeasurementRecord> getDailyMeasurementRecordsByMetricAndDepartment(Pageable pageable,
+                                                                                             Long metricId,
+                                                                                             Long departmentId);
+
+    ResponseEntityWrapper<MeasurementRecord> getDailyMeasurementRecordsByMetricAndDepartmentAfter(String cursor,
+                                                                                                  int limit,
+                                                                                                  Long metricId,
+                                                                                                  Long departmentId);
+
     AggregatedResult getDailyAggregatedResults(Long metricId, Long departmentId, LocalDate requestedDate);
 
     AggregatedResult getWeeklyAggregatedResults(Long metricId, Long departmentId, LocalDate requestedDate);
+
+    AggregatedMatrix getAggregatedMatrix(String metricIds, String departmentIds, LocalDate requestedDate, String window);
 }
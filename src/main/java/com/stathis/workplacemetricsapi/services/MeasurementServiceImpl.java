@@ -1,27 +1,63 @@
 package com.stathis.workplacemetricsapi.services;
 
+import com.stathis.workplacemetricsapi.configuration.MeasurementIdempotencyProperties;
 import com.stathis.workplacemetricsapi.domain.Department;
 import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.MeasurementIdempotencyKey;
 import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.exception.ResourceConflictException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
 import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchItemResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementCursor;
 import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
-import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
 import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
-import com.stathis.workplacemetricsapi.repositories.MetricRepository;
 import lombok.AllArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
-import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 
+import static com.stathis.workplacemetricsapi.domain.Measurement.IDEMPOTENCY_KEY;
+import static com.stathis.workplacemetricsapi.domain.Measurement.IDEMPOTENCY_KEY_LENGTH;
+import static com.stathis.workplacemetricsapi.domain.Measurement.ID_ALLOCATION_SIZE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.BATCH_SIZE_EXCEEDED;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_ID_LIST;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_LIMIT;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.UNSUPPORTED_WINDOW;
+import static com.stathis.workplacemetricsapi.exception.ResourceConflictException.IDEMPOTENCY_KEY_IN_FLIGHT;
 import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
 
 @Service
@@ -32,13 +68,33 @@ public class MeasurementServiceImpl implements MeasurementService {
     public static final String DEPARTMENT_NOT_FOUND_WITH_ID = "Department not found with id = ";
     public static final String METRIC_NOT_FOUND_WITH_ID = "Metric not found with id = ";
     public static final String NO_MEASUREMENT_RECORDS_FOUND = "No measurement records found";
+    public static final String REQUIRED_FIELDS_MISSING = "value, measurementTimestamp, metric_id and department_id are required";
+    public static final String NON_FINITE_VALUE = "value must be a finite number";
+    public static final String IDEMPOTENCY_KEY_TOO_LONG = "idempotency_key must not be longer than " + IDEMPOTENCY_KEY_LENGTH + " characters";
+    public static final int MAX_BATCH_SIZE = 10_000;
+    public static final int MAX_CURSOR_LIMIT = 1_000;
+    public static final String ALL_IDS = "all";
+    public static final String DAILY_WINDOW = "daily";
+    public static final String WEEKLY_WINDOW = "weekly";
+    public static final int MAX_KEYS_PER_LOOKUP = 1_000;
 
     private final MeasurementRepository measurementRepository;
 
-    private final DepartmentRepository departmentRepository;
-    private final MetricRepository metricRepository;
+    private final DepartmentService departmentService;
+    private final MetricService metricService;
+    private final MeasurementRollupService measurementRollupService;
+    private final AggregatedResultCache aggregatedResultCache;
+    private final MeasurementHotWindow measurementHotWindow;
+    private final SingleFlight singleFlight;
+    private final MeasurementIdempotencyFilter measurementIdempotencyFilter;
+    private final MeasurementIdempotencyProperties idempotencyProperties;
+
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntityWrapper<Measurement> getAllMeasurements(Pageable pageable) {
         Page<Measurement> measurementPage = measurementRepository.findAll(pageable);
         return new ResponseEntityWrapper<>(measurementPage.getContent(),
@@ -47,43 +103,241 @@ public class MeasurementServiceImpl implements MeasurementService {
                 measurementPage.getTotalPages());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<Measurement> getMeasurementSlice(Pageable pageable) {
+        return ResponseEntityWrapper.ofSlice(measurementRepository.findMeasurementsBy(pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<Measurement> getMeasurementsAfter(String cursor, int limit) {
+        Pageable pageable = cursorPageable(limit);
+
+        Slice<Measurement> measurementSlice;
+        if (cursor == null) {
+            measurementSlice = measurementRepository.findMeasurementsByOrderByMeasurementTimestampAscIdAsc(pageable);
+        } else {
+            MeasurementCursor after = MeasurementCursor.decode(cursor);
+            measurementSlice = measurementRepository.findMeasurementsAfter(pageable,
+                    after.getMeasurementTimestamp(),
+                    after.getId());
+        }
+
+        return toCursorResponse(measurementSlice, MeasurementCursor::of);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<MeasurementRecord> getMeasurementRecords(Pageable pageable) {
+        return ResponseEntityWrapper.ofSlice(measurementRepository.findMeasurementRecordsBy(pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<MeasurementRecord> getMeasurementRecordsAfter(String cursor, int limit) {
+        Pageable pageable = cursorPageable(limit);
+
+        Slice<MeasurementRecord> recordSlice;
+        if (cursor == null) {
+            recordSlice = measurementRepository.findFirstMeasurementRecords(pageable);
+        } else {
+            MeasurementCursor after = MeasurementCursor.decode(cursor);
+            recordSlice = measurementRepository.findMeasurementRecordsAfter(pageable,
+                    after.getMeasurementTimestamp(),
+                    after.getId());
+        }
+
+        return toCursorResponse(recordSlice, MeasurementCursor::of);
+    }
+
     @Override
     public Measurement getMeasurementById(Long id) {
         return measurementRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + id));
     }
 
+    // a retry of a keyed reading gets the original back, only the readings the filter has seen before are looked up.
+    // Of two requests racing with the same new key, whatever their timestamps, the key table lets the first commit win,
+    // the other one returns the reading of the winner read back from the primary
     @Override
     public Measurement saveMeasurement(MeasurementDTO measurementDTO) {
-        Department fetchedDepartment = departmentRepository.findById(measurementDTO.getDepartmentId())
-                .orElseThrow(() -> new ResourceNotFoundException(FAILED_TO_SAVE_MEASUREMENT_RECORD +
-                        DEPARTMENT_NOT_FOUND_WITH_ID +
-                        measurementDTO.getDepartmentId()));
+        try {
+            return transactionTemplate.execute(status -> persistMeasurement(measurementDTO));
+        } catch (ResourceConflictException ex) {
+            return transactionTemplate.execute(status ->
+                    measurementRepository.findFirstByIdempotencyKeyOrderByIdAsc(idempotencyKey(measurementDTO)))
+                    .orElseThrow(() -> ex);
+        }
+    }
 
-        Metric fetchedMetric = metricRepository.findById(measurementDTO.getMetricId())
-                .orElseThrow(() -> new ResourceNotFoundException(FAILED_TO_SAVE_MEASUREMENT_RECORD +
-                        METRIC_NOT_FOUND_WITH_ID +
-                        measurementDTO.getMetricId()));
+    private Measurement persistMeasurement(MeasurementDTO measurementDTO) {
+        if (hasNonFiniteValue(measurementDTO)) {
+            throw new InvalidRequestException(FAILED_TO_SAVE_MEASUREMENT_RECORD + NON_FINITE_VALUE);
+        }
+        String idempotencyKey = idempotencyKey(measurementDTO);
+        if (idempotencyKey != null) {
+            if (idempotencyKey.length() > IDEMPOTENCY_KEY_LENGTH) {
+                throw new InvalidRequestException(FAILED_TO_SAVE_MEASUREMENT_RECORD + IDEMPOTENCY_KEY_TOO_LONG);
+            }
+            if (measurementIdempotencyFilter.mightContain(idempotencyKey)) {
+                Optional<Measurement> original = measurementRepository.findFirstByIdempotencyKeyOrderByIdAsc(idempotencyKey);
+                if (original.isPresent()) {
+                    return original.get();
+                }
+            }
+        }
+
+        Department fetchedDepartment = findDepartmentForSave(measurementDTO.getDepartmentId());
+        Metric fetchedMetric = findMetricForSave(measurementDTO.getMetricId());
 
         Measurement measurement = Measurement.builder()
                 .value(measurementDTO.getValue())
                 .measurementTimestamp(measurementDTO.getMeasurementTimestamp())
                 .metric(fetchedMetric)
                 .department(fetchedDepartment)
+                .idempotencyKey(idempotencyKey)
                 .build();
 
-        return measurementRepository.save(measurement);
+        Measurement savedMeasurement = measurementRepository.save(measurement);
+        if (idempotencyKey != null) {
+            entityManager.persist(idempotencyKeyOf(savedMeasurement));
+            measurementIdempotencyFilter.put(idempotencyKey);
+            flushKeyed();
+        }
+        eventPublisher.publishEvent(new MeasurementsSavedEvent(Collections.singletonList(savedMeasurement)));
+        return savedMeasurement;
     }
 
     @Override
+    public void validateMeasurement(MeasurementDTO measurementDTO) {
+        if (hasMissingFields(measurementDTO)) {
+            throw new InvalidRequestException(FAILED_TO_SAVE_MEASUREMENT_RECORD + REQUIRED_FIELDS_MISSING);
+        }
+        if (hasNonFiniteValue(measurementDTO)) {
+            throw new InvalidRequestException(FAILED_TO_SAVE_MEASUREMENT_RECORD + NON_FINITE_VALUE);
+        }
+        String idempotencyKey = idempotencyKey(measurementDTO);
+        if (idempotencyKey != null && idempotencyKey.length() > IDEMPOTENCY_KEY_LENGTH) {
+            throw new InvalidRequestException(FAILED_TO_SAVE_MEASUREMENT_RECORD + IDEMPOTENCY_KEY_TOO_LONG);
+        }
+        findDepartmentForSave(measurementDTO.getDepartmentId());
+        findMetricForSave(measurementDTO.getMetricId());
+    }
+
+    // a racing save of one of the keys that commits first fails the flush. The batch is then saved once more with
+    // every key looked up, the raced item comes back as a duplicate of the winner instead of failing the batch
+    @Override
+    public MeasurementBatchResult saveMeasurements(List<MeasurementDTO> measurementDTOs) {
+        if (measurementDTOs.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException(BATCH_SIZE_EXCEEDED + MAX_BATCH_SIZE);
+        }
+        try {
+            return transactionTemplate.execute(status -> persistMeasurements(measurementDTOs, false));
+        } catch (ResourceConflictException ex) {
+            return transactionTemplate.execute(status -> persistMeasurements(measurementDTOs, true));
+        }
+    }
+
+    private MeasurementBatchResult persistMeasurements(List<MeasurementDTO> measurementDTOs, boolean lookUpEveryKey) {
+
+        List<MeasurementBatchItemResult> items = new ArrayList<>(measurementDTOs.size());
+        List<Measurement> savedMeasurements = new ArrayList<>(measurementDTOs.size());
+        List<Measurement> pendingMeasurements = new ArrayList<>(ID_ALLOCATION_SIZE);
+        List<MeasurementBatchItemResult> pendingItems = new ArrayList<>(ID_ALLOCATION_SIZE);
+        int acceptedItems = 0;
+
+        // keyed readings seen before are answered with the id of the original, a key repeated within the batch
+        // with the id of its first reading once that one is saved
+        Map<String, Long> savedKeys = findSavedKeys(measurementDTOs, lookUpEveryKey);
+        Map<String, MeasurementBatchItemResult> batchKeys = new HashMap<>();
+        Map<MeasurementBatchItemResult, MeasurementBatchItemResult> repeatedItems = new HashMap<>();
+        boolean keyed = false;
+
+        for (int index = 0; index < measurementDTOs.size(); index++) {
+            MeasurementDTO measurementDTO = measurementDTOs.get(index);
+            MeasurementBatchItemResult item = MeasurementBatchItemResult.builder().index(index).build();
+            items.add(item);
+
+            if (measurementDTO == null || hasMissingFields(measurementDTO)) {
+                reject(item, FAILED_TO_SAVE_MEASUREMENT_RECORD + REQUIRED_FIELDS_MISSING);
+                continue;
+            }
+            if (hasNonFiniteValue(measurementDTO)) {
+                reject(item, FAILED_TO_SAVE_MEASUREMENT_RECORD + NON_FINITE_VALUE);
+                continue;
+            }
+
+            String idempotencyKey = idempotencyKey(measurementDTO);
+            if (idempotencyKey != null && idempotencyKey.length() > IDEMPOTENCY_KEY_LENGTH) {
+                reject(item, FAILED_TO_SAVE_MEASUREMENT_RECORD + IDEMPOTENCY_KEY_TOO_LONG);
+                continue;
+            }
+            if (idempotencyKey != null && savedKeys.containsKey(idempotencyKey)) {
+                duplicate(item, savedKeys.get(idempotencyKey));
+                acceptedItems++;
+                continue;
+            }
+
+            Optional<Department> department = findDepartment(measurementDTO.getDepartmentId());
+            if (department.isEmpty()) {
+                reject(item, FAILED_TO_SAVE_MEASUREMENT_RECORD + DEPARTMENT_NOT_FOUND_WITH_ID + measurementDTO.getDepartmentId());
+                continue;
+            }
+
+            Optional<Metric> metric = findMetric(measurementDTO.getMetricId());
+            if (metric.isEmpty()) {
+                reject(item, FAILED_TO_SAVE_MEASUREMENT_RECORD + METRIC_NOT_FOUND_WITH_ID + measurementDTO.getMetricId());
+                continue;
+            }
+
+            if (idempotencyKey != null) {
+                MeasurementBatchItemResult firstItem = batchKeys.putIfAbsent(idempotencyKey, item);
+                if (firstItem != null) {
+                    repeatedItems.put(item, firstItem);
+                    acceptedItems++;
+                    continue;
+                }
+                measurementIdempotencyFilter.put(idempotencyKey);
+                keyed = true;
+            }
+
+            pendingMeasurements.add(Measurement.builder()
+                    .value(measurementDTO.getValue())
+                    .measurementTimestamp(measurementDTO.getMeasurementTimestamp())
+                    .metric(metric.get())
+                    .department(department.get())
+                    .idempotencyKey(idempotencyKey)
+                    .build());
+            pendingItems.add(item);
+            acceptedItems++;
+
+            if (pendingMeasurements.size() == ID_ALLOCATION_SIZE) {
+                savedMeasurements.addAll(flushBatch(pendingMeasurements, pendingItems, keyed));
+                keyed = false;
+            }
+        }
+        savedMeasurements.addAll(flushBatch(pendingMeasurements, pendingItems, keyed));
+        repeatedItems.forEach((item, firstItem) -> duplicate(item, firstItem.getId()));
+
+        if (!savedMeasurements.isEmpty()) {
+            eventPublisher.publishEvent(new MeasurementsSavedEvent(savedMeasurements));
+        }
+
+        return MeasurementBatchResult.builder()
+                .acceptedItems(acceptedItems)
+                .rejectedItems(measurementDTOs.size() - acceptedItems)
+                .items(items)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ResponseEntityWrapper<Measurement> getDailyMeasurementsByMetricAndDepartment(Pageable pageable,
                                                                                         Long metricId,
                                                                                         Long departmentId) {
-        Metric fetchedMetric = metricRepository.findById(metricId)
-                .orElseThrow(() -> new ResourceNotFoundException(NO_MEASUREMENT_RECORDS_FOUND));
-
-        Department fetchedDepartment = departmentRepository.findById(departmentId)
-                .orElseThrow(() -> new ResourceNotFoundException(NO_MEASUREMENT_RECORDS_FOUND));
+        Metric fetchedMetric = findMetricForListing(metricId);
+        Department fetchedDepartment = findDepartmentForListing(departmentId);
 
         Page<Measurement> measurementPage =
                 measurementRepository.findMeasurementsByMetricAndDepartmentAndMeasurementTimestampBetween(pageable,
@@ -98,21 +352,315 @@ public class MeasurementServiceImpl implements MeasurementService {
                 measurementPage.getTotalPages());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<Measurement> getDailyMeasurementSliceByMetricAndDepartment(Pageable pageable,
+                                                                                            Long metricId,
+                                                                                            Long departmentId) {
+        Metric fetchedMetric = findMetricForListing(metricId);
+        Department fetchedDepartment = findDepartmentForListing(departmentId);
+
+        return ResponseEntityWrapper.ofSlice(
+                measurementRepository.findMeasurementSliceByMetricAndDepartmentAndMeasurementTimestampBetween(pageable,
+                        fetchedMetric,
+                        fetchedDepartment,
+                        ZonedDateTime.now().truncatedTo(ChronoUnit.DAYS),
+                        ZonedDateTime.now()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<Measurement> getDailyMeasurementsByMetricAndDepartmentAfter(String cursor,
+                                                                                             int limit,
+                                                                                             Long metricId,
+                                                                                             Long departmentId) {
+        Pageable pageable = cursorPageable(limit);
+        Metric fetchedMetric = findMetricForListing(metricId);
+        Department fetchedDepartment = findDepartmentForListing(departmentId);
+        MeasurementCursor after = dailyCursor(cursor);
+
+        return toCursorResponse(measurementRepository.findMeasurementsByMetricAndDepartmentAfter(pageable,
+                fetchedMetric,
+                fetchedDepartment,
+                after.getMeasurementTimestamp(),
+                after.getId(),
+                ZonedDateTime.now()), MeasurementCursor::of);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<MeasurementRecord> getDailyMeasurementRecordsByMetricAndDepartment(Pageable pageable,
+                                                                                                    Long metricId,
+                                                                                                    Long departmentId) {
+        Metric fetchedMetric = findMetricForListing(metricId);
+        Department fetchedDepartment = findDepartmentForListing(departmentId);
+        ZonedDateTime startOfDay = ZonedDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        ZonedDateTime now = ZonedDateTime.now();
+
+        return ResponseEntityWrapper.ofSlice(measurementHotWindow
+                .findRecordsBetween(pageable, fetchedMetric.getId(), fetchedDepartment.getId(), startOfDay, now)
+                .orElseGet(() -> measurementRepository.findMeasurementRecordsByMetricAndDepartmentBetween(pageable,
+                        fetchedMetric.getId(),
+                        fetchedDepartment.getId(),
+                        startOfDay,
+                        now)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntityWrapper<MeasurementRecord> getDailyMeasurementRecordsByMetricAndDepartmentAfter(String cursor,
+                                                                                                         int limit,
+                                                                                                         Long metricId,
+                                                                                                         Long departmentId) {
+        Pageable pageable = cursorPageable(limit);
+        Metric fetchedMetric = findMetricForListing(metricId);
+        Department fetchedDepartment = findDepartmentForListing(departmentId);
+        MeasurementCursor after = dailyCursor(cursor);
+        ZonedDateTime now = ZonedDateTime.now();
+
+        return toCursorResponse(measurementHotWindow
+                .findRecordsAfter(pageable, fetchedMetric.getId(), fetchedDepartment.getId(),
+                        after.getMeasurementTimestamp(), after.getId(), now)
+                .orElseGet(() -> measurementRepository.findMeasurementRecordsByMetricAndDepartmentAfter(pageable,
+                        fetchedMetric.getId(),
+                        fetchedDepartment.getId(),
+                        after.getMeasurementTimestamp(),
+                        after.getId(),
+                        now)), MeasurementCursor::of);
+    }
+
     @Override
     public AggregatedResult getDailyAggregatedResults(Long metricId, Long departmentId, LocalDate requestedDate) {
 
         ZonedDateTime startOfDay = ZonedDateTime.of(requestedDate.atTime(LocalTime.MIN), ZoneId.systemDefault());
-        ZonedDateTime endOfDay = startOfDay.with(LocalTime.MAX);
 
-        return measurementRepository.getAggregatedResults(metricId, departmentId, startOfDay, endOfDay);
+        return aggregatedResultCache.getAggregatedResult(metricId, departmentId, RollupGranularity.DAY, startOfDay);
     }
 
     @Override
     public AggregatedResult getWeeklyAggregatedResults(Long metricId, Long departmentId, LocalDate requestedDate) {
 
-        ZonedDateTime startOfWeek = ZonedDateTime.of(requestedDate.with(WeekFields.ISO.getFirstDayOfWeek()).atTime(LocalTime.MIN), ZoneId.systemDefault());
-        ZonedDateTime endOfWeek = startOfWeek.plusDays(6).with(LocalTime.MAX);
+        ZonedDateTime startOfWeek = RollupGranularity.WEEK.bucketStart(ZonedDateTime.of(requestedDate.atTime(LocalTime.MIN), ZoneId.systemDefault()));
+
+        return aggregatedResultCache.getAggregatedResult(metricId, departmentId, RollupGranularity.WEEK, startOfWeek);
+    }
+
+    @Override
+    public AggregatedMatrix getAggregatedMatrix(String metricIds, String departmentIds, LocalDate requestedDate, String window) {
+        RollupGranularity granularity;
+        if (DAILY_WINDOW.equalsIgnoreCase(window)) {
+            granularity = RollupGranularity.DAY;
+        } else if (WEEKLY_WINDOW.equalsIgnoreCase(window)) {
+            granularity = RollupGranularity.WEEK;
+        } else {
+            throw new InvalidRequestException(UNSUPPORTED_WINDOW + window);
+        }
+
+        ZonedDateTime bucketStart = granularity.bucketStart(ZonedDateTime.of(requestedDate.atTime(LocalTime.MIN), ZoneId.systemDefault()));
+
+        Set<Long> parsedMetricIds = parseIds(metricIds);
+        Set<Long> parsedDepartmentIds = parseIds(departmentIds);
+
+        return singleFlight.execute(Arrays.asList(AggregatedMatrix.class, parsedMetricIds, parsedDepartmentIds, granularity, bucketStart),
+                () -> measurementRollupService.getAggregatedMatrix(parsedMetricIds, parsedDepartmentIds, granularity, bucketStart));
+    }
+
+    private Optional<Department> findDepartment(Long departmentId) {
+        try {
+            return Optional.of(departmentService.getDepartmentById(departmentId));
+        } catch (ResourceNotFoundException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Metric> findMetric(Long metricId) {
+        try {
+            return Optional.of(metricService.getMetricById(metricId));
+        } catch (ResourceNotFoundException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private Department findDepartmentForListing(Long departmentId) {
+        return findDepartment(departmentId)
+                .orElseThrow(() -> new ResourceNotFoundException(NO_MEASUREMENT_RECORDS_FOUND));
+    }
+
+    private Metric findMetricForListing(Long metricId) {
+        return findMetric(metricId)
+                .orElseThrow(() -> new ResourceNotFoundException(NO_MEASUREMENT_RECORDS_FOUND));
+    }
+
+    private static Pageable cursorPageable(int limit) {
+        if (limit < 1 || limit > MAX_CURSOR_LIMIT) {
+            throw new InvalidRequestException(INVALID_LIMIT + MAX_CURSOR_LIMIT);
+        }
+        return PageRequest.of(0, limit);
+    }
+
+    // the first daily page seeks from the start of the day, ids are always positive
+    private static MeasurementCursor dailyCursor(String cursor) {
+        MeasurementCursor startOfDay = new MeasurementCursor(ZonedDateTime.now().truncatedTo(ChronoUnit.DAYS), 0L);
+        if (cursor == null) {
+            return startOfDay;
+        }
+        MeasurementCursor decoded = MeasurementCursor.decode(cursor);
+        return decoded.getMeasurementTimestamp().isBefore(startOfDay.getMeasurementTimestamp()) ? startOfDay : decoded;
+    }
+
+    private static <T> ResponseEntityWrapper<T> toCursorResponse(Slice<T> slice, Function<T, MeasurementCursor> cursorOf) {
+        List<T> content = slice.getContent();
+        String nextCursor = slice.hasNext()
+                ? cursorOf.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return ResponseEntityWrapper.ofCursor(content, nextCursor);
+    }
+
+    private Department findDepartmentForSave(Long departmentId) {
+        return findDepartment(departmentId)
+                .orElseThrow(() -> new ResourceNotFoundException(FAILED_TO_SAVE_MEASUREMENT_RECORD +
+                        DEPARTMENT_NOT_FOUND_WITH_ID +
+                        departmentId));
+    }
+
+    private Metric findMetricForSave(Long metricId) {
+        return findMetric(metricId)
+                .orElseThrow(() -> new ResourceNotFoundException(FAILED_TO_SAVE_MEASUREMENT_RECORD +
+                        METRIC_NOT_FOUND_WITH_ID +
+                        metricId));
+    }
+
+    private List<Measurement> flushBatch(List<Measurement> pendingMeasurements,
+                                         List<MeasurementBatchItemResult> pendingItems,
+                                         boolean keyed) {
+        if (pendingMeasurements.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Measurement> savedMeasurements = new ArrayList<>(measurementRepository.saveAll(pendingMeasurements));
+        if (keyed) {
+            for (Measurement savedMeasurement : savedMeasurements) {
+                if (savedMeasurement.getIdempotencyKey() != null) {
+                    entityManager.persist(idempotencyKeyOf(savedMeasurement));
+                }
+            }
+            flushKeyed();
+        } else {
+            entityManager.flush();
+        }
+        entityManager.clear();
+
+        for (int i = 0; i < pendingItems.size(); i++) {
+            pendingItems.get(i).setStatus(MeasurementBatchItemResult.Status.CREATED);
+            pendingItems.get(i).setId(savedMeasurements.get(i).getId());
+        }
+        pendingMeasurements.clear();
+        pendingItems.clear();
+        return savedMeasurements;
+    }
+
+    // the unique keys only fire when another transaction saved the same key since the lookup, the conflict rolls the
+    // transaction back and is resolved by the caller
+    private void flushKeyed() {
+        try {
+            entityManager.flush();
+        } catch (PersistenceException ex) {
+            if (ex.getCause() instanceof ConstraintViolationException && isIdempotencyKey((ConstraintViolationException) ex.getCause())) {
+                throw new ResourceConflictException(IDEMPOTENCY_KEY_IN_FLIGHT);
+            }
+            throw ex;
+        }
+    }
+
+    // the filter answers the keys it has never seen, the rest are looked up a thousand at a time. A key another
+    // instance saved is not in the filter of this one, after a conflict every key is looked up
+    private Map<String, Long> findSavedKeys(List<MeasurementDTO> measurementDTOs, boolean lookUpEveryKey) {
+        Set<String> maybeSavedKeys = new LinkedHashSet<>();
+        for (MeasurementDTO measurementDTO : measurementDTOs) {
+            String idempotencyKey = measurementDTO == null || hasMissingFields(measurementDTO) ? null : idempotencyKey(measurementDTO);
+            if (idempotencyKey != null && idempotencyKey.length() <= IDEMPOTENCY_KEY_LENGTH
+                    && !maybeSavedKeys.contains(idempotencyKey)
+                    && (lookUpEveryKey || measurementIdempotencyFilter.mightContain(idempotencyKey))) {
+                maybeSavedKeys.add(idempotencyKey);
+            }
+        }
+        if (maybeSavedKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Long> savedKeys = new HashMap<>();
+        List<String> keys = new ArrayList<>(maybeSavedKeys);
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_LOOKUP) {
+            for (Measurement original : measurementRepository.findByIdempotencyKeys(
+                    keys.subList(from, Math.min(from + MAX_KEYS_PER_LOOKUP, keys.size())))) {
+                savedKeys.putIfAbsent(original.getIdempotencyKey(), original.getId());
+            }
+        }
+        return savedKeys;
+    }
+
+    // the natural key is only used when enabled and the client did not send a key of its own
+    private String idempotencyKey(MeasurementDTO measurementDTO) {
+        if (measurementDTO.getIdempotencyKey() != null) {
+            return measurementDTO.getIdempotencyKey();
+        }
+        if (!idempotencyProperties.isNaturalKey() || hasMissingFields(measurementDTO)) {
+            return null;
+        }
+        return measurementDTO.getMetricId() + ":" + measurementDTO.getDepartmentId() + ":" +
+                measurementDTO.getMeasurementTimestamp().toEpochSecond();
+    }
+
+    private static MeasurementIdempotencyKey idempotencyKeyOf(Measurement measurement) {
+        return MeasurementIdempotencyKey.builder()
+                .measurementId(measurement.getId())
+                .idempotencyKey(measurement.getIdempotencyKey())
+                .measurementTimestamp(measurement.getMeasurementTimestamp())
+                .build();
+    }
+
+    // MySQL names the key as table.key, H2 reports its own index name starting with the key
+    private static boolean isIdempotencyKey(ConstraintViolationException ex) {
+        if (ex.getConstraintName() == null) {
+            return false;
+        }
+        String constraintName = ex.getConstraintName().toLowerCase(Locale.ROOT);
+        return constraintName.contains(IDEMPOTENCY_KEY) || constraintName.contains(MeasurementIdempotencyKey.IDEMPOTENCY_KEY);
+    }
+
+    private static Set<Long> parseIds(String ids) {
+        if (ids == null || ALL_IDS.equalsIgnoreCase(ids.trim())) {
+            return null;
+        }
+        try {
+            Set<Long> parsedIds = new TreeSet<>();
+            for (String id : ids.split(",")) {
+                parsedIds.add(Long.valueOf(id.trim()));
+            }
+            return parsedIds;
+        } catch (NumberFormatException ex) {
+            throw new InvalidRequestException(INVALID_ID_LIST + ids);
+        }
+    }
+
+    private static boolean hasMissingFields(MeasurementDTO measurementDTO) {
+        return measurementDTO.getValue() == null
+                || measurementDTO.getMeasurementTimestamp() == null
+                || measurementDTO.getMetricId() == null
+                || measurementDTO.getDepartmentId() == null;
+    }
+
+    // NaN and the infinities get past JSON as strings and past the binary records as bits, the database takes neither
+    private static boolean hasNonFiniteValue(MeasurementDTO measurementDTO) {
+        return measurementDTO.getValue() != null && !Double.isFinite(measurementDTO.getValue());
+    }
+
+    private static void duplicate(MeasurementBatchItemResult item, Long originalId) {
+        item.setStatus(MeasurementBatchItemResult.Status.DUPLICATE);
+        item.setId(originalId);
+    }
 
-        return measurementRepository.getAggregatedResults(metricId, departmentId, startOfWeek, endOfWeek);
+    private static void reject(MeasurementBatchItemResult item, String message) {
+        item.setStatus(MeasurementBatchItemResult.Status.REJECTED);
+        item.setMessage(message);
     }
 }
@@ -0,0 +1,180 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.MeasurementSketchesMergedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementSketchRepository;
+import com.tdunning.math.stats.TDigest;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// hourly sketches are merged in the background. Saves only add their committed readings to an in-memory digest per
+// hour, the flush then locks one sketch row at a time in a short transaction of its own, so concurrent writers to a
+// series never wait for each other on a sketch. Percentiles of the database lag by up to one flush interval
+@Slf4j
+@Service
+public class MeasurementSketchBuffer implements SmartLifecycle {
+
+    // stop after the write-behind writers and the line protocol server, whose last batches still add readings
+    private static final int PHASE = Integer.MAX_VALUE - 4096;
+
+    private final MeasurementSketchRepository measurementSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentMap<SketchKey, PendingSketch> pending = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public MeasurementSketchBuffer(MeasurementSketchRepository measurementSketchRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.measurementSketchRepository = measurementSketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMeasurementsSaved(MeasurementsSavedEvent event) {
+        for (Measurement measurement : event.getMeasurements()) {
+            SketchKey key = new SketchKey(measurement.getMetric().getId(),
+                    measurement.getDepartment().getId(),
+                    RollupGranularity.HOUR.bucketStart(measurement.getMeasurementTimestamp()));
+            pending.compute(key, (k, pendingSketch) -> {
+                PendingSketch sketch = pendingSketch == null ? new PendingSketch() : pendingSketch;
+                sketch.digest.add(measurement.getValue());
+                sketch.count++;
+                return sketch;
+            });
+        }
+    }
+
+    // the deleted resource's sketches are gone, flushing its pending readings would bring them back
+    @EventListener
+    public void onMeasurementsDeleted(MeasurementsDeletedEvent event) {
+        pending.keySet().removeIf(key -> event.matches(key.getMetricId(), key.getDepartmentId()));
+    }
+
+    // a rebuild recomputes the sketches of these hours from the raw readings, which already hold the pending ones
+    public synchronized void discardBetween(ZonedDateTime fromDateTime, ZonedDateTime toDateTime) {
+        pending.keySet().removeIf(key -> !key.getBucketStart().isBefore(fromDateTime) && key.getBucketStart().isBefore(toDateTime));
+    }
+
+    // keys are flushed in a stable order so that instances flushing at the same time lock sketch rows in one sequence
+    @Scheduled(cron = "${measurements.rollups.sketch-flush-cron:* * * * * *}")
+    public synchronized void flush() {
+        List<MeasurementSketch> mergedSketches = new ArrayList<>();
+        for (SketchKey key : new TreeSet<>(pending.keySet())) {
+            PendingSketch pendingSketch = pending.remove(key);
+            if (pendingSketch == null) {
+                continue;
+            }
+            try {
+                mergedSketches.add(transactionTemplate.execute(status -> mergeSketch(key.getMetricId(),
+                        key.getDepartmentId(), key.getBucketStart(), pendingSketch.digest, pendingSketch.count)));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to merge the sketch of metric {} department {} at {}, retrying with the next flush",
+                        key.getMetricId(), key.getDepartmentId(), key.getBucketStart(), ex);
+                pending.merge(key, pendingSketch, PendingSketch::addAll);
+            }
+        }
+        if (!mergedSketches.isEmpty()) {
+            eventPublisher.publishEvent(new MeasurementSketchesMergedEvent(mergedSketches));
+        }
+    }
+
+    // expects a transaction, the sketch row stays locked until it commits
+    public MeasurementSketch mergeSketch(Long metricId, Long departmentId, ZonedDateTime bucketStart, TDigest digest, long count) {
+        measurementSketchRepository.insertIfAbsent(metricId, departmentId, bucketStart);
+        MeasurementSketch sketch = measurementSketchRepository
+                .findForUpdateByMetricIdAndDepartmentIdAndBucketStart(metricId, departmentId, bucketStart)
+                .orElseGet(() -> MeasurementSketch.builder()
+                        .metricId(metricId)
+                        .departmentId(departmentId)
+                        .bucketStart(bucketStart)
+                        .sampleCount(0L)
+                        .build());
+
+        TDigest merged = QuantileSketches.newDigest();
+        merged.add(digest);
+        if (sketch.getDigest() != null) {
+            merged.add(QuantileSketches.fromBytes(sketch.getDigest()));
+        }
+        sketch.setSampleCount(sketch.getSampleCount() + count);
+        sketch.setDigest(QuantileSketches.toBytes(merged));
+        return measurementSketchRepository.save(sketch);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SketchKey implements Comparable<SketchKey> {
+
+        private static final Comparator<SketchKey> ORDER = Comparator.comparing(SketchKey::getMetricId)
+                .thenComparing(SketchKey::getDepartmentId)
+                .thenComparing(key -> key.getBucketStart().toInstant());
+
+        private final Long metricId;
+        private final Long departmentId;
+        private final ZonedDateTime bucketStart;
+
+        @Override
+        public int compareTo(SketchKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static class PendingSketch {
+
+        private final TDigest digest = QuantileSketches.newDigest();
+        private long count;
+
+        private PendingSketch addAll(PendingSketch other) {
+            digest.add(other.digest);
+            count += other.count;
+            return this;
+        }
+    }
+}
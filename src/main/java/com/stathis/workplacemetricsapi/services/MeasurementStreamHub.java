@@ -0,0 +1,171 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementStreamProperties;
+import com.stathis.workplacemetricsapi.configuration.MeasurementStreamProperties.OverflowPolicy;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class MeasurementStreamHub implements DisposableBean {
+
+    public static final String SUBSCRIBERS_METRIC = "measurements.stream.subscribers";
+    public static final String DROPPED_METRIC = "measurements.stream.dropped";
+    public static final String DISCONNECTED_METRIC = "measurements.stream.disconnected";
+    public static final String MEASUREMENT_EVENT = "measurement";
+
+    private static final String SENDER_THREAD_NAME = "measurement-stream-";
+
+    private final MeasurementStreamProperties properties;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService senders;
+    private final Counter droppedCounter;
+    private final Counter disconnectedCounter;
+
+    public MeasurementStreamHub(MeasurementStreamProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(properties.getSenderThreads(), runnable -> {
+            Thread sender = new Thread(runnable, SENDER_THREAD_NAME + threadCount.getAndIncrement());
+            sender.setDaemon(true);
+            return sender;
+        });
+
+        Gauge.builder(SUBSCRIBERS_METRIC, subscribers, List::size).register(meterRegistry);
+        this.droppedCounter = Counter.builder(DROPPED_METRIC).register(meterRegistry);
+        this.disconnectedCounter = Counter.builder(DISCONNECTED_METRIC).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long metricId, Long departmentId) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        register(emitter, metricId, departmentId);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter, Long metricId, Long departmentId) {
+        Subscriber subscriber = new Subscriber(emitter, metricId, departmentId, properties.getBufferSize());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+    }
+
+    // each measurement is fanned out once after commit, ingestion never waits on a subscriber
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMeasurementsSaved(MeasurementsSavedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Measurement measurement : event.getMeasurements()) {
+            MeasurementRecord record = MeasurementRecord.of(measurement);
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.matches(record)) {
+                    publish(subscriber, record);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private void publish(Subscriber subscriber, MeasurementRecord record) {
+        if (!subscriber.buffer.offer(record)) {
+            if (properties.getOverflowPolicy() == OverflowPolicy.DISCONNECT) {
+                disconnect(subscriber);
+                return;
+            }
+            droppedCounter.increment();
+            return;
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException ex) {
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    // at most one sender per subscriber at a time, so events reach it in the order they were published
+    private void drain(Subscriber subscriber) {
+        do {
+            MeasurementRecord record;
+            while ((record = subscriber.buffer.poll()) != null) {
+                try {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(record.getId()))
+                            .name(MEASUREMENT_EVENT)
+                            .data(record, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException ex) {
+                    log.debug("Dropping stream subscriber after a failed send", ex);
+                    subscribers.remove(subscriber);
+                    subscriber.buffer.clear();
+                    return;
+                }
+            }
+            subscriber.sending.set(false);
+        } while (!subscriber.buffer.isEmpty() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            disconnectedCounter.increment();
+            droppedCounter.increment(subscriber.buffer.size() + 1);
+            subscriber.buffer.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long metricId;
+        private final Long departmentId;
+        private final BlockingQueue<MeasurementRecord> buffer;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Long metricId, Long departmentId, int bufferSize) {
+            this.emitter = emitter;
+            this.metricId = metricId;
+            this.departmentId = departmentId;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        // a missing filter matches every metric or department
+        private boolean matches(MeasurementRecord record) {
+            return (metricId == null || metricId.equals(record.getMetricId()))
+                    && (departmentId == null || departmentId.equals(record.getDepartmentId()));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.model.MeasurementStreamResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface MeasurementStreamIngestionService {
+
+    MeasurementStreamResult saveMeasurementStream(InputStream inputStream, boolean gzip) throws IOException;
+
+    MeasurementStreamResult saveMeasurementRecordStream(InputStream inputStream, boolean gzip) throws IOException;
+}
@@ -0,0 +1,152 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat;
+import com.stathis.workplacemetricsapi.configuration.MeasurementStreamIngestionProperties;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchItemResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementLineRejection;
+import com.stathis.workplacemetricsapi.model.MeasurementStreamResult;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import static com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat.RECORD_SIZE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_GZIP_BODY;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.TRUNCATED_MEASUREMENT_RECORD;
+
+@Service
+@AllArgsConstructor
+public class MeasurementStreamIngestionServiceImpl implements MeasurementStreamIngestionService {
+
+    public static final int CHUNK_SIZE = 1_000;
+    public static final int MAX_LISTED_REJECTIONS = 1_000;
+    public static final String MALFORMED_LINE = "Malformed measurement line: ";
+    public static final String LINE_TOO_LONG = "Measurement line exceeds the maximum length of ";
+
+    private final MeasurementService measurementService;
+    private final ObjectMapper objectMapper;
+    private final MeasurementStreamIngestionProperties properties;
+
+    // one line of bounded length is parsed at a time and at most one chunk of readings is held, whatever the size of the body.
+    // every chunk is saved in a transaction of its own, so a failure part way through keeps the chunks before it
+    @Override
+    public MeasurementStreamResult saveMeasurementStream(InputStream inputStream, boolean gzip) throws IOException {
+        ObjectReader measurementReader = objectMapper.readerFor(MeasurementDTO.class);
+        MeasurementStreamResult result = emptyResult();
+        List<MeasurementDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+        long[] chunkLines = new long[CHUNK_SIZE];
+        long lineNumber = 0;
+
+        try (BoundedLineReader reader = new BoundedLineReader(new InputStreamReader(
+                gzip ? new GZIPInputStream(inputStream) : inputStream, StandardCharsets.UTF_8), properties.getMaxLineLength())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (reader.isTooLong()) {
+                    reject(result, lineNumber, LINE_TOO_LONG + properties.getMaxLineLength() + " characters.");
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(measurementReader.readValue(line));
+                } catch (JsonProcessingException ex) {
+                    reject(result, lineNumber, MALFORMED_LINE + ex.getOriginalMessage());
+                    continue;
+                }
+                chunkLines[chunk.size() - 1] = lineNumber;
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    saveChunk(result, chunk, chunkLines);
+                }
+            }
+        } catch (ZipException ex) {
+            saveChunk(result, chunk, chunkLines);
+            throw new InvalidRequestException(INVALID_GZIP_BODY + result.getAcceptedItems());
+        }
+        saveChunk(result, chunk, chunkLines);
+
+        return result;
+    }
+
+    // the same chunking for measurement records, a rejection reports the position of the record in place of a line.
+    // A body cut off inside a record keeps the records before it
+    @Override
+    public MeasurementStreamResult saveMeasurementRecordStream(InputStream inputStream, boolean gzip) throws IOException {
+        MeasurementStreamResult result = emptyResult();
+        List<MeasurementDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+        long[] chunkRecords = new long[CHUNK_SIZE];
+        byte[] record = new byte[RECORD_SIZE];
+        long recordNumber = 0;
+
+        try (InputStream recordStream = new BufferedInputStream(gzip ? new GZIPInputStream(inputStream) : inputStream)) {
+            while (true) {
+                try {
+                    if (!MeasurementRecordFormat.readRecord(recordStream, record)) {
+                        break;
+                    }
+                } catch (InvalidRequestException ex) {
+                    reject(result, recordNumber + 1, TRUNCATED_MEASUREMENT_RECORD);
+                    break;
+                }
+                recordNumber++;
+                chunk.add(MeasurementRecordFormat.decode(record));
+                chunkRecords[chunk.size() - 1] = recordNumber;
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    saveChunk(result, chunk, chunkRecords);
+                }
+            }
+        } catch (ZipException ex) {
+            saveChunk(result, chunk, chunkRecords);
+            throw new InvalidRequestException(INVALID_GZIP_BODY + result.getAcceptedItems());
+        }
+        saveChunk(result, chunk, chunkRecords);
+
+        return result;
+    }
+
+    private static MeasurementStreamResult emptyResult() {
+        return MeasurementStreamResult.builder()
+                .acceptedItems(0L)
+                .rejectedItems(0L)
+                .rejections(new ArrayList<>())
+                .build();
+    }
+
+    private void saveChunk(MeasurementStreamResult result, List<MeasurementDTO> chunk, long[] chunkLines) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        MeasurementBatchResult batchResult = measurementService.saveMeasurements(chunk);
+        result.setAcceptedItems(result.getAcceptedItems() + batchResult.getAcceptedItems());
+        for (MeasurementBatchItemResult item : batchResult.getItems()) {
+            if (item.getStatus() == MeasurementBatchItemResult.Status.REJECTED) {
+                reject(result, chunkLines[item.getIndex()], item.getMessage());
+            }
+        }
+        chunk.clear();
+    }
+
+    private static void reject(MeasurementStreamResult result, long lineNumber, String message) {
+        result.setRejectedItems(result.getRejectedItems() + 1);
+        if (result.getRejections().size() < MAX_LISTED_REJECTIONS) {
+            result.getRejections().add(new MeasurementLineRejection(lineNumber, message));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.AsyncIngestionProperties;
+import com.stathis.workplacemetricsapi.exception.ServiceOverloadedException;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.stathis.workplacemetricsapi.exception.ServiceOverloadedException.INGESTION_QUEUE_FULL;
+import static com.stathis.workplacemetricsapi.exception.ServiceOverloadedException.INGESTION_SHUTTING_DOWN;
+
+@Slf4j
+@Service
+public class MeasurementWriteBehindService implements SmartLifecycle {
+
+    public static final String QUEUE_DEPTH_METRIC = "measurements.ingestion.queue.depth";
+    public static final String FLUSH_METRIC = "measurements.ingestion.flush";
+    public static final String REJECTED_METRIC = "measurements.ingestion.rejected";
+    public static final String FAILED_METRIC = "measurements.ingestion.failed";
+
+    // stop after the web server has finished its graceful shutdown so that no request enqueues behind the drain
+    private static final int PHASE = Integer.MAX_VALUE - 2048;
+    private static final String WRITER_THREAD_NAME = "measurement-writer-";
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final MeasurementService measurementService;
+    private final AsyncIngestionProperties properties;
+
+    private final BlockingQueue<MeasurementDTO> queue;
+    private final Timer flushTimer;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    public MeasurementWriteBehindService(MeasurementService measurementService,
+                                         AsyncIngestionProperties properties,
+                                         MeterRegistry meterRegistry) {
+        this.measurementService = measurementService;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        Gauge.builder(QUEUE_DEPTH_METRIC, queue, BlockingQueue::size).register(meterRegistry);
+        this.flushTimer = Timer.builder(FLUSH_METRIC).register(meterRegistry);
+        this.rejectedCounter = Counter.builder(REJECTED_METRIC).register(meterRegistry);
+        this.failedCounter = Counter.builder(FAILED_METRIC).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public void enqueue(MeasurementDTO measurementDTO) {
+        if (!running) {
+            throw new ServiceOverloadedException(INGESTION_SHUTTING_DOWN);
+        }
+        measurementService.validateMeasurement(measurementDTO);
+
+        if (!queue.offer(measurementDTO)) {
+            rejectedCounter.increment();
+            throw new ServiceOverloadedException(INGESTION_QUEUE_FULL);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < properties.getWriterThreads(); i++) {
+            Thread writer = new Thread(this::writeBehind, WRITER_THREAD_NAME + i);
+            writers.add(writer);
+            writer.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        for (Thread writer : writers) {
+            try {
+                writer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        writers.clear();
+
+        List<MeasurementDTO> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void writeBehind() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<MeasurementDTO> batch = new ArrayList<>(properties.getBatchSize());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                MeasurementDTO first = queue.poll(POLL_SLICE_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long flushDeadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < properties.getBatchSize()) {
+                    if (queue.drainTo(batch, properties.getBatchSize() - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remainingNanos = flushDeadline - System.nanoTime();
+                    if (remainingNanos <= 0 || !running) {
+                        break;
+                    }
+                    MeasurementDTO next = queue.poll(Math.min(remainingNanos, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch = new ArrayList<>(properties.getBatchSize());
+                }
+            }
+        }
+    }
+
+    // the readings were already accepted, a failed save is retried with a doubling backoff. They only count as
+    // failed once the attempts run out or the service is stopping and cannot wait any longer
+    private void flush(List<MeasurementDTO> batch) {
+        long backoffMillis = properties.getRetryBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                MeasurementBatchResult batchResult = flushTimer.recordCallable(() -> measurementService.saveMeasurements(batch));
+                if (batchResult.getRejectedItems() > 0) {
+                    failedCounter.increment(batchResult.getRejectedItems());
+                    log.warn("{} queued measurements were rejected while writing behind", batchResult.getRejectedItems());
+                }
+                return;
+            } catch (Exception ex) {
+                if (attempt >= properties.getFlushAttempts() || !running) {
+                    failedCounter.increment(batch.size());
+                    log.error("Failed to write {} queued measurements after {} attempts", batch.size(), attempt, ex);
+                    return;
+                }
+                log.warn("Failed to write {} queued measurements, retrying in {} ms", batch.size(), backoffMillis, ex);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoffMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failedCounter.increment(batch.size());
+                log.error("Interrupted while retrying {} queued measurements", batch.size());
+                return;
+            }
+            backoffMillis *= 2;
+        }
+    }
+}
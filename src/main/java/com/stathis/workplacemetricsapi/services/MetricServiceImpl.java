@@ -8,12 +8,16 @@ import com.stathis.workplacemetricsapi.exception.ResourceNotUpdatedException;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import com.stathis.workplacemetricsapi.repositories.MetricRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import static com.stathis.workplacemetricsapi.configuration.CacheConfiguration.METRICS_CACHE;
 import static com.stathis.workplacemetricsapi.exception.ResourceConstraintViolationException.SAVE_RESOURCE_CONSTRAINT_VIOLATION;
 import static com.stathis.workplacemetricsapi.exception.ResourceConstraintViolationException.UPDATE_RESOURCE_CONSTRAINT_VIOLATION;
 import static com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException.RESOURCE_COULD_NOT_BE_DELETED;
@@ -27,6 +31,7 @@ public class MetricServiceImpl implements MetricService {
     private final MetricRepository metricRepository;
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntityWrapper<Metric> getAllMetrics(Pageable pageable) {
         Page<Metric> metricPage = metricRepository.findAll(pageable);
         return new ResponseEntityWrapper<>(metricPage.getContent(),
@@ -36,6 +41,7 @@ public class MetricServiceImpl implements MetricService {
     }
 
     @Override
+    @Cacheable(cacheNames = METRICS_CACHE, key = "#id")
     public Metric getMetricById(Long id) {
         return metricRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + id));
@@ -50,7 +56,11 @@ public class MetricServiceImpl implements MetricService {
         }
     }
 
+    // read and written in one transaction, so the lookup is not routed to a lagging replica.
+    // the update is flushed here, a constraint violation would otherwise only show up on commit
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = METRICS_CACHE, key = "#id")
     public Metric updateMetric(Long id, Metric metric) {
         Metric savedMetric;
         try {
@@ -62,13 +72,16 @@ public class MetricServiceImpl implements MetricService {
         savedMetric.setMeasurementUnit(metric.getMeasurementUnit());
 
         try {
-            return saveMetric(savedMetric);
-        } catch (ResourceConstraintViolationException ex) {
+            Metric updatedMetric = saveMetric(savedMetric);
+            metricRepository.flush();
+            return updatedMetric;
+        } catch (ResourceConstraintViolationException | DataIntegrityViolationException ex) {
             throw new ResourceConstraintViolationException(UPDATE_RESOURCE_CONSTRAINT_VIOLATION);
         }
     }
 
     @Override
+    @CacheEvict(cacheNames = METRICS_CACHE, key = "#id")
     public void deleteMetricById(Long id) {
         try {
             metricRepository.deleteById(id);
@@ -0,0 +1,40 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+// t-digest sketches are stored per (metric, department, hour) and merged for days and weeks. The error is bounded in
+// rank rather than in value: with a compression of 100 the median is typically within 1% of its true rank and the
+// tails (p95, p99) are tighter still, because centroids shrink towards the extremes. Merging keeps the same bound.
+public final class QuantileSketches {
+
+    public static final double COMPRESSION = 100;
+
+    private QuantileSketches() {
+    }
+
+    public static TDigest newDigest() {
+        return new MergingDigest(COMPRESSION);
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        return MergingDigest.fromBytes(ByteBuffer.wrap(bytes));
+    }
+
+    public static byte[] toBytes(TDigest digest) {
+        ByteBuffer buffer = ByteBuffer.allocate(digest.smallByteSize());
+        digest.asSmallBytes(buffer);
+        return buffer.array();
+    }
+
+    public static TDigest merge(Collection<byte[]> sketches) {
+        TDigest merged = newDigest();
+        for (byte[] sketch : sketches) {
+            merged.add(fromBytes(sketch));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,12 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.model.DeletionJob;
+
+public interface ResourceDeletionService {
+
+    DeletionJob deleteDepartment(Long departmentId);
+
+    DeletionJob deleteMetric(Long metricId);
+
+    DeletionJob getDeletionJob(String jobId);
+}
@@ -0,0 +1,204 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stathis.workplacemetricsapi.configuration.DeletionProperties;
+import com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException;
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.DeletionJob;
+import com.stathis.workplacemetricsapi.model.DeletionStatus;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementSketchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongConsumer;
+
+import static com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException.RESOURCE_COULD_NOT_BE_DELETED;
+import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
+
+@Slf4j
+@Service
+public class ResourceDeletionServiceImpl implements ResourceDeletionService, DisposableBean {
+
+    private static final String DELETION_THREAD_NAME = "resource-deletion";
+
+    private final DepartmentService departmentService;
+    private final MetricService metricService;
+    private final MeasurementRepository measurementRepository;
+    private final MeasurementRollupRepository measurementRollupRepository;
+    private final MeasurementSketchRepository measurementSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeletionProperties properties;
+
+    private final Cache<String, DeletionJob> jobs;
+    // one deletion at a time, so decommissioning never competes with itself for the measurements table
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread worker = new Thread(runnable, DELETION_THREAD_NAME);
+        worker.setDaemon(true);
+        return worker;
+    });
+
+    public ResourceDeletionServiceImpl(DepartmentService departmentService,
+                                       MetricService metricService,
+                                       MeasurementRepository measurementRepository,
+                                       MeasurementRollupRepository measurementRollupRepository,
+                                       MeasurementSketchRepository measurementSketchRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       ApplicationEventPublisher eventPublisher,
+                                       DeletionProperties properties) {
+        this.departmentService = departmentService;
+        this.metricService = metricService;
+        this.measurementRepository = measurementRepository;
+        this.measurementRollupRepository = measurementRollupRepository;
+        this.measurementSketchRepository = measurementSketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getJobRetention())
+                .build();
+    }
+
+    @Override
+    public DeletionJob deleteDepartment(Long departmentId) {
+        try {
+            departmentService.getDepartmentById(departmentId);
+        } catch (ResourceNotFoundException ex) {
+            throw new ResourceNotDeletedException(RESOURCE_COULD_NOT_BE_DELETED + departmentId);
+        }
+        return submit(DeletionTarget.DEPARTMENT, departmentId);
+    }
+
+    @Override
+    public DeletionJob deleteMetric(Long metricId) {
+        try {
+            metricService.getMetricById(metricId);
+        } catch (ResourceNotFoundException ex) {
+            throw new ResourceNotDeletedException(RESOURCE_COULD_NOT_BE_DELETED + metricId);
+        }
+        return submit(DeletionTarget.METRIC, metricId);
+    }
+
+    @Override
+    public DeletionJob getDeletionJob(String jobId) {
+        DeletionJob deletionJob = jobs.getIfPresent(jobId);
+        if (deletionJob == null) {
+            throw new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + jobId);
+        }
+        return deletionJob;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // a repeated request while the resource is still being deleted returns the job already in progress
+    private synchronized DeletionJob submit(DeletionTarget target, Long resourceId) {
+        for (DeletionJob deletionJob : jobs.asMap().values()) {
+            if (deletionJob.getTarget() == target && deletionJob.getResourceId().equals(resourceId)
+                    && (deletionJob.getStatus() == DeletionStatus.PENDING || deletionJob.getStatus() == DeletionStatus.RUNNING)) {
+                return deletionJob;
+            }
+        }
+
+        DeletionJob deletionJob = DeletionJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .target(target)
+                .resourceId(resourceId)
+                .status(DeletionStatus.PENDING)
+                .submittedAt(ZonedDateTime.now())
+                .build();
+        jobs.put(deletionJob.getJobId(), deletionJob);
+        executor.execute(() -> run(deletionJob));
+        return deletionJob;
+    }
+
+    private void run(DeletionJob deletionJob) {
+        deletionJob.setStatus(DeletionStatus.RUNNING);
+        Long resourceId = deletionJob.getResourceId();
+        boolean department = deletionJob.getTarget() == DeletionTarget.DEPARTMENT;
+        try {
+            deleteInChunks(chunkSize -> department
+                            ? measurementRepository.deleteIdempotencyKeyChunkByDepartment(resourceId, chunkSize)
+                            : measurementRepository.deleteIdempotencyKeyChunkByMetric(resourceId, chunkSize),
+                    deleted -> {
+                    });
+            deleteInChunks(chunkSize -> department
+                            ? measurementRepository.deleteMeasurementChunkByDepartment(resourceId, chunkSize)
+                            : measurementRepository.deleteMeasurementChunkByMetric(resourceId, chunkSize),
+                    deleted -> deletionJob.setMeasurementsDeleted(deletionJob.getMeasurementsDeleted() + deleted));
+            deleteInChunks(chunkSize -> department
+                            ? measurementRollupRepository.deleteRollupChunkByDepartment(resourceId, chunkSize)
+                            : measurementRollupRepository.deleteRollupChunkByMetric(resourceId, chunkSize),
+                    deleted -> deletionJob.setRollupsDeleted(deletionJob.getRollupsDeleted() + deleted));
+            deleteInChunks(chunkSize -> department
+                            ? measurementSketchRepository.deleteSketchChunkByDepartment(resourceId, chunkSize)
+                            : measurementSketchRepository.deleteSketchChunkByMetric(resourceId, chunkSize),
+                    deleted -> deletionJob.setSketchesDeleted(deletionJob.getSketchesDeleted() + deleted));
+
+            // rows ingest wrote while the chunks ran go in the same transaction as the parent row
+            transactionTemplate.executeWithoutResult(status -> {
+                if (department) {
+                    measurementRepository.deleteIdempotencyKeyChunkByDepartment(resourceId, Integer.MAX_VALUE);
+                } else {
+                    measurementRepository.deleteIdempotencyKeyChunkByMetric(resourceId, Integer.MAX_VALUE);
+                }
+                int lateMeasurements = department
+                        ? measurementRepository.deleteMeasurementChunkByDepartment(resourceId, Integer.MAX_VALUE)
+                        : measurementRepository.deleteMeasurementChunkByMetric(resourceId, Integer.MAX_VALUE);
+                int lateRollups = department
+                        ? measurementRollupRepository.deleteRollupChunkByDepartment(resourceId, Integer.MAX_VALUE)
+                        : measurementRollupRepository.deleteRollupChunkByMetric(resourceId, Integer.MAX_VALUE);
+                int lateSketches = department
+                        ? measurementSketchRepository.deleteSketchChunkByDepartment(resourceId, Integer.MAX_VALUE)
+                        : measurementSketchRepository.deleteSketchChunkByMetric(resourceId, Integer.MAX_VALUE);
+                deletionJob.setMeasurementsDeleted(deletionJob.getMeasurementsDeleted() + lateMeasurements);
+                deletionJob.setRollupsDeleted(deletionJob.getRollupsDeleted() + lateRollups);
+                deletionJob.setSketchesDeleted(deletionJob.getSketchesDeleted() + lateSketches);
+                if (department) {
+                    departmentService.deleteDepartmentById(resourceId);
+                } else {
+                    metricService.deleteMetricById(resourceId);
+                }
+            });
+
+            finish(deletionJob, DeletionStatus.COMPLETED);
+            // only once the readings are really gone, a failed job leaves them readable through the in-memory stores
+            eventPublisher.publishEvent(new MeasurementsDeletedEvent(deletionJob.getTarget(), resourceId));
+            log.info("Deleted {} {} with {} measurements", deletionJob.getTarget(), resourceId, deletionJob.getMeasurementsDeleted());
+        } catch (RuntimeException ex) {
+            deletionJob.setError(ex.getMessage());
+            finish(deletionJob, DeletionStatus.FAILED);
+            log.error("Failed to delete {} {}", deletionJob.getTarget(), resourceId, ex);
+        }
+    }
+
+    private static void finish(DeletionJob deletionJob, DeletionStatus status) {
+        deletionJob.setFinishedAt(ZonedDateTime.now());
+        deletionJob.setStatus(status);
+    }
+
+    private void deleteInChunks(IntUnaryOperator deleteChunk, LongConsumer progress) {
+        int chunkSize = properties.getChunkSize();
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> deleteChunk.applyAsInt(chunkSize));
+            progress.accept(deleted);
+        } while (deleted == chunkSize);
+    }
+}
@@ -0,0 +1,67 @@
+package com.stathis.workplacemetricsapi.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// concurrent calls with an equal key share the result (or the failure) of the call that got there first
+@Component
+public class SingleFlight {
+
+    public static final String QUERIES_METRIC = "measurements.aggregation.queries";
+    public static final String OUTCOME_TAG = "outcome";
+    public static final String EXECUTED = "executed";
+    public static final String COALESCED = "coalesced";
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executedCounter;
+    private final Counter coalescedCounter;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.executedCounter = Counter.builder(QUERIES_METRIC).tag(OUTCOME_TAG, EXECUTED).register(meterRegistry);
+        this.coalescedCounter = Counter.builder(QUERIES_METRIC).tag(OUTCOME_TAG, COALESCED).register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(Object key, Supplier<V> call) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalescedCounter.increment();
+            return (V) await(leader);
+        }
+
+        executedCounter.increment();
+        try {
+            V result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// one append-only Gorilla stream on disk: a fixed header followed by the encoded points. Data is written before the
+// header, so a reader that trusts the header point count never decodes bytes that are not on disk yet
+final class ChunkFile implements Closeable {
+
+    static final int MAGIC = 0x47434B31;
+    static final int HEADER_BYTES = 24;
+
+    private static final int COUNT_OFFSET = 4;
+    private static final int MIN_TIMESTAMP_OFFSET = 8;
+    private static final int MAX_TIMESTAMP_OFFSET = 16;
+
+    @FunctionalInterface
+    interface PointConsumer {
+
+        void accept(long timestamp, double value);
+    }
+
+    private final Path path;
+
+    private volatile int count;
+    private volatile long minTimestamp = Long.MAX_VALUE;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+
+    // only the chunk a series currently appends to is open, it is sealed once full or when the store shuts down
+    private FileChannel channel;
+    private GorillaEncoder encoder;
+    private int persistedBytes;
+
+    private ChunkFile(Path path) {
+        this.path = path;
+    }
+
+    static ChunkFile create(Path path) throws IOException {
+        ChunkFile chunkFile = new ChunkFile(path);
+        chunkFile.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        chunkFile.encoder = new GorillaEncoder();
+        chunkFile.writeHeader();
+        return chunkFile;
+    }
+
+    static ChunkFile open(Path path) throws IOException {
+        ChunkFile chunkFile = new ChunkFile(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a measurement chunk file: " + path);
+            }
+            chunkFile.count = header.getInt(COUNT_OFFSET);
+            chunkFile.minTimestamp = header.getLong(MIN_TIMESTAMP_OFFSET);
+            chunkFile.maxTimestamp = header.getLong(MAX_TIMESTAMP_OFFSET);
+        }
+        return chunkFile;
+    }
+
+    synchronized void append(long timestamp, double value) {
+        encoder.add(timestamp, value);
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    // rewrites the partially filled last byte together with everything encoded after it
+    synchronized void flush() throws IOException {
+        int byteLength = encoder.getByteLength();
+        ByteBuffer changedBytes = ByteBuffer.wrap(encoder.getBuffer(), persistedBytes, byteLength - persistedBytes);
+        long position = HEADER_BYTES + persistedBytes;
+        while (changedBytes.hasRemaining()) {
+            position += channel.write(changedBytes, position);
+        }
+        count = encoder.getCount();
+        writeHeader();
+        persistedBytes = encoder.getBitPosition() / Byte.SIZE;
+    }
+
+    boolean isOpen() {
+        return channel != null;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    // the file is mapped read-only and decoded front to back, points outside [from, to) are skipped
+    void scan(long fromTimestamp, long toTimestamp, PointConsumer consumer) throws IOException {
+        // the count is published after the data it covers, taking it before mapping keeps those bytes inside the mapping
+        int points = count;
+        MappedByteBuffer mapped;
+        try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+        }
+        GorillaDecoder decoder = new GorillaDecoder(mapped, HEADER_BYTES);
+        for (int i = 0; i < points; i++) {
+            decoder.next();
+            long timestamp = decoder.getTimestamp();
+            if (timestamp >= fromTimestamp && timestamp < toTimestamp) {
+                consumer.accept(timestamp, decoder.getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+            encoder = null;
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(count)
+                .putLong(minTimestamp)
+                .putLong(maxTimestamp);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+}
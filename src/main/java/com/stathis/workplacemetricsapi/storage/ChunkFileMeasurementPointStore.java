@@ -0,0 +1,411 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.model.RetentionResult;
+import com.stathis.workplacemetricsapi.model.SeriesBucket;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// keeps every series (metric, department) as Gorilla compressed append-only chunk files next to the database.
+// Readings are appended once their transaction commits, so the files cover every reading saved since coveredSince.
+// Ranges starting earlier, or any read after a write to the files failed, are answered by the database.
+@Slf4j
+public class ChunkFileMeasurementPointStore implements MeasurementPointStore, InitializingBean, DisposableBean {
+
+    static final String CHUNK_SUFFIX = ".chunk";
+    static final String COVERAGE_FILE = "coverage.properties";
+
+    private static final String COVERED_SINCE = "coveredSince";
+    private static final String MAX_MEASUREMENT_ID = "maxMeasurementId";
+
+    private final MeasurementPointStore fallbackStore;
+    private final MeasurementRepository measurementRepository;
+    private final Path directory;
+    private final int maxPointsPerChunk;
+
+    private final ConcurrentMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+
+    private volatile Instant coveredSince;
+    private volatile boolean degraded;
+    private volatile boolean closed;
+
+    public ChunkFileMeasurementPointStore(MeasurementPointStore fallbackStore,
+                                          MeasurementRepository measurementRepository,
+                                          Path directory,
+                                          int maxPointsPerChunk) {
+        this.fallbackStore = fallbackStore;
+        this.measurementRepository = measurementRepository;
+        this.directory = directory;
+        this.maxPointsPerChunk = maxPointsPerChunk;
+    }
+
+    // runs before the application accepts writes. The coverage file is only left behind by a clean shutdown, the files
+    // are reused when no reading was saved since then, otherwise they are discarded and coverage starts over
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Files.createDirectories(directory);
+        Path coverageFile = directory.resolve(COVERAGE_FILE);
+        long maxMeasurementId = measurementRepository.findMaxMeasurementId().orElse(0L);
+
+        Properties coverage = new Properties();
+        if (Files.exists(coverageFile)) {
+            try (Reader reader = Files.newBufferedReader(coverageFile)) {
+                coverage.load(reader);
+            }
+            Files.delete(coverageFile);
+        }
+        if (coverage.containsKey(COVERED_SINCE)
+                && Long.parseLong(coverage.getProperty(MAX_MEASUREMENT_ID)) >= maxMeasurementId) {
+            coveredSince = Instant.parse(coverage.getProperty(COVERED_SINCE));
+            log.info("Serving series from {} covering readings since {}", directory, coveredSince);
+            return;
+        }
+
+        clearDirectory();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        coveredSince = measurementRepository.findNewestMeasurementTimestamp()
+                .map(newest -> newest.toInstant().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1))
+                .filter(newest -> newest.isAfter(now))
+                .orElse(now);
+        log.info("Started series files in {} covering readings since {}", directory, coveredSince);
+    }
+
+    @Override
+    public List<SeriesBucket> getSeriesBuckets(Long metricId,
+                                               Long departmentId,
+                                               ZonedDateTime fromDateTime,
+                                               ZonedDateTime toDateTime,
+                                               long bucketSeconds) {
+        Instant since = coveredSince;
+        if (degraded || since == null || fromDateTime.toInstant().isBefore(since)) {
+            return fallbackStore.getSeriesBuckets(metricId, departmentId, fromDateTime, toDateTime, bucketSeconds);
+        }
+        try {
+            return readSeriesBuckets(metricId, departmentId, fromDateTime, toDateTime, bucketSeconds);
+        } catch (IOException | UncheckedIOException ex) {
+            log.warn("Failed to read the series files of metric {} and department {}", metricId, departmentId, ex);
+            return fallbackStore.getSeriesBuckets(metricId, departmentId, fromDateTime, toDateTime, bucketSeconds);
+        }
+    }
+
+    // decodes the chunks overlapping the range front to back, timestamps are whole seconds like the database column
+    List<SeriesBucket> readSeriesBuckets(Long metricId,
+                                         Long departmentId,
+                                         ZonedDateTime fromDateTime,
+                                         ZonedDateTime toDateTime,
+                                         long bucketSeconds) throws IOException {
+        long fromMillis = fromDateTime.toInstant().toEpochMilli();
+        long toMillis = toDateTime.toInstant().toEpochMilli();
+        long bucketMillis = bucketSeconds * 1_000;
+        int bucketCount = (int) ((toMillis - fromMillis + bucketMillis - 1) / bucketMillis);
+
+        long[] counts = new long[bucketCount];
+        double[] sums = new double[bucketCount];
+        double[] mins = new double[bucketCount];
+        double[] maxs = new double[bucketCount];
+
+        // [from, to) in whole seconds
+        long fromSecond = Math.floorDiv(fromMillis + 999, 1_000);
+        long toSecond = Math.floorDiv(toMillis + 999, 1_000);
+        for (ChunkFile chunk : series(metricId, departmentId).chunks) {
+            if (chunk.getCount() == 0 || chunk.getMaxTimestamp() < fromSecond || chunk.getMinTimestamp() >= toSecond) {
+                continue;
+            }
+            chunk.scan(fromSecond, toSecond, (timestamp, value) -> {
+                int index = (int) ((timestamp * 1_000 - fromMillis) / bucketMillis);
+                if (counts[index] == 0) {
+                    mins[index] = value;
+                    maxs[index] = value;
+                } else {
+                    mins[index] = Math.min(mins[index], value);
+                    maxs[index] = Math.max(maxs[index], value);
+                }
+                counts[index]++;
+                sums[index] += value;
+            });
+        }
+
+        List<SeriesBucket> buckets = new ArrayList<>();
+        for (int index = 0; index < bucketCount; index++) {
+            if (counts[index] > 0) {
+                buckets.add(SeriesBucket.builder()
+                        .bucketStart(fromDateTime.plusSeconds(index * bucketSeconds))
+                        .sampleCount(counts[index])
+                        .averageValue(sums[index] / counts[index])
+                        .minValue(mins[index])
+                        .maxValue(maxs[index])
+                        .build());
+            }
+        }
+        return buckets;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMeasurementsSaved(MeasurementsSavedEvent event) {
+        if (degraded || closed) {
+            return;
+        }
+        Map<SeriesKey, List<Measurement>> measurementsBySeries = new LinkedHashMap<>();
+        for (Measurement measurement : event.getMeasurements()) {
+            measurementsBySeries.computeIfAbsent(new SeriesKey(measurement.getMetric().getId(), measurement.getDepartment().getId()),
+                    key -> new ArrayList<>()).add(measurement);
+        }
+        try {
+            for (Map.Entry<SeriesKey, List<Measurement>> entry : measurementsBySeries.entrySet()) {
+                Series seriesFiles = series(entry.getKey().metricId, entry.getKey().departmentId);
+                synchronized (seriesFiles) {
+                    for (Measurement measurement : entry.getValue()) {
+                        seriesFiles.append(measurement.getMeasurementTimestamp().toEpochSecond(), measurement.getValue());
+                    }
+                    seriesFiles.flush();
+                }
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            // the files no longer cover every reading, the database answers from now on and they are rebuilt on restart
+            degraded = true;
+            log.error("Failed to append to the series files in {}, reading series from the database", directory, ex);
+        }
+    }
+
+    @EventListener
+    public void onMeasurementsDeleted(MeasurementsDeletedEvent event) {
+        for (Series seriesFiles : series.values()) {
+            if (event.matches(seriesFiles.metricId, seriesFiles.departmentId)) {
+                synchronized (seriesFiles) {
+                    series.remove(new SeriesKey(seriesFiles.metricId, seriesFiles.departmentId));
+                    deleteQuietly(seriesFiles);
+                }
+            }
+        }
+        // series that were never loaded since the start only exist on disk
+        try (DirectoryStream<Path> seriesDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path seriesDirectory : seriesDirectories) {
+                SeriesKey key = SeriesKey.parse(seriesDirectory.getFileName().toString());
+                if (key != null && event.matches(key.metricId, key.departmentId) && !series.containsKey(key)) {
+                    deleteRecursively(seriesDirectory);
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to delete the series files of {} {}", event.getTarget(), event.getResourceId(), ex);
+        }
+    }
+
+    // whole chunks older than the compaction boundary go, series ranges before it are no longer served from raw readings
+    @EventListener
+    public void onRetentionApplied(RetentionResult retentionResult) {
+        if (retentionResult.getCompactedBefore() == null) {
+            return;
+        }
+        long boundary = retentionResult.getCompactedBefore().toEpochSecond();
+        try (DirectoryStream<Path> seriesDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path seriesDirectory : seriesDirectories) {
+                SeriesKey key = SeriesKey.parse(seriesDirectory.getFileName().toString());
+                if (key != null) {
+                    Series seriesFiles = series(key.metricId, key.departmentId);
+                    synchronized (seriesFiles) {
+                        seriesFiles.deleteChunksBefore(boundary);
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            log.warn("Failed to expire series files before {}", retentionResult.getCompactedBefore(), ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        for (Series seriesFiles : series.values()) {
+            synchronized (seriesFiles) {
+                try {
+                    seriesFiles.close();
+                } catch (IOException ex) {
+                    degraded = true;
+                    log.error("Failed to close the series files in {}", seriesFiles.directory, ex);
+                }
+            }
+        }
+        if (degraded || coveredSince == null) {
+            return;
+        }
+        Properties coverage = new Properties();
+        coverage.setProperty(COVERED_SINCE, coveredSince.toString());
+        coverage.setProperty(MAX_MEASUREMENT_ID, String.valueOf(measurementRepository.findMaxMeasurementId().orElse(0L)));
+        try (Writer writer = Files.newBufferedWriter(directory.resolve(COVERAGE_FILE))) {
+            coverage.store(writer, null);
+        } catch (IOException ex) {
+            log.error("Failed to write {}, the series files are rebuilt on the next start", COVERAGE_FILE, ex);
+        }
+    }
+
+    Instant getCoveredSince() {
+        return coveredSince;
+    }
+
+    private Series series(Long metricId, Long departmentId) {
+        return series.computeIfAbsent(new SeriesKey(metricId, departmentId), key -> {
+            try {
+                return new Series(key.metricId, key.departmentId, directory.resolve(key.toString()));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private void clearDirectory() throws IOException {
+        try (DirectoryStream<Path> seriesDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path seriesDirectory : seriesDirectories) {
+                deleteRecursively(seriesDirectory);
+            }
+        }
+    }
+
+    private void deleteQuietly(Series seriesFiles) {
+        try {
+            seriesFiles.close();
+            deleteRecursively(seriesFiles.directory);
+        } catch (IOException ex) {
+            log.warn("Failed to delete the series files in {}", seriesFiles.directory, ex);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(path)) {
+            files = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // the chunks of one series, numbered in creation order. Only the newest one is appended to, and a new one is
+    // started after every restart so that chunks on disk never change again once they are closed
+    private final class Series {
+
+        private final Long metricId;
+        private final Long departmentId;
+        private final Path directory;
+        private final List<ChunkFile> chunks = new CopyOnWriteArrayList<>();
+
+        private long nextSequence;
+        private ChunkFile current;
+        private int currentPoints;
+
+        private Series(Long metricId, Long departmentId, Path directory) throws IOException {
+            this.metricId = metricId;
+            this.departmentId = departmentId;
+            this.directory = directory;
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            List<Path> chunkPaths = new ArrayList<>();
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + CHUNK_SUFFIX)) {
+                paths.forEach(chunkPaths::add);
+            }
+            chunkPaths.sort(Comparator.comparing(Path::toString));
+            for (Path chunkPath : chunkPaths) {
+                chunks.add(ChunkFile.open(chunkPath));
+                nextSequence = sequenceOf(chunkPath) + 1;
+            }
+        }
+
+        private void append(long timestamp, double value) throws IOException {
+            if (current == null || currentPoints == maxPointsPerChunk) {
+                close();
+                Files.createDirectories(directory);
+                current = ChunkFile.create(directory.resolve(String.format("%012d%s", nextSequence++, CHUNK_SUFFIX)));
+                currentPoints = 0;
+                chunks.add(current);
+            }
+            current.append(timestamp, value);
+            currentPoints++;
+        }
+
+        private void flush() throws IOException {
+            if (current != null) {
+                current.flush();
+            }
+        }
+
+        private void close() throws IOException {
+            if (current != null) {
+                current.flush();
+                current.close();
+                current = null;
+            }
+        }
+
+        private void deleteChunksBefore(long boundary) throws IOException {
+            for (ChunkFile chunk : chunks) {
+                if (chunk != current && chunk.getMaxTimestamp() < boundary) {
+                    chunks.remove(chunk);
+                    chunk.delete();
+                }
+            }
+        }
+
+        private long sequenceOf(Path chunkPath) {
+            String fileName = chunkPath.getFileName().toString();
+            return Long.parseLong(fileName.substring(0, fileName.length() - CHUNK_SUFFIX.length()));
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SeriesKey {
+
+        private final Long metricId;
+        private final Long departmentId;
+
+        // the directory name of a series, null for anything else
+        private static SeriesKey parse(String name) {
+            int separator = name.indexOf('-');
+            try {
+                return separator < 0 ? null
+                        : new SeriesKey(Long.valueOf(name.substring(0, separator)), Long.valueOf(name.substring(separator + 1)));
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return metricId + "-" + departmentId;
+        }
+    }
+}
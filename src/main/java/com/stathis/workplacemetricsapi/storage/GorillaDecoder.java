@@ -0,0 +1,97 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import java.nio.ByteBuffer;
+
+import static com.stathis.workplacemetricsapi.storage.GorillaEncoder.FIRST_RANGE_BITS;
+import static com.stathis.workplacemetricsapi.storage.GorillaEncoder.LEADING_ZEROS_BITS;
+import static com.stathis.workplacemetricsapi.storage.GorillaEncoder.MEANINGFUL_BITS_LENGTH_BITS;
+import static com.stathis.workplacemetricsapi.storage.GorillaEncoder.SECOND_RANGE_BITS;
+import static com.stathis.workplacemetricsapi.storage.GorillaEncoder.THIRD_RANGE_BITS;
+import static com.stathis.workplacemetricsapi.storage.GorillaEncoder.rangeOffset;
+
+// reads the points written by GorillaEncoder in insertion order, the caller knows how many there are
+final class GorillaDecoder {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long bitPosition;
+    private int decoded;
+
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int leadingZeros;
+    private int trailingZeros;
+
+    GorillaDecoder(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    void next() {
+        if (decoded == 0) {
+            timestamp = readBits(Long.SIZE);
+            valueBits = readBits(Long.SIZE);
+        } else {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            valueBits ^= readXor();
+        }
+        decoded++;
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    double getValue() {
+        return Double.longBitsToDouble(valueBits);
+    }
+
+    private long readDeltaOfDelta() {
+        if (readBit() == 0) {
+            return 0;
+        }
+        if (readBit() == 0) {
+            return readBits(FIRST_RANGE_BITS) - rangeOffset(FIRST_RANGE_BITS);
+        }
+        if (readBit() == 0) {
+            return readBits(SECOND_RANGE_BITS) - rangeOffset(SECOND_RANGE_BITS);
+        }
+        if (readBit() == 0) {
+            return readBits(THIRD_RANGE_BITS) - rangeOffset(THIRD_RANGE_BITS);
+        }
+        return readBits(Long.SIZE);
+    }
+
+    private long readXor() {
+        if (readBit() == 0) {
+            return 0;
+        }
+        if (readBit() == 1) {
+            leadingZeros = (int) readBits(LEADING_ZEROS_BITS);
+            int meaningfulBits = (int) readBits(MEANINGFUL_BITS_LENGTH_BITS) + 1;
+            trailingZeros = Long.SIZE - leadingZeros - meaningfulBits;
+        }
+        return readBits(Long.SIZE - leadingZeros - trailingZeros) << trailingZeros;
+    }
+
+    private int readBit() {
+        return (int) readBits(1);
+    }
+
+    private long readBits(int bits) {
+        long value = 0;
+        while (bits > 0) {
+            int bitInByte = (int) (bitPosition & 7);
+            int availableBits = Byte.SIZE - bitInByte;
+            int readBits = Math.min(availableBits, bits);
+            int current = buffer.get(offset + (int) (bitPosition >>> 3)) & 0xFF;
+            int chunk = (current >>> (availableBits - readBits)) & ((1 << readBits) - 1);
+            value = (value << readBits) | chunk;
+            bitPosition += readBits;
+            bits -= readBits;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,134 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import java.util.Arrays;
+
+// Gorilla encoding (Pelkonen et al., VLDB 2015). The first point is stored raw, every later timestamp as the
+// delta of its delta and every later value as the XOR with the previous one. Regular readings cost one bit for the
+// timestamp and slowly changing values a few bits, against 16 bytes for the raw pair.
+// Deltas are signed so that points may arrive out of order. Timestamps are epoch seconds, the resolution of the
+// measurement_timestamp column, so the ranges of the paper apply unchanged.
+final class GorillaEncoder {
+
+    static final int FIRST_RANGE_BITS = 7;
+    static final int SECOND_RANGE_BITS = 9;
+    static final int THIRD_RANGE_BITS = 12;
+    static final int LEADING_ZEROS_BITS = 5;
+    static final int MEANINGFUL_BITS_LENGTH_BITS = 6;
+    static final int MAX_LEADING_ZEROS = (1 << LEADING_ZEROS_BITS) - 1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int bitPosition;
+    private int count;
+
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValueBits;
+    private int lastLeadingZeros = Integer.MAX_VALUE;
+    private int lastTrailingZeros;
+
+    void add(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            writeBits(timestamp, Long.SIZE);
+            writeBits(valueBits, Long.SIZE);
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            writeValue(valueBits ^ lastValueBits);
+            lastDelta = delta;
+        }
+        lastTimestamp = timestamp;
+        lastValueBits = valueBits;
+        count++;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getBitPosition() {
+        return bitPosition;
+    }
+
+    // bytes written so far, the last one may still be partially filled
+    int getByteLength() {
+        return (bitPosition + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writeBits(0b0, 1);
+        } else if (fitsRange(deltaOfDelta, FIRST_RANGE_BITS)) {
+            writeBits(0b10, 2);
+            writeBits(deltaOfDelta + rangeOffset(FIRST_RANGE_BITS), FIRST_RANGE_BITS);
+        } else if (fitsRange(deltaOfDelta, SECOND_RANGE_BITS)) {
+            writeBits(0b110, 3);
+            writeBits(deltaOfDelta + rangeOffset(SECOND_RANGE_BITS), SECOND_RANGE_BITS);
+        } else if (fitsRange(deltaOfDelta, THIRD_RANGE_BITS)) {
+            writeBits(0b1110, 4);
+            writeBits(deltaOfDelta + rangeOffset(THIRD_RANGE_BITS), THIRD_RANGE_BITS);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(deltaOfDelta, Long.SIZE);
+        }
+    }
+
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            writeBits(0b0, 1);
+            return;
+        }
+        int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+        int trailingZeros = Long.numberOfTrailingZeros(xor);
+
+        // the meaningful bits still fit the window of the previous value, only they are written
+        if (lastLeadingZeros != Integer.MAX_VALUE && leadingZeros >= lastLeadingZeros && trailingZeros >= lastTrailingZeros) {
+            writeBits(0b10, 2);
+            writeBits(xor >>> lastTrailingZeros, Long.SIZE - lastLeadingZeros - lastTrailingZeros);
+            return;
+        }
+
+        int meaningfulBits = Long.SIZE - leadingZeros - trailingZeros;
+        writeBits(0b11, 2);
+        writeBits(leadingZeros, LEADING_ZEROS_BITS);
+        writeBits(meaningfulBits - 1, MEANINGFUL_BITS_LENGTH_BITS);
+        writeBits(xor >>> trailingZeros, meaningfulBits);
+        lastLeadingZeros = leadingZeros;
+        lastTrailingZeros = trailingZeros;
+    }
+
+    // most significant bit first
+    private void writeBits(long value, int bits) {
+        ensureCapacity(bitPosition + bits);
+        while (bits > 0) {
+            int freeBits = Byte.SIZE - (bitPosition & 7);
+            int writtenBits = Math.min(freeBits, bits);
+            int chunk = (int) (value >>> (bits - writtenBits)) & ((1 << writtenBits) - 1);
+            buffer[bitPosition >>> 3] |= (byte) (chunk << (freeBits - writtenBits));
+            bitPosition += writtenBits;
+            bits -= writtenBits;
+        }
+    }
+
+    private void ensureCapacity(int bits) {
+        int bytes = (bits + Byte.SIZE - 1) / Byte.SIZE;
+        if (bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(bytes, buffer.length * 2));
+        }
+    }
+
+    static boolean fitsRange(long deltaOfDelta, int bits) {
+        return deltaOfDelta >= -rangeOffset(bits) && deltaOfDelta <= rangeOffset(bits) + 1;
+    }
+
+    // a range of n bits holds [-(2^(n-1) - 1), 2^(n-1)], stored shifted up by 2^(n-1) - 1
+    static long rangeOffset(int bits) {
+        return (1L << (bits - 1)) - 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import com.stathis.workplacemetricsapi.model.SeriesBucket;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JpaMeasurementPointStore implements MeasurementPointStore {
+
+    private final MeasurementRepository measurementRepository;
+
+    public JpaMeasurementPointStore(MeasurementRepository measurementRepository) {
+        this.measurementRepository = measurementRepository;
+    }
+
+    @Override
+    public List<SeriesBucket> getSeriesBuckets(Long metricId,
+                                               Long departmentId,
+                                               ZonedDateTime fromDateTime,
+                                               ZonedDateTime toDateTime,
+                                               long bucketSeconds) {
+        List<SeriesBucket> buckets = new ArrayList<>();
+        for (Object[] row : measurementRepository.getSeriesBuckets(metricId, departmentId, fromDateTime, toDateTime, bucketSeconds)) {
+            long index = ((Number) row[0]).longValue();
+            buckets.add(SeriesBucket.builder()
+                    .bucketStart(fromDateTime.plusSeconds(index * bucketSeconds))
+                    .sampleCount(((Number) row[1]).longValue())
+                    .averageValue(((Number) row[2]).doubleValue())
+                    .minValue(((Number) row[3]).doubleValue())
+                    .maxValue(((Number) row[4]).doubleValue())
+                    .build());
+        }
+        return buckets;
+    }
+}
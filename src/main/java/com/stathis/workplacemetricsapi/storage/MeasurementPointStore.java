@@ -0,0 +1,16 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import com.stathis.workplacemetricsapi.model.SeriesBucket;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+// raw readings of one series aggregated into buckets of bucketSeconds counted from fromDateTime, empty buckets are left out
+public interface MeasurementPointStore {
+
+    List<SeriesBucket> getSeriesBuckets(Long metricId,
+                                        Long departmentId,
+                                        ZonedDateTime fromDateTime,
+                                        ZonedDateTime toDateTime,
+                                        long bucketSeconds);
+}
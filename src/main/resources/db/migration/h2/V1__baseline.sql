@@ -0,0 +1,18 @@
+create sequence measurements_seq start with 1 increment by 50;
+create table departments (id bigint generated by default as identity, created timestamp not null, updated timestamp not null, name varchar(255) not null, primary key (id));
+create table metrics (id bigint generated by default as identity, created timestamp not null, updated timestamp not null, measurement_unit varchar(255) not null, type varchar(255) not null, primary key (id));
+create table measurements (id bigint not null, created timestamp not null, measurement_timestamp timestamp not null, value double not null, department_id bigint, metric_id bigint, primary key (id));
+create table measurement_rollups (id bigint generated by default as identity, bucket_start timestamp not null, department_id bigint not null, granularity varchar(8) not null, max_value double not null, metric_id bigint not null, min_value double not null, sample_count bigint not null, value_sum double not null, primary key (id));
+create table measurement_sketches (id bigint generated by default as identity, bucket_start timestamp not null, department_id bigint not null, digest blob, metric_id bigint not null, sample_count bigint not null, primary key (id));
+
+alter table metrics add constraint UK_8py2umoef2125ifq4ewk5vvpl unique (measurement_unit);
+alter table metrics add constraint UK_hdkho2rm6bqy7tot0c6jaove6 unique (type);
+create index IDXkpthwh2sn5oxpg1y6gg76bvsg on measurements (measurement_timestamp, metric_id, department_id);
+create index idx_measurements_seek on measurements (measurement_timestamp, id);
+create index idx_measurements_metric_department_seek on measurements (metric_id, department_id, measurement_timestamp, id);
+alter table measurements add constraint FKo9qft79j7irajixlol389d9cn foreign key (department_id) references departments (id);
+alter table measurements add constraint FK52m2pdahabfy21p506eit7r45 foreign key (metric_id) references metrics (id);
+alter table measurement_rollups add constraint uk_measurement_rollups_bucket unique (metric_id, department_id, granularity, bucket_start);
+create index idx_measurement_rollups_department on measurement_rollups (department_id);
+alter table measurement_sketches add constraint uk_measurement_sketches_bucket unique (metric_id, department_id, bucket_start);
+create index idx_measurement_sketches_department on measurement_sketches (department_id);
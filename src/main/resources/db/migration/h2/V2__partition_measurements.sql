@@ -0,0 +1,5 @@
+-- H2 has no table partitioning, the keys are changed the same way as on MySQL so both schemas behave alike
+alter table measurements drop constraint FKo9qft79j7irajixlol389d9cn;
+alter table measurements drop constraint FK52m2pdahabfy21p506eit7r45;
+alter table measurements drop primary key;
+alter table measurements add primary key (id, measurement_timestamp);
@@ -0,0 +1,3 @@
+-- stamped on the primary and read back from the replica to measure the replication lag
+create table replica_heartbeat (id int not null, beat_at bigint not null, primary key (id));
+insert into replica_heartbeat values (1, 0);
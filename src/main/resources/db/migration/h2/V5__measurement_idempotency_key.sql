@@ -0,0 +1,3 @@
+-- optional key sent by the client to make retries safe, see the mysql migration for why the timestamp is part of it
+alter table measurements add column idempotency_key varchar(64);
+alter table measurements add constraint uk_measurements_idempotency_key unique (idempotency_key, measurement_timestamp);
@@ -0,0 +1,3 @@
+-- lets week rebuilds and retention delete rollups and sketches by bucket_start without a table scan
+create index idx_measurement_rollups_bucket_start on measurement_rollups (bucket_start, granularity);
+create index idx_measurement_sketches_bucket_start on measurement_sketches (bucket_start);
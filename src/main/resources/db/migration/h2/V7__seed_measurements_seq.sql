@@ -0,0 +1,3 @@
+-- keeps the sequence above every existing id on an allocation block boundary, see the mysql migration
+alter sequence measurements_seq restart with
+    (select cast(ceil(coalesce(max(id), 0) / 50.0) as bigint) * 50 + 1 from measurements);
@@ -0,0 +1,9 @@
+-- every key gets a row in an unpartitioned table, see the mysql migration
+create table measurement_idempotency_keys (measurement_id bigint not null, idempotency_key varchar(64) not null, measurement_timestamp timestamp not null, primary key (measurement_id));
+alter table measurement_idempotency_keys add constraint uk_measurement_idempotency_keys_key unique (idempotency_key);
+create index idx_measurement_idempotency_keys_timestamp on measurement_idempotency_keys (measurement_timestamp);
+insert into measurement_idempotency_keys (measurement_id, idempotency_key, measurement_timestamp)
+select mea.id, mea.idempotency_key, mea.measurement_timestamp
+from measurements mea
+         join (select min(id) as id from measurements where idempotency_key is not null group by idempotency_key) first_key
+              on first_key.id = mea.id;
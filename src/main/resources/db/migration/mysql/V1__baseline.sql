@@ -0,0 +1,19 @@
+create table departments (id bigint not null auto_increment, created datetime not null, updated datetime not null, name varchar(255) not null, primary key (id)) engine=InnoDB;
+create table metrics (id bigint not null auto_increment, created datetime not null, updated datetime not null, measurement_unit varchar(255) not null, type varchar(255) not null, primary key (id)) engine=InnoDB;
+create table measurements (id bigint not null, created datetime not null, measurement_timestamp datetime not null, value double precision not null, department_id bigint, metric_id bigint, primary key (id)) engine=InnoDB;
+create table measurements_seq (next_val bigint) engine=InnoDB;
+insert into measurements_seq values (1);
+create table measurement_rollups (id bigint not null auto_increment, bucket_start datetime not null, department_id bigint not null, granularity varchar(8) not null, max_value double precision not null, metric_id bigint not null, min_value double precision not null, sample_count bigint not null, value_sum double precision not null, primary key (id)) engine=InnoDB;
+create table measurement_sketches (id bigint not null auto_increment, bucket_start datetime not null, department_id bigint not null, digest longblob, metric_id bigint not null, sample_count bigint not null, primary key (id)) engine=InnoDB;
+
+alter table metrics add constraint UK_8py2umoef2125ifq4ewk5vvpl unique (measurement_unit);
+alter table metrics add constraint UK_hdkho2rm6bqy7tot0c6jaove6 unique (type);
+create index IDXkpthwh2sn5oxpg1y6gg76bvsg on measurements (measurement_timestamp, metric_id, department_id);
+create index idx_measurements_seek on measurements (measurement_timestamp, id);
+create index idx_measurements_metric_department_seek on measurements (metric_id, department_id, measurement_timestamp, id);
+alter table measurements add constraint FKo9qft79j7irajixlol389d9cn foreign key (department_id) references departments (id);
+alter table measurements add constraint FK52m2pdahabfy21p506eit7r45 foreign key (metric_id) references metrics (id);
+alter table measurement_rollups add constraint uk_measurement_rollups_bucket unique (metric_id, department_id, granularity, bucket_start);
+create index idx_measurement_rollups_department on measurement_rollups (department_id);
+alter table measurement_sketches add constraint uk_measurement_sketches_bucket unique (metric_id, department_id, bucket_start);
+create index idx_measurement_sketches_department on measurement_sketches (department_id);
@@ -0,0 +1,15 @@
+-- partitioned InnoDB tables cannot take part in foreign keys, references are kept by the application
+-- (departments and metrics are only removed after their measurements, see ResourceDeletionService)
+alter table measurements drop foreign key FKo9qft79j7irajixlol389d9cn, drop foreign key FK52m2pdahabfy21p506eit7r45;
+
+-- every unique key of a partitioned table has to contain the partitioning column.
+-- rows written before this migration stay in p_history until the whole partition has expired,
+-- MeasurementPartitionService splits monthly partitions off p_future from here on
+set @partition_measurements = concat(
+        'alter table measurements drop primary key, add primary key (id, measurement_timestamp) ',
+        'partition by range columns (measurement_timestamp) (',
+        'partition p_history values less than (''', date_format(current_date, '%Y-%m-01 00:00:00'), '''), ',
+        'partition p_future values less than (maxvalue))');
+prepare partition_measurements from @partition_measurements;
+execute partition_measurements;
+deallocate prepare partition_measurements;
@@ -0,0 +1,3 @@
+-- historical imports are bulk loaded here with LOAD DATA LOCAL INFILE and moved into measurements chunk by chunk,
+-- row_no numbers the accepted rows of a job from 0 and decides the measurement id taken from the reserved block
+create table measurement_import_staging (job_id varchar(36) not null, row_no bigint not null, metric_id bigint not null, department_id bigint not null, measurement_timestamp datetime not null, value double precision not null, primary key (job_id, row_no)) engine=InnoDB;
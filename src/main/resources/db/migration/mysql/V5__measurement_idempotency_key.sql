@@ -0,0 +1,4 @@
+-- optional key sent by the client to make retries safe. The table is partitioned on measurement_timestamp, so the
+-- unique key has to contain it as well, a retry carries the timestamp of the original. NULL keys never collide
+alter table measurements add column idempotency_key varchar(64) null,
+    add constraint uk_measurements_idempotency_key unique (idempotency_key, measurement_timestamp);
@@ -0,0 +1,4 @@
+-- week rebuilds and retention delete rollups and sketches by bucket_start alone. Without an index leading with it
+-- the delete scans, and under REPEATABLE READ next-key locks, both whole tables, blocking every ingest upsert
+create index idx_measurement_rollups_bucket_start on measurement_rollups (bucket_start, granularity);
+create index idx_measurement_sketches_bucket_start on measurement_sketches (bucket_start);
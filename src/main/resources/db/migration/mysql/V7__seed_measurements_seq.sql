@@ -0,0 +1,7 @@
+-- schemas adopted through baseline-on-migrate skipped V1: their ids came from AUTO_INCREMENT and there is no
+-- measurements_seq yet. next_val is raised above every existing id and kept on an allocation block boundary
+-- (1 + a multiple of Measurement.ID_ALLOCATION_SIZE), Hibernate and the bulk loader both hand out whole blocks from it
+create table if not exists measurements_seq (next_val bigint) engine=InnoDB;
+insert into measurements_seq (next_val) select 1 from dual where not exists (select next_val from measurements_seq);
+update measurements_seq set next_val = greatest(next_val,
+        (select ceil(coalesce(max(id), 0) / 50) * 50 + 1 from measurements));
@@ -0,0 +1,11 @@
+-- the unique key of V5 contains measurement_timestamp, two saves of one key with different timestamps both passed it.
+-- A partitioned table cannot have a key on idempotency_key alone, so every key gets a row in this unpartitioned table
+create table measurement_idempotency_keys (measurement_id bigint not null, idempotency_key varchar(64) not null, measurement_timestamp datetime not null, primary key (measurement_id)) engine=InnoDB;
+alter table measurement_idempotency_keys add constraint uk_measurement_idempotency_keys_key unique (idempotency_key);
+create index idx_measurement_idempotency_keys_timestamp on measurement_idempotency_keys (measurement_timestamp);
+-- keys saved before this migration point at their first reading, the one a retry already got back
+insert into measurement_idempotency_keys (measurement_id, idempotency_key, measurement_timestamp)
+select mea.id, mea.idempotency_key, mea.measurement_timestamp
+from measurements mea
+         join (select min(id) as id from measurements where idempotency_key is not null group by idempotency_key) first_key
+              on first_key.id = mea.id;
@@ -0,0 +1,192 @@
+package com.stathis.workplacemetricsapi;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchItemResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import com.stathis.workplacemetricsapi.services.MeasurementIdempotencyFilter;
+import com.stathis.workplacemetricsapi.services.MeasurementRollupService;
+import com.stathis.workplacemetricsapi.services.MeasurementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class MeasurementIdempotencyTests {
+
+    private static final ZonedDateTime MEASUREMENT_TIMESTAMP = ZonedDateTime.of(LocalDate.of(2020, 12, 2),
+            LocalTime.of(20, 20, 20), ZoneId.systemDefault());
+
+    @Autowired
+    MeasurementService measurementService;
+
+    @Autowired
+    MeasurementRollupService measurementRollupService;
+
+    @Autowired
+    MeasurementIdempotencyFilter measurementIdempotencyFilter;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    MetricRepository metricRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Department department;
+    Metric metric;
+    String suffix;
+
+    @BeforeEach
+    void setUp() {
+        suffix = " " + System.nanoTime();
+        department = departmentRepository.save(Department.builder().name("Idempotency" + suffix).build());
+        metric = metricRepository.save(Metric.builder().type("Idempotency" + suffix).measurementUnit("K" + suffix).build());
+    }
+
+    @Test
+    void retriesReturnTheOriginalAndLeaveTheAverageAlone() {
+        assertTrue(measurementIdempotencyFilter.isWarm());
+
+        Measurement original = measurementService.saveMeasurement(reading(10.0, "single" + suffix));
+        Measurement retried = measurementService.saveMeasurement(reading(10.0, "single" + suffix));
+        assertEquals(original.getId(), retried.getId());
+
+        MeasurementBatchResult batchResult = measurementService.saveMeasurements(Arrays.asList(
+                reading(30.0, "batch" + suffix),
+                reading(10.0, "single" + suffix),
+                reading(30.0, "batch" + suffix)));
+        MeasurementBatchResult retriedBatchResult = measurementService.saveMeasurements(Arrays.asList(
+                reading(30.0, "batch" + suffix)));
+
+        assertEquals(MeasurementBatchItemResult.Status.CREATED, batchResult.getItems().get(0).getStatus());
+        assertEquals(MeasurementBatchItemResult.Status.DUPLICATE, batchResult.getItems().get(1).getStatus());
+        assertEquals(original.getId(), batchResult.getItems().get(1).getId());
+        assertEquals(batchResult.getItems().get(0).getId(), batchResult.getItems().get(2).getId());
+        assertEquals(batchResult.getItems().get(0).getId(), retriedBatchResult.getItems().get(0).getId());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements WHERE metric_id = ?",
+                Integer.class, metric.getId()));
+
+        AggregatedResult aggregatedResult = measurementRollupService.getAggregatedResult(metric.getId(), department.getId(),
+                RollupGranularity.DAY, RollupGranularity.DAY.bucketStart(MEASUREMENT_TIMESTAMP));
+        assertEquals(20.0, aggregatedResult.getAverageValue(), 1e-9);
+    }
+
+    // a row the filter has not seen stands in for a save of another instance committing first
+    @Test
+    void concurrentSaveOfTheSameKeyReturnsTheOriginal() {
+        Measurement original = measurementService.saveMeasurement(reading(10.0, null));
+        jdbcTemplate.update("UPDATE measurements SET idempotency_key = ? WHERE id = ?", "raced" + suffix, original.getId());
+
+        assertEquals(original.getId(), measurementService.saveMeasurement(reading(10.0, "raced" + suffix)).getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements WHERE metric_id = ?",
+                Integer.class, metric.getId()));
+    }
+
+    @Test
+    void concurrentSaveOfTheSameKeyInABatchIsADuplicate() {
+        Measurement original = measurementService.saveMeasurement(reading(10.0, null));
+        jdbcTemplate.update("UPDATE measurements SET idempotency_key = ? WHERE id = ?", "raced batch" + suffix, original.getId());
+
+        MeasurementBatchResult batchResult = measurementService.saveMeasurements(Arrays.asList(
+                reading(30.0, "raced batch" + suffix),
+                reading(30.0, "new" + suffix)));
+
+        assertEquals(2, batchResult.getAcceptedItems());
+        assertEquals(MeasurementBatchItemResult.Status.DUPLICATE, batchResult.getItems().get(0).getStatus());
+        assertEquals(original.getId(), batchResult.getItems().get(0).getId());
+        assertEquals(MeasurementBatchItemResult.Status.CREATED, batchResult.getItems().get(1).getStatus());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements WHERE metric_id = ?",
+                Integer.class, metric.getId()));
+    }
+
+    // a gateway that stamps every retry anew sends the same key with another timestamp
+    @Test
+    void concurrentSaveOfTheSameKeyWithAnotherTimestampReturnsTheOriginal() {
+        Measurement original = measurementService.saveMeasurement(reading(10.0, null));
+        jdbcTemplate.update("UPDATE measurements SET idempotency_key = ? WHERE id = ?", "restamped" + suffix, original.getId());
+        jdbcTemplate.update("INSERT INTO measurement_idempotency_keys (measurement_id, idempotency_key, measurement_timestamp) " +
+                "VALUES (?, ?, ?)", original.getId(), "restamped" + suffix, MEASUREMENT_TIMESTAMP.toLocalDateTime());
+
+        MeasurementDTO restamped = reading(10.0, "restamped" + suffix);
+        restamped.setMeasurementTimestamp(MEASUREMENT_TIMESTAMP.plusMinutes(1));
+        assertEquals(original.getId(), measurementService.saveMeasurement(restamped).getId());
+
+        MeasurementDTO restampedInBatch = reading(10.0, "restamped" + suffix);
+        restampedInBatch.setMeasurementTimestamp(MEASUREMENT_TIMESTAMP.plusMinutes(2));
+        MeasurementBatchResult batchResult = measurementService.saveMeasurements(Arrays.asList(restampedInBatch));
+        assertEquals(MeasurementBatchItemResult.Status.DUPLICATE, batchResult.getItems().get(0).getStatus());
+        assertEquals(original.getId(), batchResult.getItems().get(0).getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements WHERE metric_id = ?",
+                Integer.class, metric.getId()));
+    }
+
+    @Test
+    void concurrentSavesOfTheSameKeyWithDifferentTimestampsSaveOneReading() throws Exception {
+        int savers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(savers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Measurement>> saved = new ArrayList<>();
+            for (int i = 0; i < savers; i++) {
+                MeasurementDTO restamped = reading(10.0 * i, "racing" + suffix);
+                restamped.setMeasurementTimestamp(MEASUREMENT_TIMESTAMP.plusSeconds(i));
+                saved.add(executor.submit(() -> {
+                    start.await();
+                    return measurementService.saveMeasurement(restamped);
+                }));
+            }
+            start.countDown();
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<Measurement> measurement : saved) {
+                ids.add(measurement.get(30, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(1, ids.size());
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements WHERE metric_id = ?",
+                    Integer.class, metric.getId()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MeasurementDTO reading(double value, String idempotencyKey) {
+        return MeasurementDTO.builder()
+                .value(value)
+                .measurementTimestamp(MEASUREMENT_TIMESTAMP)
+                .metricId(metric.getId())
+                .departmentId(department.getId())
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.stathis.workplacemetricsapi;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.ImportJob;
+import com.stathis.workplacemetricsapi.model.ImportStatus;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import com.stathis.workplacemetricsapi.services.MeasurementImportService;
+import com.stathis.workplacemetricsapi.services.MeasurementRollupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.AMBIGUOUS_DEPARTMENT;
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.INVALID_TIMESTAMP;
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.INVALID_VALUE;
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.MALFORMED_ROW;
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.REJECTED_ROWS_HEADER;
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.UNKNOWN_DEPARTMENT;
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.UNKNOWN_METRIC_TYPE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// CSVREAD stands in for LOAD DATA LOCAL INFILE, everything after the staging table is the same on both databases
+@SpringBootTest(properties = {
+        "measurements.import.directory=target/imports",
+        "measurements.import.chunk-size=100"})
+@ActiveProfiles("h2")
+class MeasurementImportTests {
+
+    private static final int VALID_ROWS = 250;
+    private static final Instant FIRST_READING = Instant.parse("2019-03-04T00:00:00Z");
+
+    @Autowired
+    MeasurementImportService measurementImportService;
+
+    @Autowired
+    MeasurementRollupService measurementRollupService;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    MetricRepository metricRepository;
+
+    @Autowired
+    MeasurementRepository measurementRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importLoadsValidRowsAndReportsTheRest() throws Exception {
+        String suffix = " " + System.nanoTime();
+        Department department = departmentRepository.save(Department.builder().name("Floor 1, East" + suffix).build());
+        departmentRepository.save(Department.builder().name("Shared" + suffix).build());
+        departmentRepository.save(Department.builder().name("Shared" + suffix).build());
+        Metric metric = metricRepository.save(Metric.builder().type("Import" + suffix).measurementUnit("I" + suffix).build());
+
+        StringBuilder csv = new StringBuilder("timestamp,value,metric_type,department_name\n");
+        for (int row = 0; row < VALID_ROWS; row++) {
+            csv.append(FIRST_READING.plusSeconds(60L * row)).append(',').append(row).append(',')
+                    .append(metric.getType()).append(",\"").append(department.getName()).append("\"\n");
+        }
+        csv.append("2019-03-04T12:00:00Z,1.0,").append(metric.getType()).append('\n')
+                .append("yesterday,1.0,").append(metric.getType()).append(",\"").append(department.getName()).append("\"\n")
+                .append("2019-03-04T12:00:00Z,NaN,").append(metric.getType()).append(",\"").append(department.getName()).append("\"\n")
+                .append("2019-03-04T12:00:00Z,1.0,Unknown").append(suffix).append(",\"").append(department.getName()).append("\"\n")
+                .append("2019-03-04T12:00:00Z,1.0,").append(metric.getType()).append(",Unknown").append(suffix).append('\n')
+                .append("2019-03-04T12:00:00Z,1.0,").append(metric.getType()).append(",Shared").append(suffix).append('\n');
+
+        ImportJob importJob = awaitImport(measurementImportService.submitImport(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(ImportStatus.COMPLETED, importJob.getStatus());
+        assertEquals(VALID_ROWS + 6, importJob.getRowsRead());
+        assertEquals(6, importJob.getRowsRejected());
+        assertEquals(VALID_ROWS, importJob.getRowsStaged());
+        assertEquals(VALID_ROWS, importJob.getRowsImported());
+        assertTrue(importJob.getRowsPerSecond() > 0);
+        assertEquals(FIRST_READING, importJob.getOldestTimestamp().toInstant());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurement_import_staging WHERE job_id = ?",
+                Integer.class, importJob.getJobId()));
+
+        // the rows of the day went into the rollups as well
+        ZonedDateTime day = RollupGranularity.DAY.bucketStart(FIRST_READING.atZone(ZoneId.systemDefault()));
+        List<Double> values = jdbcTemplate.queryForList("SELECT value FROM measurements " +
+                        "WHERE metric_id = ? AND department_id = ? AND measurement_timestamp >= ? AND measurement_timestamp < ?",
+                Double.class, metric.getId(), department.getId(), day.toLocalDateTime(),
+                RollupGranularity.DAY.nextBucketStart(day).toLocalDateTime());
+        AggregatedResult aggregatedResult = measurementRollupService.getAggregatedResult(metric.getId(),
+                department.getId(), RollupGranularity.DAY, day);
+        assertEquals(values.stream().mapToDouble(Double::doubleValue).average().orElseThrow(),
+                aggregatedResult.getAverageValue(), 1e-9);
+
+        // the imported ids were taken from the generator, later saves do not reuse them
+        Measurement saved = measurementRepository.save(Measurement.builder().value(Measurement.VALUE_20)
+                .measurementTimestamp(ZonedDateTime.now()).metric(metric).department(department).build());
+        assertEquals(VALID_ROWS + 1, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM measurements WHERE metric_id = ?",
+                Integer.class, metric.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements WHERE id = ?",
+                Integer.class, saved.getId()));
+
+        List<String> rejectedRows = Files.readAllLines(measurementImportService.getRejectedRowsFile(importJob.getJobId()));
+        assertEquals(REJECTED_ROWS_HEADER, rejectedRows.get(0));
+        assertTrue(rejectedRows.get(1).startsWith((VALID_ROWS + 2) + ",\"" + MALFORMED_ROW));
+        assertTrue(rejectedRows.get(2).startsWith((VALID_ROWS + 3) + ",\"" + INVALID_TIMESTAMP));
+        assertTrue(rejectedRows.get(3).startsWith((VALID_ROWS + 4) + ",\"" + INVALID_VALUE));
+        assertTrue(rejectedRows.get(4).startsWith((VALID_ROWS + 5) + ",\"" + UNKNOWN_METRIC_TYPE));
+        assertTrue(rejectedRows.get(5).startsWith((VALID_ROWS + 6) + ",\"" + UNKNOWN_DEPARTMENT));
+        assertTrue(rejectedRows.get(6).startsWith((VALID_ROWS + 7) + ",\"" + AMBIGUOUS_DEPARTMENT));
+    }
+
+    private ImportJob awaitImport(ImportJob importJob) throws InterruptedException, IOException {
+        for (int attempt = 0; attempt < 300; attempt++) {
+            ImportJob current = measurementImportService.getImportJob(importJob.getJobId());
+            if (current.getStatus() == ImportStatus.COMPLETED || current.getStatus() == ImportStatus.FAILED) {
+                return current;
+            }
+            Thread.sleep(100);
+        }
+        throw new IOException("The import did not finish in time");
+    }
+}
@@ -0,0 +1,69 @@
+package com.stathis.workplacemetricsapi;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.lineprotocol.MeasurementLineProtocolServer;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "measurements.line-protocol.enabled=true",
+        "measurements.line-protocol.bind-address=127.0.0.1",
+        "measurements.line-protocol.port=0"})
+@ActiveProfiles("h2")
+class MeasurementLineProtocolTests {
+
+    private static final int READINGS = 1_200;
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    MeasurementLineProtocolServer measurementLineProtocolServer;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    MetricRepository metricRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void readingsSentOverTcpAreSaved() throws IOException, InterruptedException {
+        String suffix = " " + System.nanoTime();
+        Department department = departmentRepository.save(Department.builder().name("Line protocol" + suffix).build());
+        Metric metric = metricRepository.save(Metric.builder().type("Line protocol" + suffix).measurementUnit("K" + suffix).build());
+
+        long start = Instant.parse("2020-12-02T20:00:00Z").toEpochMilli();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), measurementLineProtocolServer.getLocalPort());
+             Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < READINGS; i++) {
+                writer.write(metric.getId() + " " + department.getId() + " " + (start + i * 1_000L) + " " + (20 + i % 10) + "\n");
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        int saved = 0;
+        while (saved < READINGS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            saved = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM measurements WHERE metric_id = ?",
+                    Integer.class, metric.getId());
+        }
+        assertEquals(READINGS, saved);
+    }
+}
@@ -0,0 +1,72 @@
+package com.stathis.workplacemetricsapi;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class MeasurementSchemaMigrationTests {
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    MetricRepository metricRepository;
+
+    @Autowired
+    MeasurementRepository measurementRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrationsProduceTheSchemaTheEntitiesExpect() {
+        assertEquals("8", flyway.info().current().getVersion().getVersion());
+    }
+
+    @Test
+    void measurementSequenceStaysOnAnAllocationBlockBoundary() {
+        Long nextId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR measurements_seq", Long.class);
+
+        assertEquals(1L, nextId % Measurement.ID_ALLOCATION_SIZE);
+    }
+
+    @Test
+    void timestampBoundedQueriesRunAgainstTheMigratedTable() {
+        Department department = departmentRepository.save(Department.builder().name("Migration").build());
+        Metric metric = metricRepository.save(Metric.builder().type("Migration").measurementUnit("M").build());
+        ZonedDateTime measurementDateTime = ZonedDateTime.of(LocalDate.of(2020, 12, 2),
+                LocalTime.of(20, 20, 20), ZoneId.systemDefault());
+        measurementRepository.save(Measurement.builder().value(Measurement.VALUE_20)
+                .measurementTimestamp(measurementDateTime).metric(metric).department(department).build());
+        measurementRepository.save(Measurement.builder().value(40.0)
+                .measurementTimestamp(measurementDateTime.plusMonths(1)).metric(metric).department(department).build());
+
+        AggregatedResult aggregatedResult = measurementRepository.getAggregatedResults(metric.getId(), department.getId(),
+                measurementDateTime.minusDays(1), measurementDateTime.plusDays(1));
+
+        assertEquals(Measurement.VALUE_20, aggregatedResult.getAverageValue());
+        assertEquals(Measurement.VALUE_20, aggregatedResult.getMaxValue());
+    }
+}
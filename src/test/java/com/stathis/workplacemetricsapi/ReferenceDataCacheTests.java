@@ -0,0 +1,44 @@
+package com.stathis.workplacemetricsapi;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.services.DepartmentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReferenceDataCacheTests {
+
+    @Autowired
+    DepartmentService departmentService;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    // a read on another thread before the update commits sees the old name and must not keep it cached
+    @Test
+    void readAfterUpdateSeesTheNewName() {
+        String suffix = " " + System.nanoTime();
+        Long departmentId = departmentRepository.save(Department.builder().name("Cached" + suffix).build()).getId();
+        departmentService.getDepartmentById(departmentId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            departmentService.updateDepartment(departmentId, Department.builder().name("Renamed" + suffix).build());
+            Department concurrentRead = CompletableFuture.supplyAsync(() -> departmentService.getDepartmentById(departmentId)).join();
+            assertEquals("Cached" + suffix, concurrentRead.getName());
+        });
+
+        assertEquals("Renamed" + suffix, departmentService.getDepartmentById(departmentId).getName());
+    }
+}
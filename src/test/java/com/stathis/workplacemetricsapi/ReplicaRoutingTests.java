@@ -0,0 +1,100 @@
+package com.stathis.workplacemetricsapi;
+
+import com.stathis.workplacemetricsapi.datasource.ReplicaHeartbeat;
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.services.DepartmentService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.stathis.workplacemetricsapi.datasource.ReplicaHeartbeat.SELECT_HEARTBEAT;
+import static com.stathis.workplacemetricsapi.datasource.ReplicaHeartbeat.UPDATE_HEARTBEAT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// two in-memory H2 databases stand in for the primary and the replica, replication is done by hand
+@SpringBootTest(properties = {
+        "measurements.replica.enabled=true",
+        "measurements.replica.url=" + ReplicaRoutingTests.REPLICA_URL,
+        "measurements.replica.username=sa",
+        "measurements.replica.password=",
+        "measurements.replica.max-lag=5s",
+        "measurements.replica.heartbeat-cron=-"})
+@ActiveProfiles("h2")
+class ReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:metrics_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    DepartmentService departmentService;
+
+    @Autowired
+    ReplicaHeartbeat replicaHeartbeat;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    JdbcTemplate replicaJdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(replicaDataSource).locations("classpath:db/migration/h2").load().migrate();
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        replicaJdbcTemplate.update(UPDATE_HEARTBEAT, 0L);
+    }
+
+    @Test
+    void readOnlyListingsGoToTheReplicaOnceItHasCaughtUp() {
+        Department department = departmentService.saveDepartment(Department.builder().name("Replica " + System.nanoTime()).build());
+
+        replicaHeartbeat.beat();
+        assertTrue(departmentNames().contains(department.getName()));
+
+        replicate();
+        assertFalse(departmentNames().contains(department.getName()));
+
+        // writes keep going to the primary
+        Department updatedDepartment = departmentService.updateDepartment(department.getId(),
+                Department.builder().name(department.getName() + " updated").build());
+        assertEquals(updatedDepartment.getName(), jdbcTemplate.queryForObject("SELECT name FROM departments WHERE id = ?",
+                String.class, department.getId()));
+        assertEquals(0, replicaJdbcTemplate.queryForObject("SELECT COUNT(*) FROM departments WHERE id = ?",
+                Integer.class, department.getId()));
+    }
+
+    @Test
+    void readOnlyListingsGoToThePrimaryWhileTheReplicaLags() {
+        Department department = departmentService.saveDepartment(Department.builder().name("Lagging " + System.nanoTime()).build());
+        replicate();
+        assertFalse(departmentNames().contains(department.getName()));
+
+        replicaJdbcTemplate.update(UPDATE_HEARTBEAT, System.currentTimeMillis() - 60_000);
+        replicaHeartbeat.beat();
+
+        assertTrue(departmentNames().contains(department.getName()));
+    }
+
+    // copies the primary's heartbeat to the replica and measures again, the lag is the few milliseconds in between
+    private void replicate() {
+        replicaHeartbeat.beat();
+        replicaJdbcTemplate.update(UPDATE_HEARTBEAT, jdbcTemplate.queryForObject(SELECT_HEARTBEAT, Long.class));
+        replicaHeartbeat.beat();
+    }
+
+    private List<String> departmentNames() {
+        return departmentService.getAllDepartments(PageRequest.of(0, 1_000)).getEntityList().stream()
+                .map(Department::getName)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,86 @@
+package com.stathis.workplacemetricsapi.codec;
+
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat.RECORD_SIZE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeasurementRecordFormatTest {
+
+    private static final MeasurementDTO MEASUREMENT_DTO = MeasurementDTO.builder()
+            .value(21.5)
+            .measurementTimestamp(ZonedDateTime.of(LocalDate.of(2020, 12, 2), LocalTime.of(20, 20, 20, 125_000_000),
+                    ZoneId.systemDefault()))
+            .metricId(3L)
+            .departmentId(7L)
+            .build();
+
+    @Test
+    void recordsAreBigEndianMillisValueMetricAndDepartment() {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        MeasurementRecordFormat.encode(MEASUREMENT_DTO, buffer);
+
+        ByteBuffer expected = ByteBuffer.allocate(RECORD_SIZE)
+                .putLong(MEASUREMENT_DTO.getMeasurementTimestamp().toInstant().toEpochMilli())
+                .putDouble(21.5)
+                .putLong(3L)
+                .putLong(7L);
+        assertArrayEquals(expected.array(), buffer.array());
+        assertEquals(MEASUREMENT_DTO, MeasurementRecordFormat.decode(buffer.array()));
+    }
+
+    @Test
+    void readRecordStopsOnTheLastRecordBoundary() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 2);
+        MeasurementRecordFormat.encode(MEASUREMENT_DTO, buffer);
+        MeasurementRecordFormat.encode(MEASUREMENT_DTO, buffer);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(buffer.array());
+        byte[] record = new byte[RECORD_SIZE];
+
+        assertTrue(MeasurementRecordFormat.readRecord(inputStream, record));
+        assertTrue(MeasurementRecordFormat.readRecord(inputStream, record));
+        assertFalse(MeasurementRecordFormat.readRecord(inputStream, record));
+    }
+
+    @Test
+    void readRecordRejectsABodyEndingInsideARecord() {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(Arrays.copyOf(new byte[RECORD_SIZE], RECORD_SIZE - 8));
+
+        assertThrows(InvalidRequestException.class, () -> MeasurementRecordFormat.readRecord(inputStream, new byte[RECORD_SIZE]));
+    }
+
+    @Test
+    void converterReadsRecordsButNeverWrites() throws IOException {
+        MeasurementRecordHttpMessageConverter converter = new MeasurementRecordHttpMessageConverter();
+        Type listType = new ParameterizedTypeReference<List<MeasurementDTO>>() {
+        }.getType();
+        ByteBuffer body = ByteBuffer.allocate(RECORD_SIZE * 2);
+        MeasurementRecordFormat.encode(MEASUREMENT_DTO, body);
+        MeasurementRecordFormat.encode(MEASUREMENT_DTO, body);
+
+        assertTrue(converter.canRead(listType, null, MeasurementRecordFormat.MEDIA_TYPE));
+        assertFalse(converter.canWrite(listType, List.class, MeasurementRecordFormat.MEDIA_TYPE));
+        assertFalse(converter.canWrite(MeasurementDTO.class, MeasurementRecordFormat.MEDIA_TYPE));
+        assertEquals(Arrays.asList(MEASUREMENT_DTO, MEASUREMENT_DTO),
+                converter.read(listType, null, new MockHttpInputMessage(body.array())));
+    }
+}
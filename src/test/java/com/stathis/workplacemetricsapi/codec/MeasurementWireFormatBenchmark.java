@@ -0,0 +1,123 @@
+package com.stathis.workplacemetricsapi.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat.RECORD_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// parse cost per reading of a batch body as JSON (the ObjectMapper Spring MVC builds) against the same readings as
+// measurement records, both read the way the request body converters read them.
+// mvn test -Dtest=MeasurementWireFormatBenchmark -Dbenchmark=true
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MeasurementWireFormatBenchmark {
+
+    private static final int READINGS = 10_000;
+    private static final int WARM_UP_ROUNDS = 200;
+    private static final int ROUNDS = 500;
+    private static final Type BATCH_TYPE = ResolvableType.forClassWithGenerics(List.class, MeasurementDTO.class).getType();
+
+    @Test
+    void parseCostPerReading() throws IOException {
+        List<MeasurementDTO> readings = readings();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ObjectReader jsonReader = objectMapper.readerFor(new TypeReference<List<MeasurementDTO>>() {
+        });
+        MeasurementRecordHttpMessageConverter recordConverter = new MeasurementRecordHttpMessageConverter();
+
+        byte[] json = objectMapper.writeValueAsBytes(readings);
+        ByteBuffer records = ByteBuffer.allocate(READINGS * RECORD_SIZE);
+        readings.forEach(reading -> MeasurementRecordFormat.encode(reading, records));
+        byte[] binary = records.array();
+
+        List<MeasurementDTO> fromJson = jsonReader.readValue(json);
+        List<MeasurementDTO> fromRecords = readRecords(recordConverter, binary);
+        for (int i = 0; i < READINGS; i++) {
+            assertEquals(fromJson.get(i).getMeasurementTimestamp().toInstant(), fromRecords.get(i).getMeasurementTimestamp().toInstant());
+            assertEquals(fromJson.get(i).getValue(), fromRecords.get(i).getValue());
+            assertEquals(fromJson.get(i).getMetricId(), fromRecords.get(i).getMetricId());
+            assertEquals(fromJson.get(i).getDepartmentId(), fromRecords.get(i).getDepartmentId());
+        }
+
+        Cost jsonCost = measure(() -> jsonReader.readValue(json));
+        Cost recordCost = measure(() -> readRecords(recordConverter, binary));
+
+        log.info("JSON:    {} bytes/reading, {} ns/reading, {} bytes allocated/reading",
+                json.length / READINGS, jsonCost.nanosPerReading, jsonCost.allocatedPerReading);
+        log.info("records: {} bytes/reading, {} ns/reading, {} bytes allocated/reading",
+                binary.length / READINGS, recordCost.nanosPerReading, recordCost.allocatedPerReading);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<MeasurementDTO> readRecords(MeasurementRecordHttpMessageConverter recordConverter, byte[] body) throws IOException {
+        return (List<MeasurementDTO>) recordConverter.read(BATCH_TYPE, null, new MockHttpInputMessage(body));
+    }
+
+    // readings of a gateway: ten metrics over a hundred departments, a reading every second, millisecond timestamps
+    private static List<MeasurementDTO> readings() {
+        Random random = new Random(42);
+        ZonedDateTime start = ZonedDateTime.of(LocalDate.of(2020, 12, 2), LocalTime.MIDNIGHT, ZoneId.systemDefault());
+        List<MeasurementDTO> readings = new ArrayList<>(READINGS);
+        for (int i = 0; i < READINGS; i++) {
+            readings.add(MeasurementDTO.builder()
+                    .value(Math.round((15 + random.nextDouble() * 15) * 100) / 100.0)
+                    .measurementTimestamp(start.plusSeconds(i).plusNanos(random.nextInt(1000) * 1_000_000L))
+                    .metricId(1L + i % 10)
+                    .departmentId(1L + i % 100)
+                    .build());
+        }
+        return readings;
+    }
+
+    private static Cost measure(Parse parse) throws IOException {
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            parse.run();
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            parse.run();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Cost(elapsed / ((long) ROUNDS * READINGS), allocated / ((long) ROUNDS * READINGS));
+    }
+
+    private interface Parse {
+        Object run() throws IOException;
+    }
+
+    private static final class Cost {
+
+        private final long nanosPerReading;
+        private final long allocatedPerReading;
+
+        private Cost(long nanosPerReading, long allocatedPerReading) {
+            this.nanosPerReading = nanosPerReading;
+            this.allocatedPerReading = allocatedPerReading;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.stathis.workplacemetricsapi.controllers;
+
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.DeletionJob;
+import com.stathis.workplacemetricsapi.model.DeletionStatus;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
+import com.stathis.workplacemetricsapi.services.ResourceDeletionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DeletionControllerTest {
+
+    @Mock
+    ResourceDeletionService resourceDeletionService;
+
+    @InjectMocks
+    DeletionController deletionController;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(deletionController)
+                .setControllerAdvice(new RestResponseEntityExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void getDeletionJob() throws Exception {
+        DeletionJob deletionJob = DeletionJob.builder()
+                .jobId("job-1")
+                .target(DeletionTarget.DEPARTMENT)
+                .resourceId(ID_ONE)
+                .status(DeletionStatus.RUNNING)
+                .measurementsDeleted(15_000)
+                .build();
+
+        when(resourceDeletionService.getDeletionJob("job-1")).thenReturn(deletionJob);
+
+        mockMvc.perform(get(DeletionController.BASE_URL + "/job-1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.target", equalTo("DEPARTMENT")))
+                .andExpect(jsonPath("$.status", equalTo("RUNNING")))
+                .andExpect(jsonPath("$.measurementsDeleted", equalTo(15_000)));
+    }
+
+    @Test
+    void getDeletionJobNotFound() throws Exception {
+        when(resourceDeletionService.getDeletionJob("missing"))
+                .thenThrow(new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + "missing"));
+
+        mockMvc.perform(get(DeletionController.BASE_URL + "/missing")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -4,14 +4,19 @@ import com.stathis.workplacemetricsapi.domain.Department;
 import com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotUpdatedException;
+import com.stathis.workplacemetricsapi.model.DeletionJob;
+import com.stathis.workplacemetricsapi.model.DeletionStatus;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import com.stathis.workplacemetricsapi.services.DepartmentService;
+import com.stathis.workplacemetricsapi.services.ResourceDeletionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -28,13 +33,14 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -43,6 +49,9 @@ class DepartmentControllerTest extends AbstractRestControllerTest {
     @Mock
     DepartmentService departmentService;
 
+    @Mock
+    ResourceDeletionService resourceDeletionService;
+
     @InjectMocks
     DepartmentController departmentController;
 
@@ -164,18 +173,29 @@ class DepartmentControllerTest extends AbstractRestControllerTest {
     @Test
     void deleteDepartment() throws Exception {
 
+        DeletionJob deletionJob = DeletionJob.builder()
+                .jobId("job-1")
+                .target(DeletionTarget.DEPARTMENT)
+                .resourceId(ID_ONE)
+                .status(DeletionStatus.PENDING)
+                .build();
+
+        when(resourceDeletionService.deleteDepartment(ID_ONE)).thenReturn(deletionJob);
+
         mockMvc.perform(delete(DepartmentController.BASE_URL + "/1")
                 .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, DeletionController.BASE_URL + "/job-1"))
+                .andExpect(jsonPath("$.status", equalTo("PENDING")));
 
-        verify(departmentService).deleteDepartmentById(anyLong());
+        verify(departmentService, never()).deleteDepartmentById(anyLong());
     }
 
     @Test
     void deleteDepartmentResourceNotFound() throws Exception {
 
-        doThrow(new ResourceNotDeletedException(RESOURCE_COULD_NOT_BE_DELETED + "/555"))
-                .when(departmentService).deleteDepartmentById(555L);
+        when(resourceDeletionService.deleteDepartment(555L))
+                .thenThrow(new ResourceNotDeletedException(RESOURCE_COULD_NOT_BE_DELETED + 555));
 
         mockMvc.perform(delete(DepartmentController.BASE_URL + "/555")
                 .contentType(MediaType.APPLICATION_JSON))
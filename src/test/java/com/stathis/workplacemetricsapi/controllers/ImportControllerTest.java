@@ -0,0 +1,118 @@
+package com.stathis.workplacemetricsapi.controllers;
+
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.ImportJob;
+import com.stathis.workplacemetricsapi.model.ImportStatus;
+import com.stathis.workplacemetricsapi.services.MeasurementImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImportControllerTest {
+
+    @Mock
+    MeasurementImportService measurementImportService;
+
+    @InjectMocks
+    ImportController importController;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(importController)
+                .setControllerAdvice(new RestResponseEntityExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void submitImport() throws Exception {
+        ImportJob importJob = ImportJob.builder()
+                .jobId("job-1")
+                .status(ImportStatus.PENDING)
+                .build();
+
+        when(measurementImportService.submitImport(any(InputStream.class))).thenReturn(importJob);
+
+        mockMvc.perform(post(ImportController.BASE_URL)
+                .contentType(ImportController.CSV_CONTENT_TYPE)
+                .content("2020-12-02T20:20:20Z,20.0,Temperature,Sales\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", ImportController.BASE_URL + "/job-1"))
+                .andExpect(jsonPath("$.status", equalTo("PENDING")));
+    }
+
+    @Test
+    void submitImportRequiresCsv() throws Exception {
+        mockMvc.perform(post(ImportController.BASE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void getImportJob() throws Exception {
+        ImportJob importJob = ImportJob.builder()
+                .jobId("job-1")
+                .status(ImportStatus.INSERTING)
+                .rowsImported(40_000)
+                .rowsRejected(3)
+                .rowsPerSecond(125_000.0)
+                .build();
+
+        when(measurementImportService.getImportJob("job-1")).thenReturn(importJob);
+
+        mockMvc.perform(get(ImportController.BASE_URL + "/job-1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", equalTo("INSERTING")))
+                .andExpect(jsonPath("$.rowsImported", equalTo(40_000)))
+                .andExpect(jsonPath("$.rowsPerSecond", equalTo(125_000.0)));
+    }
+
+    @Test
+    void getRejectedRows(@TempDir Path directory) throws Exception {
+        Path rejectedRowsFile = Files.write(directory.resolve("job-1-rejected.csv"),
+                "line,reason,row\n3,\"Invalid value: x\",\"2020-12-02T20:20:20Z,x,Temperature,Sales\"\n".getBytes(StandardCharsets.UTF_8));
+
+        when(measurementImportService.getRejectedRowsFile("job-1")).thenReturn(rejectedRowsFile);
+
+        mockMvc.perform(get(ImportController.BASE_URL + "/job-1" + ImportController.REJECTED_ROWS_PATH))
+                .andExpect(status().isOk())
+                .andExpect(content().string(Files.readString(rejectedRowsFile)));
+    }
+
+    @Test
+    void getImportJobNotFound() throws Exception {
+        when(measurementImportService.getImportJob("missing"))
+                .thenThrow(new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + "missing"));
+
+        mockMvc.perform(get(ImportController.BASE_URL + "/missing")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,28 +1,60 @@
 package com.stathis.workplacemetricsapi.controllers;
 
+import com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat;
+import com.stathis.workplacemetricsapi.codec.MeasurementRecordHttpMessageConverter;
 import com.stathis.workplacemetricsapi.domain.Department;
 import com.stathis.workplacemetricsapi.domain.Measurement;
 import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.exception.ResourceConflictException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.exception.ServiceOverloadedException;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrixCell;
 import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.ExportFormat;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchItemResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
 import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementLineRejection;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementSeries;
+import com.stathis.workplacemetricsapi.model.MeasurementStreamResult;
+import com.stathis.workplacemetricsapi.model.SeriesBucket;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
+import com.stathis.workplacemetricsapi.services.LatestMeasurementStore;
+import com.stathis.workplacemetricsapi.services.MeasurementExportService;
+import com.stathis.workplacemetricsapi.services.MeasurementSeriesService;
+import com.stathis.workplacemetricsapi.services.MeasurementStreamHub;
+import com.stathis.workplacemetricsapi.services.MeasurementStreamIngestionService;
 import com.stathis.workplacemetricsapi.services.MeasurementService;
+import com.stathis.workplacemetricsapi.services.MeasurementWriteBehindService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
@@ -30,19 +62,35 @@ import static com.stathis.workplacemetricsapi.domain.Department.ALPHA;
 import static com.stathis.workplacemetricsapi.domain.Measurement.VALUE_20;
 import static com.stathis.workplacemetricsapi.domain.Metric.CELSIUS;
 import static com.stathis.workplacemetricsapi.domain.Metric.TEMPERATURE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.TRUNCATED_MEASUREMENT_RECORD;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.UNSUPPORTED_CONTENT_ENCODING;
+import static com.stathis.workplacemetricsapi.exception.ResourceConflictException.IDEMPOTENCY_KEY_IN_FLIGHT;
 import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
+import static com.stathis.workplacemetricsapi.exception.ServiceOverloadedException.INGESTION_QUEUE_FULL;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.DEPARTMENT_NOT_FOUND_WITH_ID;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.FAILED_TO_SAVE_MEASUREMENT_RECORD;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.METRIC_NOT_FOUND_WITH_ID;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.NO_MEASUREMENT_RECORDS_FOUND;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class MeasurementControllerTest extends AbstractRestControllerTest {
@@ -50,6 +98,24 @@ class MeasurementControllerTest extends AbstractRestControllerTest {
     @Mock
     MeasurementService measurementService;
 
+    @Mock
+    MeasurementWriteBehindService measurementWriteBehindService;
+
+    @Mock
+    MeasurementExportService measurementExportService;
+
+    @Mock
+    MeasurementSeriesService measurementSeriesService;
+
+    @Mock
+    LatestMeasurementStore latestMeasurementStore;
+
+    @Mock
+    MeasurementStreamHub measurementStreamHub;
+
+    @Mock
+    MeasurementStreamIngestionService measurementStreamIngestionService;
+
     @InjectMocks
     MeasurementController measurementController;
 
@@ -136,6 +202,158 @@ class MeasurementControllerTest extends AbstractRestControllerTest {
                 .andExpect(jsonPath("$.entityList[1].department.name", equalTo(measurementList.get(1).getDepartment().getName())));
     }
 
+    @Test
+    void getMeasurementsAfter() throws Exception {
+
+        List<Measurement> measurementList = populateMeasurementList(3, 10, 30.5);
+
+        when(measurementService.getMeasurementsAfter("abc", 3))
+                .thenReturn(ResponseEntityWrapper.ofCursor(measurementList, "def"));
+
+        mockMvc.perform(get(MeasurementController.BASE_URL)
+                .param("after", "abc")
+                .param("limit", "3")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entityList", hasSize(3)))
+                .andExpect(jsonPath("$.nextCursor", equalTo("def")))
+                .andExpect(jsonPath("$.totalItems").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+
+        verify(measurementService, never()).getAllMeasurements(any(Pageable.class));
+    }
+
+    @Test
+    void getMeasurementRecords() throws Exception {
+
+        List<MeasurementRecord> recordList = Arrays.asList(
+                new MeasurementRecord(1L, 20.0, measurementDateTime, ID_ONE, ID_ONE),
+                new MeasurementRecord(2L, 21.0, measurementDateTime, ID_ONE, ID_ONE));
+
+        when(measurementService.getMeasurementRecords(any(Pageable.class)))
+                .thenReturn(new ResponseEntityWrapper<>(recordList, 0, null, null));
+
+        mockMvc.perform(get(MeasurementController.BASE_URL)
+                .param("view", "flat")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entityList", hasSize(2)))
+                .andExpect(jsonPath("$.entityList[1].metric_id", equalTo(1)))
+                .andExpect(jsonPath("$.entityList[1].department_id", equalTo(1)))
+                .andExpect(jsonPath("$.entityList[1].metric").doesNotExist());
+
+        verify(measurementService, never()).getAllMeasurements(any(Pageable.class));
+    }
+
+    @Test
+    void getMeasurementSlice() throws Exception {
+
+        List<Measurement> measurementList = populateMeasurementList(7, 10, 30.5);
+
+        when(measurementService.getMeasurementSlice(any(Pageable.class)))
+                .thenReturn(new ResponseEntityWrapper<>(measurementList, 1, null, null));
+
+        mockMvc.perform(get(MeasurementController.BASE_URL)
+                .param("page", "1")
+                .param("size", "7")
+                .param("count", "false")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entityList", hasSize(7)))
+                .andExpect(jsonPath("$.currentPage", equalTo(1)))
+                .andExpect(jsonPath("$.totalItems").doesNotExist());
+    }
+
+    @Test
+    void exportMeasurements() throws Exception {
+
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(5);
+            outputStream.write("1,20.0\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(measurementExportService).exportMeasurements(eq(ID_ONE), eq(ID_ONE), any(ZonedDateTime.class),
+                any(ZonedDateTime.class), eq(ExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get(MeasurementController.BASE_URL + "/export")
+                .param("metricId", "1")
+                .param("departmentId", "1")
+                .param("from", "2020-12-01T00:00:00Z")
+                .param("to", "2020-12-02T00:00:00Z")
+                .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, ExportFormat.CSV.getContentType()))
+                .andExpect(content().string("1,20.0\n"));
+    }
+
+    @Test
+    void exportMeasurementsUnsupportedFormat() throws Exception {
+
+        mockMvc.perform(get(MeasurementController.BASE_URL + "/export")
+                .param("metricId", "1")
+                .param("departmentId", "1")
+                .param("from", "2020-12-01T00:00:00Z")
+                .param("to", "2020-12-02T00:00:00Z")
+                .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verify(measurementExportService, never()).validateExport(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void streamMeasurements() throws Exception {
+
+        SseEmitter emitter = new SseEmitter();
+        when(measurementStreamHub.subscribe(ID_ONE, null)).thenReturn(emitter);
+
+        MvcResult mvcResult = mockMvc.perform(get(MeasurementController.BASE_URL + "/stream")
+                .param("metricId", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        emitter.send(SseEmitter.event()
+                .name(MeasurementStreamHub.MEASUREMENT_EVENT)
+                .data(MeasurementRecord.of(measurementAlphaTemperature), MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE))
+                .andExpect(content().string(containsString("event:measurement")))
+                .andExpect(content().string(containsString("\"metric_id\":1")));
+    }
+
+    @Test
+    void getSeries() throws Exception {
+
+        MeasurementSeries series = MeasurementSeries.builder()
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .interval("1h")
+                .buckets(Arrays.asList(
+                        SeriesBucket.builder().bucketStart(measurementDateTime).sampleCount(4L).averageValue(21.0).build(),
+                        SeriesBucket.builder().bucketStart(measurementDateTime.plusHours(1)).sampleCount(2L).averageValue(22.0).build()))
+                .build();
+
+        when(measurementSeriesService.getSeries(eq(ID_ONE), eq(ID_ONE), any(ZonedDateTime.class), any(ZonedDateTime.class), eq("1h")))
+                .thenReturn(series);
+
+        mockMvc.perform(get(MeasurementController.BASE_URL + "/series")
+                .param("metricId", "1")
+                .param("departmentId", "1")
+                .param("from", "2020-12-02T00:00:00Z")
+                .param("to", "2020-12-03T00:00:00Z")
+                .param("interval", "1h")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.interval", equalTo("1h")))
+                .andExpect(jsonPath("$.buckets", hasSize(2)))
+                .andExpect(jsonPath("$.buckets[1].sampleCount", equalTo(2)));
+    }
+
     @Test
     void getMeasurementById() throws Exception {
 
@@ -153,6 +371,56 @@ class MeasurementControllerTest extends AbstractRestControllerTest {
                 .andExpect(jsonPath("$.department.name", equalTo(measurementAlphaTemperature.getDepartment().getName())));
     }
 
+    @Test
+    void getLatestMeasurement() throws Exception {
+
+        MeasurementRecord latestRecord = MeasurementRecord.builder()
+                .id(ID_ONE)
+                .value(VALUE_20)
+                .measurementTimestamp(measurementDateTime)
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .build();
+
+        when(latestMeasurementStore.getLatestMeasurement(ID_ONE, ID_ONE)).thenReturn(latestRecord);
+
+        mockMvc.perform(get(MeasurementController.BASE_URL + "/latest")
+                .param("metricId", "1")
+                .param("departmentId", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", equalTo(1)))
+                .andExpect(jsonPath("$.value", equalTo(VALUE_20)))
+                .andExpect(jsonPath("$.metric_id", equalTo(1)));
+    }
+
+    @Test
+    void getLatestMeasurementNotFound() throws Exception {
+
+        when(latestMeasurementStore.getLatestMeasurement(ID_ONE, ID_ONE))
+                .thenThrow(new ResourceNotFoundException(NO_MEASUREMENT_RECORDS_FOUND));
+
+        mockMvc.perform(get(MeasurementController.BASE_URL + "/latest")
+                .param("metricId", "1")
+                .param("departmentId", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAllLatestMeasurements() throws Exception {
+
+        when(latestMeasurementStore.getAllLatestMeasurements()).thenReturn(Arrays.asList(
+                MeasurementRecord.builder().id(1L).metricId(ID_ONE).departmentId(1L).build(),
+                MeasurementRecord.builder().id(2L).metricId(ID_ONE).departmentId(2L).build()));
+
+        mockMvc.perform(get(MeasurementController.BASE_URL + "/latest/all")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].department_id", equalTo(2)));
+    }
+
     @Test
     void getMeasurementByIdResourceNotFound() throws Exception {
 
@@ -182,6 +450,48 @@ class MeasurementControllerTest extends AbstractRestControllerTest {
 
     }
 
+    @Test
+    void saveMeasurementWriteBehind() throws Exception {
+
+        when(measurementWriteBehindService.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(post(MeasurementController.BASE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(measurementDTOForSave)))
+                .andExpect(status().isAccepted());
+
+        verify(measurementWriteBehindService).enqueue(any(MeasurementDTO.class));
+        verify(measurementService, never()).saveMeasurement(any(MeasurementDTO.class));
+    }
+
+    @Test
+    void saveMeasurementWriteBehindQueueFull() throws Exception {
+
+        when(measurementWriteBehindService.isEnabled()).thenReturn(true);
+        doThrow(new ServiceOverloadedException(INGESTION_QUEUE_FULL))
+                .when(measurementWriteBehindService).enqueue(any(MeasurementDTO.class));
+
+        mockMvc.perform(post(MeasurementController.BASE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(measurementDTOForSave)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    void saveMeasurementIdempotencyKeyInFlight() throws Exception {
+
+        measurementDTOForSave.setIdempotencyKey("gateway-1");
+        when(measurementService.saveMeasurement(any(MeasurementDTO.class)))
+                .thenThrow(new ResourceConflictException(IDEMPOTENCY_KEY_IN_FLIGHT));
+
+        mockMvc.perform(post(MeasurementController.BASE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(measurementDTOForSave)))
+                .andExpect(status().isConflict())
+                .andExpect(content().string(IDEMPOTENCY_KEY_IN_FLIGHT));
+    }
+
     @Test
     void saveMeasurementDepartmentNotFound() throws Exception {
 
@@ -206,6 +516,124 @@ class MeasurementControllerTest extends AbstractRestControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void saveMeasurements() throws Exception {
+
+        MeasurementBatchResult batchResult = MeasurementBatchResult.builder()
+                .acceptedItems(1)
+                .rejectedItems(1)
+                .items(Arrays.asList(
+                        MeasurementBatchItemResult.builder()
+                                .index(0)
+                                .status(MeasurementBatchItemResult.Status.CREATED)
+                                .id(ID_ONE)
+                                .build(),
+                        MeasurementBatchItemResult.builder()
+                                .index(1)
+                                .status(MeasurementBatchItemResult.Status.REJECTED)
+                                .message(FAILED_TO_SAVE_MEASUREMENT_RECORD + DEPARTMENT_NOT_FOUND_WITH_ID + 2)
+                                .build()))
+                .build();
+
+        when(measurementService.saveMeasurements(anyList())).thenReturn(batchResult);
+
+        mockMvc.perform(post(MeasurementController.BASE_URL + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(Arrays.asList(measurementDTOForSave, measurementDTOForSave))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acceptedItems", equalTo(1)))
+                .andExpect(jsonPath("$.rejectedItems", equalTo(1)))
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$.items[0].id", equalTo(1)))
+                .andExpect(jsonPath("$.items[1].status", equalTo("REJECTED")))
+                .andExpect(jsonPath("$.items[1].message", equalTo(batchResult.getItems().get(1).getMessage())));
+    }
+
+    @Test
+    void saveMeasurementStream() throws Exception {
+        MeasurementStreamResult streamResult = MeasurementStreamResult.builder()
+                .acceptedItems(1L)
+                .rejectedItems(1L)
+                .rejections(Collections.singletonList(new MeasurementLineRejection(2L,
+                        FAILED_TO_SAVE_MEASUREMENT_RECORD + DEPARTMENT_NOT_FOUND_WITH_ID + 2)))
+                .build();
+
+        when(measurementStreamIngestionService.saveMeasurementStream(any(InputStream.class), eq(true))).thenReturn(streamResult);
+
+        mockMvc.perform(post(MeasurementController.BASE_URL + "/stream")
+                .contentType(MeasurementController.NDJSON_CONTENT_TYPE)
+                .header(HttpHeaders.CONTENT_ENCODING, MeasurementController.GZIP_ENCODING)
+                .content(asJsonString(measurementDTOForSave) + "\n" + asJsonString(measurementDTOForSave)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acceptedItems", equalTo(1)))
+                .andExpect(jsonPath("$.rejectedItems", equalTo(1)))
+                .andExpect(jsonPath("$.rejections[0].line", equalTo(2)))
+                .andExpect(jsonPath("$.rejections[0].message", equalTo(streamResult.getRejections().get(0).getMessage())));
+    }
+
+    @Test
+    void saveMeasurementsAsRecords() throws Exception {
+        MockMvc recordMockMvc = recordMockMvc();
+        MeasurementBatchResult batchResult = MeasurementBatchResult.builder()
+                .acceptedItems(2)
+                .rejectedItems(0)
+                .items(Collections.emptyList())
+                .build();
+        when(measurementService.saveMeasurements(anyList())).thenReturn(batchResult);
+
+        recordMockMvc.perform(post(MeasurementController.BASE_URL + "/batch")
+                .contentType(MeasurementRecordFormat.CONTENT_TYPE)
+                .content(asRecords(measurementDTOForSave, measurementDTOForSave)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acceptedItems", equalTo(2)));
+
+        verify(measurementService).saveMeasurements(Arrays.asList(measurementDTOForSave, measurementDTOForSave));
+    }
+
+    @Test
+    void saveMeasurementAsTruncatedRecord() throws Exception {
+        byte[] record = asRecords(measurementDTOForSave);
+
+        recordMockMvc().perform(post(MeasurementController.BASE_URL)
+                .contentType(MeasurementRecordFormat.CONTENT_TYPE)
+                .content(Arrays.copyOf(record, record.length - 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(TRUNCATED_MEASUREMENT_RECORD));
+
+        verify(measurementService, never()).saveMeasurement(any(MeasurementDTO.class));
+    }
+
+    @Test
+    void saveMeasurementRecordStream() throws Exception {
+        MeasurementStreamResult streamResult = MeasurementStreamResult.builder()
+                .acceptedItems(2L)
+                .rejectedItems(0L)
+                .rejections(Collections.emptyList())
+                .build();
+        when(measurementStreamIngestionService.saveMeasurementRecordStream(any(InputStream.class), eq(false))).thenReturn(streamResult);
+
+        mockMvc.perform(post(MeasurementController.BASE_URL + "/stream")
+                .contentType(MeasurementRecordFormat.CONTENT_TYPE)
+                .content(asRecords(measurementDTOForSave, measurementDTOForSave)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acceptedItems", equalTo(2)));
+
+        verify(measurementStreamIngestionService, never()).saveMeasurementStream(any(InputStream.class), anyBoolean());
+    }
+
+    @Test
+    void saveMeasurementStreamWithUnsupportedEncoding() throws Exception {
+        mockMvc.perform(post(MeasurementController.BASE_URL + "/stream")
+                .contentType(MeasurementController.NDJSON_CONTENT_TYPE)
+                .header(HttpHeaders.CONTENT_ENCODING, "br")
+                .content(asJsonString(measurementDTOForSave)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(UNSUPPORTED_CONTENT_ENCODING + "br"));
+
+        verify(measurementStreamIngestionService, never()).saveMeasurementStream(any(InputStream.class), anyBoolean());
+    }
+
     @Test
     void getDailyMeasurementsByMetricAndDepartment() throws Exception {
         int minutesToAdd = 10;
@@ -302,6 +730,29 @@ class MeasurementControllerTest extends AbstractRestControllerTest {
                 .andExpect(jsonPath("$.maxValue", equalTo(weeklyAggregatedResult.getMaxValue())));
     }
 
+    @Test
+    void getAggregatedMatrix() throws Exception {
+
+        AggregatedMatrix aggregatedMatrix = AggregatedMatrix.builder()
+                .granularity(RollupGranularity.DAY)
+                .cells(Arrays.asList(
+                        AggregatedMatrixCell.builder().metricId(1L).departmentId(1L).averageValue(20.0).build(),
+                        AggregatedMatrixCell.builder().metricId(1L).departmentId(2L).averageValue(25.0).build()))
+                .build();
+
+        when(measurementService.getAggregatedMatrix("1", "all", LocalDate.of(2020, 12, 2), "daily")).thenReturn(aggregatedMatrix);
+
+        mockMvc.perform(get(MeasurementController.BASE_URL + "/aggregated/matrix")
+                .param("metricIds", "1")
+                .param("date", "2020-12-02")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity", equalTo("DAY")))
+                .andExpect(jsonPath("$.cells", hasSize(2)))
+                .andExpect(jsonPath("$.cells[1].departmentId", equalTo(2)))
+                .andExpect(jsonPath("$.cells[1].averageValue", equalTo(25.0)));
+    }
+
     private List<Measurement> populateMeasurementList(int requestedSize, int minutesToAdd, double measurementValue) {
 
         List<Measurement> populatedList = new ArrayList<>();
@@ -318,4 +769,21 @@ class MeasurementControllerTest extends AbstractRestControllerTest {
 
         return populatedList;
     }
-}
\ No newline at end of file
+
+    // the standalone setup only has the default converters, the application adds the record converter in WebMvcConfiguration
+    private MockMvc recordMockMvc() {
+        return MockMvcBuilders.standaloneSetup(measurementController)
+                .setControllerAdvice(new RestResponseEntityExceptionHandler())
+                .setMessageConverters(new StringHttpMessageConverter(), new MappingJackson2HttpMessageConverter(),
+                        new MeasurementRecordHttpMessageConverter())
+                .build();
+    }
+
+    private static byte[] asRecords(MeasurementDTO... measurementDTOs) {
+        ByteBuffer buffer = ByteBuffer.allocate(measurementDTOs.length * MeasurementRecordFormat.RECORD_SIZE);
+        for (MeasurementDTO measurementDTO : measurementDTOs) {
+            MeasurementRecordFormat.encode(measurementDTO, buffer);
+        }
+        return buffer.array();
+    }
+}
@@ -5,14 +5,19 @@ import com.stathis.workplacemetricsapi.exception.ResourceConstraintViolationExce
 import com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotUpdatedException;
+import com.stathis.workplacemetricsapi.model.DeletionJob;
+import com.stathis.workplacemetricsapi.model.DeletionStatus;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
 import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import com.stathis.workplacemetricsapi.services.MetricService;
+import com.stathis.workplacemetricsapi.services.ResourceDeletionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -31,13 +36,14 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -46,6 +52,9 @@ class MetricControllerTest extends AbstractRestControllerTest {
     @Mock
     MetricService metricService;
 
+    @Mock
+    ResourceDeletionService resourceDeletionService;
+
     @InjectMocks
     MetricController metricController;
 
@@ -204,18 +213,29 @@ class MetricControllerTest extends AbstractRestControllerTest {
     @Test
     void deleteMetric() throws Exception {
 
+        DeletionJob deletionJob = DeletionJob.builder()
+                .jobId("job-1")
+                .target(DeletionTarget.METRIC)
+                .resourceId(ID_ONE)
+                .status(DeletionStatus.PENDING)
+                .build();
+
+        when(resourceDeletionService.deleteMetric(ID_ONE)).thenReturn(deletionJob);
+
         mockMvc.perform(delete(MetricController.BASE_URL + "/1")
                 .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, DeletionController.BASE_URL + "/job-1"))
+                .andExpect(jsonPath("$.status", equalTo("PENDING")));
 
-        verify(metricService).deleteMetricById(anyLong());
+        verify(metricService, never()).deleteMetricById(anyLong());
     }
 
     @Test
     void deleteMetricResourceNotFound() throws Exception {
 
-        doThrow(new ResourceNotDeletedException(RESOURCE_COULD_NOT_BE_DELETED + "/555"))
-                .when(metricService).deleteMetricById(555L);
+        when(resourceDeletionService.deleteMetric(555L))
+                .thenThrow(new ResourceNotDeletedException(RESOURCE_COULD_NOT_BE_DELETED + 555));
 
         mockMvc.perform(delete(MetricController.BASE_URL + "/555")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -0,0 +1,78 @@
+package com.stathis.workplacemetricsapi.controllers;
+
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.RollupRebuildResult;
+import com.stathis.workplacemetricsapi.services.MeasurementRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_DATE_RANGE;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RollupControllerTest {
+
+    @Mock
+    MeasurementRollupService measurementRollupService;
+
+    @InjectMocks
+    RollupController rollupController;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(rollupController)
+                .setControllerAdvice(new RestResponseEntityExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void rebuildRollups() throws Exception {
+        RollupRebuildResult rebuildResult = RollupRebuildResult.builder()
+                .fromDateTime(ZonedDateTime.of(2020, 11, 30, 0, 0, 0, 0, ZoneId.systemDefault()))
+                .toDateTime(ZonedDateTime.of(2020, 12, 14, 0, 0, 0, 0, ZoneId.systemDefault()))
+                .measurementsScanned(120L)
+                .rollupsWritten(42L)
+                .build();
+
+        when(measurementRollupService.rebuildRollups(LocalDate.of(2020, 12, 2), LocalDate.of(2020, 12, 8)))
+                .thenReturn(rebuildResult);
+
+        mockMvc.perform(post(RollupController.BASE_URL + "/rebuild")
+                .param("from", "2020-12-02")
+                .param("to", "2020-12-08")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurementsScanned", equalTo(120)))
+                .andExpect(jsonPath("$.rollupsWritten", equalTo(42)));
+    }
+
+    @Test
+    void rebuildRollupsInvalidRange() throws Exception {
+        when(measurementRollupService.rebuildRollups(any(LocalDate.class), any(LocalDate.class)))
+                .thenThrow(new InvalidRequestException(INVALID_DATE_RANGE));
+
+        mockMvc.perform(post(RollupController.BASE_URL + "/rebuild")
+                .param("from", "2020-12-08")
+                .param("to", "2020-12-02")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,104 @@
+package com.stathis.workplacemetricsapi.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    DataSource primaryDataSource;
+
+    @Mock
+    DataSource replicaDataSource;
+
+    @Mock
+    Connection primaryConnection;
+
+    @Mock
+    Connection replicaConnection;
+
+    ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(primaryDataSource.getConnection()).thenReturn(primaryConnection);
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void writesGoToThePrimary() throws SQLException {
+        routingDataSource.replicaLagMeasured(Duration.ZERO);
+
+        assertSame(primaryConnection, targetConnection());
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() throws SQLException {
+        routingDataSource.replicaLagMeasured(Duration.ofSeconds(1));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnection, targetConnection());
+    }
+
+    @Test
+    void readOnlyTransactionsGoToThePrimaryBeforeTheFirstHeartbeat() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertFalse(routingDataSource.isReplicaUsable());
+        assertSame(primaryConnection, targetConnection());
+    }
+
+    @Test
+    void readOnlyTransactionsGoToThePrimaryWhileTheReplicaLags() throws SQLException {
+        routingDataSource.replicaLagMeasured(Duration.ofSeconds(6));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, targetConnection());
+
+        routingDataSource.replicaLagMeasured(Duration.ofSeconds(5));
+        assertSame(replicaConnection, targetConnection());
+    }
+
+    @Test
+    void replicaFailureFallsBackToThePrimaryUntilTheNextHeartbeat() throws SQLException {
+        routingDataSource.replicaLagMeasured(Duration.ZERO);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replicaDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertSame(primaryConnection, targetConnection());
+        assertSame(primaryConnection, targetConnection());
+        verify(replicaDataSource, times(1)).getConnection();
+
+        routingDataSource.replicaLagMeasured(Duration.ZERO);
+        assertTrue(routingDataSource.isReplicaUsable());
+    }
+
+    // the pool is only asked for a connection once the lazy proxy is used
+    private Connection targetConnection() throws SQLException {
+        return ((ConnectionProxy) routingDataSource.getConnection()).getTargetConnection();
+    }
+}
@@ -0,0 +1,192 @@
+package com.stathis.workplacemetricsapi.lineprotocol;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementLineProtocolProperties;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.services.MeasurementService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import static com.stathis.workplacemetricsapi.lineprotocol.MeasurementLineProtocolServer.ACCEPTED;
+import static com.stathis.workplacemetricsapi.lineprotocol.MeasurementLineProtocolServer.MALFORMED;
+import static com.stathis.workplacemetricsapi.lineprotocol.MeasurementLineProtocolServer.OUTCOME_TAG;
+import static com.stathis.workplacemetricsapi.lineprotocol.MeasurementLineProtocolServer.PAUSED_METRIC;
+import static com.stathis.workplacemetricsapi.lineprotocol.MeasurementLineProtocolServer.READINGS_METRIC;
+import static com.stathis.workplacemetricsapi.lineprotocol.MeasurementLineProtocolServer.REFUSED_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementLineProtocolServerTest {
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    @Mock
+    MeasurementService measurementService;
+
+    MeasurementLineProtocolProperties properties;
+    MeterRegistry meterRegistry;
+    MeasurementLineProtocolServer measurementLineProtocolServer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        properties = new MeasurementLineProtocolProperties();
+        properties.setEnabled(true);
+        properties.setBindAddress(InetAddress.getLoopbackAddress().getHostAddress());
+        properties.setPort(0);
+        properties.setBatchSize(2);
+        properties.setMaxLineLength(32);
+        properties.setFlushInterval(Duration.ofMillis(50));
+        properties.setWriterThreads(1);
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(measurementService.saveMeasurements(anyList())).thenAnswer(invocation -> {
+            List<MeasurementDTO> batch = invocation.getArgument(0);
+            return new MeasurementBatchResult(batch.size(), 0, List.of());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (measurementLineProtocolServer != null) {
+            measurementLineProtocolServer.stop();
+        }
+    }
+
+    @Test
+    void parseLine() {
+        MeasurementDTO measurementDTO = MeasurementLineProtocolServer.parseLine(" 1\t2  1606940420000 20.5 ");
+
+        assertEquals(1L, measurementDTO.getMetricId());
+        assertEquals(2L, measurementDTO.getDepartmentId());
+        assertEquals(Instant.ofEpochMilli(1606940420000L), measurementDTO.getMeasurementTimestamp().toInstant());
+        assertEquals(20.5, measurementDTO.getValue());
+
+        assertNull(MeasurementLineProtocolServer.parseLine("1 2 1606940420000"));
+        assertNull(MeasurementLineProtocolServer.parseLine("1 2 1606940420000 20.5 3"));
+        assertNull(MeasurementLineProtocolServer.parseLine("one 2 1606940420000 20.5"));
+        assertNull(MeasurementLineProtocolServer.parseLine("1 2 2020-12-02 20.5"));
+    }
+
+    @Test
+    void linesAreSavedInBatches() throws IOException {
+        startServer();
+
+        send("1 1 1606940420000 20\r\n"
+                + "1 1 1606940421000 21\n"
+                + "\n"
+                + "1 1 1606940422000 22\n"
+                + "not a reading\n"
+                + "1 1 1606940423000 " + "2".repeat(64) + "\n"
+                + "1 1 1606940424000 24");
+
+        ArgumentCaptor<List<MeasurementDTO>> batches = ArgumentCaptor.forClass(List.class);
+        verify(measurementService, timeout(TIMEOUT_MILLIS).times(2)).saveMeasurements(batches.capture());
+        assertEquals(2, batches.getAllValues().get(0).size());
+        assertEquals(2, batches.getAllValues().get(1).size());
+        assertEquals(24.0, batches.getAllValues().get(1).get(1).getValue());
+        awaitCount(meterRegistry.counter(READINGS_METRIC, OUTCOME_TAG, ACCEPTED)::count, 4);
+        assertEquals(2.0, meterRegistry.counter(READINGS_METRIC, OUTCOME_TAG, MALFORMED).count());
+    }
+
+    @Test
+    void partialBatchesAreSavedAfterTheFlushInterval() throws IOException {
+        startServer();
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write("1 1 1606940420000 20\n".getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+
+            verify(measurementService, timeout(TIMEOUT_MILLIS)).saveMeasurements(anyList());
+        }
+    }
+
+    @Test
+    void connectionsOverTheLimitAreRefused() throws IOException {
+        properties.setMaxConnections(1);
+        startServer();
+
+        try (Socket first = connect(); Socket second = connect()) {
+            second.setSoTimeout((int) TIMEOUT_MILLIS);
+            assertEquals(-1, second.getInputStream().read());
+            assertEquals(1, measurementLineProtocolServer.getConnectionCount());
+            assertEquals(1.0, meterRegistry.counter(REFUSED_METRIC).count());
+        }
+    }
+
+    @Test
+    void connectionIsNotReadWhileItsBatchesWait() throws Exception {
+        properties.setBatchSize(1);
+        properties.setMaxPendingBatches(1);
+        startServer();
+        CountDownLatch saved = new CountDownLatch(1);
+        when(measurementService.saveMeasurements(anyList())).thenAnswer(invocation -> {
+            saved.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return new MeasurementBatchResult(1, 0, List.of());
+        });
+
+        try (Socket socket = connect()) {
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write("1 1 1606940420000 20\n".getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+            awaitCount(meterRegistry.counter(PAUSED_METRIC)::count, 1);
+
+            outputStream.write("1 1 1606940421000 21\n1 1 1606940422000 22\n".getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+            verify(measurementService, timeout(TIMEOUT_MILLIS).times(1)).saveMeasurements(anyList());
+            saved.countDown();
+
+            verify(measurementService, timeout(TIMEOUT_MILLIS).times(3)).saveMeasurements(anyList());
+        }
+        verify(measurementService, times(3)).saveMeasurements(anyList());
+    }
+
+    private void startServer() {
+        measurementLineProtocolServer = new MeasurementLineProtocolServer(measurementService, properties, meterRegistry);
+        measurementLineProtocolServer.start();
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(), measurementLineProtocolServer.getLocalPort());
+    }
+
+    private void send(String lines) throws IOException {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(lines.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static void awaitCount(DoubleSupplier count, double expected) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (count.getAsDouble() < expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(count.getAsDouble() >= expected);
+    }
+}
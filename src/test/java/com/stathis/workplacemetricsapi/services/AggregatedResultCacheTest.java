@@ -0,0 +1,252 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.AggregationCacheProperties;
+import com.stathis.workplacemetricsapi.configuration.ReplicaDataSourceProperties;
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementSketchesMergedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.model.RollupRebuildResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.stathis.workplacemetricsapi.configuration.CacheConfiguration.AGGREGATIONS_CACHE;
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.COALESCED;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.EXECUTED;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.OUTCOME_TAG;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.QUERIES_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AggregatedResultCacheTest {
+
+    @Mock
+    MeasurementRollupService measurementRollupService;
+
+    @Mock
+    MeasurementHotWindow measurementHotWindow;
+
+    AggregationCacheProperties properties;
+    ReplicaDataSourceProperties replicaProperties;
+    MeterRegistry meterRegistry;
+    AggregatedResultCache aggregatedResultCache;
+
+    ZonedDateTime firstDay;
+    ZonedDateTime secondDay;
+    ZonedDateTime week;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        properties = new AggregationCacheProperties();
+        replicaProperties = new ReplicaDataSourceProperties();
+        meterRegistry = new SimpleMeterRegistry();
+
+        firstDay = ZonedDateTime.of(2020, 12, 2, 0, 0, 0, 0, ZoneId.systemDefault());
+        secondDay = firstDay.plusDays(1);
+        week = RollupGranularity.WEEK.bucketStart(firstDay);
+
+        when(measurementRollupService.getAggregatedResult(anyLong(), anyLong(), any(RollupGranularity.class), any(ZonedDateTime.class)))
+                .thenAnswer(invocation -> AggregatedResult.builder().averageValue(21.0).build());
+    }
+
+    @Test
+    void getAggregatedResultCachesClosedWindows() {
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+
+        aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        AggregatedResult aggregatedResult = aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+
+        assertEquals(21.0, aggregatedResult.getAverageValue());
+        verify(measurementRollupService, times(1)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", AGGREGATIONS_CACHE).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", AGGREGATIONS_CACHE).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void getAggregatedResultQueriesOnceForConcurrentCallers() throws Exception {
+        when(measurementRollupService.getAggregatedResult(anyLong(), anyLong(), any(RollupGranularity.class), any(ZonedDateTime.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(500);
+                    return AggregatedResult.builder().averageValue(21.0).build();
+                });
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(2 * callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<AggregatedResult>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+                }));
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, week);
+                }));
+            }
+            start.countDown();
+            for (Future<AggregatedResult> result : results) {
+                assertEquals(21.0, result.get(10, TimeUnit.SECONDS).getAverageValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(measurementRollupService, times(1)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        verify(measurementRollupService, times(1)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, week);
+        assertEquals(2.0, meterRegistry.get(QUERIES_METRIC).tag(OUTCOME_TAG, EXECUTED).counter().count());
+        assertEquals(2.0 * (callers - 1), meterRegistry.get(QUERIES_METRIC).tag(OUTCOME_TAG, COALESCED).counter().count());
+    }
+
+    @Test
+    void getAggregatedResultExpiresOpenWindows() {
+        properties.setOpenWindowTtl(Duration.ZERO);
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+        ZonedDateTime today = ZonedDateTime.now().with(LocalTime.MIN);
+
+        aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, today);
+        aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, today);
+
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, today);
+    }
+
+    @Test
+    void getAggregatedResultFromHotWindow() {
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+        when(measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay))
+                .thenReturn(Optional.of(AggregatedResult.builder().averageValue(22.0).build()));
+
+        AggregatedResult aggregatedResult = aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+
+        assertEquals(22.0, aggregatedResult.getAverageValue());
+        verify(measurementRollupService, never()).getAggregatedResult(anyLong(), anyLong(), any(RollupGranularity.class), any(ZonedDateTime.class));
+    }
+
+    @Test
+    void onMeasurementsSavedInvalidatesContainingWindows() {
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+        cacheWindows();
+
+        aggregatedResultCache.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.singletonList(measurementAt(firstDay.plusHours(9)))));
+        cacheWindows();
+
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, week);
+        verify(measurementRollupService, times(1)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, secondDay);
+        verify(measurementRollupService, times(1)).getAggregatedResult(eq(2L), eq(ID_ONE), any(RollupGranularity.class), eq(firstDay));
+    }
+
+    @Test
+    void onSketchesMergedInvalidatesContainingWindows() {
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+        cacheWindows();
+
+        aggregatedResultCache.onSketchesMerged(new MeasurementSketchesMergedEvent(Collections.singletonList(MeasurementSketch.builder()
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .bucketStart(secondDay.plusHours(9))
+                .build())));
+        cacheWindows();
+
+        verify(measurementRollupService, times(1)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, secondDay);
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, week);
+    }
+
+    @Test
+    void onMeasurementsSavedCachesReloadsWithinReplicaLagAsOpenWindows() {
+        properties.setOpenWindowTtl(Duration.ZERO);
+        replicaProperties.setEnabled(true);
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+        cacheWindows();
+
+        aggregatedResultCache.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.singletonList(measurementAt(firstDay.plusHours(9)))));
+        cacheWindows();
+        cacheWindows();
+
+        verify(measurementRollupService, times(3)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        verify(measurementRollupService, times(1)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, secondDay);
+    }
+
+    @Test
+    void onMeasurementsSavedCachesReloadsAsClosedWindowsWithoutReplica() {
+        properties.setOpenWindowTtl(Duration.ZERO);
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+        cacheWindows();
+
+        aggregatedResultCache.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.singletonList(measurementAt(firstDay.plusHours(9)))));
+        cacheWindows();
+        cacheWindows();
+
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+    }
+
+    @Test
+    void onRollupsRebuiltInvalidatesOverlappingWindows() {
+        aggregatedResultCache = new AggregatedResultCache(measurementRollupService, measurementHotWindow, properties, replicaProperties, meterRegistry);
+        cacheWindows();
+
+        aggregatedResultCache.onRollupsRebuilt(RollupRebuildResult.builder()
+                .fromDateTime(secondDay)
+                .toDateTime(secondDay.plusDays(1))
+                .build());
+        cacheWindows();
+
+        verify(measurementRollupService, times(1)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, secondDay);
+        verify(measurementRollupService, times(2)).getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, week);
+    }
+
+    private void cacheWindows() {
+        aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, firstDay);
+        aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, secondDay);
+        aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, week);
+        aggregatedResultCache.getAggregatedResult(2L, ID_ONE, RollupGranularity.DAY, firstDay);
+    }
+
+    private Measurement measurementAt(ZonedDateTime measurementTimestamp) {
+        Department department = Department.builder().build();
+        department.setId(ID_ONE);
+        Metric metric = Metric.builder().build();
+        metric.setId(ID_ONE);
+        return Measurement.builder()
+                .value(25.0)
+                .measurementTimestamp(measurementTimestamp)
+                .metric(metric)
+                .department(department)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.NO_MEASUREMENT_RECORDS_FOUND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LatestMeasurementStoreTest {
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    LatestMeasurementStore latestMeasurementStore;
+
+    Department departmentAlpha;
+    Metric metricTemperature;
+
+    ZonedDateTime measurementDateTime;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        latestMeasurementStore = new LatestMeasurementStore(measurementRepository);
+
+        departmentAlpha = Department.builder().build();
+        departmentAlpha.setId(ID_ONE);
+
+        metricTemperature = Metric.builder().build();
+        metricTemperature.setId(ID_ONE);
+
+        measurementDateTime = ZonedDateTime.of(LocalDate.of(2020, 12, 2),
+                LocalTime.of(20, 20, 20), ZoneId.systemDefault());
+    }
+
+    @Test
+    void warmUpLoadsTheNewestReadingPerSeries() {
+        when(measurementRepository.findLatestMeasurementRecords()).thenReturn(Arrays.asList(
+                record(1L, 20.0, measurementDateTime, 2L),
+                record(2L, 21.0, measurementDateTime, ID_ONE),
+                record(3L, 22.0, measurementDateTime, ID_ONE)));
+
+        latestMeasurementStore.warmUp();
+
+        assertEquals(22.0, latestMeasurementStore.getLatestMeasurement(ID_ONE, ID_ONE).getValue());
+        List<MeasurementRecord> latestRecords = latestMeasurementStore.getAllLatestMeasurements();
+        assertEquals(2, latestRecords.size());
+        assertEquals(ID_ONE, latestRecords.get(0).getDepartmentId());
+        assertEquals(2L, latestRecords.get(1).getDepartmentId());
+    }
+
+    @Test
+    void onMeasurementsSavedKeepsTheNewestReading() {
+        latestMeasurementStore.onMeasurementsSaved(new MeasurementsSavedEvent(Arrays.asList(
+                measurement(2L, 25.0, measurementDateTime),
+                measurement(3L, 19.0, measurementDateTime.minusMinutes(5)))));
+
+        MeasurementRecord latestRecord = latestMeasurementStore.getLatestMeasurement(ID_ONE, ID_ONE);
+
+        assertEquals(2L, latestRecord.getId());
+        assertEquals(25.0, latestRecord.getValue());
+        verifyNoInteractions(measurementRepository);
+    }
+
+    @Test
+    void onMeasurementsSavedConcurrentWritersNewestWins() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                Measurement measurement = measurement(i + 1L, i, measurementDateTime.plusSeconds(i));
+                writes.add(executor.submit(() -> latestMeasurementStore.onMeasurementsSaved(
+                        new MeasurementsSavedEvent(Collections.singletonList(measurement)))));
+            }
+            for (Future<?> write : writes) {
+                write.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(999.0, latestMeasurementStore.getLatestMeasurement(ID_ONE, ID_ONE).getValue());
+    }
+
+    @Test
+    void getLatestMeasurementNotFound() {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> latestMeasurementStore.getLatestMeasurement(ID_ONE, ID_ONE));
+
+        assertEquals(NO_MEASUREMENT_RECORDS_FOUND, exception.getMessage());
+    }
+
+    private Measurement measurement(Long id, double value, ZonedDateTime measurementTimestamp) {
+        Measurement measurement = Measurement.builder()
+                .value(value)
+                .measurementTimestamp(measurementTimestamp)
+                .metric(metricTemperature)
+                .department(departmentAlpha)
+                .build();
+        measurement.setId(id);
+        return measurement;
+    }
+
+    private static MeasurementRecord record(Long id, double value, ZonedDateTime measurementTimestamp, Long departmentId) {
+        return MeasurementRecord.builder()
+                .id(id)
+                .value(value)
+                .measurementTimestamp(measurementTimestamp)
+                .metricId(ID_ONE)
+                .departmentId(departmentId)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.ExportFormat;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.stream.Stream;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_DATE_RANGE;
+import static com.stathis.workplacemetricsapi.services.MeasurementExportServiceImpl.CSV_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+class MeasurementExportServiceImplTest {
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @Mock
+    DepartmentService departmentService;
+
+    @Mock
+    MetricService metricService;
+
+    MeasurementExportService measurementExportService;
+
+    ZonedDateTime fromDateTime;
+    ZonedDateTime toDateTime;
+
+    MeasurementRecord firstRecord;
+    MeasurementRecord secondRecord;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        measurementExportService =
+                new MeasurementExportServiceImpl(measurementRepository, departmentService, metricService, objectMapper);
+
+        fromDateTime = ZonedDateTime.of(2020, 12, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        toDateTime = fromDateTime.plusDays(1);
+
+        firstRecord = new MeasurementRecord(1L, 20.0, fromDateTime.plusHours(1), ID_ONE, ID_ONE);
+        secondRecord = new MeasurementRecord(2L, 21.5, fromDateTime.plusHours(2), ID_ONE, ID_ONE);
+
+        when(measurementRepository.streamMeasurementRecords(ID_ONE, ID_ONE, fromDateTime, toDateTime))
+                .thenAnswer(invocation -> Stream.of(firstRecord, secondRecord));
+    }
+
+    @Test
+    void exportMeasurementsAsCsv() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long rows = measurementExportService.exportMeasurements(ID_ONE, ID_ONE, fromDateTime, toDateTime,
+                ExportFormat.CSV, outputStream);
+
+        assertEquals(2, rows);
+        assertEquals(CSV_HEADER + "\n" +
+                        "1,20.0,2020-12-01T01:00:00Z,1,1\n" +
+                        "2,21.5,2020-12-01T02:00:00Z,1,1\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportMeasurementsAsNdjson() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long rows = measurementExportService.exportMeasurements(ID_ONE, ID_ONE, fromDateTime, toDateTime,
+                ExportFormat.NDJSON, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":1,\"value\":20.0,\"measurementTimestamp\":\"2020-12-01T01:00:00Z\",\"metric_id\":1,\"department_id\":1}",
+                lines[0]);
+    }
+
+    @Test
+    void validateExportInvalidRange() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementExportService.validateExport(ID_ONE, ID_ONE, toDateTime, fromDateTime));
+
+        assertEquals(INVALID_DATE_RANGE, exception.getMessage());
+    }
+
+    @Test
+    void validateExportMetricNotFound() {
+        when(metricService.getMetricById(anyLong())).thenThrow(new ResourceNotFoundException("not found"));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> measurementExportService.validateExport(ID_ONE, ID_ONE, fromDateTime, toDateTime));
+    }
+}
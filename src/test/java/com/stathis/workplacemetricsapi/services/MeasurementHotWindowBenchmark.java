@@ -0,0 +1,189 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementHotWindowProperties;
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// heap per million readings held in the hot window against the same readings as entities, and allocation and GC
+// work per request of the hot window against the database path.
+// mvn test -Dtest=MeasurementHotWindowBenchmark -Dbenchmark=true [-Dspring.profiles.active=h2]
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "measurements.retention.enabled=false")
+class MeasurementHotWindowBenchmark {
+
+    private static final int MILLION = 1_000_000;
+    private static final int SERIES = 10;
+    private static final int READINGS_PER_SERIES = 2_880;
+    private static final int BATCH_SIZE = 1_440;
+    private static final int REQUESTS = 2_000;
+
+    @Autowired
+    MeasurementService measurementService;
+
+    @Autowired
+    MeasurementRollupService measurementRollupService;
+
+    @Autowired
+    MeasurementHotWindow measurementHotWindow;
+
+    @Autowired
+    MeasurementRepository measurementRepository;
+
+    @Autowired
+    MetricRepository metricRepository;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Test
+    void heapPerMillionReadings() {
+        ZonedDateTime startOfDay = ZonedDateTime.now().with(LocalTime.MIN);
+        MeasurementRepository repository = Mockito.mock(MeasurementRepository.class);
+        when(repository.streamMeasurementRecordsSince(any(ZonedDateTime.class))).thenReturn(IntStream.range(0, MILLION)
+                .mapToObj(i -> new MeasurementRecord((long) i, 20.0 + i % 50 / 10.0, startOfDay.plusSeconds(i), 1L, (long) i % 100)));
+        MeasurementHotWindow hotWindow = new MeasurementHotWindow(repository, new MeasurementHotWindowProperties(),
+                Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+        long before = usedHeap();
+        hotWindow.warmUp();
+        long hotWindowBytes = usedHeap() - before;
+        assertEquals(MILLION, hotWindow.getPointCount());
+
+        Metric metric = Metric.builder().build();
+        metric.setId(1L);
+        before = usedHeap();
+        List<Measurement> measurements = new ArrayList<>(MILLION);
+        for (int i = 0; i < MILLION; i++) {
+            Department department = Department.builder().build();
+            department.setId((long) i % 100);
+            Measurement measurement = Measurement.builder().metric(metric).department(department)
+                    .measurementTimestamp(startOfDay.plusSeconds(i)).value(20.0 + i % 50 / 10.0).build();
+            measurement.setId((long) i);
+            measurements.add(measurement);
+        }
+        long entityBytes = usedHeap() - before;
+        assertEquals(MILLION, measurements.size());
+
+        // a million readings in bytes is the same number as bytes per reading
+        log.info("Heap per reading, entities: {} bytes, hot window: {} bytes ({} bytes of column capacity)",
+                entityBytes / MILLION, hotWindowBytes / MILLION, hotWindow.getRetainedBytes() / MILLION);
+    }
+
+    @Test
+    void allocationPerRequest() {
+        ZonedDateTime startOfDay = ZonedDateTime.now().with(LocalTime.MIN);
+        ZonedDateTime start = startOfDay.minusDays(1);
+        String run = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+        Metric metric = metricRepository.save(Metric.builder().type("Benchmark " + run).measurementUnit(run).build());
+        List<Long> departmentIds = new ArrayList<>();
+        Random random = new Random(42);
+        for (int series = 0; series < SERIES; series++) {
+            Department department = departmentRepository.save(Department.builder().name("Benchmark " + run + " " + series).build());
+            departmentIds.add(department.getId());
+            for (int offset = 0; offset < READINGS_PER_SERIES; offset += BATCH_SIZE) {
+                List<MeasurementDTO> measurementDTOs = new ArrayList<>();
+                for (int i = offset; i < offset + BATCH_SIZE; i++) {
+                    measurementDTOs.add(MeasurementDTO.builder().metricId(metric.getId()).departmentId(department.getId())
+                            .measurementTimestamp(start.plusMinutes(i)).value(20.0 + random.nextGaussian()).build());
+                }
+                measurementService.saveMeasurements(measurementDTOs);
+            }
+        }
+
+        // yesterday is complete in both, today's records are read up to now
+        report("daily aggregation", () -> measurementRollupService.getAggregatedResult(metric.getId(),
+                        departmentIds.get(random.nextInt(SERIES)), RollupGranularity.DAY, start),
+                () -> measurementHotWindow.getAggregatedResult(metric.getId(),
+                        departmentIds.get(random.nextInt(SERIES)), RollupGranularity.DAY, start).orElseThrow());
+        report("daily records", () -> measurementRepository.findMeasurementRecordsByMetricAndDepartmentBetween(PageRequest.of(0, 500),
+                        metric.getId(), departmentIds.get(random.nextInt(SERIES)), startOfDay, ZonedDateTime.now()),
+                () -> measurementHotWindow.findRecordsBetween(PageRequest.of(0, 500),
+                        metric.getId(), departmentIds.get(random.nextInt(SERIES)), startOfDay, ZonedDateTime.now()).orElseThrow());
+    }
+
+    private void report(String name, Supplier<?> database, Supplier<?> hotWindow) {
+        Load databaseLoad = run(database);
+        Load hotWindowLoad = run(hotWindow);
+        log.info("{}, database: {}, hot window: {}", name, databaseLoad, hotWindowLoad);
+    }
+
+    // the first fifth of the requests warms up the path
+    private static Load run(Supplier<?> request) {
+        for (int i = 0; i < REQUESTS / 5; i++) {
+            request.get();
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long collectionsBefore = collections();
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.get();
+        }
+        return new Load((threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / REQUESTS,
+                collections() - collectionsBefore,
+                (System.nanoTime() - started) / REQUESTS / 1_000);
+    }
+
+    private static long collections() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class Load {
+
+        private final long allocatedBytesPerRequest;
+        private final long collections;
+        private final long microsPerRequest;
+
+        private Load(long allocatedBytesPerRequest, long collections, long microsPerRequest) {
+            this.allocatedBytesPerRequest = allocatedBytesPerRequest;
+            this.collections = collections;
+            this.microsPerRequest = microsPerRequest;
+        }
+
+        @Override
+        public String toString() {
+            return allocatedBytesPerRequest + " bytes allocated and " + microsPerRequest + " µs a request, "
+                    + collections + " collections";
+        }
+    }
+}
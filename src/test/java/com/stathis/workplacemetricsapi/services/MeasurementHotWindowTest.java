@@ -0,0 +1,274 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementHotWindowProperties;
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.services.MeasurementHotWindow.BYTES_METRIC;
+import static com.stathis.workplacemetricsapi.services.MeasurementHotWindow.POINTS_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class MeasurementHotWindowTest {
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    MeterRegistry meterRegistry;
+    MeasurementHotWindow measurementHotWindow;
+
+    ZonedDateTime startOfDay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        measurementHotWindow = new MeasurementHotWindow(measurementRepository, new MeasurementHotWindowProperties(),
+                transactionManager, meterRegistry);
+
+        startOfDay = ZonedDateTime.now().with(LocalTime.MIN);
+    }
+
+    @Test
+    void readsAreEmptyUntilWarm() {
+        measurementHotWindow.onMeasurementsSaved(saved(measurement(1L, 20.0, startOfDay.plusHours(1))));
+
+        assertFalse(measurementHotWindow.findRecordsBetween(PageRequest.of(0, 10), ID_ONE, ID_ONE, startOfDay, startOfDay.plusDays(1)).isPresent());
+        assertFalse(measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, startOfDay).isPresent());
+    }
+
+    @Test
+    void findRecordsBetweenMergesWarmUpAndSavesInOrder() {
+        when(measurementRepository.streamMeasurementRecordsSince(any(ZonedDateTime.class))).thenReturn(Stream.of(
+                record(1L, 20.0, startOfDay.plusHours(1)),
+                record(2L, 21.0, startOfDay.plusHours(2)),
+                record(9L, 40.0, startOfDay.minusDays(30))));
+        measurementHotWindow.onMeasurementsSaved(saved(measurement(2L, 21.0, startOfDay.plusHours(2))));
+        measurementHotWindow.warmUp();
+        measurementHotWindow.onMeasurementsSaved(saved(
+                measurement(4L, 23.0, startOfDay.plusHours(3)),
+                measurement(3L, 22.0, startOfDay.plusMinutes(90))));
+
+        Slice<MeasurementRecord> firstPage = measurementHotWindow.findRecordsBetween(PageRequest.of(0, 3), ID_ONE, ID_ONE,
+                startOfDay, startOfDay.plusHours(3)).orElseThrow();
+        Slice<MeasurementRecord> secondPage = measurementHotWindow.findRecordsBetween(PageRequest.of(1, 3), ID_ONE, ID_ONE,
+                startOfDay, startOfDay.plusHours(3)).orElseThrow();
+
+        assertEquals(Arrays.asList(1L, 3L, 2L), ids(firstPage.getContent()));
+        assertTrue(firstPage.hasNext());
+        assertEquals(Arrays.asList(4L), ids(secondPage.getContent()));
+        assertFalse(secondPage.hasNext());
+        assertEquals(startOfDay.plusMinutes(90).toInstant(), firstPage.getContent().get(1).getMeasurementTimestamp().toInstant());
+        assertEquals(4.0, meterRegistry.get(POINTS_METRIC).gauge().value());
+        assertEquals(64 * 24.0, meterRegistry.get(BYTES_METRIC).gauge().value());
+    }
+
+    @Test
+    void findRecordsBetweenLeavesSortedPagesToTheDatabase() {
+        warmUp();
+
+        assertFalse(measurementHotWindow.findRecordsBetween(PageRequest.of(0, 10, Sort.by("value")), ID_ONE, ID_ONE,
+                startOfDay, startOfDay.plusDays(1)).isPresent());
+        assertFalse(measurementHotWindow.findRecordsBetween(PageRequest.of(0, 10), ID_ONE, ID_ONE,
+                startOfDay.minusDays(8), startOfDay).isPresent());
+    }
+
+    @Test
+    void findRecordsAfterSeeksPastTheCursor() {
+        warmUp(record(1L, 20.0, startOfDay.plusHours(1)),
+                record(2L, 21.0, startOfDay.plusHours(1)),
+                record(3L, 22.0, startOfDay.plusHours(2)),
+                record(4L, 23.0, startOfDay.plusHours(5)));
+
+        Slice<MeasurementRecord> records = measurementHotWindow.findRecordsAfter(PageRequest.of(0, 1), ID_ONE, ID_ONE,
+                startOfDay.plusHours(1), 1L, startOfDay.plusHours(4)).orElseThrow();
+        Slice<MeasurementRecord> lastRecords = measurementHotWindow.findRecordsAfter(PageRequest.of(0, 5), ID_ONE, ID_ONE,
+                startOfDay.plusHours(1), 2L, startOfDay.plusHours(4)).orElseThrow();
+
+        assertEquals(Arrays.asList(2L), ids(records.getContent()));
+        assertTrue(records.hasNext());
+        assertEquals(Arrays.asList(3L), ids(lastRecords.getContent()));
+        assertFalse(lastRecords.hasNext());
+    }
+
+    @Test
+    void getAggregatedResult() {
+        warmUp(record(1L, 20.0, startOfDay.plusHours(1)),
+                record(2L, 24.0, startOfDay.plusHours(2)),
+                record(3L, 19.0, startOfDay.plusDays(1)));
+
+        AggregatedResult aggregatedResult = measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, startOfDay).orElseThrow();
+        AggregatedResult emptyResult = measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, startOfDay.minusDays(1)).orElseThrow();
+
+        assertEquals(22.0, aggregatedResult.getAverageValue());
+        assertEquals(20.0, aggregatedResult.getMinValue());
+        assertEquals(24.0, aggregatedResult.getMaxValue());
+        assertNotNull(aggregatedResult.getP50());
+        assertNull(emptyResult.getAverageValue());
+        assertFalse(measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.WEEK, RollupGranularity.WEEK.bucketStart(startOfDay.minusDays(8))).isPresent());
+    }
+
+    @Test
+    void getAggregatedResultSeesSavesIntoHoursWithAKeptDigest() {
+        ZonedDateTime yesterday = startOfDay.minusDays(1);
+        MeasurementRecord[] records = new MeasurementRecord[400];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = record(i + 1L, i + 1, yesterday.plusMinutes(i * 3L));
+        }
+        warmUp(records);
+
+        AggregatedResult firstResult = measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, yesterday).orElseThrow();
+        AggregatedResult cachedResult = measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, yesterday).orElseThrow();
+        measurementHotWindow.onMeasurementsSaved(saved(
+                measurement(1_001L, 1_000.0, yesterday.plusMinutes(1)),
+                measurement(1_002L, 1_000.0, yesterday.plusMinutes(2)),
+                measurement(1_003L, 1_000.0, yesterday.plusMinutes(4)),
+                measurement(1_004L, 1_000.0, yesterday.plusMinutes(5)),
+                measurement(1_005L, 1_000.0, yesterday.plusMinutes(7))));
+        AggregatedResult lateResult = measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, yesterday).orElseThrow();
+
+        assertEquals(200.5, firstResult.getP50(), 4.0);
+        assertEquals(firstResult, cachedResult);
+        assertEquals(1_000.0, lateResult.getMaxValue());
+        assertTrue(lateResult.getP99() > 900.0);
+        assertEquals((80_200.0 + 5_000.0) / 405, lateResult.getAverageValue(), 1e-9);
+    }
+
+    @Test
+    void getAggregatedResultRunsConcurrentlyWithSaves() throws Exception {
+        warmUp();
+        ZonedDateTime weekStart = RollupGranularity.WEEK.bucketStart(startOfDay);
+        int readings = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < readings; i++) {
+                    measurementHotWindow.onMeasurementsSaved(saved(measurement(i + 1L, i % 100, weekStart.plusSeconds(i * 30L))));
+                }
+            });
+            Future<Integer> reader = executor.submit(() -> {
+                int reads = 0;
+                while (!writer.isDone()) {
+                    AggregatedResult aggregatedResult = measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                            RollupGranularity.WEEK, weekStart).orElseThrow();
+                    if (aggregatedResult.getAverageValue() != null) {
+                        assertTrue(aggregatedResult.getMinValue() >= 0.0 && aggregatedResult.getMaxValue() <= 99.0);
+                        assertTrue(aggregatedResult.getP50() >= 0.0 && aggregatedResult.getP50() <= 99.0);
+                    }
+                    reads++;
+                }
+                return reads;
+            });
+            writer.get(30, TimeUnit.SECONDS);
+            assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        AggregatedResult aggregatedResult = measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.WEEK, weekStart).orElseThrow();
+        assertEquals(49.5, aggregatedResult.getAverageValue(), 1e-9);
+        assertEquals(49.5, aggregatedResult.getP50(), 2.0);
+        assertEquals(99.0, aggregatedResult.getMaxValue());
+    }
+
+    @Test
+    void evictExpiredMovesTheWindowForward() {
+        warmUp(record(1L, 20.0, startOfDay.minusDays(6)),
+                record(2L, 21.0, startOfDay.minusDays(1)));
+
+        measurementHotWindow.evictExpired(ZonedDateTime.now().plusDays(2));
+
+        assertEquals(1L, measurementHotWindow.getPointCount());
+        assertFalse(measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, startOfDay.minusDays(6)).isPresent());
+        assertEquals(21.0, measurementHotWindow.getAggregatedResult(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, startOfDay.minusDays(1)).orElseThrow().getAverageValue());
+    }
+
+    @Test
+    void onMeasurementsDeletedDropsTheSeries() {
+        warmUp(record(1L, 20.0, startOfDay.plusHours(1)));
+
+        measurementHotWindow.onMeasurementsDeleted(new MeasurementsDeletedEvent(DeletionTarget.METRIC, ID_ONE));
+
+        assertEquals(0L, measurementHotWindow.getPointCount());
+        assertTrue(measurementHotWindow.findRecordsBetween(PageRequest.of(0, 10), ID_ONE, ID_ONE,
+                startOfDay, startOfDay.plusDays(1)).orElseThrow().getContent().isEmpty());
+    }
+
+    private void warmUp(MeasurementRecord... records) {
+        when(measurementRepository.streamMeasurementRecordsSince(any(ZonedDateTime.class))).thenReturn(Stream.of(records));
+        measurementHotWindow.warmUp();
+    }
+
+    private static MeasurementRecord record(Long id, double value, ZonedDateTime measurementTimestamp) {
+        return new MeasurementRecord(id, value, measurementTimestamp, ID_ONE, ID_ONE);
+    }
+
+    private static Measurement measurement(Long id, double value, ZonedDateTime measurementTimestamp) {
+        Metric metric = Metric.builder().build();
+        metric.setId(ID_ONE);
+        Department department = Department.builder().build();
+        department.setId(ID_ONE);
+        Measurement measurement = Measurement.builder()
+                .value(value)
+                .measurementTimestamp(measurementTimestamp)
+                .metric(metric)
+                .department(department)
+                .build();
+        measurement.setId(id);
+        return measurement;
+    }
+
+    private static MeasurementsSavedEvent saved(Measurement... measurements) {
+        return new MeasurementsSavedEvent(Arrays.asList(measurements));
+    }
+
+    private static List<Long> ids(List<MeasurementRecord> records) {
+        return records.stream().map(MeasurementRecord::getId).collect(Collectors.toList());
+    }
+}
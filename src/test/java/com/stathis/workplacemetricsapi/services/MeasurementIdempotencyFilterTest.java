@@ -0,0 +1,85 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementIdempotencyProperties;
+import com.stathis.workplacemetricsapi.model.RetentionResult;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementIdempotencyFilterTest {
+
+    private static final int EXPECTED_KEYS = 10_000;
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    MeasurementIdempotencyFilter measurementIdempotencyFilter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        MeasurementIdempotencyProperties properties = new MeasurementIdempotencyProperties();
+        properties.setExpectedKeys(EXPECTED_KEYS);
+        measurementIdempotencyFilter = new MeasurementIdempotencyFilter(measurementRepository, properties,
+                transactionManager, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void everyKeyIsLookedUpBeforeTheWarmUp() {
+        assertFalse(measurementIdempotencyFilter.isWarm());
+        assertTrue(measurementIdempotencyFilter.mightContain("gateway-1"));
+    }
+
+    @Test
+    void savedKeysAreNeverReportedNew() {
+        when(measurementRepository.streamIdempotencyKeys()).thenReturn(Stream.of("saved-1", "saved-2"));
+        measurementIdempotencyFilter.warmUp();
+        for (int key = 0; key < EXPECTED_KEYS; key++) {
+            measurementIdempotencyFilter.put("put-" + key);
+        }
+
+        assertTrue(measurementIdempotencyFilter.mightContain("saved-1"));
+        assertTrue(measurementIdempotencyFilter.mightContain("saved-2"));
+        for (int key = 0; key < EXPECTED_KEYS; key++) {
+            assertTrue(measurementIdempotencyFilter.mightContain("put-" + key));
+        }
+
+        // sized for 1% false positives at the expected number of keys
+        int falsePositives = 0;
+        for (int key = 0; key < EXPECTED_KEYS; key++) {
+            falsePositives += measurementIdempotencyFilter.mightContain("new-" + key) ? 1 : 0;
+        }
+        assertTrue(falsePositives < EXPECTED_KEYS * 0.02, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void retentionRebuildsTheFilterWithoutTheDroppedKeys() {
+        when(measurementRepository.streamIdempotencyKeys())
+                .thenReturn(Stream.of("kept", "dropped"))
+                .thenReturn(Stream.of("kept"));
+        measurementIdempotencyFilter.warmUp();
+        assertTrue(measurementIdempotencyFilter.mightContain("dropped"));
+
+        measurementIdempotencyFilter.onRetentionApplied(RetentionResult.builder()
+                .weeksCompacted(1L).partitionsDropped(1).measurementsDeleted(0L).build());
+
+        assertTrue(measurementIdempotencyFilter.mightContain("kept"));
+        assertFalse(measurementIdempotencyFilter.mightContain("dropped"));
+        verify(measurementRepository, times(2)).streamIdempotencyKeys();
+    }
+}
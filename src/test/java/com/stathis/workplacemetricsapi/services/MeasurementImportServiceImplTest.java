@@ -0,0 +1,36 @@
+package com.stathis.workplacemetricsapi.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.parseTimestamp;
+import static com.stathis.workplacemetricsapi.services.MeasurementImportServiceImpl.splitCsvRow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MeasurementImportServiceImplTest {
+
+    @Test
+    void splitCsvRowHandlesQuotedColumns() {
+        assertEquals(Arrays.asList("2020-12-02T20:20:20Z", "20.0", "Temperature", "Floor 1, \"East\""),
+                splitCsvRow("2020-12-02T20:20:20Z,20.0,Temperature,\"Floor 1, \"\"East\"\"\""));
+        assertEquals(Arrays.asList("", "", ""), splitCsvRow(",,"));
+        assertEquals(Collections.singletonList("Temperature"), splitCsvRow("Temperature"));
+    }
+
+    @Test
+    void parseTimestampTakesOffsetsAndLocalTimes() {
+        ZonedDateTime expected = LocalDateTime.of(2020, 12, 2, 20, 20, 20).atZone(ZoneId.systemDefault());
+
+        assertEquals(expected, parseTimestamp("2020-12-02T20:20:20.750"));
+        assertEquals(expected.toInstant(), parseTimestamp(expected.toOffsetDateTime().toString()).toInstant());
+        assertEquals(ZoneId.systemDefault(), parseTimestamp("2020-12-02T20:20:20+05:00").getZone());
+        assertThrows(DateTimeParseException.class, () -> parseTimestamp("02/12/2020 20:20"));
+    }
+}
@@ -0,0 +1,128 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementPartitionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.stathis.workplacemetricsapi.services.MeasurementPartitionService.FUTURE_PARTITION;
+import static com.stathis.workplacemetricsapi.services.MeasurementPartitionService.SELECT_PARTITIONS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementPartitionServiceTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    MeasurementPartitionProperties properties;
+
+    MeasurementPartitionService measurementPartitionService;
+
+    LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new MeasurementPartitionProperties();
+        properties.setMonthsAhead(2);
+        measurementPartitionService = new MeasurementPartitionService(jdbcTemplate, properties);
+
+        now = LocalDateTime.of(2020, 12, 2, 20, 20, 20);
+    }
+
+    @Test
+    void maintainPartitionsSplitsUpcomingMonthsOffTheFuturePartition() {
+        when(jdbcTemplate.queryForList(SELECT_PARTITIONS)).thenReturn(partitions(
+                "p_history", "'2020-12-01 00:00:00'"));
+
+        measurementPartitionService.maintainPartitions(now);
+
+        verify(jdbcTemplate, times(1)).execute("ALTER TABLE measurements REORGANIZE PARTITION p_future INTO (" +
+                "PARTITION p202012 VALUES LESS THAN ('2021-01-01 00:00:00'), " +
+                "PARTITION p202101 VALUES LESS THAN ('2021-02-01 00:00:00'), " +
+                "PARTITION p202102 VALUES LESS THAN ('2021-03-01 00:00:00'), " +
+                "PARTITION p_future VALUES LESS THAN (MAXVALUE))");
+    }
+
+    @Test
+    void maintainPartitionsKeepsPartitionsThatAlreadyCoverTheHorizon() {
+        when(jdbcTemplate.queryForList(SELECT_PARTITIONS)).thenReturn(partitions(
+                "p_history", "'2020-12-01 00:00:00'",
+                "p202012", "'2021-01-01 00:00:00'",
+                "p202101", "'2021-02-01 00:00:00'",
+                "p202102", "'2021-03-01 00:00:00'"));
+
+        measurementPartitionService.maintainPartitions(now);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void dropPartitionsBeforeDropsPartitionsBelowTheBoundary() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        when(jdbcTemplate.queryForList(SELECT_PARTITIONS)).thenReturn(partitions(
+                "p_history", "'2020-09-01 00:00:00'",
+                "p202009", "'2020-10-01 00:00:00'",
+                "p202010", "'2020-11-01 00:00:00'",
+                "p202011", "'2020-12-01 00:00:00'",
+                "p202012", "'2021-01-01 00:00:00'"));
+
+        int partitionsDropped = measurementPartitionService.dropPartitionsBefore(LocalDateTime.of(2020, 10, 1, 0, 0));
+
+        assertEquals(2, partitionsDropped);
+        verify(jdbcTemplate, times(1)).execute("ALTER TABLE measurements DROP PARTITION p_history, p202009");
+    }
+
+    @Test
+    void dropPartitionsBeforeSkipsDatabasesWithoutPartitioning() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        int partitionsDropped = measurementPartitionService.dropPartitionsBefore(LocalDateTime.of(2020, 10, 1, 0, 0));
+
+        assertEquals(0, partitionsDropped);
+        verify(jdbcTemplate, never()).queryForList(SELECT_PARTITIONS);
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void maintainPartitionsSkipsTablesThatAreNotPartitioned() {
+        when(jdbcTemplate.queryForList(SELECT_PARTITIONS)).thenReturn(Collections.emptyList());
+
+        measurementPartitionService.maintainPartitions(now);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    // name and description pairs, followed by the MAXVALUE partition
+    private List<Map<String, Object>> partitions(String... namesAndDescriptions) {
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (int i = 0; i < namesAndDescriptions.length; i += 2) {
+            partitions.add(partition(namesAndDescriptions[i], namesAndDescriptions[i + 1]));
+        }
+        partitions.add(partition(FUTURE_PARTITION, "MAXVALUE"));
+        return partitions;
+    }
+
+    private Map<String, Object> partition(String name, String description) {
+        Map<String, Object> partition = new HashMap<>();
+        partition.put("PARTITION_NAME", name);
+        partition.put("PARTITION_DESCRIPTION", description);
+        return partition;
+    }
+}
@@ -0,0 +1,132 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementRetentionProperties;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.model.RetentionResult;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MeasurementRetentionServiceImplTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @Mock
+    MeasurementRollupRepository measurementRollupRepository;
+
+    @Mock
+    MeasurementRollupService measurementRollupService;
+
+    @Mock
+    MeasurementPartitionService measurementPartitionService;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    MeasurementRetentionService measurementRetentionService;
+
+    // a Monday
+    ZonedDateTime compactionBoundary;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        MeasurementRetentionProperties properties = new MeasurementRetentionProperties();
+        properties.setChunkSize(CHUNK_SIZE);
+        measurementRetentionService = new MeasurementRetentionServiceImpl(measurementRepository, measurementRollupRepository,
+                measurementRollupService, measurementPartitionService, properties, transactionManager, eventPublisher);
+
+        compactionBoundary = ZonedDateTime.of(2020, 12, 7, 0, 0, 0, 0, ZoneId.systemDefault());
+    }
+
+    @Test
+    void applyRetention() {
+        ZonedDateTime firstWeek = compactionBoundary.minusWeeks(2);
+        ZonedDateTime secondWeek = compactionBoundary.minusWeeks(1);
+
+        when(measurementRollupService.getCompactionBoundary()).thenReturn(compactionBoundary);
+        when(measurementRepository.findOldestMeasurementTimestamp()).thenReturn(Optional.of(firstWeek.plusDays(2).plusHours(9)));
+        when(measurementRepository.countMeasurementsBetween(firstWeek, secondWeek)).thenReturn(10L);
+        when(measurementRollupRepository.sumSampleCounts(RollupGranularity.WEEK, firstWeek)).thenReturn(4L);
+        when(measurementRepository.countMeasurementsBetween(secondWeek, compactionBoundary)).thenReturn(5L);
+        when(measurementRollupRepository.sumSampleCounts(RollupGranularity.WEEK, secondWeek)).thenReturn(5L);
+        when(measurementPartitionService.dropPartitionsBefore(compactionBoundary.toLocalDateTime())).thenReturn(1);
+        when(measurementRepository.deleteMeasurementChunkBefore(compactionBoundary, CHUNK_SIZE)).thenReturn(2, 2, 1);
+        when(measurementRepository.deleteIdempotencyKeyChunkBefore(compactionBoundary, CHUNK_SIZE)).thenReturn(2, 0);
+
+        RetentionResult retentionResult = measurementRetentionService.applyRetention();
+
+        assertEquals(compactionBoundary, retentionResult.getCompactedBefore());
+        assertEquals(1L, retentionResult.getWeeksCompacted());
+        assertEquals(1, retentionResult.getPartitionsDropped());
+        assertEquals(5L, retentionResult.getMeasurementsDeleted());
+
+        verify(measurementRollupService, times(1)).rebuildRollups(firstWeek, secondWeek);
+        verify(measurementRollupService, never()).rebuildRollups(secondWeek, compactionBoundary);
+        verify(measurementRepository, times(3)).deleteMeasurementChunkBefore(compactionBoundary, CHUNK_SIZE);
+        verify(measurementRepository, times(2)).deleteIdempotencyKeyChunkBefore(compactionBoundary, CHUNK_SIZE);
+        verify(transactionManager, times(5)).commit(any());
+        verify(eventPublisher, times(1)).publishEvent(retentionResult);
+    }
+
+    @Test
+    void applyRetentionSkipsWeeksAlreadyBeingDeleted() {
+        ZonedDateTime lastWeek = compactionBoundary.minusWeeks(1);
+
+        when(measurementRollupService.getCompactionBoundary()).thenReturn(compactionBoundary);
+        when(measurementRepository.findOldestMeasurementTimestamp()).thenReturn(Optional.of(lastWeek.plusDays(5)));
+        when(measurementRepository.countMeasurementsBetween(lastWeek, compactionBoundary)).thenReturn(3L);
+        when(measurementRollupRepository.sumSampleCounts(RollupGranularity.WEEK, lastWeek)).thenReturn(8L);
+        when(measurementRepository.deleteMeasurementChunkBefore(compactionBoundary, CHUNK_SIZE)).thenReturn(2, 1);
+
+        RetentionResult retentionResult = measurementRetentionService.applyRetention();
+
+        assertEquals(0L, retentionResult.getWeeksCompacted());
+        assertEquals(3L, retentionResult.getMeasurementsDeleted());
+        verify(measurementRollupService, never()).rebuildRollups(any(ZonedDateTime.class), any(ZonedDateTime.class));
+    }
+
+    @Test
+    void applyRetentionNoMeasurements() {
+        when(measurementRollupService.getCompactionBoundary()).thenReturn(compactionBoundary);
+        when(measurementRepository.findOldestMeasurementTimestamp()).thenReturn(Optional.empty());
+
+        RetentionResult retentionResult = measurementRetentionService.applyRetention();
+
+        assertEquals(0L, retentionResult.getWeeksCompacted());
+        assertEquals(0L, retentionResult.getMeasurementsDeleted());
+        verify(measurementRepository, times(1)).deleteMeasurementChunkBefore(compactionBoundary, CHUNK_SIZE);
+        verify(measurementRollupService, never()).rebuildRollups(any(ZonedDateTime.class), any(ZonedDateTime.class));
+    }
+
+    @Test
+    void applyRetentionDisabled() {
+        RetentionResult retentionResult = measurementRetentionService.applyRetention();
+
+        assertEquals(0L, retentionResult.getMeasurementsDeleted());
+        verifyNoInteractions(measurementRepository, measurementRollupRepository, measurementPartitionService, eventPublisher);
+    }
+}
@@ -0,0 +1,96 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementRollupProperties;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementRollupBackfillTest {
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @Mock
+    MeasurementRollupRepository measurementRollupRepository;
+
+    @Mock
+    MeasurementRollupService measurementRollupService;
+
+    MeasurementRollupBackfill measurementRollupBackfill;
+
+    // Mondays
+    ZonedDateTime firstWeek;
+    ZonedDateTime secondWeek;
+    ZonedDateTime thirdWeek;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        measurementRollupBackfill = new MeasurementRollupBackfill(measurementRepository, measurementRollupRepository,
+                measurementRollupService, new MeasurementRollupProperties());
+
+        firstWeek = ZonedDateTime.of(LocalDate.of(2020, 11, 30), LocalTime.MIDNIGHT, ZoneId.systemDefault());
+        secondWeek = firstWeek.plusWeeks(1);
+        thirdWeek = firstWeek.plusWeeks(2);
+
+        when(measurementRepository.findOldestMeasurementTimestamp()).thenReturn(Optional.of(firstWeek.plusDays(1).plusHours(10)));
+        // saved before the rollups existed
+        when(measurementRepository.findOldestMeasurementTimestampBetween(firstWeek, secondWeek))
+                .thenReturn(Optional.of(firstWeek.plusDays(1).plusHours(10)));
+        // rolled up from the first reading
+        when(measurementRepository.findOldestMeasurementTimestampBetween(secondWeek, thirdWeek))
+                .thenReturn(Optional.of(secondWeek.plusDays(1).plusMinutes(30)));
+        when(measurementRollupRepository.findOldestBucketStartBetween(RollupGranularity.HOUR, secondWeek, thirdWeek))
+                .thenReturn(Optional.of(secondWeek.plusDays(1)));
+        // rollups introduced in the middle of the week
+        when(measurementRepository.findOldestMeasurementTimestampBetween(thirdWeek, thirdWeek.plusWeeks(1)))
+                .thenReturn(Optional.of(thirdWeek.plusHours(8)));
+        when(measurementRollupRepository.findOldestBucketStartBetween(RollupGranularity.HOUR, thirdWeek, thirdWeek.plusWeeks(1)))
+                .thenReturn(Optional.of(thirdWeek.plusDays(1).plusHours(10)));
+    }
+
+    @Test
+    void backfillRebuildsWeeksWithReadingsOlderThanTheirRollups() {
+        assertEquals(2, measurementRollupBackfill.backfill(thirdWeek.plusDays(2)));
+
+        verify(measurementRollupService).rebuildRollups(firstWeek, secondWeek);
+        verify(measurementRollupService, never()).rebuildRollups(secondWeek, thirdWeek);
+        verify(measurementRollupService).rebuildRollups(thirdWeek, thirdWeek.plusWeeks(1));
+    }
+
+    @Test
+    void backfillLeavesWeeksBeforeTheCompactionBoundaryToTheRetention() {
+        when(measurementRollupService.getCompactionBoundary()).thenReturn(secondWeek);
+
+        assertEquals(1, measurementRollupBackfill.backfill(thirdWeek.plusDays(2)));
+
+        verify(measurementRepository, never()).findOldestMeasurementTimestampBetween(eq(firstWeek), any());
+        verify(measurementRollupService).rebuildRollups(thirdWeek, thirdWeek.plusWeeks(1));
+    }
+
+    @Test
+    void backfillWithoutMeasurements() {
+        when(measurementRepository.findOldestMeasurementTimestamp()).thenReturn(Optional.empty());
+
+        assertEquals(0, measurementRollupBackfill.backfill(thirdWeek));
+
+        verify(measurementRollupService, never()).rebuildRollups(any(ZonedDateTime.class), any(ZonedDateTime.class));
+    }
+}
@@ -0,0 +1,315 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementRetentionProperties;
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.MeasurementRollup;
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
+import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.RollupRebuildResult;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementSketchRepository;
+import com.tdunning.math.stats.TDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.COMPACTED_RANGE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_DATE_RANGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MeasurementRollupServiceImplTest {
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @Mock
+    MeasurementRollupRepository measurementRollupRepository;
+
+    @Mock
+    MeasurementSketchRepository measurementSketchRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    MeasurementRetentionProperties retentionProperties;
+
+    MeasurementRollupService measurementRollupService;
+
+    Department departmentAlpha;
+    Metric metricTemperature;
+
+    ZonedDateTime measurementDateTime;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // the fixed 2020 readings would otherwise lie behind the compaction boundary
+        retentionProperties = new MeasurementRetentionProperties();
+        retentionProperties.setEnabled(false);
+        measurementRollupService =
+                new MeasurementRollupServiceImpl(measurementRepository, measurementRollupRepository,
+                        measurementSketchRepository,
+                        new MeasurementSketchBuffer(measurementSketchRepository, transactionManager, eventPublisher),
+                        transactionManager, eventPublisher, retentionProperties);
+
+        departmentAlpha = Department.builder().build();
+        departmentAlpha.setId(ID_ONE);
+
+        metricTemperature = Metric.builder().build();
+        metricTemperature.setId(ID_ONE);
+
+        // a Wednesday
+        measurementDateTime = ZonedDateTime.of(LocalDate.of(2020, 12, 2),
+                LocalTime.of(20, 20, 20), ZoneId.systemDefault());
+    }
+
+    @Test
+    void applyMeasurements() {
+        Measurement first = Measurement.builder()
+                .value(18.0)
+                .measurementTimestamp(measurementDateTime)
+                .metric(metricTemperature)
+                .department(departmentAlpha)
+                .build();
+        Measurement second = Measurement.builder()
+                .value(22.0)
+                .measurementTimestamp(measurementDateTime.plusMinutes(10))
+                .metric(metricTemperature)
+                .department(departmentAlpha)
+                .build();
+
+        measurementRollupService.applyMeasurements(Arrays.asList(first, second));
+
+        ZonedDateTime hourStart = measurementDateTime.withMinute(0).withSecond(0);
+        ZonedDateTime dayStart = measurementDateTime.with(LocalTime.MIN);
+        ZonedDateTime weekStart = dayStart.minusDays(2);
+
+        InOrder ordered = inOrder(measurementRollupRepository);
+        ordered.verify(measurementRollupRepository).upsertRollup(ID_ONE, ID_ONE, RollupGranularity.HOUR.name(), hourStart, 2L, 40.0, 18.0, 22.0);
+        ordered.verify(measurementRollupRepository).upsertRollup(ID_ONE, ID_ONE, RollupGranularity.DAY.name(), dayStart, 2L, 40.0, 18.0, 22.0);
+        ordered.verify(measurementRollupRepository).upsertRollup(ID_ONE, ID_ONE, RollupGranularity.WEEK.name(), weekStart, 2L, 40.0, 18.0, 22.0);
+        ordered.verifyNoMoreInteractions();
+        verifyNoInteractions(measurementSketchRepository);
+    }
+
+    @Test
+    void getAggregatedResult() {
+        ZonedDateTime dayStart = measurementDateTime.with(LocalTime.MIN);
+        MeasurementRollup rollup = MeasurementRollup.builder()
+                .sampleCount(4L)
+                .valueSum(90.0)
+                .minValue(17.5)
+                .maxValue(26.0)
+                .build();
+
+        when(measurementRollupRepository.findByMetricIdAndDepartmentIdAndGranularityAndBucketStart(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, dayStart)).thenReturn(Optional.of(rollup));
+
+        AggregatedResult aggregatedResult =
+                measurementRollupService.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, dayStart);
+
+        assertEquals(22.5, aggregatedResult.getAverageValue());
+        assertEquals(17.5, aggregatedResult.getMinValue());
+        assertEquals(26.0, aggregatedResult.getMaxValue());
+        assertNull(aggregatedResult.getP95());
+    }
+
+    @Test
+    void getAggregatedMatrix() {
+        ZonedDateTime dayStart = measurementDateTime.with(LocalTime.MIN);
+        List<MeasurementRollup> rollups = Arrays.asList(
+                MeasurementRollup.builder().metricId(1L).departmentId(1L)
+                        .sampleCount(2L).valueSum(40.0).minValue(19.0).maxValue(21.0).build(),
+                MeasurementRollup.builder().metricId(1L).departmentId(2L)
+                        .sampleCount(4L).valueSum(100.0).minValue(22.0).maxValue(28.0).build());
+
+        TDigest morning = QuantileSketches.newDigest();
+        TDigest evening = QuantileSketches.newDigest();
+        for (int value = 1; value <= 100; value++) {
+            morning.add(value);
+            evening.add(value + 100);
+        }
+        List<MeasurementSketch> sketches = Arrays.asList(
+                MeasurementSketch.builder().metricId(1L).departmentId(1L).sampleCount(100L)
+                        .digest(QuantileSketches.toBytes(morning)).build(),
+                MeasurementSketch.builder().metricId(1L).departmentId(1L).sampleCount(100L)
+                        .digest(QuantileSketches.toBytes(evening)).build());
+
+        when(measurementRollupRepository.findRollupMatrix(RollupGranularity.DAY, dayStart,
+                false, Collections.singletonList(1L), true, Collections.singletonList(-1L))).thenReturn(rollups);
+        when(measurementSketchRepository.findSketchMatrix(dayStart, dayStart.plusDays(1),
+                false, Collections.singletonList(1L), true, Collections.singletonList(-1L))).thenReturn(sketches);
+
+        AggregatedMatrix aggregatedMatrix = measurementRollupService.getAggregatedMatrix(
+                Collections.singletonList(1L), null, RollupGranularity.DAY, dayStart);
+
+        assertEquals(dayStart.plusDays(1), aggregatedMatrix.getToDateTime());
+        assertEquals(2, aggregatedMatrix.getCells().size());
+        assertEquals(20.0, aggregatedMatrix.getCells().get(0).getAverageValue());
+        assertEquals(100.5, aggregatedMatrix.getCells().get(0).getP50(), 2.0);
+        assertEquals(198.5, aggregatedMatrix.getCells().get(0).getP99(), 2.0);
+        assertEquals(2L, aggregatedMatrix.getCells().get(1).getDepartmentId());
+        assertEquals(25.0, aggregatedMatrix.getCells().get(1).getAverageValue());
+        assertNull(aggregatedMatrix.getCells().get(1).getP50());
+    }
+
+    @Test
+    void getAggregatedResultWithPercentiles() {
+        ZonedDateTime dayStart = measurementDateTime.with(LocalTime.MIN);
+        MeasurementRollup rollup = MeasurementRollup.builder()
+                .sampleCount(200L)
+                .valueSum(20100.0)
+                .minValue(1.0)
+                .maxValue(200.0)
+                .build();
+
+        TDigest morning = QuantileSketches.newDigest();
+        TDigest evening = QuantileSketches.newDigest();
+        for (int value = 1; value <= 100; value++) {
+            morning.add(value);
+            evening.add(value + 100);
+        }
+        List<MeasurementSketch> sketches = Arrays.asList(
+                MeasurementSketch.builder().sampleCount(100L).digest(QuantileSketches.toBytes(morning)).build(),
+                MeasurementSketch.builder().sampleCount(100L).digest(QuantileSketches.toBytes(evening)).build());
+
+        when(measurementRollupRepository.findByMetricIdAndDepartmentIdAndGranularityAndBucketStart(ID_ONE, ID_ONE,
+                RollupGranularity.DAY, dayStart)).thenReturn(Optional.of(rollup));
+        when(measurementSketchRepository.findSketchesBetween(ID_ONE, ID_ONE, dayStart, dayStart.plusDays(1)))
+                .thenReturn(sketches);
+
+        AggregatedResult aggregatedResult =
+                measurementRollupService.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, dayStart);
+
+        assertEquals(100.5, aggregatedResult.getP50(), 2.0);
+        assertEquals(180.5, aggregatedResult.getP90(), 2.0);
+        assertEquals(190.5, aggregatedResult.getP95(), 2.0);
+        assertEquals(198.5, aggregatedResult.getP99(), 2.0);
+    }
+
+    @Test
+    void getAggregatedResultNoRollup() {
+        when(measurementRollupRepository.findByMetricIdAndDepartmentIdAndGranularityAndBucketStart(anyLong(), anyLong(),
+                any(RollupGranularity.class), any(ZonedDateTime.class))).thenReturn(Optional.empty());
+
+        AggregatedResult aggregatedResult =
+                measurementRollupService.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, measurementDateTime);
+
+        assertNull(aggregatedResult.getAverageValue());
+        assertNull(aggregatedResult.getMinValue());
+        assertNull(aggregatedResult.getMaxValue());
+    }
+
+    @Test
+    void rebuildRollups() {
+        MeasurementRecord record = MeasurementRecord.builder()
+                .id(ID_ONE)
+                .value(21.0)
+                .measurementTimestamp(measurementDateTime)
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .build();
+
+        when(measurementRepository.streamMeasurementRecords(any(ZonedDateTime.class), any(ZonedDateTime.class)))
+                .thenAnswer(invocation -> Stream.empty());
+        ZonedDateTime weekStart = measurementDateTime.with(LocalTime.MIN).minusDays(2);
+        when(measurementRepository.streamMeasurementRecords(weekStart, weekStart.plusWeeks(1)))
+                .thenAnswer(invocation -> Stream.of(record));
+
+        RollupRebuildResult rebuildResult =
+                measurementRollupService.rebuildRollups(LocalDate.of(2020, 12, 2), LocalDate.of(2020, 12, 8));
+
+        assertEquals(weekStart, rebuildResult.getFromDateTime());
+        assertEquals(weekStart.plusWeeks(2), rebuildResult.getToDateTime());
+        assertEquals(1L, rebuildResult.getMeasurementsScanned());
+        assertEquals(3L, rebuildResult.getRollupsWritten());
+
+        verify(measurementRollupRepository, times(2)).deleteRollupsBetween(any(ZonedDateTime.class), any(ZonedDateTime.class));
+        verify(measurementSketchRepository, times(2)).deleteSketchesBetween(any(ZonedDateTime.class), any(ZonedDateTime.class));
+        verify(measurementSketchRepository, times(1)).insertIfAbsent(ID_ONE, ID_ONE, measurementDateTime.withMinute(0).withSecond(0));
+        verify(measurementSketchRepository, times(1)).save(any(MeasurementSketch.class));
+        verify(measurementRollupRepository, times(3)).upsertRollup(eq(ID_ONE), eq(ID_ONE), anyString(),
+                any(ZonedDateTime.class), eq(1L), eq(21.0), eq(21.0), eq(21.0));
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher).publishEvent(rebuildResult);
+    }
+
+    @Test
+    void rebuildRollupsInvalidRange() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementRollupService.rebuildRollups(LocalDate.of(2020, 12, 8), LocalDate.of(2020, 12, 2)));
+
+        assertEquals(INVALID_DATE_RANGE, exception.getMessage());
+        verify(measurementRollupRepository, never()).upsertRollup(anyLong(), anyLong(), anyString(),
+                any(ZonedDateTime.class), anyLong(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void rebuildRollupsCompactedRange() {
+        retentionProperties.setEnabled(true);
+
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementRollupService.rebuildRollups(LocalDate.of(2020, 12, 2), LocalDate.of(2020, 12, 8)));
+
+        assertEquals(COMPACTED_RANGE + measurementRollupService.getCompactionBoundary().toLocalDate(), exception.getMessage());
+        verify(measurementRollupRepository, never()).deleteRollupsBetween(any(ZonedDateTime.class), any(ZonedDateTime.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void getCompactionBoundary() {
+        retentionProperties.setEnabled(true);
+        ZonedDateTime cutoff = ZonedDateTime.now().minus(retentionProperties.getRawAge());
+
+        ZonedDateTime compactionBoundary = measurementRollupService.getCompactionBoundary();
+
+        assertEquals(DayOfWeek.MONDAY, compactionBoundary.getDayOfWeek());
+        assertEquals(LocalTime.MIN, compactionBoundary.toLocalTime());
+        assertTrue(!compactionBoundary.isAfter(cutoff) && compactionBoundary.plusWeeks(1).isAfter(cutoff));
+    }
+
+    @Test
+    void getCompactionBoundaryRetentionDisabled() {
+        assertNull(measurementRollupService.getCompactionBoundary());
+    }
+}
@@ -0,0 +1,184 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.MeasurementRollup;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.MeasurementSeries;
+import com.stathis.workplacemetricsapi.model.SeriesBucket;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import com.stathis.workplacemetricsapi.storage.MeasurementPointStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.COMPACTED_RANGE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_DATE_RANGE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_INTERVAL;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.TOO_MANY_BUCKETS;
+import static com.stathis.workplacemetricsapi.services.MeasurementSeriesServiceImpl.MAX_SERIES_BUCKETS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementSeriesServiceImplTest {
+
+    @Mock
+    MeasurementPointStore measurementPointStore;
+
+    @Mock
+    MeasurementRollupRepository measurementRollupRepository;
+
+    @Mock
+    DepartmentService departmentService;
+
+    @Mock
+    MetricService metricService;
+
+    @Mock
+    MeasurementRollupService measurementRollupService;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    MeasurementSeriesService measurementSeriesService;
+
+    ZonedDateTime fromDateTime;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        measurementSeriesService = new MeasurementSeriesServiceImpl(measurementPointStore, measurementRollupRepository,
+                departmentService, metricService, new SingleFlight(new SimpleMeterRegistry()), measurementRollupService,
+                transactionManager);
+
+        fromDateTime = ZonedDateTime.of(2020, 12, 2, 0, 0, 0, 0, ZoneId.systemDefault());
+    }
+
+    @Test
+    void getSeriesFromRollups() {
+        when(measurementRollupRepository.findRollupsBetween(ID_ONE, ID_ONE, RollupGranularity.HOUR,
+                fromDateTime, fromDateTime.plusHours(12))).thenReturn(Arrays.asList(
+                rollup(fromDateTime.plusHours(1), 2L, 40.0, 18.0, 22.0),
+                rollup(fromDateTime.plusHours(5), 2L, 50.0, 24.0, 26.0),
+                rollup(fromDateTime.plusHours(7), 1L, 20.0, 20.0, 20.0)));
+
+        MeasurementSeries series = measurementSeriesService.getSeries(ID_ONE, ID_ONE,
+                fromDateTime, fromDateTime.plusHours(12), "6h");
+
+        assertEquals(2, series.getBuckets().size());
+        assertEquals(fromDateTime, series.getBuckets().get(0).getBucketStart());
+        assertEquals(4L, series.getBuckets().get(0).getSampleCount());
+        assertEquals(22.5, series.getBuckets().get(0).getAverageValue());
+        assertEquals(18.0, series.getBuckets().get(0).getMinValue());
+        assertEquals(26.0, series.getBuckets().get(0).getMaxValue());
+        assertEquals(fromDateTime.plusHours(6), series.getBuckets().get(1).getBucketStart());
+        assertEquals(1L, series.getBuckets().get(1).getSampleCount());
+
+        verify(measurementPointStore, never()).getSeriesBuckets(anyLong(), anyLong(), any(), any(), anyLong());
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void getSeriesFromMeasurements() {
+        when(measurementPointStore.getSeriesBuckets(ID_ONE, ID_ONE, fromDateTime, fromDateTime.plusHours(1), 300L))
+                .thenReturn(Collections.singletonList(SeriesBucket.builder()
+                        .bucketStart(fromDateTime.plusMinutes(15))
+                        .sampleCount(2L)
+                        .averageValue(21.0)
+                        .minValue(20.0)
+                        .maxValue(22.0)
+                        .build()));
+
+        MeasurementSeries series = measurementSeriesService.getSeries(ID_ONE, ID_ONE,
+                fromDateTime, fromDateTime.plusHours(1), "5m");
+
+        assertEquals(1, series.getBuckets().size());
+        assertEquals(fromDateTime.plusMinutes(15), series.getBuckets().get(0).getBucketStart());
+        assertEquals(2L, series.getBuckets().get(0).getSampleCount());
+        assertEquals(21.0, series.getBuckets().get(0).getAverageValue());
+
+        verify(measurementRollupRepository, never()).findRollupsBetween(anyLong(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void getSeriesUnalignedRangeUsesMeasurements() {
+        measurementSeriesService.getSeries(ID_ONE, ID_ONE, fromDateTime.plusMinutes(30), fromDateTime.plusHours(6), "1h");
+
+        verify(measurementPointStore).getSeriesBuckets(ID_ONE, ID_ONE, fromDateTime.plusMinutes(30), fromDateTime.plusHours(6), 3600L);
+        verify(measurementRollupRepository, never()).findRollupsBetween(anyLong(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void getSeriesCompactedRangeUsesRollups() {
+        when(measurementRollupService.getCompactionBoundary()).thenReturn(fromDateTime.plusWeeks(1));
+
+        measurementSeriesService.getSeries(ID_ONE, ID_ONE, fromDateTime, fromDateTime.plusHours(6), "1h");
+
+        verify(measurementRollupRepository).findRollupsBetween(ID_ONE, ID_ONE, RollupGranularity.HOUR, fromDateTime, fromDateTime.plusHours(6));
+    }
+
+    @Test
+    void getSeriesCompactedRangeRejectsSubHourIntervals() {
+        when(measurementRollupService.getCompactionBoundary()).thenReturn(fromDateTime.plusWeeks(1));
+
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementSeriesService.getSeries(ID_ONE, ID_ONE, fromDateTime, fromDateTime.plusHours(6), "5m"));
+
+        assertEquals(COMPACTED_RANGE + fromDateTime.plusWeeks(1).toLocalDate(), exception.getMessage());
+        verify(measurementPointStore, never()).getSeriesBuckets(anyLong(), anyLong(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getSeriesInvalidInterval() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementSeriesService.getSeries(ID_ONE, ID_ONE, fromDateTime, fromDateTime.plusDays(1), "5s"));
+
+        assertEquals(INVALID_INTERVAL, exception.getMessage());
+    }
+
+    @Test
+    void getSeriesInvalidRange() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementSeriesService.getSeries(ID_ONE, ID_ONE, fromDateTime, fromDateTime, "1h"));
+
+        assertEquals(INVALID_DATE_RANGE, exception.getMessage());
+    }
+
+    @Test
+    void getSeriesTooManyBuckets() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementSeriesService.getSeries(ID_ONE, ID_ONE, fromDateTime, fromDateTime.plusDays(30), "5m"));
+
+        assertEquals(TOO_MANY_BUCKETS + MAX_SERIES_BUCKETS, exception.getMessage());
+        verify(metricService, never()).getMetricById(anyLong());
+    }
+
+    private static MeasurementRollup rollup(ZonedDateTime bucketStart, Long sampleCount, Double valueSum,
+                                            Double minValue, Double maxValue) {
+        return MeasurementRollup.builder()
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .granularity(RollupGranularity.HOUR)
+                .bucketStart(bucketStart)
+                .sampleCount(sampleCount)
+                .valueSum(valueSum)
+                .minValue(minValue)
+                .maxValue(maxValue)
+                .build();
+    }
+}
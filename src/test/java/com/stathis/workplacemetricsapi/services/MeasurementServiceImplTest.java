@@ -1,23 +1,42 @@
 package com.stathis.workplacemetricsapi.services;
 
+import com.stathis.workplacemetricsapi.configuration.MeasurementIdempotencyProperties;
 import com.stathis.workplacemetricsapi.domain.Department;
 import com.stathis.workplacemetricsapi.domain.Measurement;
 import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.domain.RollupGranularity;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.exception.ResourceConflictException;
 import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.AggregatedMatrix;
 import com.stathis.workplacemetricsapi.model.AggregatedResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchItemResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementCursor;
 import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.model.ResponseEntityWrapper;
 import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
 import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
 import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
@@ -25,24 +44,45 @@ import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.WeekFields;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 
 import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
 import static com.stathis.workplacemetricsapi.domain.Department.ALPHA;
 import static com.stathis.workplacemetricsapi.domain.Measurement.VALUE_20;
 import static com.stathis.workplacemetricsapi.domain.Metric.CELSIUS;
 import static com.stathis.workplacemetricsapi.domain.Metric.TEMPERATURE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_CURSOR;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_ID_LIST;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.INVALID_LIMIT;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.UNSUPPORTED_WINDOW;
 import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.DEPARTMENT_NOT_FOUND_WITH_ID;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.FAILED_TO_SAVE_MEASUREMENT_RECORD;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.IDEMPOTENCY_KEY_TOO_LONG;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.MAX_BATCH_SIZE;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.MAX_CURSOR_LIMIT;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.METRIC_NOT_FOUND_WITH_ID;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.NON_FINITE_VALUE;
 import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.NO_MEASUREMENT_RECORDS_FOUND;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.REQUIRED_FIELDS_MISSING;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyCollection;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class MeasurementServiceImplTest {
@@ -56,6 +96,27 @@ class MeasurementServiceImplTest {
     @Mock
     MetricRepository metricRepository;
 
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    MeasurementRollupService measurementRollupService;
+
+    @Mock
+    AggregatedResultCache aggregatedResultCache;
+
+    @Mock
+    MeasurementHotWindow measurementHotWindow;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    MeasurementIdempotencyFilter measurementIdempotencyFilter;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
     MeasurementService measurementService;
     DepartmentService departmentService;
     MetricService metricService;
@@ -75,9 +136,12 @@ class MeasurementServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        measurementService = new MeasurementServiceImpl(measurementRepository, departmentRepository, metricRepository);
         departmentService = new DepartmentServiceImpl(departmentRepository);
         metricService = new MetricServiceImpl(metricRepository);
+        measurementService = new MeasurementServiceImpl(measurementRepository, departmentService, metricService,
+                measurementRollupService, aggregatedResultCache, measurementHotWindow, new SingleFlight(new SimpleMeterRegistry()),
+                measurementIdempotencyFilter, new MeasurementIdempotencyProperties(), entityManager, eventPublisher,
+                new TransactionTemplate(transactionManager));
 
         departmentAlpha = Department.builder().build();
         departmentAlpha.setId(ID_ONE);
@@ -138,6 +202,159 @@ class MeasurementServiceImplTest {
         assertEquals(measurementPage.getContent().get(1).getMetric().getMeasurementUnit(), fetchedMeasurementPage.getContent().get(1).getMetric().getMeasurementUnit());
     }
 
+    @Test
+    void getMeasurementSlice() {
+
+        List<Measurement> measurementList = populateMeasurementList(7, 10, 30.5);
+
+        when(measurementRepository.findMeasurementsBy(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(measurementList, PageRequest.of(1, 7), true));
+
+        ResponseEntityWrapper<Measurement> fetchedMeasurements = measurementService.getMeasurementSlice(PageRequest.of(1, 7));
+
+        assertEquals(7, fetchedMeasurements.getEntityList().size());
+        assertEquals(1, fetchedMeasurements.getCurrentPage());
+        assertNull(fetchedMeasurements.getTotalItems());
+        assertNull(fetchedMeasurements.getTotalPages());
+        verify(measurementRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void getMeasurementsAfter() {
+
+        List<Measurement> firstPage = populateMeasurementList(2, 10, 30.5);
+        firstPage.get(0).setId(1L);
+        firstPage.get(1).setId(2L);
+
+        when(measurementRepository.findMeasurementsByOrderByMeasurementTimestampAscIdAsc(PageRequest.of(0, 2)))
+                .thenReturn(new SliceImpl<>(firstPage, PageRequest.of(0, 2), true));
+
+        ResponseEntityWrapper<Measurement> fetchedFirstPage = measurementService.getMeasurementsAfter(null, 2);
+
+        assertEquals(2, fetchedFirstPage.getEntityList().size());
+        assertNull(fetchedFirstPage.getTotalItems());
+        assertNotNull(fetchedFirstPage.getNextCursor());
+
+        MeasurementCursor nextCursor = MeasurementCursor.decode(fetchedFirstPage.getNextCursor());
+        assertEquals(2L, nextCursor.getId());
+        assertEquals(firstPage.get(1).getMeasurementTimestamp().toInstant(), nextCursor.getMeasurementTimestamp().toInstant());
+
+        List<Measurement> lastPage = populateMeasurementList(1, 20, 31.5);
+        when(measurementRepository.findMeasurementsAfter(eq(PageRequest.of(0, 2)), any(ZonedDateTime.class), eq(2L)))
+                .thenReturn(new SliceImpl<>(lastPage, PageRequest.of(0, 2), false));
+
+        ResponseEntityWrapper<Measurement> fetchedLastPage =
+                measurementService.getMeasurementsAfter(fetchedFirstPage.getNextCursor(), 2);
+
+        assertEquals(1, fetchedLastPage.getEntityList().size());
+        assertNull(fetchedLastPage.getNextCursor());
+    }
+
+    @Test
+    void getMeasurementsAfterInvalidCursor() {
+
+        InvalidRequestException exception =
+                assertThrows(InvalidRequestException.class, () -> measurementService.getMeasurementsAfter("not-a-cursor", 10));
+
+        assertEquals(INVALID_CURSOR, exception.getMessage());
+    }
+
+    @Test
+    void getMeasurementsAfterInvalidLimit() {
+
+        InvalidRequestException exception =
+                assertThrows(InvalidRequestException.class, () -> measurementService.getMeasurementsAfter(null, MAX_CURSOR_LIMIT + 1));
+
+        assertEquals(INVALID_LIMIT + MAX_CURSOR_LIMIT, exception.getMessage());
+    }
+
+    @Test
+    void getDailyMeasurementsByMetricAndDepartmentAfter() {
+
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+
+        List<Measurement> measurementList = populateMeasurementList(3, 10, 30.5);
+        when(measurementRepository.findMeasurementsByMetricAndDepartmentAfter(eq(PageRequest.of(0, 5)),
+                eq(metricTemperature), eq(departmentAlpha), any(ZonedDateTime.class), eq(0L), any(ZonedDateTime.class)))
+                .thenReturn(new SliceImpl<>(measurementList, PageRequest.of(0, 5), false));
+
+        // a cursor from a previous day must not widen the daily window
+        String staleCursor = new MeasurementCursor(measurementDateTime, 42L).encode();
+        ResponseEntityWrapper<Measurement> fetchedMeasurements =
+                measurementService.getDailyMeasurementsByMetricAndDepartmentAfter(staleCursor, 5, ID_ONE, ID_ONE);
+
+        assertEquals(3, fetchedMeasurements.getEntityList().size());
+        assertNull(fetchedMeasurements.getNextCursor());
+    }
+
+    @Test
+    void getMeasurementRecords() {
+
+        List<MeasurementRecord> recordList = Arrays.asList(
+                new MeasurementRecord(1L, 20.0, measurementDateTime, ID_ONE, ID_ONE),
+                new MeasurementRecord(2L, 21.0, measurementDateTime.plusMinutes(1), ID_ONE, ID_ONE));
+
+        when(measurementRepository.findMeasurementRecordsBy(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(recordList, PageRequest.of(0, 2), true));
+
+        ResponseEntityWrapper<MeasurementRecord> fetchedRecords = measurementService.getMeasurementRecords(PageRequest.of(0, 2));
+
+        assertEquals(2, fetchedRecords.getEntityList().size());
+        assertEquals(ID_ONE, fetchedRecords.getEntityList().get(1).getMetricId());
+        assertNull(fetchedRecords.getTotalItems());
+        verify(measurementRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void getMeasurementRecordsAfter() {
+
+        MeasurementRecord lastRecord = new MeasurementRecord(7L, 21.0, measurementDateTime, ID_ONE, ID_ONE);
+        String cursor = new MeasurementCursor(measurementDateTime.minusMinutes(5), 3L).encode();
+
+        when(measurementRepository.findMeasurementRecordsAfter(eq(PageRequest.of(0, 1)), any(ZonedDateTime.class), eq(3L)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(lastRecord), PageRequest.of(0, 1), true));
+
+        ResponseEntityWrapper<MeasurementRecord> fetchedRecords = measurementService.getMeasurementRecordsAfter(cursor, 1);
+
+        assertEquals(1, fetchedRecords.getEntityList().size());
+        assertEquals(7L, MeasurementCursor.decode(fetchedRecords.getNextCursor()).getId());
+    }
+
+    @Test
+    void getDailyMeasurementRecordsByMetricAndDepartment() {
+
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(measurementRepository.findMeasurementRecordsByMetricAndDepartmentBetween(any(Pageable.class), eq(ID_ONE), eq(ID_ONE),
+                any(ZonedDateTime.class), any(ZonedDateTime.class)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(
+                        new MeasurementRecord(1L, 20.0, measurementDateTime, ID_ONE, ID_ONE))));
+
+        ResponseEntityWrapper<MeasurementRecord> fetchedRecords =
+                measurementService.getDailyMeasurementRecordsByMetricAndDepartment(PageRequest.of(0, 10), ID_ONE, ID_ONE);
+
+        assertEquals(1, fetchedRecords.getEntityList().size());
+    }
+
+    @Test
+    void getDailyMeasurementRecordsByMetricAndDepartmentFromHotWindow() {
+
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(measurementHotWindow.findRecordsBetween(any(Pageable.class), eq(ID_ONE), eq(ID_ONE),
+                any(ZonedDateTime.class), any(ZonedDateTime.class)))
+                .thenReturn(Optional.of(new SliceImpl<>(Collections.singletonList(
+                        new MeasurementRecord(1L, 20.0, measurementDateTime, ID_ONE, ID_ONE)))));
+
+        ResponseEntityWrapper<MeasurementRecord> fetchedRecords =
+                measurementService.getDailyMeasurementRecordsByMetricAndDepartment(PageRequest.of(0, 10), ID_ONE, ID_ONE);
+
+        assertEquals(1, fetchedRecords.getEntityList().size());
+        verify(measurementRepository, never()).findMeasurementRecordsByMetricAndDepartmentBetween(any(Pageable.class),
+                anyLong(), anyLong(), any(ZonedDateTime.class), any(ZonedDateTime.class));
+    }
+
     @Test
     void getMeasurementById() {
         when(measurementRepository.findById(anyLong())).thenReturn(Optional.ofNullable(measurementAlphaTemperature));
@@ -198,6 +415,8 @@ class MeasurementServiceImplTest {
 
         assertEquals(savedMeasurement.getDepartment().getId(), measurementAlphaTemperature.getDepartment().getId());
         assertEquals(savedMeasurement.getDepartment().getName(), measurementAlphaTemperature.getDepartment().getName());
+
+        verify(eventPublisher, times(1)).publishEvent(any(MeasurementsSavedEvent.class));
     }
 
     @Test
@@ -236,6 +455,221 @@ class MeasurementServiceImplTest {
         assertEquals(expectedMessage, exception.getMessage());
     }
 
+    @Test
+    void saveMeasurements() {
+
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(measurementRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Measurement> measurements = invocation.getArgument(0);
+            long id = ID_ONE;
+            for (Measurement measurement : measurements) {
+                measurement.setId(id++);
+            }
+            return measurements;
+        });
+
+        List<MeasurementDTO> measurementDTOs = Collections.nCopies(3, measurementDTOForSave);
+
+        MeasurementBatchResult batchResult = measurementService.saveMeasurements(measurementDTOs);
+
+        assertEquals(3, batchResult.getAcceptedItems());
+        assertEquals(0, batchResult.getRejectedItems());
+        assertEquals(MeasurementBatchItemResult.Status.CREATED, batchResult.getItems().get(2).getStatus());
+        assertEquals(3L, batchResult.getItems().get(2).getId());
+
+        verify(measurementRepository, times(1)).saveAll(anyList());
+        verify(entityManager, times(1)).flush();
+        verify(eventPublisher, times(1)).publishEvent(any(MeasurementsSavedEvent.class));
+    }
+
+    @Test
+    void saveMeasurementsRejectedItems() {
+
+        when(departmentRepository.findById(ID_ONE)).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(departmentRepository.findById(eq(2L))).thenReturn(Optional.empty());
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(measurementRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MeasurementDTO unknownDepartment = MeasurementDTO.builder()
+                .value(VALUE_20)
+                .measurementTimestamp(measurementDateTime)
+                .metricId(ID_ONE)
+                .departmentId(2L)
+                .build();
+        MeasurementDTO missingValue = MeasurementDTO.builder()
+                .measurementTimestamp(measurementDateTime)
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .build();
+
+        MeasurementDTO nanValue = MeasurementDTO.builder()
+                .value(Double.NaN)
+                .measurementTimestamp(measurementDateTime)
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .build();
+
+        MeasurementBatchResult batchResult =
+                measurementService.saveMeasurements(Arrays.asList(measurementDTOForSave, unknownDepartment, missingValue, nanValue));
+
+        assertEquals(1, batchResult.getAcceptedItems());
+        assertEquals(3, batchResult.getRejectedItems());
+        assertEquals(MeasurementBatchItemResult.Status.CREATED, batchResult.getItems().get(0).getStatus());
+        assertEquals(MeasurementBatchItemResult.Status.REJECTED, batchResult.getItems().get(1).getStatus());
+        assertEquals(FAILED_TO_SAVE_MEASUREMENT_RECORD + DEPARTMENT_NOT_FOUND_WITH_ID + 2L, batchResult.getItems().get(1).getMessage());
+        assertEquals(FAILED_TO_SAVE_MEASUREMENT_RECORD + REQUIRED_FIELDS_MISSING, batchResult.getItems().get(2).getMessage());
+        assertEquals(FAILED_TO_SAVE_MEASUREMENT_RECORD + NON_FINITE_VALUE, batchResult.getItems().get(3).getMessage());
+    }
+
+    @Test
+    void saveMeasurementWithSavedKeyReturnsTheOriginal() {
+
+        measurementAlphaTemperature.setIdempotencyKey("gateway-1");
+        measurementDTOForSave.setIdempotencyKey("gateway-1");
+        when(measurementIdempotencyFilter.mightContain("gateway-1")).thenReturn(true);
+        when(measurementRepository.findFirstByIdempotencyKeyOrderByIdAsc("gateway-1"))
+                .thenReturn(Optional.of(measurementAlphaTemperature));
+
+        Measurement savedMeasurement = measurementService.saveMeasurement(measurementDTOForSave);
+
+        assertEquals(measurementAlphaTemperature.getId(), savedMeasurement.getId());
+        verify(measurementRepository, never()).save(any(Measurement.class));
+        verify(eventPublisher, never()).publishEvent(any(MeasurementsSavedEvent.class));
+    }
+
+    @Test
+    void saveMeasurementWithNewKeySkipsTheLookup() {
+
+        measurementDTOForSave.setIdempotencyKey("gateway-1");
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(measurementIdempotencyFilter.mightContain("gateway-1")).thenReturn(false);
+        when(measurementRepository.save(any(Measurement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Measurement savedMeasurement = measurementService.saveMeasurement(measurementDTOForSave);
+
+        assertEquals("gateway-1", savedMeasurement.getIdempotencyKey());
+        verify(measurementRepository, never()).findFirstByIdempotencyKeyOrderByIdAsc(anyString());
+        verify(measurementIdempotencyFilter, times(1)).put("gateway-1");
+        verify(entityManager, times(1)).flush();
+    }
+
+    @Test
+    void saveMeasurementWithKeySavedConcurrently() {
+
+        measurementDTOForSave.setIdempotencyKey("gateway-1");
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(measurementRepository.save(any(Measurement.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new PersistenceException(new ConstraintViolationException("Duplicate entry", null,
+                "measurements.uk_measurements_idempotency_key"))).when(entityManager).flush();
+        // committed by the racing save
+        when(measurementRepository.findFirstByIdempotencyKeyOrderByIdAsc("gateway-1"))
+                .thenReturn(Optional.of(measurementAlphaTemperature));
+
+        Measurement savedMeasurement = measurementService.saveMeasurement(measurementDTOForSave);
+
+        assertEquals(measurementAlphaTemperature.getId(), savedMeasurement.getId());
+        verify(eventPublisher, never()).publishEvent(any(MeasurementsSavedEvent.class));
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void saveMeasurementsWithKeySavedConcurrently() {
+
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        // the key was saved by another instance, its filter has never seen it
+        when(measurementIdempotencyFilter.mightContain(anyString())).thenReturn(false);
+        Measurement original = Measurement.builder().idempotencyKey("raced").build();
+        original.setId(42L);
+        when(measurementRepository.findByIdempotencyKeys(anyCollection())).thenReturn(Collections.singletonList(original));
+        when(measurementRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new PersistenceException(new ConstraintViolationException("Duplicate entry", null,
+                "measurements.uk_measurements_idempotency_key"))).doNothing().when(entityManager).flush();
+
+        List<MeasurementDTO> measurementDTOs = new ArrayList<>();
+        for (String idempotencyKey : Arrays.asList("raced", "new")) {
+            measurementDTOs.add(MeasurementDTO.builder()
+                    .value(VALUE_20)
+                    .measurementTimestamp(measurementDateTime)
+                    .metricId(ID_ONE)
+                    .departmentId(ID_ONE)
+                    .idempotencyKey(idempotencyKey)
+                    .build());
+        }
+
+        MeasurementBatchResult batchResult = measurementService.saveMeasurements(measurementDTOs);
+
+        assertEquals(2, batchResult.getAcceptedItems());
+        assertEquals(MeasurementBatchItemResult.Status.DUPLICATE, batchResult.getItems().get(0).getStatus());
+        assertEquals(42L, batchResult.getItems().get(0).getId());
+        assertEquals(MeasurementBatchItemResult.Status.CREATED, batchResult.getItems().get(1).getStatus());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void saveMeasurementsWithKeys() {
+
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.ofNullable(departmentAlpha));
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.ofNullable(metricTemperature));
+        when(measurementIdempotencyFilter.mightContain("saved")).thenReturn(true);
+        when(measurementIdempotencyFilter.mightContain("new")).thenReturn(false);
+        Measurement original = Measurement.builder().idempotencyKey("saved").build();
+        original.setId(42L);
+        when(measurementRepository.findByIdempotencyKeys(anyCollection())).thenReturn(Collections.singletonList(original));
+        when(measurementRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Measurement> measurements = invocation.getArgument(0);
+            long id = ID_ONE;
+            for (Measurement measurement : measurements) {
+                measurement.setId(id++);
+            }
+            return measurements;
+        });
+
+        List<MeasurementDTO> measurementDTOs = new ArrayList<>();
+        for (String idempotencyKey : Arrays.asList("saved", "new", "new", null, "x".repeat(65))) {
+            measurementDTOs.add(MeasurementDTO.builder()
+                    .value(VALUE_20)
+                    .measurementTimestamp(measurementDateTime)
+                    .metricId(ID_ONE)
+                    .departmentId(ID_ONE)
+                    .idempotencyKey(idempotencyKey)
+                    .build());
+        }
+
+        MeasurementBatchResult batchResult = measurementService.saveMeasurements(measurementDTOs);
+
+        assertEquals(4, batchResult.getAcceptedItems());
+        assertEquals(1, batchResult.getRejectedItems());
+        assertEquals(MeasurementBatchItemResult.Status.DUPLICATE, batchResult.getItems().get(0).getStatus());
+        assertEquals(42L, batchResult.getItems().get(0).getId());
+        assertEquals(MeasurementBatchItemResult.Status.CREATED, batchResult.getItems().get(1).getStatus());
+        assertEquals(ID_ONE, batchResult.getItems().get(1).getId());
+        assertEquals(MeasurementBatchItemResult.Status.DUPLICATE, batchResult.getItems().get(2).getStatus());
+        assertEquals(ID_ONE, batchResult.getItems().get(2).getId());
+        assertEquals(MeasurementBatchItemResult.Status.CREATED, batchResult.getItems().get(3).getStatus());
+        assertEquals(2L, batchResult.getItems().get(3).getId());
+        assertEquals(FAILED_TO_SAVE_MEASUREMENT_RECORD + IDEMPOTENCY_KEY_TOO_LONG, batchResult.getItems().get(4).getMessage());
+
+        verify(measurementRepository, times(1)).findByIdempotencyKeys(Collections.singletonList("saved"));
+        verify(measurementIdempotencyFilter, times(1)).put("new");
+    }
+
+    @Test
+    void saveMeasurementsBatchSizeExceeded() {
+
+        List<MeasurementDTO> measurementDTOs = Collections.nCopies(MAX_BATCH_SIZE + 1, measurementDTOForSave);
+
+        InvalidRequestException exception =
+                assertThrows(InvalidRequestException.class, () -> measurementService.saveMeasurements(measurementDTOs));
+
+        assertNotNull(exception);
+        verify(measurementRepository, never()).saveAll(anyList());
+    }
+
     @Test
     void getDailyMeasurementsByMetricAndDepartment() {
 
@@ -332,13 +766,12 @@ class MeasurementServiceImplTest {
                 .maxValue(25.1)
                 .build();
 
-        when(measurementRepository.getAggregatedResults(anyLong(), anyLong(),
-                any(ZonedDateTime.class), any(ZonedDateTime.class))).thenReturn(dailyAggregatedResult);
-
         ZonedDateTime startOfDay = ZonedDateTime.of(requestedDate.atTime(LocalTime.MIN), ZoneId.systemDefault());
-        ZonedDateTime endOfDay = startOfDay.with(LocalTime.MAX);
 
-        AggregatedResult fetchedAggregatedResult = measurementRepository.getAggregatedResults(ID_ONE, ID_ONE, startOfDay, endOfDay);
+        when(aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.DAY, startOfDay))
+                .thenReturn(dailyAggregatedResult);
+
+        AggregatedResult fetchedAggregatedResult = measurementService.getDailyAggregatedResults(ID_ONE, ID_ONE, requestedDate);
 
         assertEquals(fetchedAggregatedResult.getAverageValue(), dailyAggregatedResult.getAverageValue());
         assertEquals(fetchedAggregatedResult.getMinValue(), dailyAggregatedResult.getMinValue());
@@ -354,19 +787,50 @@ class MeasurementServiceImplTest {
                 .maxValue(26.7)
                 .build();
 
-        when(measurementRepository.getAggregatedResults(anyLong(), anyLong(),
-                any(ZonedDateTime.class), any(ZonedDateTime.class))).thenReturn(weeklyAggregatedResult);
-
         ZonedDateTime startOfWeek = ZonedDateTime.of(requestedDate.with(WeekFields.ISO.getFirstDayOfWeek()).atTime(LocalTime.MIN), ZoneId.systemDefault());
-        ZonedDateTime endOfWeek = startOfWeek.plusDays(6).with(LocalTime.MAX);
 
-        AggregatedResult fetchedAggregatedResult = measurementRepository.getAggregatedResults(ID_ONE, ID_ONE, startOfWeek, endOfWeek);
+        when(aggregatedResultCache.getAggregatedResult(ID_ONE, ID_ONE, RollupGranularity.WEEK, startOfWeek))
+                .thenReturn(weeklyAggregatedResult);
+
+        AggregatedResult fetchedAggregatedResult = measurementService.getWeeklyAggregatedResults(ID_ONE, ID_ONE, requestedDate);
 
         assertEquals(fetchedAggregatedResult.getAverageValue(), weeklyAggregatedResult.getAverageValue());
         assertEquals(fetchedAggregatedResult.getMinValue(), weeklyAggregatedResult.getMinValue());
         assertEquals(fetchedAggregatedResult.getMaxValue(), weeklyAggregatedResult.getMaxValue());
     }
 
+    @Test
+    void getAggregatedMatrix() {
+
+        AggregatedMatrix weeklyMatrix = AggregatedMatrix.builder().granularity(RollupGranularity.WEEK).build();
+        ZonedDateTime startOfWeek = ZonedDateTime.of(requestedDate.with(WeekFields.ISO.getFirstDayOfWeek()).atTime(LocalTime.MIN), ZoneId.systemDefault());
+
+        when(measurementRollupService.getAggregatedMatrix(new TreeSet<>(Arrays.asList(1L, 2L)), null, RollupGranularity.WEEK, startOfWeek))
+                .thenReturn(weeklyMatrix);
+
+        AggregatedMatrix fetchedMatrix = measurementService.getAggregatedMatrix("2, 1", "all", requestedDate, "weekly");
+
+        assertEquals(weeklyMatrix, fetchedMatrix);
+    }
+
+    @Test
+    void getAggregatedMatrixInvalidIdList() {
+
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementService.getAggregatedMatrix("1,x", "all", requestedDate, "daily"));
+
+        assertEquals(INVALID_ID_LIST + "1,x", exception.getMessage());
+    }
+
+    @Test
+    void getAggregatedMatrixUnsupportedWindow() {
+
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> measurementService.getAggregatedMatrix("all", "all", requestedDate, "monthly"));
+
+        assertEquals(UNSUPPORTED_WINDOW + "monthly", exception.getMessage());
+    }
+
     private List<Measurement> populateMeasurementList(int requestedSize, int minutesToAdd, double measurementValue) {
 
         List<Measurement> populatedList = new ArrayList<>();
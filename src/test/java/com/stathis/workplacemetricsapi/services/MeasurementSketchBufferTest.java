@@ -0,0 +1,169 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.MeasurementSketch;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
+import com.stathis.workplacemetricsapi.model.MeasurementSketchesMergedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementSketchRepository;
+import com.tdunning.math.stats.TDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MeasurementSketchBufferTest {
+
+    @Mock
+    MeasurementSketchRepository measurementSketchRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    MeasurementSketchBuffer measurementSketchBuffer;
+
+    Department departmentAlpha;
+    Metric metricTemperature;
+
+    ZonedDateTime measurementDateTime;
+    ZonedDateTime hourStart;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        measurementSketchBuffer = new MeasurementSketchBuffer(measurementSketchRepository, transactionManager, eventPublisher);
+
+        departmentAlpha = Department.builder().build();
+        departmentAlpha.setId(ID_ONE);
+
+        metricTemperature = Metric.builder().build();
+        metricTemperature.setId(ID_ONE);
+
+        measurementDateTime = ZonedDateTime.of(LocalDate.of(2020, 12, 2),
+                LocalTime.of(20, 20, 20), ZoneId.systemDefault());
+        hourStart = measurementDateTime.withMinute(0).withSecond(0);
+
+        when(measurementSketchRepository.save(any(MeasurementSketch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void flushMergesTheReadingsOfEachHourOnce() {
+        measurementSketchBuffer.onMeasurementsSaved(new MeasurementsSavedEvent(Arrays.asList(
+                measurementAt(measurementDateTime, 18.0),
+                measurementAt(measurementDateTime.plusMinutes(10), 22.0))));
+
+        verifyNoInteractions(measurementSketchRepository);
+        measurementSketchBuffer.flush();
+
+        ArgumentCaptor<MeasurementSketch> sketchCaptor = ArgumentCaptor.forClass(MeasurementSketch.class);
+        verify(measurementSketchRepository).insertIfAbsent(ID_ONE, ID_ONE, hourStart);
+        verify(measurementSketchRepository).save(sketchCaptor.capture());
+        assertEquals(hourStart, sketchCaptor.getValue().getBucketStart());
+        assertEquals(2L, sketchCaptor.getValue().getSampleCount());
+        assertEquals(2L, QuantileSketches.fromBytes(sketchCaptor.getValue().getDigest()).size());
+        verify(eventPublisher).publishEvent(new MeasurementSketchesMergedEvent(Collections.singletonList(sketchCaptor.getValue())));
+
+        measurementSketchBuffer.flush();
+        verify(measurementSketchRepository, times(1)).save(any(MeasurementSketch.class));
+    }
+
+    @Test
+    void flushMergesIntoTheExistingSketch() {
+        TDigest existingDigest = QuantileSketches.newDigest();
+        existingDigest.add(10.0);
+        existingDigest.add(30.0);
+        MeasurementSketch existingSketch = MeasurementSketch.builder()
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .bucketStart(hourStart)
+                .sampleCount(2L)
+                .digest(QuantileSketches.toBytes(existingDigest))
+                .build();
+        when(measurementSketchRepository.findForUpdateByMetricIdAndDepartmentIdAndBucketStart(ID_ONE, ID_ONE, hourStart))
+                .thenReturn(Optional.of(existingSketch));
+
+        measurementSketchBuffer.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.singletonList(
+                measurementAt(measurementDateTime, 20.0))));
+        measurementSketchBuffer.flush();
+
+        verify(measurementSketchRepository).save(existingSketch);
+        assertEquals(3L, existingSketch.getSampleCount());
+        assertEquals(3L, QuantileSketches.fromBytes(existingSketch.getDigest()).size());
+    }
+
+    @Test
+    void flushKeepsAFailedSketchForTheNextFlush() {
+        when(measurementSketchRepository.findForUpdateByMetricIdAndDepartmentIdAndBucketStart(anyLong(), anyLong(),
+                any(ZonedDateTime.class)))
+                .thenThrow(new QueryTimeoutException("lock wait timeout"))
+                .thenReturn(Optional.empty());
+
+        measurementSketchBuffer.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.singletonList(
+                measurementAt(measurementDateTime, 20.0))));
+        measurementSketchBuffer.flush();
+        measurementSketchBuffer.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.singletonList(
+                measurementAt(measurementDateTime, 24.0))));
+        measurementSketchBuffer.flush();
+
+        ArgumentCaptor<MeasurementSketch> sketchCaptor = ArgumentCaptor.forClass(MeasurementSketch.class);
+        verify(measurementSketchRepository).save(sketchCaptor.capture());
+        assertEquals(2L, sketchCaptor.getValue().getSampleCount());
+    }
+
+    @Test
+    void discardedAndDeletedReadingsAreNotFlushed() {
+        Metric metricHumidity = Metric.builder().build();
+        metricHumidity.setId(2L);
+        Measurement humidity = measurementAt(measurementDateTime.plusDays(1), 40.0);
+        humidity.setMetric(metricHumidity);
+
+        measurementSketchBuffer.onMeasurementsSaved(new MeasurementsSavedEvent(Arrays.asList(
+                measurementAt(measurementDateTime, 20.0),
+                measurementAt(measurementDateTime.plusDays(1), 21.0),
+                humidity)));
+        measurementSketchBuffer.discardBetween(hourStart, hourStart.plusHours(1));
+        measurementSketchBuffer.onMeasurementsDeleted(new MeasurementsDeletedEvent(DeletionTarget.METRIC, 2L));
+        measurementSketchBuffer.flush();
+
+        verify(measurementSketchRepository, never()).insertIfAbsent(ID_ONE, ID_ONE, hourStart);
+        verify(measurementSketchRepository, never()).insertIfAbsent(2L, ID_ONE, hourStart.plusDays(1));
+        verify(measurementSketchRepository).insertIfAbsent(ID_ONE, ID_ONE, hourStart.plusDays(1));
+    }
+
+    private Measurement measurementAt(ZonedDateTime measurementTimestamp, Double value) {
+        return Measurement.builder()
+                .value(value)
+                .measurementTimestamp(measurementTimestamp)
+                .metric(metricTemperature)
+                .department(departmentAlpha)
+                .build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.MeasurementStreamProperties;
+import com.stathis.workplacemetricsapi.configuration.MeasurementStreamProperties.OverflowPolicy;
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.model.MeasurementRecord;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.services.MeasurementStreamHub.DISCONNECTED_METRIC;
+import static com.stathis.workplacemetricsapi.services.MeasurementStreamHub.DROPPED_METRIC;
+import static com.stathis.workplacemetricsapi.services.MeasurementStreamHub.SUBSCRIBERS_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeasurementStreamHubTest {
+
+    MeasurementStreamProperties properties;
+    MeterRegistry meterRegistry;
+    MeasurementStreamHub measurementStreamHub;
+
+    Department departmentAlpha;
+    Metric metricTemperature;
+
+    ZonedDateTime measurementDateTime;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MeasurementStreamProperties();
+        properties.setBufferSize(2);
+        properties.setSenderThreads(1);
+        meterRegistry = new SimpleMeterRegistry();
+
+        departmentAlpha = Department.builder().build();
+        departmentAlpha.setId(ID_ONE);
+
+        metricTemperature = Metric.builder().build();
+        metricTemperature.setId(ID_ONE);
+
+        measurementDateTime = ZonedDateTime.of(LocalDate.of(2020, 12, 2),
+                LocalTime.of(20, 20, 20), ZoneId.systemDefault());
+    }
+
+    @AfterEach
+    void tearDown() {
+        measurementStreamHub.destroy();
+    }
+
+    @Test
+    void onMeasurementsSavedFansOutToMatchingSubscribers() throws Exception {
+        measurementStreamHub = new MeasurementStreamHub(properties, meterRegistry);
+        RecordingEmitter matching = new RecordingEmitter(1, null);
+        RecordingEmitter everything = new RecordingEmitter(1, null);
+        RecordingEmitter otherDepartment = new RecordingEmitter(0, null);
+        measurementStreamHub.register(matching, ID_ONE, ID_ONE);
+        measurementStreamHub.register(everything, null, null);
+        measurementStreamHub.register(otherDepartment, ID_ONE, 2L);
+
+        assertEquals(3.0, meterRegistry.get(SUBSCRIBERS_METRIC).gauge().value());
+
+        publish(measurement(ID_ONE, 20.0));
+
+        assertTrue(matching.delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(everything.delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, matching.events.size());
+        assertEquals(1, everything.events.size());
+        assertTrue(otherDepartment.events.isEmpty());
+    }
+
+    @Test
+    void onMeasurementsSavedDropsEventsForSlowSubscribers() throws Exception {
+        measurementStreamHub = new MeasurementStreamHub(properties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(3, release);
+        measurementStreamHub.register(slow, ID_ONE, ID_ONE);
+
+        // the first event is held by the sender, two fill the buffer and the rest are dropped without blocking
+        for (int i = 0; i < 10; i++) {
+            publish(measurement(i + 1L, i));
+            if (i == 0) {
+                assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+            }
+        }
+        release.countDown();
+
+        assertTrue(slow.delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(7.0, meterRegistry.get(DROPPED_METRIC).counter().count());
+        assertEquals(1.0, meterRegistry.get(SUBSCRIBERS_METRIC).gauge().value());
+    }
+
+    @Test
+    void onMeasurementsSavedDisconnectsSlowSubscribers() throws Exception {
+        properties.setOverflowPolicy(OverflowPolicy.DISCONNECT);
+        measurementStreamHub = new MeasurementStreamHub(properties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(1, release);
+        measurementStreamHub.register(slow, ID_ONE, ID_ONE);
+
+        publish(measurement(1L, 20.0));
+        assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            publish(measurement(i + 2L, 20.0));
+        }
+        release.countDown();
+
+        assertEquals(1.0, meterRegistry.get(DISCONNECTED_METRIC).counter().count());
+        assertEquals(0.0, meterRegistry.get(SUBSCRIBERS_METRIC).gauge().value());
+    }
+
+    private void publish(Measurement measurement) {
+        measurementStreamHub.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.singletonList(measurement)));
+    }
+
+    private Measurement measurement(Long id, double value) {
+        Measurement measurement = Measurement.builder()
+                .value(value)
+                .measurementTimestamp(measurementDateTime)
+                .metric(metricTemperature)
+                .department(departmentAlpha)
+                .build();
+        measurement.setId(id);
+        return measurement;
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Object> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch delivered;
+        private final CountDownLatch release;
+
+        private RecordingEmitter(int expectedEvents, CountDownLatch release) {
+            this.delivered = new CountDownLatch(expectedEvents);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(new ArrayList<>(builder.build()));
+            delivered.countDown();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat;
+import com.stathis.workplacemetricsapi.configuration.MeasurementStreamIngestionProperties;
+import com.stathis.workplacemetricsapi.exception.InvalidRequestException;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchItemResult;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementLineRejection;
+import com.stathis.workplacemetricsapi.model.MeasurementStreamResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static com.stathis.workplacemetricsapi.codec.MeasurementRecordFormat.RECORD_SIZE;
+import static com.stathis.workplacemetricsapi.exception.InvalidRequestException.TRUNCATED_MEASUREMENT_RECORD;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.DEPARTMENT_NOT_FOUND_WITH_ID;
+import static com.stathis.workplacemetricsapi.services.MeasurementServiceImpl.FAILED_TO_SAVE_MEASUREMENT_RECORD;
+import static com.stathis.workplacemetricsapi.services.MeasurementStreamIngestionServiceImpl.CHUNK_SIZE;
+import static com.stathis.workplacemetricsapi.services.MeasurementStreamIngestionServiceImpl.LINE_TOO_LONG;
+import static com.stathis.workplacemetricsapi.services.MeasurementStreamIngestionServiceImpl.MALFORMED_LINE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementStreamIngestionServiceImplTest {
+
+    private static final String LINE = "{\"value\":20.0,\"measurementTimestamp\":\"2020-12-02T20:20:20Z\",\"metric_id\":1,\"department_id\":%d}";
+    private static final long UNKNOWN_DEPARTMENT = 2L;
+
+    @Mock
+    MeasurementService measurementService;
+
+    MeasurementStreamIngestionService measurementStreamIngestionService;
+
+    List<Integer> chunkSizes;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        measurementStreamIngestionService = new MeasurementStreamIngestionServiceImpl(measurementService,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                new MeasurementStreamIngestionProperties());
+
+        // readings of the unknown department are rejected the way saveMeasurements does it
+        chunkSizes = new ArrayList<>();
+        when(measurementService.saveMeasurements(anyList())).thenAnswer(invocation -> {
+            List<MeasurementDTO> measurementDTOs = invocation.getArgument(0);
+            chunkSizes.add(measurementDTOs.size());
+            List<MeasurementBatchItemResult> items = new ArrayList<>();
+            for (int index = 0; index < measurementDTOs.size(); index++) {
+                boolean rejected = measurementDTOs.get(index).getDepartmentId() == UNKNOWN_DEPARTMENT;
+                items.add(MeasurementBatchItemResult.builder()
+                        .index(index)
+                        .status(rejected ? MeasurementBatchItemResult.Status.REJECTED : MeasurementBatchItemResult.Status.CREATED)
+                        .message(rejected ? FAILED_TO_SAVE_MEASUREMENT_RECORD + DEPARTMENT_NOT_FOUND_WITH_ID + UNKNOWN_DEPARTMENT : null)
+                        .build());
+            }
+            int rejectedItems = (int) items.stream().filter(item -> item.getMessage() != null).count();
+            return new MeasurementBatchResult(items.size() - rejectedItems, rejectedItems, items);
+        });
+    }
+
+    @Test
+    void saveMeasurementStreamReportsRejectedLines() throws IOException {
+        String body = String.join("\n",
+                String.format(LINE, 1),
+                "",
+                "{\"value\":20.0,",
+                String.format(LINE, UNKNOWN_DEPARTMENT),
+                String.format(LINE, 1));
+
+        MeasurementStreamResult result = measurementStreamIngestionService.saveMeasurementStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false);
+
+        assertEquals(2L, result.getAcceptedItems());
+        assertEquals(2L, result.getRejectedItems());
+        assertEquals(Arrays.asList(3L, 4L), result.getRejections().stream()
+                .map(MeasurementLineRejection::getLine)
+                .collect(Collectors.toList()));
+        assertTrue(result.getRejections().get(0).getMessage().startsWith(MALFORMED_LINE));
+        assertEquals(FAILED_TO_SAVE_MEASUREMENT_RECORD + DEPARTMENT_NOT_FOUND_WITH_ID + UNKNOWN_DEPARTMENT,
+                result.getRejections().get(1).getMessage());
+        verify(measurementService, times(1)).saveMeasurements(anyList());
+    }
+
+    @Test
+    void saveMeasurementStreamSavesFixedSizeChunks() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int line = 1; line <= CHUNK_SIZE * 2 + 1; line++) {
+            body.append(String.format(LINE, line == CHUNK_SIZE + 7 ? UNKNOWN_DEPARTMENT : 1)).append('\n');
+        }
+
+        MeasurementStreamResult result = measurementStreamIngestionService.saveMeasurementStream(
+                new ByteArrayInputStream(gzip(body.toString())), true);
+
+        assertEquals(Arrays.asList(CHUNK_SIZE, CHUNK_SIZE, 1), chunkSizes);
+        assertEquals(CHUNK_SIZE * 2L, result.getAcceptedItems());
+        assertEquals(1L, result.getRejectedItems());
+        assertEquals(CHUNK_SIZE + 7L, result.getRejections().get(0).getLine());
+    }
+
+    @Test
+    void saveMeasurementStreamRejectsLinesOverTheMaximumLength() throws IOException {
+        char[] padding = new char[new MeasurementStreamIngestionProperties().getMaxLineLength() * 3];
+        Arrays.fill(padding, ' ');
+        String body = String.join("\r\n",
+                String.format(LINE, 1),
+                String.format(LINE, 1) + new String(padding),
+                String.format(LINE, 1),
+                new String(padding));
+
+        MeasurementStreamResult result = measurementStreamIngestionService.saveMeasurementStream(
+                new ByteArrayInputStream(gzip(body)), true);
+
+        assertEquals(Arrays.asList(2), chunkSizes);
+        assertEquals(2L, result.getAcceptedItems());
+        assertEquals(Arrays.asList(2L, 4L), result.getRejections().stream()
+                .map(MeasurementLineRejection::getLine)
+                .collect(Collectors.toList()));
+        assertTrue(result.getRejections().get(0).getMessage().startsWith(LINE_TOO_LONG));
+    }
+
+    @Test
+    void saveMeasurementStreamWithDamagedGzipKeepsTheLinesBefore() throws IOException {
+        byte[] body = gzip(String.format(LINE, 1) + "\n" + String.format(LINE, 1) + "\n");
+        byte[] damagedBody = Arrays.copyOf(body, body.length);
+        damagedBody[damagedBody.length - 5] ^= 0x7f;
+
+        assertThrows(InvalidRequestException.class, () ->
+                measurementStreamIngestionService.saveMeasurementStream(new ByteArrayInputStream(damagedBody), true));
+
+        // the damaged trailer is only noticed once every line has been read
+        assertEquals(Arrays.asList(2), chunkSizes);
+    }
+
+    @Test
+    void saveMeasurementRecordStreamSavesChunksAndReportsATruncatedRecord() throws IOException {
+        int records = CHUNK_SIZE + 2;
+        ByteBuffer body = ByteBuffer.allocate(records * RECORD_SIZE);
+        for (int record = 1; record <= records; record++) {
+            MeasurementRecordFormat.encode(MeasurementDTO.builder()
+                    .value(20.0)
+                    .measurementTimestamp(ZonedDateTime.parse("2020-12-02T20:20:20Z"))
+                    .metricId(1L)
+                    .departmentId(record == 5 ? UNKNOWN_DEPARTMENT : 1L)
+                    .build(), body);
+        }
+
+        MeasurementStreamResult result = measurementStreamIngestionService.saveMeasurementRecordStream(
+                new ByteArrayInputStream(gzip(Arrays.copyOf(body.array(), body.capacity() - 3))), true);
+
+        assertEquals(Arrays.asList(CHUNK_SIZE, 1), chunkSizes);
+        assertEquals((long) CHUNK_SIZE, result.getAcceptedItems());
+        assertEquals(2L, result.getRejectedItems());
+        assertEquals(5L, result.getRejections().get(0).getLine());
+        assertEquals((long) records, result.getRejections().get(1).getLine());
+        assertEquals(TRUNCATED_MEASUREMENT_RECORD, result.getRejections().get(1).getMessage());
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        return gzip(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,182 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.AsyncIngestionProperties;
+import com.stathis.workplacemetricsapi.exception.ServiceOverloadedException;
+import com.stathis.workplacemetricsapi.model.MeasurementBatchResult;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.domain.Measurement.VALUE_20;
+import static com.stathis.workplacemetricsapi.exception.ServiceOverloadedException.INGESTION_QUEUE_FULL;
+import static com.stathis.workplacemetricsapi.exception.ServiceOverloadedException.INGESTION_SHUTTING_DOWN;
+import static com.stathis.workplacemetricsapi.services.MeasurementWriteBehindService.FAILED_METRIC;
+import static com.stathis.workplacemetricsapi.services.MeasurementWriteBehindService.QUEUE_DEPTH_METRIC;
+import static com.stathis.workplacemetricsapi.services.MeasurementWriteBehindService.REJECTED_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeasurementWriteBehindServiceTest {
+
+    @Mock
+    MeasurementService measurementService;
+
+    AsyncIngestionProperties properties;
+    MeterRegistry meterRegistry;
+    MeasurementWriteBehindService measurementWriteBehindService;
+
+    MeasurementDTO measurementDTOForSave;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        properties = new AsyncIngestionProperties();
+        properties.setEnabled(true);
+        properties.setQueueCapacity(4);
+        properties.setWriterThreads(1);
+        properties.setBatchSize(2);
+        properties.setFlushInterval(Duration.ofMillis(50));
+        properties.setFlushAttempts(3);
+        properties.setRetryBackoff(Duration.ofMillis(10));
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        measurementDTOForSave = MeasurementDTO.builder()
+                .value(VALUE_20)
+                .measurementTimestamp(ZonedDateTime.now())
+                .metricId(ID_ONE)
+                .departmentId(ID_ONE)
+                .build();
+
+        when(measurementService.saveMeasurements(anyList())).thenAnswer(invocation -> {
+            List<MeasurementDTO> batch = invocation.getArgument(0);
+            return new MeasurementBatchResult(batch.size(), 0, List.of());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        measurementWriteBehindService.stop();
+    }
+
+    @Test
+    void enqueueFlushesGroupCommits() {
+        measurementWriteBehindService = new MeasurementWriteBehindService(measurementService, properties, meterRegistry);
+        measurementWriteBehindService.start();
+
+        for (int i = 0; i < 4; i++) {
+            measurementWriteBehindService.enqueue(measurementDTOForSave);
+        }
+
+        verify(measurementService, timeout(1000).times(4)).validateMeasurement(measurementDTOForSave);
+        verify(measurementService, timeout(1000).atLeast(2)).saveMeasurements(anyList());
+    }
+
+    @Test
+    void flushRetriesATransientFailure() {
+        when(measurementService.saveMeasurements(anyList()))
+                .thenThrow(new CannotCreateTransactionException("pool exhausted"))
+                .thenThrow(new CannotCreateTransactionException("pool exhausted"))
+                .thenAnswer(invocation -> {
+                    List<MeasurementDTO> batch = invocation.getArgument(0);
+                    return new MeasurementBatchResult(batch.size(), 0, List.of());
+                });
+
+        measurementWriteBehindService = new MeasurementWriteBehindService(measurementService, properties, meterRegistry);
+        measurementWriteBehindService.start();
+
+        measurementWriteBehindService.enqueue(measurementDTOForSave);
+        measurementWriteBehindService.enqueue(measurementDTOForSave);
+
+        verify(measurementService, timeout(1000).times(3)).saveMeasurements(List.of(measurementDTOForSave, measurementDTOForSave));
+        assertEquals(0.0, meterRegistry.get(FAILED_METRIC).counter().count());
+    }
+
+    @Test
+    void flushCountsTheBatchAsFailedOnceTheAttemptsRunOut() {
+        when(measurementService.saveMeasurements(anyList())).thenThrow(new CannotCreateTransactionException("pool exhausted"));
+
+        measurementWriteBehindService = new MeasurementWriteBehindService(measurementService, properties, meterRegistry);
+        measurementWriteBehindService.start();
+
+        measurementWriteBehindService.enqueue(measurementDTOForSave);
+        measurementWriteBehindService.enqueue(measurementDTOForSave);
+
+        verify(measurementService, timeout(1000).times(3)).saveMeasurements(anyList());
+        measurementWriteBehindService.stop();
+        verify(measurementService, times(3)).saveMeasurements(anyList());
+        assertEquals(2.0, meterRegistry.get(FAILED_METRIC).counter().count());
+    }
+
+    @Test
+    void enqueueQueueFull() throws InterruptedException {
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        when(measurementService.saveMeasurements(anyList())).thenAnswer(invocation -> {
+            writerBlocked.countDown();
+            releaseWriter.await();
+            List<MeasurementDTO> batch = invocation.getArgument(0);
+            return new MeasurementBatchResult(batch.size(), 0, List.of());
+        });
+
+        measurementWriteBehindService = new MeasurementWriteBehindService(measurementService, properties, meterRegistry);
+        measurementWriteBehindService.start();
+
+        measurementWriteBehindService.enqueue(measurementDTOForSave);
+        assertTrue(writerBlocked.await(1, TimeUnit.SECONDS));
+
+        for (int i = 0; i < properties.getQueueCapacity(); i++) {
+            measurementWriteBehindService.enqueue(measurementDTOForSave);
+        }
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> measurementWriteBehindService.enqueue(measurementDTOForSave));
+
+        assertEquals(INGESTION_QUEUE_FULL, exception.getMessage());
+        assertEquals(properties.getQueueCapacity(), meterRegistry.get(QUEUE_DEPTH_METRIC).gauge().value());
+        assertEquals(1.0, meterRegistry.get(REJECTED_METRIC).counter().count());
+
+        releaseWriter.countDown();
+    }
+
+    @Test
+    void stopDrainsQueue() {
+        properties.setFlushInterval(Duration.ofSeconds(10));
+        properties.setBatchSize(100);
+
+        measurementWriteBehindService = new MeasurementWriteBehindService(measurementService, properties, meterRegistry);
+        measurementWriteBehindService.start();
+
+        for (int i = 0; i < 3; i++) {
+            measurementWriteBehindService.enqueue(measurementDTOForSave);
+        }
+        measurementWriteBehindService.stop();
+
+        verify(measurementService).saveMeasurements(anyList());
+        assertEquals(0.0, meterRegistry.get(QUEUE_DEPTH_METRIC).gauge().value());
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> measurementWriteBehindService.enqueue(measurementDTOForSave));
+        assertEquals(INGESTION_SHUTTING_DOWN, exception.getMessage());
+    }
+}
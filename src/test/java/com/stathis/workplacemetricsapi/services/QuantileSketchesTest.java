@@ -0,0 +1,69 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.tdunning.math.stats.TDigest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchesTest {
+
+    static final int HOURS_PER_WEEK = 168;
+    static final int READINGS_PER_HOUR = 600;
+    static final double[] QUANTILES = {0.50, 0.90, 0.95, 0.99};
+    static final double MAX_RANK_ERROR = 0.01;
+
+    @Test
+    void mergedHourlySketchesMatchExactPercentiles() {
+        Random random = new Random(42);
+        List<byte[]> hourlySketches = new ArrayList<>();
+        double[] allValues = new double[HOURS_PER_WEEK * READINGS_PER_HOUR];
+
+        int index = 0;
+        for (int hour = 0; hour < HOURS_PER_WEEK; hour++) {
+            // a daily temperature cycle with noise and occasional spikes, so the tails are not symmetric
+            double hourlyMean = 21 + 3 * Math.sin(2 * Math.PI * (hour % 24) / 24);
+            TDigest hourlyDigest = QuantileSketches.newDigest();
+            for (int reading = 0; reading < READINGS_PER_HOUR; reading++) {
+                double value = hourlyMean + random.nextGaussian() + (random.nextInt(100) == 0 ? 8 : 0);
+                hourlyDigest.add(value);
+                allValues[index++] = value;
+            }
+            hourlySketches.add(QuantileSketches.toBytes(hourlyDigest));
+        }
+        Arrays.sort(allValues);
+
+        TDigest weeklyDigest = QuantileSketches.merge(hourlySketches);
+
+        assertEquals(allValues.length, weeklyDigest.size());
+        for (double quantile : QUANTILES) {
+            double estimate = weeklyDigest.quantile(quantile);
+            double estimatedRank = rankOf(allValues, estimate) / (double) allValues.length;
+            assertTrue(Math.abs(estimatedRank - quantile) <= MAX_RANK_ERROR,
+                    "p" + Math.round(quantile * 100) + " rank error " + Math.abs(estimatedRank - quantile));
+        }
+    }
+
+    @Test
+    void sketchSurvivesSerialization() {
+        TDigest digest = QuantileSketches.newDigest();
+        for (int value = -50; value <= 50; value++) {
+            digest.add(value);
+        }
+
+        TDigest restored = QuantileSketches.fromBytes(QuantileSketches.toBytes(digest));
+
+        assertEquals(digest.size(), restored.size());
+        assertEquals(digest.quantile(0.95), restored.quantile(0.95), 1e-9);
+    }
+
+    private static int rankOf(double[] sortedValues, double value) {
+        int position = Arrays.binarySearch(sortedValues, value);
+        return position >= 0 ? position : -position - 1;
+    }
+}
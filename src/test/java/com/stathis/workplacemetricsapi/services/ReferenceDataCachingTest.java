@@ -0,0 +1,134 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static com.stathis.workplacemetricsapi.configuration.CacheConfiguration.DEPARTMENTS_CACHE;
+import static com.stathis.workplacemetricsapi.configuration.CacheConfiguration.METRICS_CACHE;
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.domain.Department.ALPHA;
+import static com.stathis.workplacemetricsapi.domain.Metric.CELSIUS;
+import static com.stathis.workplacemetricsapi.domain.Metric.TEMPERATURE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig
+class ReferenceDataCachingTest {
+
+    @Configuration
+    @EnableCaching
+    static class CachingTestConfiguration {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(DEPARTMENTS_CACHE, METRICS_CACHE);
+        }
+
+        @Bean
+        DepartmentRepository departmentRepository() {
+            return Mockito.mock(DepartmentRepository.class);
+        }
+
+        @Bean
+        MetricRepository metricRepository() {
+            return Mockito.mock(MetricRepository.class);
+        }
+
+        @Bean
+        DepartmentService departmentService(DepartmentRepository departmentRepository) {
+            return new DepartmentServiceImpl(departmentRepository);
+        }
+
+        @Bean
+        MetricService metricService(MetricRepository metricRepository) {
+            return new MetricServiceImpl(metricRepository);
+        }
+    }
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    MetricRepository metricRepository;
+
+    @Autowired
+    DepartmentService departmentService;
+
+    @Autowired
+    MetricService metricService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    Department departmentAlpha;
+    Metric metricTemperature;
+
+    @BeforeEach
+    void setUp() {
+        reset(departmentRepository, metricRepository);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        departmentAlpha = Department.builder().build();
+        departmentAlpha.setId(ID_ONE);
+        departmentAlpha.setName(ALPHA);
+
+        metricTemperature = Metric.builder().build();
+        metricTemperature.setId(ID_ONE);
+        metricTemperature.setType(TEMPERATURE);
+        metricTemperature.setMeasurementUnit(CELSIUS);
+
+        when(departmentRepository.findById(anyLong())).thenReturn(Optional.of(departmentAlpha));
+        when(departmentRepository.save(any(Department.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(metricRepository.findById(anyLong())).thenReturn(Optional.of(metricTemperature));
+    }
+
+    @Test
+    void getDepartmentByIdIsCached() {
+
+        departmentService.getDepartmentById(ID_ONE);
+        Department fetchedDepartment = departmentService.getDepartmentById(ID_ONE);
+
+        assertEquals(ALPHA, fetchedDepartment.getName());
+        verify(departmentRepository, times(1)).findById(ID_ONE);
+    }
+
+    @Test
+    void updateDepartmentEvictsCachedDepartment() {
+
+        departmentService.getDepartmentById(ID_ONE);
+        departmentService.updateDepartment(ID_ONE, Department.builder().name("alpha_department").build());
+        departmentService.getDepartmentById(ID_ONE);
+
+        verify(departmentRepository, times(3)).findById(ID_ONE);
+    }
+
+    @Test
+    void deleteMetricEvictsCachedMetric() {
+
+        metricService.getMetricById(ID_ONE);
+        metricService.getMetricById(ID_ONE);
+        metricService.deleteMetricById(ID_ONE);
+        metricService.getMetricById(ID_ONE);
+
+        verify(metricRepository, times(2)).findById(ID_ONE);
+    }
+}
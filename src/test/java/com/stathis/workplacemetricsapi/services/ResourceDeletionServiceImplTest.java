@@ -0,0 +1,148 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.configuration.DeletionProperties;
+import com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException;
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import com.stathis.workplacemetricsapi.model.DeletionJob;
+import com.stathis.workplacemetricsapi.model.DeletionStatus;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRollupRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementSketchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static com.stathis.workplacemetricsapi.exception.ResourceNotDeletedException.RESOURCE_COULD_NOT_BE_DELETED;
+import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResourceDeletionServiceImplTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock
+    DepartmentService departmentService;
+
+    @Mock
+    MetricService metricService;
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @Mock
+    MeasurementRollupRepository measurementRollupRepository;
+
+    @Mock
+    MeasurementSketchRepository measurementSketchRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    ResourceDeletionServiceImpl resourceDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        DeletionProperties properties = new DeletionProperties();
+        properties.setChunkSize(CHUNK_SIZE);
+
+        resourceDeletionService = new ResourceDeletionServiceImpl(departmentService, metricService,
+                measurementRepository, measurementRollupRepository, measurementSketchRepository,
+                transactionManager, eventPublisher, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        resourceDeletionService.destroy();
+    }
+
+    @Test
+    void deleteDepartmentInChunks() throws Exception {
+        when(measurementRepository.deleteMeasurementChunkByDepartment(ID_ONE, CHUNK_SIZE)).thenReturn(2, 2, 1);
+        when(measurementRollupRepository.deleteRollupChunkByDepartment(ID_ONE, CHUNK_SIZE)).thenReturn(1);
+        // written by ingest after the chunk loops finished
+        when(measurementRollupRepository.deleteRollupChunkByDepartment(ID_ONE, Integer.MAX_VALUE)).thenReturn(1);
+        when(measurementSketchRepository.deleteSketchChunkByDepartment(ID_ONE, Integer.MAX_VALUE)).thenReturn(1);
+
+        DeletionJob deletionJob = awaitFinished(resourceDeletionService.deleteDepartment(ID_ONE));
+
+        assertEquals(DeletionStatus.COMPLETED, deletionJob.getStatus());
+        assertEquals(5L, deletionJob.getMeasurementsDeleted());
+        assertEquals(2L, deletionJob.getRollupsDeleted());
+        assertEquals(1L, deletionJob.getSketchesDeleted());
+        assertNotNull(deletionJob.getFinishedAt());
+        verify(measurementRepository, times(3)).deleteMeasurementChunkByDepartment(ID_ONE, CHUNK_SIZE);
+        verify(measurementSketchRepository).deleteSketchChunkByDepartment(ID_ONE, CHUNK_SIZE);
+        verify(departmentService).deleteDepartmentById(ID_ONE);
+        verify(measurementRepository, never()).deleteMeasurementChunkByMetric(anyLong(), anyInt());
+        verify(eventPublisher, timeout(5_000)).publishEvent(new MeasurementsDeletedEvent(DeletionTarget.DEPARTMENT, ID_ONE));
+        assertSame(deletionJob, resourceDeletionService.getDeletionJob(deletionJob.getJobId()));
+    }
+
+    @Test
+    void deleteMetricFailed() throws Exception {
+        when(measurementRepository.deleteMeasurementChunkByMetric(ID_ONE, CHUNK_SIZE))
+                .thenThrow(new DataIntegrityViolationException("lock wait timeout"));
+
+        DeletionJob deletionJob = awaitFinished(resourceDeletionService.deleteMetric(ID_ONE));
+
+        assertEquals(DeletionStatus.FAILED, deletionJob.getStatus());
+        assertEquals("lock wait timeout", deletionJob.getError());
+        verify(metricService, never()).deleteMetricById(anyLong());
+        verify(eventPublisher, never()).publishEvent(any(MeasurementsDeletedEvent.class));
+    }
+
+    @Test
+    void deleteDepartmentResourceNotFound() {
+        when(departmentService.getDepartmentById(555L)).thenThrow(new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + 555));
+
+        ResourceNotDeletedException exception = assertThrows(ResourceNotDeletedException.class,
+                () -> resourceDeletionService.deleteDepartment(555L));
+
+        assertEquals(RESOURCE_COULD_NOT_BE_DELETED + 555, exception.getMessage());
+        verify(measurementRepository, never()).deleteMeasurementChunkByDepartment(eq(555L), anyInt());
+    }
+
+    @Test
+    void getDeletionJobNotFound() {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> resourceDeletionService.getDeletionJob("missing"));
+
+        assertEquals(RESOURCE_NOT_FOUND_WITH_ID + "missing", exception.getMessage());
+    }
+
+    private static DeletionJob awaitFinished(DeletionJob deletionJob) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((deletionJob.getStatus() == DeletionStatus.PENDING || deletionJob.getStatus() == DeletionStatus.RUNNING)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return deletionJob;
+    }
+}
@@ -0,0 +1,117 @@
+package com.stathis.workplacemetricsapi.services;
+
+import com.stathis.workplacemetricsapi.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.stathis.workplacemetricsapi.exception.ResourceNotFoundException.RESOURCE_NOT_FOUND_WITH_ID;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.COALESCED;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.EXECUTED;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.OUTCOME_TAG;
+import static com.stathis.workplacemetricsapi.services.SingleFlight.QUERIES_METRIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 50;
+
+    MeterRegistry meterRegistry;
+    SingleFlight singleFlight;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void executeCoalescesConcurrentCalls() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Double>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return singleFlight.execute("aggregate", () -> {
+                    queries.incrementAndGet();
+                    awaitCoalesced(CALLERS - 1);
+                    return 22.5;
+                });
+            }));
+        }
+        start.countDown();
+
+        for (Future<Double> result : results) {
+            assertEquals(22.5, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, queries.get());
+        assertEquals(1.0, count(EXECUTED));
+        assertEquals(CALLERS - 1, count(COALESCED));
+    }
+
+    @Test
+    void executeSharesFailures() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        ResourceNotFoundException failure = new ResourceNotFoundException(RESOURCE_NOT_FOUND_WITH_ID + 1);
+
+        Future<?> leader = executor.submit(() -> singleFlight.execute("aggregate", () -> {
+            leaderStarted.countDown();
+            awaitCoalesced(1);
+            throw failure;
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> singleFlight.execute("aggregate", () -> 0.0));
+
+        assertSame(failure, exception);
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executeRunsAgainOnceTheFlightLands() {
+        AtomicInteger queries = new AtomicInteger();
+
+        singleFlight.execute("aggregate", queries::incrementAndGet);
+        singleFlight.execute("aggregate", queries::incrementAndGet);
+        singleFlight.execute("other", queries::incrementAndGet);
+
+        assertEquals(3, queries.get());
+        assertEquals(0.0, count(COALESCED));
+    }
+
+    // holds the leader in flight until the expected number of callers joined it
+    private void awaitCoalesced(int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(COALESCED) < expected && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get(QUERIES_METRIC).tag(OUTCOME_TAG, outcome).counter().count();
+    }
+}
@@ -0,0 +1,199 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.model.DeletionTarget;
+import com.stathis.workplacemetricsapi.model.MeasurementsDeletedEvent;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.model.RetentionResult;
+import com.stathis.workplacemetricsapi.model.SeriesBucket;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.stathis.workplacemetricsapi.domain.BaseEntity.ID_ONE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkFileMeasurementPointStoreTest {
+
+    private static final int MAX_POINTS_PER_CHUNK = 4;
+
+    @Mock
+    MeasurementPointStore fallbackStore;
+
+    @Mock
+    MeasurementRepository measurementRepository;
+
+    @TempDir
+    Path directory;
+
+    ChunkFileMeasurementPointStore measurementPointStore;
+
+    Metric metricTemperature;
+    Department departmentAlpha;
+    ZonedDateTime fromDateTime;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        when(measurementRepository.findMaxMeasurementId()).thenReturn(Optional.empty());
+        when(measurementRepository.findNewestMeasurementTimestamp()).thenReturn(Optional.empty());
+        measurementPointStore = startStore();
+
+        metricTemperature = Metric.builder().build();
+        metricTemperature.setId(ID_ONE);
+        departmentAlpha = Department.builder().build();
+        departmentAlpha.setId(ID_ONE);
+        fromDateTime = ZonedDateTime.now(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS).plusHours(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        measurementPointStore.destroy();
+    }
+
+    @Test
+    void getSeriesBucketsFromChunkFiles() throws IOException {
+        saveMeasurements(fromDateTime.plusMinutes(1), 20.0, fromDateTime.plusMinutes(7), 24.0, fromDateTime.plusMinutes(4), 19.0,
+                fromDateTime.plusMinutes(31), 30.0, fromDateTime.plusMinutes(61), 99.0);
+
+        List<SeriesBucket> buckets = measurementPointStore.getSeriesBuckets(ID_ONE, ID_ONE,
+                fromDateTime, fromDateTime.plusHours(1), 1_800);
+
+        assertEquals(2, buckets.size());
+        assertEquals(fromDateTime, buckets.get(0).getBucketStart());
+        assertEquals(3L, buckets.get(0).getSampleCount());
+        assertEquals(21.0, buckets.get(0).getAverageValue());
+        assertEquals(19.0, buckets.get(0).getMinValue());
+        assertEquals(24.0, buckets.get(0).getMaxValue());
+        assertEquals(fromDateTime.plusMinutes(30), buckets.get(1).getBucketStart());
+        assertEquals(1L, buckets.get(1).getSampleCount());
+        assertEquals(2, countChunkFiles());
+        verify(fallbackStore, never()).getSeriesBuckets(anyLong(), anyLong(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getSeriesBucketsBeforeCoverageUsesFallback() {
+        ZonedDateTime coveredSince = measurementPointStore.getCoveredSince().atZone(ZoneId.systemDefault());
+
+        measurementPointStore.getSeriesBuckets(ID_ONE, ID_ONE, coveredSince.minusHours(1), coveredSince.plusHours(1), 3_600);
+
+        verify(fallbackStore).getSeriesBuckets(ID_ONE, ID_ONE, coveredSince.minusHours(1), coveredSince.plusHours(1), 3_600);
+    }
+
+    @Test
+    void chunkFilesAreReusedAfterCleanShutdown() throws IOException {
+        saveMeasurements(fromDateTime.plusMinutes(1), 20.0, fromDateTime.plusMinutes(2), 22.0);
+        measurementPointStore.destroy();
+        assertTrue(Files.exists(directory.resolve(ChunkFileMeasurementPointStore.COVERAGE_FILE)));
+
+        measurementPointStore = startStore();
+        saveMeasurements(fromDateTime.plusMinutes(3), 24.0);
+
+        List<SeriesBucket> buckets = measurementPointStore.getSeriesBuckets(ID_ONE, ID_ONE,
+                fromDateTime, fromDateTime.plusHours(1), 3_600);
+
+        assertEquals(3L, buckets.get(0).getSampleCount());
+        assertEquals(22.0, buckets.get(0).getAverageValue());
+        assertEquals(2, countChunkFiles());
+    }
+
+    @Test
+    void chunkFilesAreDiscardedWhenReadingsWereSavedWithoutThem() throws IOException {
+        saveMeasurements(fromDateTime.plusMinutes(1), 20.0);
+        measurementPointStore.destroy();
+
+        when(measurementRepository.findMaxMeasurementId()).thenReturn(Optional.of(100L));
+        when(measurementRepository.findNewestMeasurementTimestamp()).thenReturn(Optional.of(fromDateTime.plusDays(1)));
+        measurementPointStore = startStore();
+
+        assertEquals(0, countChunkFiles());
+        assertEquals(fromDateTime.plusDays(1).plusSeconds(1).toInstant(), measurementPointStore.getCoveredSince());
+    }
+
+    @Test
+    void onMeasurementsDeletedRemovesTheSeries() throws IOException {
+        saveMeasurements(fromDateTime.plusMinutes(1), 20.0);
+
+        measurementPointStore.onMeasurementsDeleted(new MeasurementsDeletedEvent(DeletionTarget.DEPARTMENT, ID_ONE));
+
+        assertEquals(0, countChunkFiles());
+        assertTrue(measurementPointStore.getSeriesBuckets(ID_ONE, ID_ONE, fromDateTime, fromDateTime.plusHours(1), 3_600).isEmpty());
+    }
+
+    @Test
+    void onRetentionAppliedRemovesChunksBeforeTheBoundary() throws IOException {
+        saveMeasurements(fromDateTime.plusMinutes(1), 20.0, fromDateTime.plusMinutes(2), 20.0,
+                fromDateTime.plusMinutes(3), 20.0, fromDateTime.plusMinutes(4), 20.0);
+        saveMeasurements(fromDateTime.plusDays(1), 25.0);
+
+        measurementPointStore.onRetentionApplied(RetentionResult.builder().compactedBefore(fromDateTime.plusHours(1)).build());
+
+        List<SeriesBucket> buckets = measurementPointStore.getSeriesBuckets(ID_ONE, ID_ONE,
+                fromDateTime, fromDateTime.plusDays(2), 86_400);
+        assertEquals(1, buckets.size());
+        assertEquals(25.0, buckets.get(0).getAverageValue());
+        assertEquals(1, countChunkFiles());
+    }
+
+    @Test
+    void onMeasurementsSavedAfterShutdownIsIgnored() throws IOException {
+        measurementPointStore.destroy();
+
+        saveMeasurements(fromDateTime.plusMinutes(1), 20.0);
+
+        assertEquals(0, countChunkFiles());
+        assertFalse(Files.exists(directory.resolve(ID_ONE + "-" + ID_ONE)));
+    }
+
+    private ChunkFileMeasurementPointStore startStore() throws IOException {
+        ChunkFileMeasurementPointStore store = new ChunkFileMeasurementPointStore(fallbackStore, measurementRepository,
+                directory, MAX_POINTS_PER_CHUNK);
+        store.afterPropertiesSet();
+        return store;
+    }
+
+    // timestamp and value pairs
+    private void saveMeasurements(Object... timestampsAndValues) {
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < timestampsAndValues.length; i += 2) {
+            measurements.add(Measurement.builder()
+                    .measurementTimestamp((ZonedDateTime) timestampsAndValues[i])
+                    .value((Double) timestampsAndValues[i + 1])
+                    .metric(metricTemperature)
+                    .department(departmentAlpha)
+                    .build());
+        }
+        measurementPointStore.onMeasurementsSaved(new MeasurementsSavedEvent(Collections.unmodifiableList(measurements)));
+    }
+
+    private long countChunkFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(path -> path.toString().endsWith(ChunkFileMeasurementPointStore.CHUNK_SUFFIX)).count();
+        }
+    }
+}
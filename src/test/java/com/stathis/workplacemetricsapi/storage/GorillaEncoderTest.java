@@ -0,0 +1,84 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GorillaEncoderTest {
+
+    private static final long START = 1_606_860_000L;
+
+    @Test
+    void regularReadingsCompressWell() {
+        long[] timestamps = new long[1_000];
+        double[] values = new double[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = START + i * 60L;
+            values[i] = 20.0 + (i % 4) * 0.5;
+        }
+
+        GorillaEncoder encoder = roundTrip(timestamps, values);
+
+        // one bit per timestamp and a few bits per value against 16 bytes a raw point
+        assertTrue(encoder.getByteLength() < timestamps.length * 2);
+    }
+
+    @Test
+    void outOfOrderAndIrregularTimestamps() {
+        long[] timestamps = {START, START + 60, START + 30, START + 3_600, START - 86_400, START + 1, START + 1,
+                START + 40_000_000_000L, Long.MIN_VALUE / 4, START};
+        double[] values = new double[timestamps.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        roundTrip(timestamps, values);
+    }
+
+    @Test
+    void specialAndExtremeValues() {
+        double[] values = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MAX_VALUE,
+                Double.MIN_VALUE, -Double.MAX_VALUE, 1e-300, 21.5, 21.5, 21.25, -7.0};
+        long[] timestamps = new long[values.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = START + i;
+        }
+
+        roundTrip(timestamps, values);
+    }
+
+    @Test
+    void randomPoints() {
+        Random random = new Random(42);
+        long[] timestamps = new long[10_000];
+        double[] values = new double[timestamps.length];
+        long timestamp = START;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamp += random.nextInt(5_000) - 1_000;
+            timestamps[i] = timestamp;
+            values[i] = random.nextBoolean() ? random.nextGaussian() * 100 : Math.round(random.nextDouble() * 40);
+        }
+
+        roundTrip(timestamps, values);
+    }
+
+    private static GorillaEncoder roundTrip(long[] timestamps, double[] values) {
+        GorillaEncoder encoder = new GorillaEncoder();
+        for (int i = 0; i < timestamps.length; i++) {
+            encoder.add(timestamps[i], values[i]);
+        }
+        assertEquals(timestamps.length, encoder.getCount());
+
+        GorillaDecoder decoder = new GorillaDecoder(ByteBuffer.wrap(encoder.getBuffer()), 0);
+        for (int i = 0; i < timestamps.length; i++) {
+            decoder.next();
+            assertEquals(timestamps[i], decoder.getTimestamp());
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decoder.getValue()));
+        }
+        return encoder;
+    }
+}
@@ -0,0 +1,155 @@
+package com.stathis.workplacemetricsapi.storage;
+
+import com.stathis.workplacemetricsapi.domain.Department;
+import com.stathis.workplacemetricsapi.domain.Measurement;
+import com.stathis.workplacemetricsapi.domain.Metric;
+import com.stathis.workplacemetricsapi.model.MeasurementDTO;
+import com.stathis.workplacemetricsapi.model.MeasurementsSavedEvent;
+import com.stathis.workplacemetricsapi.repositories.DepartmentRepository;
+import com.stathis.workplacemetricsapi.repositories.MeasurementRepository;
+import com.stathis.workplacemetricsapi.repositories.MetricRepository;
+import com.stathis.workplacemetricsapi.services.MeasurementService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// compares bytes per point and series query latency of the database and the chunk files on the same readings.
+// mvn test -Dtest=MeasurementStorageBenchmark -Dbenchmark=true [-Dspring.profiles.active=h2]
+// an in-memory H2 database does not report its size, only the query latencies are compared there
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {"measurements.retention.enabled=false", "measurements.storage.backend=jpa"})
+class MeasurementStorageBenchmark {
+
+    private static final int SERIES = 10;
+    private static final int POINTS_PER_SERIES = 20_000;
+    private static final int BATCH_SIZE = 5_000;
+    private static final int QUERIES = 500;
+    private static final long BUCKET_SECONDS = 300;
+
+    @Autowired
+    MeasurementService measurementService;
+
+    @Autowired
+    MeasurementRepository measurementRepository;
+
+    @Autowired
+    MetricRepository metricRepository;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compareStorageBackends() throws IOException {
+        JpaMeasurementPointStore jpaStore = new JpaMeasurementPointStore(measurementRepository);
+        ChunkFileMeasurementPointStore chunkStore = new ChunkFileMeasurementPointStore(jpaStore, measurementRepository,
+                directory, 65_536);
+        chunkStore.afterPropertiesSet();
+
+        // one reading a minute per series, a sensor style random walk with one decimal
+        ZonedDateTime start = ZonedDateTime.of(2021, 1, 4, 0, 0, 0, 0, ZoneId.systemDefault());
+        Random random = new Random(42);
+        String run = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+        Metric metric = metricRepository.save(Metric.builder().type("Benchmark " + run).measurementUnit(run).build());
+        List<Department> departments = new ArrayList<>();
+        for (int series = 0; series < SERIES; series++) {
+            Department department = departmentRepository.save(Department.builder().name("Benchmark " + run + " " + series).build());
+            departments.add(department);
+            double value = 21.0;
+            for (int offset = 0; offset < POINTS_PER_SERIES; offset += BATCH_SIZE) {
+                List<MeasurementDTO> measurementDTOs = new ArrayList<>();
+                List<Measurement> measurements = new ArrayList<>();
+                for (int i = offset; i < offset + BATCH_SIZE; i++) {
+                    value = Math.round((value + random.nextGaussian() * 0.2) * 10) / 10.0;
+                    ZonedDateTime timestamp = start.plusMinutes(i);
+                    measurementDTOs.add(MeasurementDTO.builder().metricId(metric.getId()).departmentId(department.getId())
+                            .measurementTimestamp(timestamp).value(value).build());
+                    measurements.add(Measurement.builder().metric(metric).department(department)
+                            .measurementTimestamp(timestamp).value(value).build());
+                }
+                measurementService.saveMeasurements(measurementDTOs);
+                chunkStore.onMeasurementsSaved(new MeasurementsSavedEvent(measurements));
+            }
+        }
+        long points = (long) SERIES * POINTS_PER_SERIES;
+
+        // the table may hold other readings as well, its size is spread over all of them
+        long databaseBytes = databaseBytes();
+        log.info("Points: {}, database: {} bytes/point, chunk files: {} bytes/point", points,
+                databaseBytes == 0 ? "n/a" : String.format("%.2f", (double) databaseBytes / measurementRepository.count()),
+                String.format("%.2f", (double) chunkFileBytes() / points));
+
+        // one day of five minute buckets of a random series
+        long[] jpaNanos = new long[QUERIES];
+        long[] chunkNanos = new long[QUERIES];
+        for (int query = 0; query < QUERIES; query++) {
+            Department department = departments.get(random.nextInt(SERIES));
+            ZonedDateTime from = start.plusMinutes(random.nextInt(POINTS_PER_SERIES - 1_440));
+            ZonedDateTime to = from.plusDays(1);
+
+            long started = System.nanoTime();
+            int jpaBuckets = jpaStore.getSeriesBuckets(metric.getId(), department.getId(), from, to, BUCKET_SECONDS).size();
+            jpaNanos[query] = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            int chunkBuckets = chunkStore.readSeriesBuckets(metric.getId(), department.getId(), from, to, BUCKET_SECONDS).size();
+            chunkNanos[query] = System.nanoTime() - started;
+
+            assertEquals(jpaBuckets, chunkBuckets);
+        }
+        // the first fifth warms up both paths
+        log.info("Series query latency, database: {}, chunk files: {}",
+                percentiles(Arrays.copyOfRange(jpaNanos, QUERIES / 5, QUERIES)),
+                percentiles(Arrays.copyOfRange(chunkNanos, QUERIES / 5, QUERIES)));
+
+        chunkStore.destroy();
+    }
+
+    private long databaseBytes() {
+        String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"H2".equalsIgnoreCase(productName)) {
+            jdbcTemplate.execute("ANALYZE TABLE measurements");
+            return jdbcTemplate.queryForObject("SELECT data_length + index_length FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = 'measurements'", Long.class);
+        }
+        return jdbcTemplate.queryForObject("CALL DISK_SPACE_USED('MEASUREMENTS')", Long.class);
+    }
+
+    private long chunkFileBytes() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private static String percentiles(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("median %.3f ms, p99 %.3f ms",
+                sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6);
+    }
+}